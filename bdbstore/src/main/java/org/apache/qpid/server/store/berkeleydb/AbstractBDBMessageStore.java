@@ -58,8 +58,10 @@ import org.apache.qpid.server.store.StorableMessageMetaData;
 import org.apache.qpid.server.store.StoreException;
 import org.apache.qpid.server.store.StoredMessage;
 import org.apache.qpid.server.store.TransactionLogResource;
+import org.apache.qpid.server.store.berkeleydb.entry.MessageContentKey;
 import org.apache.qpid.server.store.berkeleydb.entry.PreparedTransaction;
 import org.apache.qpid.server.store.berkeleydb.entry.QueueEntryKey;
+import org.apache.qpid.server.store.berkeleydb.tuple.MessageContentKeyBinding;
 import org.apache.qpid.server.store.berkeleydb.tuple.MessageMetaDataBinding;
 import org.apache.qpid.server.store.berkeleydb.tuple.PreparedTransactionBinding;
 import org.apache.qpid.server.store.berkeleydb.tuple.QueueEntryBinding;
@@ -79,6 +81,12 @@ public abstract class AbstractBDBMessageStore implements MessageStore
     private static final String MESSAGE_META_DATA_DB_NAME = "MESSAGE_METADATA";
     private static final String MESSAGE_META_DATA_SEQ_DB_NAME = "MESSAGE_METADATA.SEQ";
     private static final String MESSAGE_CONTENT_DB_NAME = "MESSAGE_CONTENT";
+
+    /**
+     * Message content is stored as records of this size keyed by (message id, chunk number), only the last chunk of
+     * a message may be shorter.  The size is part of the store format and must not be changed without an upgrader.
+     */
+    static final int CONTENT_CHUNK_SIZE = 64 * 1024;
     private static final String DELIVERY_DB_NAME = "QUEUE_ENTRIES";
 
     //TODO: Add upgrader to remove BRIDGES and LINKS
@@ -102,6 +110,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore
     private final Random _lockConflictRandom = new Random();
     private final AtomicLong _inMemorySize = new AtomicLong();
     private final AtomicLong _bytesEvacuatedFromMemory = new AtomicLong();
+    private final AtomicLong _bytesReloadedIntoMemory = new AtomicLong();
     private final Set<StoredBDBMessage<?>> _messages = Collections.newSetFromMap(new ConcurrentHashMap<>());
     private final Set<MessageDeleteListener> _messageDeleteListeners = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
@@ -172,6 +181,12 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         return _bytesEvacuatedFromMemory.get();
     }
 
+    @Override
+    public long getBytesReloadedIntoMemory()
+    {
+        return _bytesReloadedIntoMemory.get();
+    }
+
     @Override
     public boolean isPersistent()
     {
@@ -202,6 +217,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         _messages.clear();
         _inMemorySize.set(0);
         _bytesEvacuatedFromMemory.set(0);
+        _bytesReloadedIntoMemory.set(0);
     }
 
     @Override
@@ -279,9 +295,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore
                     getLogger().debug("Deleted metadata for message {}", messageId);
 
                     //now remove the content data from the store if there is any.
-                    DatabaseEntry contentKeyEntry = new DatabaseEntry();
-                    LongBinding.longToEntry(messageId, contentKeyEntry);
-                    getMessageContentDb().delete(tx, contentKeyEntry);
+                    removeContent(tx, messageId);
 
                     getLogger().debug("Deleted content for message {}", messageId);
 
@@ -347,33 +361,84 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         }
     }
 
-    QpidByteBuffer getAllContent(long messageId) throws StoreException
+    private void removeContent(final Transaction tx, final long messageId)
     {
         DatabaseEntry contentKeyEntry = new DatabaseEntry();
-        LongBinding.longToEntry(messageId, contentKeyEntry);
+        MessageContentKeyBinding.objectToEntry(new MessageContentKey(messageId, 0), contentKeyEntry);
         DatabaseEntry value = new DatabaseEntry();
+        value.setPartial(0, 0, true);
 
-        getLogger().debug("Message Id: {} Getting content body", messageId);
-
-        try
+        try (Cursor cursor = getMessageContentDb().openCursor(tx, null))
         {
-            OperationStatus status = getMessageContentDb().get(null, contentKeyEntry, value, LockMode.READ_UNCOMMITTED);
-
-            if (status == OperationStatus.SUCCESS)
+            OperationStatus status = cursor.getSearchKeyRange(contentKeyEntry, value, LockMode.RMW);
+            while (status == OperationStatus.SUCCESS
+                   && MessageContentKeyBinding.entryToObject(contentKeyEntry).getMessageId() == messageId)
             {
-                byte[] data = value.getData();
-                int offset = value.getOffset();
-                int length = value.getSize();
-                QpidByteBuffer buf = QpidByteBuffer.allocateDirect(length);
-                buf.put(data, offset, length);
-                buf.flip();
-                return buf;
+                cursor.delete();
+                status = cursor.getNext(contentKeyEntry, value, LockMode.RMW);
             }
-            else
+        }
+    }
+
+    QpidByteBuffer getAllContent(long messageId) throws StoreException
+    {
+        return getContent(messageId, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads a range of the message content, touching only the content chunks that overlap the range.
+     *
+     * @param messageId the message to read the content of
+     * @param offset    the offset of the first byte to read
+     * @param length    the maximum number of bytes to read
+     * @return a buffer holding the requested range, truncated at the end of the content
+     * @throws StoreException if no content is stored for the given offset
+     */
+    QpidByteBuffer getContent(long messageId, int offset, int length) throws StoreException
+    {
+        getLogger().debug("Message Id: {} Getting content body from offset {}", messageId, offset);
+
+        DatabaseEntry contentKeyEntry = new DatabaseEntry();
+        MessageContentKeyBinding.objectToEntry(new MessageContentKey(messageId, offset / CONTENT_CHUNK_SIZE),
+                                               contentKeyEntry);
+        DatabaseEntry value = new DatabaseEntry();
+        int chunkOffset = offset % CONTENT_CHUNK_SIZE;
+
+        try (Cursor cursor = getMessageContentDb().openCursor(null, null))
+        {
+            OperationStatus status = cursor.getSearchKey(contentKeyEntry, value, LockMode.READ_UNCOMMITTED);
+            if (status != OperationStatus.SUCCESS)
             {
                 throw new StoreException("Unable to find message with id " + messageId);
             }
 
+            final List<QpidByteBuffer> chunks = new ArrayList<>();
+            long remaining = length;
+            int size = 0;
+            while (status == OperationStatus.SUCCESS
+                   && remaining > 0
+                   && MessageContentKeyBinding.entryToObject(contentKeyEntry).getMessageId() == messageId)
+            {
+                int chunkLength = (int) Math.min(remaining, Math.max(0, value.getSize() - chunkOffset));
+                chunks.add(QpidByteBuffer.wrap(value.getData(), value.getOffset() + chunkOffset, chunkLength));
+                size += chunkLength;
+                remaining -= chunkLength;
+                chunkOffset = 0;
+
+                value = new DatabaseEntry();
+                status = cursor.getNext(contentKeyEntry, value, LockMode.READ_UNCOMMITTED);
+            }
+
+            QpidByteBuffer buf = QpidByteBuffer.allocateDirect(size);
+            for (QpidByteBuffer chunk : chunks)
+            {
+                try (QpidByteBuffer data = chunk)
+                {
+                    buf.put(data);
+                }
+            }
+            buf.flip();
+            return buf;
         }
         catch (RuntimeException e)
         {
@@ -468,22 +533,28 @@ public abstract class AbstractBDBMessageStore implements MessageStore
      */
     private void addContent(final Transaction tx, long messageId, QpidByteBuffer contentBody) throws StoreException
     {
-        DatabaseEntry key = new DatabaseEntry();
-        LongBinding.longToEntry(messageId, key);
-        DatabaseEntry value = new DatabaseEntry();
-
-        byte[] data = new byte[contentBody.remaining()];
-        contentBody.copyTo(data);
-        value.setData(data);
-        try
+        try (QpidByteBuffer content = contentBody.duplicate())
         {
-            OperationStatus status = getMessageContentDb().put(tx, key, value);
-            if (status != OperationStatus.SUCCESS)
+            int chunkNumber = 0;
+            do
             {
-                throw new StoreException("Error adding content for message id " + messageId + ": " + status);
+                DatabaseEntry key = new DatabaseEntry();
+                MessageContentKeyBinding.objectToEntry(new MessageContentKey(messageId, chunkNumber), key);
+                byte[] data = new byte[Math.min(CONTENT_CHUNK_SIZE, content.remaining())];
+                content.get(data);
+                DatabaseEntry value = new DatabaseEntry(data);
+
+                OperationStatus status = getMessageContentDb().put(tx, key, value);
+                if (status != OperationStatus.SUCCESS)
+                {
+                    throw new StoreException("Error adding content for message id " + messageId + ": " + status);
+                }
+                chunkNumber++;
             }
+            while (content.hasRemaining());
 
-            getLogger().debug("Storing content for message {} in transaction {}", messageId, tx);
+            getLogger().debug("Storing content for message {} in {} chunk(s) in transaction {}",
+                              messageId, chunkNumber, tx);
 
         }
         catch (RuntimeException e)
@@ -962,6 +1033,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore
                     metaData = (T) getMessageMetaData(_messageId);
                     _messageDataRef = new MessageDataRef<>(metaData, _messageDataRef.getData(), false);
                     _inMemorySize.addAndGet(getMetadataSize());
+                    _bytesReloadedIntoMemory.addAndGet(getMetadataSize());
                 }
                 return metaData;
             }
@@ -1010,6 +1082,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore
                     data = AbstractBDBMessageStore.this.getAllContent(_messageId);
                     _messageDataRef.setData(data);
                     _inMemorySize.addAndGet(getContentSize());
+                    _bytesReloadedIntoMemory.addAndGet(getContentSize());
                 }
                 else
                 {
@@ -1023,6 +1096,20 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         @Override
         public synchronized QpidByteBuffer getContent(int offset, int length)
         {
+            if (isPartialContentReadFromStore(offset, length))
+            {
+                int available = Math.max(0, getContentSize() - offset);
+                int rangeLength = Math.min(length, available);
+                if (rangeLength == 0)
+                {
+                    return QpidByteBuffer.emptyQpidByteBuffer();
+                }
+                checkMessageStoreOpen();
+                final QpidByteBuffer range = AbstractBDBMessageStore.this.getContent(_messageId, offset, rangeLength);
+                _bytesReloadedIntoMemory.addAndGet(range.remaining());
+                return range;
+            }
+
             QpidByteBuffer contentAsByteBuffer = getContentAsByteBuffer();
             if (length == Integer.MAX_VALUE)
             {
@@ -1031,6 +1118,17 @@ public abstract class AbstractBDBMessageStore implements MessageStore
             return contentAsByteBuffer.view(offset, length);
         }
 
+        /**
+         * A read of part of the content of a message which is not held in memory is served directly from the
+         * content chunks in the store, without loading (and retaining) the whole content.
+         */
+        private boolean isPartialContentReadFromStore(int offset, int length)
+        {
+            return (offset > 0 || length < getContentSize())
+                   && stored()
+                   && _messageDataRef.getData() == null;
+        }
+
         @Override
         public int getContentSize()
         {
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.qpid.server.store.berkeleydb.upgrade;
+
+import java.util.Arrays;
+
+import com.sleepycat.bind.tuple.LongBinding;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.store.StoreException;
+import org.apache.qpid.server.store.berkeleydb.entry.MessageContentKey;
+import org.apache.qpid.server.store.berkeleydb.tuple.MessageContentKeyBinding;
+
+/**
+ * Splits the content of each message, previously held as a single record keyed by message id, into fixed-size
+ * chunks keyed by (message id, chunk number).
+ */
+@SuppressWarnings("unused")
+public class UpgradeFrom9To10 extends AbstractStoreUpgrade
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(UpgradeFrom9To10.class);
+
+    private static final String MESSAGE_CONTENT_DB_NAME = "MESSAGE_CONTENT";
+    private static final String MESSAGE_CONTENT_CHUNKS_DB_NAME = "MESSAGE_CONTENT_CHUNKS";
+    private static final int CONTENT_CHUNK_SIZE = 64 * 1024;
+
+    @Override
+    public void performUpgrade(final Environment environment,
+                               final UpgradeInteractionHandler handler,
+                               final ConfiguredObject<?> parent)
+    {
+        reportStarting(environment, 9);
+
+        final Transaction transaction = environment.beginTransaction(null, null);
+        try
+        {
+            if (environment.getDatabaseNames().contains(MESSAGE_CONTENT_DB_NAME))
+            {
+                CursorOperation contentOperation = new CursorOperation()
+                {
+                    @Override
+                    public void processEntry(final Database sourceDatabase,
+                                             final Database targetDatabase,
+                                             final Transaction transaction,
+                                             final DatabaseEntry key,
+                                             final DatabaseEntry value)
+                    {
+                        long messageId = LongBinding.entryToLong(key);
+                        addContentChunks(targetDatabase, transaction, messageId, value);
+                    }
+                };
+                new DatabaseTemplate(environment,
+                                     MESSAGE_CONTENT_DB_NAME,
+                                     MESSAGE_CONTENT_CHUNKS_DB_NAME,
+                                     transaction).run(contentOperation);
+                environment.removeDatabase(transaction, MESSAGE_CONTENT_DB_NAME);
+                environment.renameDatabase(transaction, MESSAGE_CONTENT_CHUNKS_DB_NAME, MESSAGE_CONTENT_DB_NAME);
+                LOGGER.info(contentOperation.getRowCount() + " Message Content entries");
+            }
+
+            transaction.commit();
+            reportFinished(environment, 10);
+        }
+        catch (RuntimeException e)
+        {
+            try
+            {
+                if (transaction.isValid())
+                {
+                    transaction.abort();
+                }
+            }
+            finally
+            {
+                throw e;
+            }
+        }
+    }
+
+    private void addContentChunks(final Database targetDatabase,
+                                  final Transaction transaction,
+                                  final long messageId,
+                                  final DatabaseEntry content)
+    {
+        final byte[] data = content.getData();
+        final int start = content.getOffset();
+        final int end = start + content.getSize();
+        int chunkNumber = 0;
+        int position = start;
+        do
+        {
+            int chunkEnd = Math.min(end, position + CONTENT_CHUNK_SIZE);
+            DatabaseEntry chunkKey = new DatabaseEntry();
+            MessageContentKeyBinding.objectToEntry(new MessageContentKey(messageId, chunkNumber), chunkKey);
+            DatabaseEntry chunkValue = new DatabaseEntry(Arrays.copyOfRange(data, position, chunkEnd));
+
+            OperationStatus status = targetDatabase.put(transaction, chunkKey, chunkValue);
+            if (status != OperationStatus.SUCCESS)
+            {
+                throw new StoreException("Cannot add content chunk " + chunkNumber + " of message " + messageId
+                                         + ": " + status);
+            }
+            position = chunkEnd;
+            chunkNumber++;
+        }
+        while (position < end);
+    }
+}
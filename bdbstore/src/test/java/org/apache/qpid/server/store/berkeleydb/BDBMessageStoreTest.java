@@ -122,11 +122,95 @@ public class BDBMessageStoreTest extends MessageStoreTestCase
         }
     }
 
+    public void testMultiChunkContentRangeReadAndRemoval() throws Exception
+    {
+        BDBMessageStore bdbStore = (BDBMessageStore) getStore();
+
+        byte[] content = new byte[AbstractBDBMessageStore.CONTENT_CHUNK_SIZE * 2 + 100];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) i;
+        }
+        StoredMessage<MessageMetaData> storedMessage = createAndStoreMessage_0_8(bdbStore, content);
+        long messageId = storedMessage.getMessageNumber();
+
+        try (QpidByteBuffer allContent = bdbStore.getAllContent(messageId))
+        {
+            assertContent(content, 0, content.length, allContent);
+        }
+
+        int offset = AbstractBDBMessageStore.CONTENT_CHUNK_SIZE - 10;
+        int length = AbstractBDBMessageStore.CONTENT_CHUNK_SIZE + 20;
+        try (QpidByteBuffer range = bdbStore.getContent(messageId, offset, length))
+        {
+            assertContent(content, offset, length, range);
+        }
+
+        int tailOffset = content.length - 50;
+        try (QpidByteBuffer tail = bdbStore.getContent(messageId, tailOffset, 1000))
+        {
+            assertContent(content, tailOffset, 50, tail);
+        }
+
+        bdbStore.removeMessage(messageId, true);
+
+        try
+        {
+            bdbStore.getContent(messageId, AbstractBDBMessageStore.CONTENT_CHUNK_SIZE * 2, 10);
+            fail("Expected exception not thrown");
+        }
+        catch (StoreException se)
+        {
+            // PASS
+        }
+    }
+
+    public void testRangeReadOfFlowedMessageCountsBytesReloaded() throws Exception
+    {
+        BDBMessageStore bdbStore = (BDBMessageStore) getStore();
+
+        byte[] content = new byte[AbstractBDBMessageStore.CONTENT_CHUNK_SIZE * 2 + 100];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) i;
+        }
+        StoredMessage<MessageMetaData> storedMessage = createAndStoreMessage_0_8(bdbStore, content);
+        storedMessage.flowToDisk();
+        long bytesReloaded = bdbStore.getBytesReloadedIntoMemory();
+
+        int offset = AbstractBDBMessageStore.CONTENT_CHUNK_SIZE - 10;
+        int length = AbstractBDBMessageStore.CONTENT_CHUNK_SIZE + 20;
+        try (QpidByteBuffer range = storedMessage.getContent(offset, length))
+        {
+            assertContent(content, offset, length, range);
+        }
+
+        assertEquals("Unexpected number of bytes reloaded", bytesReloaded + length,
+                     bdbStore.getBytesReloadedIntoMemory());
+        assertFalse("Range read should not load the whole content", storedMessage.isInMemory());
+    }
+
+    private void assertContent(byte[] expected, int offset, int length, QpidByteBuffer actual)
+    {
+        assertEquals("Unexpected content length", length, actual.remaining());
+        byte[] actualBytes = new byte[length];
+        actual.get(actualBytes);
+        for (int i = 0; i < length; i++)
+        {
+            assertEquals("Unexpected content at position " + (offset + i), expected[offset + i], actualBytes[i]);
+        }
+    }
+
     private StoredMessage<MessageMetaData> createAndStoreSingleChunkMessage_0_8(MessageStore store)
     {
-        QpidByteBuffer chunk1 = QpidByteBuffer.wrap(CONTENT_BYTES);
+        return createAndStoreMessage_0_8(store, CONTENT_BYTES);
+    }
+
+    private StoredMessage<MessageMetaData> createAndStoreMessage_0_8(MessageStore store, byte[] content)
+    {
+        QpidByteBuffer chunk1 = QpidByteBuffer.wrap(content);
 
-        int bodySize = CONTENT_BYTES.length;
+        int bodySize = content.length;
 
         //create and store the message using the MessageStore interface
         MessagePublishInfo pubInfoBody_0_8 = createPublishInfoBody_0_8();
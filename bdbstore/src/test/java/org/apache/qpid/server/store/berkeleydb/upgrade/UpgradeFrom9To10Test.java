@@ -0,0 +1,120 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.qpid.server.store.berkeleydb.upgrade;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sleepycat.bind.tuple.LongBinding;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Transaction;
+
+import org.apache.qpid.server.store.berkeleydb.entry.MessageContentKey;
+import org.apache.qpid.server.store.berkeleydb.tuple.MessageContentKeyBinding;
+
+public class UpgradeFrom9To10Test extends AbstractUpgradeTestCase
+{
+    private static final String MESSAGE_CONTENT_DB_NAME = "MESSAGE_CONTENT";
+    private static final int CONTENT_CHUNK_SIZE = 64 * 1024;
+
+    @Override
+    protected String getStoreDirectoryName()
+    {
+        return "bdbstore-v8";
+    }
+
+    public void testPerformUpgrade() throws Exception
+    {
+        final Map<Long, byte[]> expectedContent = loadContentByMessageId();
+        final long largeMessageId = 1 + expectedContent.keySet().stream().mapToLong(Long::longValue).max().orElse(0L);
+        final byte[] largeContent = new byte[CONTENT_CHUNK_SIZE * 2 + 10];
+        for (int i = 0; i < largeContent.length; i++)
+        {
+            largeContent[i] = (byte) i;
+        }
+        new DatabaseTemplate(_environment, MESSAGE_CONTENT_DB_NAME, null).run(new DatabaseRunnable()
+        {
+            @Override
+            public void run(final Database sourceDatabase, final Database targetDatabase, final Transaction transaction)
+            {
+                DatabaseEntry key = new DatabaseEntry();
+                LongBinding.longToEntry(largeMessageId, key);
+                sourceDatabase.put(transaction, key, new DatabaseEntry(largeContent));
+            }
+        });
+        expectedContent.put(largeMessageId, largeContent);
+
+        UpgradeFrom9To10 upgrade = new UpgradeFrom9To10();
+        upgrade.performUpgrade(_environment, UpgradeInteractionHandler.DEFAULT_HANDLER, getVirtualHost());
+
+        final Map<Long, ByteArrayOutputStream> upgradedContent = new HashMap<>();
+        final Map<Long, Integer> chunkCounts = new HashMap<>();
+        CursorOperation contentCursor = new CursorOperation()
+        {
+            @Override
+            public void processEntry(Database sourceDatabase, Database targetDatabase, Transaction transaction,
+                                     DatabaseEntry key, DatabaseEntry value)
+            {
+                MessageContentKey contentKey = MessageContentKeyBinding.entryToObject(key);
+                int expectedChunkNumber = chunkCounts.getOrDefault(contentKey.getMessageId(), 0);
+                assertEquals("Unexpected chunk number", expectedChunkNumber, contentKey.getChunkNumber());
+                assertTrue("Chunk too large", value.getSize() <= CONTENT_CHUNK_SIZE);
+                chunkCounts.put(contentKey.getMessageId(), expectedChunkNumber + 1);
+                upgradedContent.computeIfAbsent(contentKey.getMessageId(), id -> new ByteArrayOutputStream())
+                               .write(value.getData(), value.getOffset(), value.getSize());
+            }
+        };
+        new DatabaseTemplate(_environment, MESSAGE_CONTENT_DB_NAME, null).run(contentCursor);
+
+        assertEquals("Unexpected messages", expectedContent.keySet(), upgradedContent.keySet());
+        for (Map.Entry<Long, byte[]> entry : expectedContent.entrySet())
+        {
+            assertTrue("Unexpected content for message " + entry.getKey(),
+                       Arrays.equals(entry.getValue(), upgradedContent.get(entry.getKey()).toByteArray()));
+        }
+        assertEquals("Unexpected number of chunks for large message", 3, (int) chunkCounts.get(largeMessageId));
+        assertFalse("Temporary database not removed",
+                    _environment.getDatabaseNames().contains("MESSAGE_CONTENT_CHUNKS"));
+    }
+
+    private Map<Long, byte[]> loadContentByMessageId()
+    {
+        final Map<Long, byte[]> content = new HashMap<>();
+        CursorOperation contentCursor = new CursorOperation()
+        {
+            @Override
+            public void processEntry(Database sourceDatabase, Database targetDatabase, Transaction transaction,
+                                     DatabaseEntry key, DatabaseEntry value)
+            {
+                content.put(LongBinding.entryToLong(key),
+                            Arrays.copyOfRange(value.getData(),
+                                               value.getOffset(),
+                                               value.getOffset() + value.getSize()));
+            }
+        };
+        new DatabaseTemplate(_environment, MESSAGE_CONTENT_DB_NAME, null).run(contentCursor);
+        return content;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.model;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.apache.qpid.server.License;
+
+/**
+ * Generates, for each interface declaring managed attributes, derived attributes or managed statistics, a table
+ * of accessors calling the annotated getters directly, so that the values of attributes and statistics can be
+ * read without reflection.
+ * <p>
+ * The table for an interface <code>p.Outer$Inner</code> is the class <code>p.Outer_InnerAccessors</code>, exposing
+ * the accessors keyed by getter name from a static <code>getAccessors()</code> method.
+ */
+@SupportedAnnotationTypes({ConfiguredObjectAccessorGenerator.MANAGED_ATTRIBUTE_CLASS_NAME,
+                           ConfiguredObjectAccessorGenerator.DERIVED_ATTRIBUTE_CLASS_NAME,
+                           ConfiguredObjectAccessorGenerator.MANAGED_STATISTIC_CLASS_NAME})
+public class ConfiguredObjectAccessorGenerator extends AbstractProcessor
+{
+    public static final String MANAGED_ATTRIBUTE_CLASS_NAME = "org.apache.qpid.server.model.ManagedAttribute";
+    public static final String DERIVED_ATTRIBUTE_CLASS_NAME = "org.apache.qpid.server.model.DerivedAttribute";
+    public static final String MANAGED_STATISTIC_CLASS_NAME = "org.apache.qpid.server.model.ManagedStatistic";
+
+    public static final String ACCESSORS_CLASS_SUFFIX = "Accessors";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latest();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv)
+    {
+        if(roundEnv.processingOver())
+        {
+            return false;
+        }
+
+        final Elements elementUtils = processingEnv.getElementUtils();
+        final Map<TypeElement, List<ExecutableElement>> gettersByInterface = new LinkedHashMap<>();
+        for (String annotationName : new String[]{MANAGED_ATTRIBUTE_CLASS_NAME,
+                                                  DERIVED_ATTRIBUTE_CLASS_NAME,
+                                                  MANAGED_STATISTIC_CLASS_NAME})
+        {
+            final TypeElement annotationElement = elementUtils.getTypeElement(annotationName);
+            if (annotationElement == null)
+            {
+                continue;
+            }
+            for (Element e : roundEnv.getElementsAnnotatedWith(annotationElement))
+            {
+                if (isAccessibleGetter(e))
+                {
+                    final TypeElement interfaceElement = (TypeElement) e.getEnclosingElement();
+                    gettersByInterface.computeIfAbsent(interfaceElement, i -> new ArrayList<>())
+                                      .add((ExecutableElement) e);
+                }
+            }
+        }
+
+        final Filer filer = processingEnv.getFiler();
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : gettersByInterface.entrySet())
+        {
+            generateAccessors(filer, entry.getKey(), entry.getValue());
+        }
+
+        return false;
+    }
+
+    /**
+     * Getters which cannot be called from a lambda in the package of the interface are left to be called
+     * reflectively; the attribute annotation validators report any which are invalid.
+     */
+    private boolean isAccessibleGetter(final Element e)
+    {
+        if (e.getKind() != ElementKind.METHOD || e.getEnclosingElement().getKind() != ElementKind.INTERFACE)
+        {
+            return false;
+        }
+        final ExecutableElement methodElement = (ExecutableElement) e;
+        final TypeElement interfaceElement = (TypeElement) e.getEnclosingElement();
+        return methodElement.getParameters().isEmpty()
+               && methodElement.getThrownTypes().isEmpty()
+               && methodElement.getTypeParameters().isEmpty()
+               && !methodElement.getModifiers().contains(Modifier.STATIC)
+               && !interfaceElement.getModifiers().contains(Modifier.PRIVATE);
+    }
+
+    private void generateAccessors(final Filer filer,
+                                   final TypeElement interfaceElement,
+                                   final List<ExecutableElement> getters)
+    {
+        final Elements elementUtils = processingEnv.getElementUtils();
+        final PackageElement packageElement = elementUtils.getPackageOf(interfaceElement);
+        final String binaryName = elementUtils.getBinaryName(interfaceElement).toString();
+        final String packageName = packageElement.getQualifiedName().toString();
+        final String accessorsSimpleName =
+                (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_')
+                + ACCESSORS_CLASS_SUFFIX;
+        final String accessorsName = packageName.isEmpty() ? accessorsSimpleName : packageName + "." + accessorsSimpleName;
+        final String interfaceName = processingEnv.getTypeUtils().erasure(interfaceElement.asType()).toString();
+
+        try
+        {
+            JavaFileObject accessorsFile = filer.createSourceFile(accessorsName, interfaceElement);
+            PrintWriter pw = new PrintWriter(new OutputStreamWriter(accessorsFile.openOutputStream(), "UTF-8"));
+            pw.println("/*");
+            for (String headerLine : License.LICENSE)
+            {
+                pw.println(" *" + headerLine);
+            }
+            pw.println(" */");
+            pw.println();
+            if (!packageName.isEmpty())
+            {
+                pw.println("package " + packageName + ";");
+                pw.println();
+            }
+            pw.println("import java.util.HashMap;");
+            pw.println("import java.util.Map;");
+            pw.println("import java.util.function.Function;");
+            pw.println();
+            pw.println("@SuppressWarnings({\"rawtypes\", \"unchecked\"})");
+            pw.println("public final class " + accessorsSimpleName);
+            pw.println("{");
+            pw.println("    private " + accessorsSimpleName + "()");
+            pw.println("    {");
+            pw.println("    }");
+            pw.println();
+            pw.println("    public static Map<String, Function<Object, Object>> getAccessors()");
+            pw.println("    {");
+            pw.println("        final Map<String, Function<Object, Object>> accessors = new HashMap<>();");
+            for (ExecutableElement getter : getters)
+            {
+                final String methodName = getter.getSimpleName().toString();
+                pw.println("        accessors.put(\"" + methodName + "\", object -> ((" + interfaceName + ") object)."
+                           + methodName + "());");
+            }
+            pw.println("        return accessors;");
+            pw.println("    }");
+            pw.println("}");
+
+            pw.close();
+        }
+        catch (IOException e)
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                                                     "Failed to write accessors file: "
+                                                     + accessorsName
+                                                     + " - "
+                                                     + e.getLocalizedMessage());
+        }
+    }
+}
@@ -20,39 +20,256 @@
  */
 package org.apache.qpid.server.bytebuffer;
 
+import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Pool of direct buffers of the pooled buffer size.
+ * <p>
+ * The buffers are held in a number of shards, each guarded by its own lock.  In front of the shards every thread has
+ * a small cache of its own from which it gets, and to which it returns, buffers without any synchronisation.  Buffers
+ * are moved between a thread cache and the home shard of the thread in batches.  When the home shard is empty a
+ * buffer is stolen from one of the other shards.
+ * <p>
+ * The maximum pool size bounds the buffers held by the shards and the thread caches together: the capacity of each
+ * thread cache is reserved from the maximum when the cache is created, and at most half of the maximum may be
+ * reserved by thread caches, so threads created once the reservations are exhausted have no cache.  The cache of a
+ * thread is handed back to the shards when the thread terminates: explicitly by threads which call
+ * {@link #releaseThreadCache()}, and otherwise by a periodic sweep for the caches of terminated threads.
+ */
 class BufferPool
 {
+    static final int MAX_SHARDS = 16;
+    static final int MAX_THREAD_CACHE_SIZE = 32;
+    static final long DEFAULT_SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
     private final int _maxSize;
-    private final ConcurrentLinkedQueue<ByteBuffer> _pooledBuffers = new ConcurrentLinkedQueue<>();
-    private final AtomicInteger _size = new AtomicInteger();
+    private final Shard[] _shards;
+    private final int _threadCacheSize;
+    private final int _maxThreadCacheReservation;
+    private final int _batchSize;
+    private final long _sweepInterval;
+    private final AtomicInteger _nextShard = new AtomicInteger();
+    private final Set<ThreadCache> _threadCaches = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<ThreadCache> _threadCache = ThreadLocal.withInitial(this::createThreadCache);
+
+    /** Number of buffers which may still be pooled: the maximum less the shard buffers and thread cache capacity */
+    private final AtomicInteger _permits;
+    private final AtomicInteger _threadCacheReservation = new AtomicInteger();
+    private final AtomicLong _lastSweepTime;
+
+    private final AtomicLong _retiredHits = new AtomicLong();
+    private final AtomicLong _retiredMisses = new AtomicLong();
+    private final AtomicLong _retiredSteals = new AtomicLong();
 
     BufferPool(final int maxSize)
+    {
+        this(maxSize, Runtime.getRuntime().availableProcessors());
+    }
+
+    BufferPool(final int maxSize, final int concurrency)
+    {
+        this(maxSize, concurrency, DEFAULT_SWEEP_INTERVAL);
+    }
+
+    /**
+     * @param sweepInterval minimum time in nanoseconds between sweeps for the caches of terminated threads
+     */
+    BufferPool(final int maxSize, final int concurrency, final long sweepInterval)
     {
         _maxSize = maxSize;
+        _permits = new AtomicInteger(maxSize);
+        _sweepInterval = sweepInterval;
+        _lastSweepTime = new AtomicLong(System.nanoTime());
+
+        int shardCount = 1;
+        while (shardCount < concurrency && shardCount < MAX_SHARDS && shardCount * 2 <= maxSize)
+        {
+            shardCount <<= 1;
+        }
+        _shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++)
+        {
+            _shards[i] = new Shard(_permits);
+        }
+
+        _threadCacheSize = Math.max(0, Math.min(MAX_THREAD_CACHE_SIZE, maxSize / (2 * shardCount)));
+        _maxThreadCacheReservation = maxSize / 2;
+        _batchSize = Math.max(1, _threadCacheSize / 2);
     }
 
     ByteBuffer getBuffer()
     {
-        final ByteBuffer buffer = _pooledBuffers.poll();
-        if (buffer != null)
+        final ThreadCache cache = _threadCache.get();
+        ByteBuffer buffer = cache.pop();
+        if (buffer == null)
+        {
+            buffer = refill(cache);
+        }
+        else
+        {
+            cache._hits++;
+        }
+        return buffer;
+    }
+
+    private ByteBuffer refill(final ThreadCache cache)
+    {
+        sweepIfDue();
+        ByteBuffer buffer = takeFromShards(cache);
+        if (buffer == null && reclaimTerminatedThreadCaches())
+        {
+            buffer = takeFromShards(cache);
+        }
+        if (buffer == null)
         {
-            _size.decrementAndGet();
+            cache._misses++;
         }
         return buffer;
     }
 
+    private ByteBuffer takeFromShards(final ThreadCache cache)
+    {
+        final ByteBuffer buffer = _shards[cache._shardIndex].take(cache, _batchSize);
+        if (buffer != null)
+        {
+            cache._hits++;
+            return buffer;
+        }
+        for (int i = 1; i < _shards.length; i++)
+        {
+            final ByteBuffer stolen = _shards[(cache._shardIndex + i) & (_shards.length - 1)].poll();
+            if (stolen != null)
+            {
+                cache._steals++;
+                return stolen;
+            }
+        }
+        return null;
+    }
+
     void returnBuffer(ByteBuffer buf)
     {
         buf.clear();
-        if (size() < _maxSize)
+        final ThreadCache cache = _threadCache.get();
+        if (!cache.push(buf))
+        {
+            sweepIfDue();
+            ByteBuffer overflow = buf;
+            for (int i = 0; i < _shards.length && overflow != null; i++)
+            {
+                overflow = _shards[(cache._shardIndex + i) & (_shards.length - 1)].put(cache, _batchSize, overflow);
+            }
+        }
+    }
+
+    /**
+     * Hands the buffers cached by the current thread back to the shards.  Called when a thread terminates.
+     */
+    void releaseThreadCache()
+    {
+        final ThreadCache cache = _threadCache.get();
+        _threadCache.remove();
+        retire(cache);
+    }
+
+    private void sweepIfDue()
+    {
+        final long lastSweepTime = _lastSweepTime.get();
+        final long now = System.nanoTime();
+        if (now - lastSweepTime >= _sweepInterval && _lastSweepTime.compareAndSet(lastSweepTime, now))
+        {
+            reclaimTerminatedThreadCaches();
+        }
+    }
+
+    private boolean reclaimTerminatedThreadCaches()
+    {
+        boolean reclaimed = false;
+        for (ThreadCache cache : _threadCaches)
+        {
+            if (cache.isOwnerTerminated())
+            {
+                retire(cache);
+                reclaimed = true;
+            }
+        }
+        return reclaimed;
+    }
+
+    private void retire(final ThreadCache cache)
+    {
+        if (_threadCaches.remove(cache))
+        {
+            final int capacity = cache._buffers.length;
+            _threadCacheReservation.addAndGet(-capacity);
+            _permits.addAndGet(capacity);
+            for (int i = 0; i < _shards.length && cache._count > 0; i++)
+            {
+                _shards[(cache._shardIndex + i) & (_shards.length - 1)].put(cache, cache._count, null);
+            }
+            _retiredHits.addAndGet(cache._hits);
+            _retiredMisses.addAndGet(cache._misses);
+            _retiredSteals.addAndGet(cache._steals);
+        }
+    }
+
+    private ThreadCache createThreadCache()
+    {
+        final ThreadCache cache = new ThreadCache(Thread.currentThread(),
+                                                  reserveThreadCacheCapacity(),
+                                                  _nextShard.getAndIncrement() & (_shards.length - 1));
+        _threadCaches.add(cache);
+        return cache;
+    }
+
+    private int reserveThreadCacheCapacity()
+    {
+        int reserved;
+        int requested;
+        do
+        {
+            reserved = _threadCacheReservation.get();
+            requested = Math.min(_threadCacheSize, _maxThreadCacheReservation - reserved);
+            if (requested <= 0)
+            {
+                return 0;
+            }
+        }
+        while (!_threadCacheReservation.compareAndSet(reserved, reserved + requested));
+
+        final int granted = acquire(_permits, requested);
+        if (granted < requested)
         {
-            _pooledBuffers.add(buf);
-            _size.incrementAndGet();
+            _threadCacheReservation.addAndGet(granted - requested);
         }
+        return granted;
+    }
+
+    /**
+     * @return the number of permits acquired, up to the number requested
+     */
+    private static int acquire(final AtomicInteger permits, final int requested)
+    {
+        int available;
+        int granted;
+        do
+        {
+            available = permits.get();
+            granted = Math.min(available, requested);
+            if (granted <= 0)
+            {
+                return 0;
+            }
+        }
+        while (!permits.compareAndSet(available, available - granted));
+        return granted;
     }
 
     public int getMaxSize()
@@ -60,8 +277,195 @@ class BufferPool
         return _maxSize;
     }
 
+    int getShardCount()
+    {
+        return _shards.length;
+    }
+
+    int getThreadCacheSize()
+    {
+        return _threadCacheSize;
+    }
+
+    int getThreadCacheCount()
+    {
+        return _threadCaches.size();
+    }
+
     public int size()
     {
-        return _size.get();
+        int size = 0;
+        for (Shard shard : _shards)
+        {
+            size += shard._size;
+        }
+        for (ThreadCache cache : _threadCaches)
+        {
+            size += cache._count;
+        }
+        return size;
+    }
+
+    /**
+     * @return number of buffers served from the pool without contention: from the cache of the requesting thread or
+     * from its home shard
+     */
+    long getHitCount()
+    {
+        long count = _retiredHits.get();
+        for (ThreadCache cache : _threadCaches)
+        {
+            count += cache._hits;
+        }
+        return count;
+    }
+
+    /**
+     * @return number of requests for a buffer which found the pool empty
+     */
+    long getMissCount()
+    {
+        long count = _retiredMisses.get();
+        for (ThreadCache cache : _threadCaches)
+        {
+            count += cache._misses;
+        }
+        return count;
+    }
+
+    /**
+     * @return number of buffers taken from a shard other than the home shard of the requesting thread
+     */
+    long getStealCount()
+    {
+        long count = _retiredSteals.get();
+        for (ThreadCache cache : _threadCaches)
+        {
+            count += cache._steals;
+        }
+        return count;
+    }
+
+    /**
+     * Buffers and counters owned by a single thread.  The fields are only written by the owning thread (or once the
+     * owner has terminated), so other threads reading them for statistics may see slightly stale values.  The owner
+     * is only weakly referenced so that the cache of a terminated thread does not keep the thread reachable.
+     */
+    private static final class ThreadCache
+    {
+        private final WeakReference<Thread> _owner;
+        private final ByteBuffer[] _buffers;
+        private final int _shardIndex;
+        private int _count;
+        private long _hits;
+        private long _misses;
+        private long _steals;
+
+        private ThreadCache(final Thread owner, final int capacity, final int shardIndex)
+        {
+            _owner = new WeakReference<>(owner);
+            _buffers = new ByteBuffer[capacity];
+            _shardIndex = shardIndex;
+        }
+
+        private boolean isOwnerTerminated()
+        {
+            final Thread owner = _owner.get();
+            return owner == null || !owner.isAlive();
+        }
+
+        private ByteBuffer pop()
+        {
+            if (_count == 0)
+            {
+                return null;
+            }
+            final ByteBuffer buffer = _buffers[--_count];
+            _buffers[_count] = null;
+            return buffer;
+        }
+
+        private boolean push(final ByteBuffer buffer)
+        {
+            if (_count == _buffers.length)
+            {
+                return false;
+            }
+            _buffers[_count++] = buffer;
+            return true;
+        }
+    }
+
+    /**
+     * Buffers of a shard.  Every buffer held by a shard holds one of the permits of the pool.
+     */
+    private static final class Shard
+    {
+        private final AtomicInteger _permits;
+        private final ArrayDeque<ByteBuffer> _buffers = new ArrayDeque<>();
+        private volatile int _size;
+
+        private Shard(final AtomicInteger permits)
+        {
+            _permits = permits;
+        }
+
+        private synchronized ByteBuffer poll()
+        {
+            final ByteBuffer buffer = _buffers.pollFirst();
+            if (buffer != null)
+            {
+                _permits.incrementAndGet();
+                _size = _buffers.size();
+            }
+            return buffer;
+        }
+
+        /**
+         * Takes a buffer and moves up to a further batch of buffers into the thread cache.
+         */
+        private synchronized ByteBuffer take(final ThreadCache cache, final int batchSize)
+        {
+            final ByteBuffer buffer = _buffers.pollFirst();
+            if (buffer != null)
+            {
+                int taken = 1;
+                for (int i = 1; i < batchSize && !_buffers.isEmpty() && cache.push(_buffers.peekFirst()); i++)
+                {
+                    _buffers.pollFirst();
+                    taken++;
+                }
+                _permits.addAndGet(taken);
+                _size = _buffers.size();
+            }
+            return buffer;
+        }
+
+        /**
+         * Moves the given buffer, if not null, and up to count buffers from the thread cache into the shard while
+         * the pool has permits for them.
+         *
+         * @return the given buffer if the pool had no permit for it, null otherwise
+         */
+        private synchronized ByteBuffer put(final ThreadCache cache, final int count, final ByteBuffer buffer)
+        {
+            final int requested = (buffer == null ? 0 : 1) + Math.min(count, cache._count);
+            int granted = acquire(_permits, requested);
+            if (granted == 0)
+            {
+                return buffer;
+            }
+            if (buffer != null)
+            {
+                _buffers.addFirst(buffer);
+                granted--;
+            }
+            for (int i = 0; i < granted; i++)
+            {
+                _buffers.addLast(cache.pop());
+            }
+            _size = _buffers.size();
+            return null;
+        }
     }
 }
@@ -84,6 +84,16 @@ public interface QpidByteBuffer extends AutoCloseable
         return QpidByteBufferFactory.write(channel, qpidByteBuffers);
     }
 
+    /**
+     * Returns duplicates of the buffers holding the remaining content of the given buffer, so that its content can be
+     * handed to APIs taking {@link ByteBuffer}s without being copied.  The duplicates share their content with the
+     * given buffer, which must not be disposed until they are no longer used.
+     */
+    static ByteBuffer[] asByteBuffers(QpidByteBuffer buffer)
+    {
+        return QpidByteBufferFactory.asByteBuffers(buffer);
+    }
+
     static QpidByteBuffer wrap(ByteBuffer wrap)
     {
         return QpidByteBufferFactory.wrap(wrap);
@@ -142,6 +152,21 @@ public interface QpidByteBuffer extends AutoCloseable
         return QpidByteBufferFactory.getPooledBufferDisposalCounter();
     }
 
+    static long getPooledBufferHitCount()
+    {
+        return QpidByteBufferFactory.getPooledBufferHitCount();
+    }
+
+    static long getPooledBufferMissCount()
+    {
+        return QpidByteBufferFactory.getPooledBufferMissCount();
+    }
+
+    static long getPooledBufferStealCount()
+    {
+        return QpidByteBufferFactory.getPooledBufferStealCount();
+    }
+
     static QpidByteBuffer reallocateIfNecessary(QpidByteBuffer data)
     {
         return QpidByteBufferFactory.reallocateIfNecessary(data);
@@ -140,6 +140,17 @@ final class QpidByteBufferFactory
         }
     }
 
+    static ByteBuffer[] asByteBuffers(QpidByteBuffer buffer)
+    {
+        final ByteBuffer[] underlyingBuffers = getUnderlyingBuffers(buffer);
+        final ByteBuffer[] duplicates = new ByteBuffer[underlyingBuffers.length];
+        for (int i = 0; i < underlyingBuffers.length; i++)
+        {
+            duplicates[i] = underlyingBuffers[i].duplicate();
+        }
+        return duplicates;
+    }
+
     private static ByteBuffer[] getUnderlyingBuffers(QpidByteBuffer buffer)
     {
         if (buffer instanceof SingleQpidByteBuffer)
@@ -384,6 +395,24 @@ final class QpidByteBufferFactory
         return PooledByteBufferRef.getDisposalCounter();
     }
 
+    static long getPooledBufferHitCount()
+    {
+        final BufferPool bufferPool = _bufferPool;
+        return bufferPool == null ? 0 : bufferPool.getHitCount();
+    }
+
+    static long getPooledBufferMissCount()
+    {
+        final BufferPool bufferPool = _bufferPool;
+        return bufferPool == null ? 0 : bufferPool.getMissCount();
+    }
+
+    static long getPooledBufferStealCount()
+    {
+        final BufferPool bufferPool = _bufferPool;
+        return bufferPool == null ? 0 : bufferPool.getStealCount();
+    }
+
     static QpidByteBuffer reallocateIfNecessary(QpidByteBuffer data)
     {
         if (data != null && data.isDirect() && data.isSparse())
@@ -471,6 +500,11 @@ final class QpidByteBufferFactory
                     cachedThreadLocalBuffer.dispose();
                     _cachedBuffer.remove();
                 }
+                final BufferPool bufferPool = _bufferPool;
+                if (bufferPool != null)
+                {
+                    bufferPool.releaseThreadCache();
+                }
             }
         });
     }
@@ -60,6 +60,8 @@ public abstract class AbstractConsumerTarget<T extends AbstractConsumerTarget<T>
     private final SuspendedConsumerLoggingTicker _suspendedConsumerLoggingTicker;
     private final List<MessageInstanceConsumer> _consumers = new CopyOnWriteArrayList<>();
     private final AtomicBoolean _scheduled = new AtomicBoolean();
+    private final int _deliveryBatchMaxMessages;
+    private final long _deliveryBatchMaxBytes;
 
     private volatile Iterator<MessageInstanceConsumer> _pullIterator;
     private volatile boolean _notifyWorkDesired;
@@ -68,6 +70,8 @@ public abstract class AbstractConsumerTarget<T extends AbstractConsumerTarget<T>
                                      final AMQPConnection<?> amqpConnection)
     {
         _isMultiQueue = isMultiQueue;
+        _deliveryBatchMaxMessages = amqpConnection.getContextValue(Integer.class, Consumer.DELIVERY_BATCH_MAX_MESSAGES);
+        _deliveryBatchMaxBytes = amqpConnection.getContextValue(Long.class, Consumer.DELIVERY_BATCH_MAX_BYTES);
 
         _suspendedConsumerLoggingTicker = new SuspendedConsumerLoggingTicker(amqpConnection.getContextValue(Long.class, Consumer.SUSPEND_NOTIFICATION_PERIOD))
         {
@@ -149,9 +153,46 @@ public abstract class AbstractConsumerTarget<T extends AbstractConsumerTarget<T>
         }
 
         // TODO - if not closed
+        if (_deliveryBatchMaxMessages > 1)
+        {
+            return sendNextMessages();
+        }
         return sendNextMessage();
     }
 
+    /**
+     * Sends a run of messages, up to the delivery batch limits and the credit of the consumers, as batched
+     * transfers and flushes them once at the end of the run.
+     *
+     * @return true if at least one message was sent
+     */
+    private boolean sendNextMessages()
+    {
+        final AMQPConnection<?> connection = getSession().getAMQPConnection();
+        int messages = 0;
+        long bytes = 0;
+        try
+        {
+            long size;
+            while (messages < _deliveryBatchMaxMessages
+                   && bytes < _deliveryBatchMaxBytes
+                   && !connection.isTransportBlockedForWriting()
+                   && (size = sendNextMessage(true)) >= 0)
+            {
+                messages++;
+                bytes += size;
+            }
+        }
+        finally
+        {
+            if (messages > 0)
+            {
+                flushBatched();
+            }
+        }
+        return messages > 0;
+    }
+
     @Override
     public void consumerAdded(final MessageInstanceConsumer sub)
     {
@@ -232,6 +273,14 @@ public abstract class AbstractConsumerTarget<T extends AbstractConsumerTarget<T>
 
     @Override
     public boolean sendNextMessage()
+    {
+        return sendNextMessage(false) >= 0;
+    }
+
+    /**
+     * @return the size of the message that was pulled from the consumers, or -1 if no message was available
+     */
+    private long sendNextMessage(final boolean batch)
     {
         MessageContainer messageContainer = null;
         MessageInstanceConsumer consumer = null;
@@ -258,9 +307,10 @@ public abstract class AbstractConsumerTarget<T extends AbstractConsumerTarget<T>
         if (messageContainer != null)
         {
             MessageInstance entry = messageContainer.getMessageInstance();
+            final long size = batch ? entry.getMessage().getSizeIncludingHeader() : 0L;
             try
             {
-                send(consumer, entry, false);
+                send(consumer, entry, batch);
             }
             catch (MessageConversionException mce)
             {
@@ -323,11 +373,11 @@ public abstract class AbstractConsumerTarget<T extends AbstractConsumerTarget<T>
                     messageContainer.getMessageReference().release();
                 }
             }
-            return true;
+            return size;
         }
         else
         {
-            return false;
+            return -1L;
         }
 
 
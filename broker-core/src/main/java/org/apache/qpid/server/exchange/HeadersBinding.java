@@ -138,7 +138,40 @@ class HeadersBinding
 
     public boolean matches(Filterable message)
     {
-        return matches(message.getMessageHeader()) && (_filter == null || _filter.allAllow(message));
+        return matches(message.getMessageHeader()) && filterAllows(message);
+    }
+
+    boolean hasFilter()
+    {
+        return _filter != null;
+    }
+
+    boolean filterAllows(Filterable message)
+    {
+        return _filter == null || _filter.allAllow(message);
+    }
+
+    Set<String> getRequiredHeaders()
+    {
+        return Collections.unmodifiableSet(required);
+    }
+
+    Map<String, Object> getMatchedHeaderValues()
+    {
+        return Collections.unmodifiableMap(matches);
+    }
+
+    boolean isMatchAny()
+    {
+        return matchAny;
+    }
+
+    /**
+     * @return the number of header constraints (presence or value) defined by this binding
+     */
+    int getConstraintCount()
+    {
+        return required.size() + matches.size();
     }
 
     private boolean and(AMQMessageHeader headers)
@@ -0,0 +1,191 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+
+/**
+ * Inverted index over the header constraints of the {@link HeadersBinding}s of a headers exchange.
+ * <p>
+ * Each binding is indexed under the names of the headers it requires to be present and under the
+ * name/value pairs it requires to match.  Bindings without any header constraint are held separately
+ * as they match every message that has headers.  Matching a message then only touches the bindings
+ * indexed under the headers the message actually carries: every hit is counted per binding, an
+ * <code>x-match=any</code> binding matches on its first hit and an <code>x-match=all</code> binding
+ * once the number of hits reaches its number of constraints.
+ * <p>
+ * The index is safe for concurrent routing and (un)binding.
+ */
+class HeadersBindingIndex
+{
+    private final Map<AbstractExchange.BindingIdentifier, HeadersBinding> _bindings = new ConcurrentHashMap<>();
+    private final Set<HeadersBinding> _unconditionalBindings = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Map<String, Set<HeadersBinding>> _presenceIndex = new ConcurrentHashMap<>();
+    private final Map<String, Map<Object, Set<HeadersBinding>>> _valueIndex = new ConcurrentHashMap<>();
+
+    void add(final HeadersBinding binding)
+    {
+        final HeadersBinding previous = _bindings.put(binding.getBinding(), binding);
+        if (previous != null)
+        {
+            unindex(previous);
+        }
+        index(binding);
+    }
+
+    void remove(final AbstractExchange.BindingIdentifier bindingIdentifier)
+    {
+        final HeadersBinding previous = _bindings.remove(bindingIdentifier);
+        if (previous != null)
+        {
+            unindex(previous);
+        }
+    }
+
+    /**
+     * Finds the bindings whose header constraints are satisfied by the given message headers.  Any filter
+     * defined on the binding is not evaluated.
+     *
+     * @param headers the message headers, may be null
+     * @return the bindings matching the headers
+     */
+    Collection<HeadersBinding> match(final AMQMessageHeader headers)
+    {
+        final List<HeadersBinding> matched = new ArrayList<>(_unconditionalBindings);
+        if (headers == null)
+        {
+            return matched;
+        }
+
+        final Map<HeadersBinding, int[]> hits = new IdentityHashMap<>();
+        for (String name : headers.getHeaderNames())
+        {
+            final Set<HeadersBinding> present = _presenceIndex.get(name);
+            if (present != null)
+            {
+                for (HeadersBinding binding : present)
+                {
+                    hit(binding, hits, matched);
+                }
+            }
+
+            final Map<Object, Set<HeadersBinding>> values = _valueIndex.get(name);
+            if (values != null)
+            {
+                final Object value = headers.getHeader(name);
+                final Set<HeadersBinding> valueMatches = value == null ? null : values.get(value);
+                if (valueMatches != null)
+                {
+                    for (HeadersBinding binding : valueMatches)
+                    {
+                        hit(binding, hits, matched);
+                    }
+                }
+            }
+        }
+        return matched;
+    }
+
+    private void hit(final HeadersBinding binding,
+                     final Map<HeadersBinding, int[]> hits,
+                     final List<HeadersBinding> matched)
+    {
+        final int[] count = hits.computeIfAbsent(binding, b -> new int[1]);
+        count[0]++;
+        if (binding.isMatchAny() ? count[0] == 1 : count[0] == binding.getConstraintCount())
+        {
+            matched.add(binding);
+        }
+    }
+
+    private void index(final HeadersBinding binding)
+    {
+        if (binding.getConstraintCount() == 0)
+        {
+            _unconditionalBindings.add(binding);
+        }
+        else
+        {
+            for (String name : binding.getRequiredHeaders())
+            {
+                _presenceIndex.compute(name, (n, bindings) -> addBinding(bindings, binding));
+            }
+            for (Map.Entry<String, Object> entry : binding.getMatchedHeaderValues().entrySet())
+            {
+                _valueIndex.compute(entry.getKey(), (n, values) ->
+                {
+                    final Map<Object, Set<HeadersBinding>> valueBindings =
+                            values == null ? new ConcurrentHashMap<>() : values;
+                    valueBindings.compute(entry.getValue(), (v, bindings) -> addBinding(bindings, binding));
+                    return valueBindings;
+                });
+            }
+        }
+    }
+
+    private static Set<HeadersBinding> addBinding(final Set<HeadersBinding> bindings, final HeadersBinding binding)
+    {
+        final Set<HeadersBinding> result =
+                bindings == null ? Collections.newSetFromMap(new ConcurrentHashMap<>()) : bindings;
+        result.add(binding);
+        return result;
+    }
+
+    private void unindex(final HeadersBinding binding)
+    {
+        if (binding.getConstraintCount() == 0)
+        {
+            _unconditionalBindings.remove(binding);
+        }
+        else
+        {
+            for (String name : binding.getRequiredHeaders())
+            {
+                _presenceIndex.computeIfPresent(name, (n, bindings) ->
+                {
+                    bindings.remove(binding);
+                    return bindings.isEmpty() ? null : bindings;
+                });
+            }
+            for (Map.Entry<String, Object> entry : binding.getMatchedHeaderValues().entrySet())
+            {
+                _valueIndex.computeIfPresent(entry.getKey(), (n, values) ->
+                {
+                    values.computeIfPresent(entry.getValue(), (v, bindings) ->
+                    {
+                        bindings.remove(binding);
+                        return bindings.isEmpty() ? null : bindings;
+                    });
+                    return values.isEmpty() ? null : values;
+                });
+            }
+        }
+    }
+}
@@ -20,15 +20,13 @@
  */
 package org.apache.qpid.server.exchange;
 
-import java.util.Collections;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.filter.Filterable;
+import org.apache.qpid.server.message.AMQMessageHeader;
 import org.apache.qpid.server.message.InstanceProperties;
 import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.message.RoutingResult;
@@ -69,7 +67,7 @@ public class HeadersExchangeImpl extends AbstractExchange<HeadersExchangeImpl> i
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HeadersExchangeImpl.class);
 
-    private final Set<HeadersBinding> _bindingHeaderMatchers = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final HeadersBindingIndex _bindingIndex = new HeadersBindingIndex();
 
     @ManagedObjectFactoryConstructor
     public HeadersExchangeImpl(final Map<String, Object> attributes, final QueueManagingVirtualHost<?> vhost)
@@ -83,18 +81,25 @@ public class HeadersExchangeImpl extends AbstractExchange<HeadersExchangeImpl> i
                                                                                      final InstanceProperties instanceProperties,
                                                                                      RoutingResult<M> routingResult)
     {
-        LOGGER.debug("Exchange {}: routing message with headers {}", getName(), payload.getMessageHeader());
+        final AMQMessageHeader messageHeader = payload.getMessageHeader();
+        LOGGER.debug("Exchange {}: routing message with headers {}", getName(), messageHeader);
 
-        for (HeadersBinding hb : _bindingHeaderMatchers)
+        Filterable filterable = null;
+        for (HeadersBinding hb : _bindingIndex.match(messageHeader))
         {
-            if (hb.matches(Filterable.Factory.newInstance(payload,instanceProperties)))
+            if (hb.hasFilter() && filterable == null)
+            {
+                filterable = Filterable.Factory.newInstance(payload, instanceProperties);
+            }
+
+            if (hb.filterAllows(filterable))
             {
                 MessageDestination destination = hb.getBinding().getDestination();
 
                 if (LOGGER.isDebugEnabled())
                 {
                     LOGGER.debug("Exchange '{}' delivering message with headers '{}' to '{}'",
-                                  getName(), payload.getMessageHeader(), destination.getName());
+                                  getName(), messageHeader, destination.getName());
                 }
                 String actualRoutingKey = hb.getReplacementRoutingKey() == null
                         ? routingKey
@@ -108,19 +113,19 @@ public class HeadersExchangeImpl extends AbstractExchange<HeadersExchangeImpl> i
     @Override
     protected void onBind(final BindingIdentifier binding, Map<String,Object> arguments)
     {
-        _bindingHeaderMatchers.add(new HeadersBinding(binding, arguments));
+        _bindingIndex.add(new HeadersBinding(binding, arguments));
     }
 
     @Override
     protected void onBindingUpdated(final BindingIdentifier binding, final Map<String, Object> arguments)
     {
-        _bindingHeaderMatchers.add(new HeadersBinding(binding, arguments));
+        _bindingIndex.add(new HeadersBinding(binding, arguments));
     }
 
     @Override
     protected void onUnbind(final BindingIdentifier binding)
     {
-        _bindingHeaderMatchers.remove(new HeadersBinding(binding, Collections.emptyMap()));
+        _bindingIndex.remove(binding);
     }
 
 }
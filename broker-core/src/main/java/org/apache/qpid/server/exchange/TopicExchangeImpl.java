@@ -144,8 +144,24 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
                 ? ""
                 : routingAddress;
 
+        final Collection<TopicMatcherResult> matcherResults = _parser.parse(routingKey);
+        if (matcherResults.isEmpty())
+        {
+            return;
+        }
+
+        final Filterable filterable = Filterable.Factory.newInstance(payload, instanceProperties);
+        if (matcherResults.size() == 1)
+        {
+            // a single matching binding key cannot match a destination more than once
+            final TopicExchangeResult topicExchangeResult = (TopicExchangeResult) matcherResults.iterator().next();
+            topicExchangeResult.processMessage(filterable)
+                               .forEach((destination, replacementKey) -> result.add(destination.route(payload, replacementKey == null ? routingAddress : replacementKey, instanceProperties)));
+            return;
+        }
+
         final Map<MessageDestination, Set<String>> matchedDestinations =
-                getMatchedDestinations(Filterable.Factory.newInstance(payload, instanceProperties), routingKey);
+                getMatchedDestinations(filterable, matcherResults);
 
         for(Map.Entry<MessageDestination, Set<String>> entry : matchedDestinations.entrySet())
         {
@@ -188,7 +204,11 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
                 result.removeUnfilteredDestination(binding.getDestination());
             }
 
-            // shall we delete the result from _topicExchangeResults if result is empty?
+            if(result.hasNoDestinations())
+            {
+                _topicExchangeResults.remove(bindingKey);
+                _parser.removeBinding(bindingKey);
+            }
             return true;
         }
         else
@@ -197,37 +217,33 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
         }
     }
 
-    private Map<MessageDestination, Set<String>> getMatchedDestinations(Filterable message, String routingKey)
+    private Map<MessageDestination, Set<String>> getMatchedDestinations(Filterable message,
+                                                                        Collection<TopicMatcherResult> results)
     {
-        Collection<TopicMatcherResult> results = _parser.parse(routingKey);
-        if (!results.isEmpty())
+        Map<MessageDestination, Set<String>> matchedDestinations = new HashMap<>();
+        for (TopicMatcherResult result : results)
         {
-            Map<MessageDestination, Set<String>> matchedDestinations = new HashMap<>();
-            for (TopicMatcherResult result : results)
+            TopicExchangeResult topicExchangeResult = (TopicExchangeResult) result;
+            Map<MessageDestination, String> destinations = topicExchangeResult.processMessage(message);
+            if (!destinations.isEmpty())
             {
-                TopicExchangeResult topicExchangeResult = (TopicExchangeResult) result;
-                Map<MessageDestination, String> destinations = topicExchangeResult.processMessage(message);
-                if (!destinations.isEmpty())
-                {
-                    destinations.forEach((destination, replacementKey) ->
+                destinations.forEach((destination, replacementKey) ->
+                             {
+                                 Set<String> currentKeys = matchedDestinations.get(destination);
+                                 if (currentKeys == null)
                                  {
-                                     Set<String> currentKeys = matchedDestinations.get(destination);
-                                     if (currentKeys == null)
-                                     {
-                                         matchedDestinations.put(destination, Collections.singleton(replacementKey));
-                                     }
-                                     else if (!currentKeys.contains(replacementKey))
-                                     {
-                                         Set<String> newKeys = new HashSet<>(currentKeys);
-                                         newKeys.add(replacementKey);
-                                         matchedDestinations.put(destination, newKeys);
-                                     }
-                                 });
-                }
+                                     matchedDestinations.put(destination, Collections.singleton(replacementKey));
+                                 }
+                                 else if (!currentKeys.contains(replacementKey))
+                                 {
+                                     Set<String> newKeys = new HashSet<>(currentKeys);
+                                     newKeys.add(replacementKey);
+                                     matchedDestinations.put(destination, newKeys);
+                                 }
+                             });
             }
-            return matchedDestinations;
         }
-        return Collections.emptyMap();
+        return matchedDestinations;
     }
 
     @Override
@@ -133,6 +133,11 @@ public final class TopicExchangeResult implements TopicMatcherResult
         _filteredDestinations.put(queue, newFilters);
     }
 
+    public boolean hasNoDestinations()
+    {
+        return _unfilteredDestinations.isEmpty() && _filteredDestinations.isEmpty();
+    }
+
     public Map<MessageDestination, String> processMessage(Filterable msg)
     {
         Map<MessageDestination, String> result = new HashMap<>();
@@ -25,17 +25,85 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matches routing keys against the binding keys of a topic exchange using a deterministic finite automaton.
+ * <p>
+ * The automaton is maintained incrementally.  Added binding keys are collected and merged into the automaton
+ * together the next time a routing key is matched, so that a burst of bindings costs a single merge with the
+ * existing automaton.  Removed binding keys are left in the automaton and their results are filtered out of the
+ * matches until removed bindings outnumber the remaining ones, at which point the automaton is rebuilt.
+ * <p>
+ * The results for the first routing keys matched after the bindings change are cached, up to a fixed number of
+ * routing keys; the cache is discarded whenever the bindings change.
+ */
 public class TopicParser
 {
     private static final String TOPIC_DELIMITER = "\\.";
+    private static final int MIN_REMOVED_BINDINGS_BEFORE_REBUILD = 16;
+
+    static final int ROUTING_KEY_CACHE_SIZE = 1024;
 
     private final TopicWordDictionary _dictionary = new TopicWordDictionary();
-    private final AtomicReference<TopicMatcherDFAState> _stateMachine = new AtomicReference<>();
+
+    private final Map<String, TopicMatcherResult> _bindings = new HashMap<>();
+    private final Map<String, TopicMatcherResult> _pendingBindings = new LinkedHashMap<>();
+    private final Set<TopicMatcherResult> _removedResults = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private TopicMatcherDFAState _stateMachine;
+
+    private volatile Matcher _matcher = new Matcher(null);
+
+    private final class Matcher
+    {
+        private final TopicMatcherDFAState _stateMachine;
+        private final Map<String, Collection<TopicMatcherResult>> _cache = new ConcurrentHashMap<>();
+
+        private Matcher(final TopicMatcherDFAState stateMachine)
+        {
+            _stateMachine = stateMachine;
+        }
+
+        private Collection<TopicMatcherResult> parse(final String routingKey)
+        {
+            if(_stateMachine == null)
+            {
+                return Collections.emptySet();
+            }
+
+            Collection<TopicMatcherResult> results = _cache.get(routingKey);
+            if(results == null)
+            {
+                results = removeDeadResults(_stateMachine.parse(_dictionary, routingKey));
+                if(_cache.size() < ROUTING_KEY_CACHE_SIZE)
+                {
+                    _cache.put(routingKey, results);
+                }
+            }
+            return results;
+        }
+
+        private Collection<TopicMatcherResult> removeDeadResults(final Collection<TopicMatcherResult> results)
+        {
+            if(_removedResults.isEmpty() || results.isEmpty())
+            {
+                return results;
+            }
+            final List<TopicMatcherResult> liveResults = new ArrayList<>(results.size());
+            for(TopicMatcherResult result : results)
+            {
+                if(!_removedResults.contains(result))
+                {
+                    liveResults.add(result);
+                }
+            }
+            return liveResults.size() == results.size() ? results : liveResults;
+        }
+    }
 
     private static class Position
     {
@@ -95,42 +163,90 @@ public class TopicParser
     }
 
 
-    public void addBinding(String bindingKey, TopicMatcherResult result)
+    public synchronized void addBinding(String bindingKey, TopicMatcherResult result)
     {
+        if(_bindings.containsKey(bindingKey))
+        {
+            removeBinding(bindingKey);
+        }
+        _bindings.put(bindingKey, result);
+        _pendingBindings.put(bindingKey, result);
+        _removedResults.remove(result);
+        _matcher = null;
+    }
 
-        TopicMatcherDFAState startingStateMachine;
-        TopicMatcherDFAState newStateMachine;
-
-        do
+    public synchronized void removeBinding(String bindingKey)
+    {
+        final TopicMatcherResult result = _bindings.remove(bindingKey);
+        if(result != null)
         {
-            startingStateMachine = _stateMachine.get();
-            if(startingStateMachine == null)
+            if(_pendingBindings.remove(bindingKey) == null)
             {
-                newStateMachine = createStateMachine(bindingKey, result);
-            }
-            else
-            {
-                newStateMachine = startingStateMachine.mergeStateMachines(createStateMachine(bindingKey, result));
+                _removedResults.add(result);
+                if(_removedResults.size() > Math.max(MIN_REMOVED_BINDINGS_BEFORE_REBUILD, _bindings.size()))
+                {
+                    _stateMachine = null;
+                    _pendingBindings.clear();
+                    _pendingBindings.putAll(_bindings);
+                    _removedResults.clear();
+                }
             }
-
+            _matcher = null;
         }
-        while(!_stateMachine.compareAndSet(startingStateMachine,newStateMachine));
-
     }
 
     public Collection<TopicMatcherResult> parse(String routingKey)
     {
-        TopicMatcherDFAState stateMachine = _stateMachine.get();
-        if(stateMachine == null)
+        Matcher matcher = _matcher;
+        if(matcher == null)
         {
-            return Collections.emptySet();
+            matcher = updateMatcher();
         }
-        else
+        return matcher.parse(routingKey);
+    }
+
+    private synchronized Matcher updateMatcher()
+    {
+        Matcher matcher = _matcher;
+        if(matcher == null)
         {
-            return stateMachine.parse(_dictionary,routingKey);
+            if(!_pendingBindings.isEmpty())
+            {
+                final List<TopicMatcherDFAState> stateMachines = new ArrayList<>(_pendingBindings.size());
+                for(Map.Entry<String, TopicMatcherResult> binding : _pendingBindings.entrySet())
+                {
+                    stateMachines.add(createStateMachine(binding.getKey(), binding.getValue()));
+                }
+                _pendingBindings.clear();
+                final TopicMatcherDFAState addedStateMachine = mergeStateMachines(stateMachines);
+                _stateMachine = _stateMachine == null
+                        ? addedStateMachine
+                        : _stateMachine.mergeStateMachines(addedStateMachine);
+            }
+            matcher = new Matcher(_stateMachine);
+            _matcher = matcher;
         }
+        return matcher;
     }
 
+    /**
+     * Merges the state machines pairwise so that each state machine takes part in a logarithmic number of merges.
+     */
+    private static TopicMatcherDFAState mergeStateMachines(List<TopicMatcherDFAState> stateMachines)
+    {
+        while(stateMachines.size() > 1)
+        {
+            final List<TopicMatcherDFAState> merged = new ArrayList<>((stateMachines.size() + 1) / 2);
+            for(int i = 0; i < stateMachines.size(); i += 2)
+            {
+                merged.add(i + 1 < stateMachines.size()
+                                   ? stateMachines.get(i).mergeStateMachines(stateMachines.get(i + 1))
+                                   : stateMachines.get(i));
+            }
+            stateMachines = merged;
+        }
+        return stateMachines.get(0);
+    }
 
     private TopicMatcherDFAState createStateMachine(String bindingKey, TopicMatcherResult result)
     {
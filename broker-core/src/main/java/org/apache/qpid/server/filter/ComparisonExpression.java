@@ -73,10 +73,14 @@ public abstract class ComparisonExpression<T> extends BinaryExpression<T> implem
     {
 
         private Pattern likePattern;
+        private final String _like;
+        private final int _escape;
 
         public LikeExpression(Expression<E> right, String like, int escape)
         {
             super(right);
+            _like = like;
+            _escape = escape;
 
             StringBuilder regexp = new StringBuilder(like.length() * 2);
             regexp.append("\\A"); // The beginning of the input
@@ -120,6 +124,16 @@ public abstract class ComparisonExpression<T> extends BinaryExpression<T> implem
             likePattern = Pattern.compile(regexp.toString(), Pattern.DOTALL);
         }
 
+        String getLike()
+        {
+            return _like;
+        }
+
+        int getEscape()
+        {
+            return _escape;
+        }
+
         /**
          *  org.apache.activemq.filter.UnaryExpression#getExpressionSymbol()
          */
@@ -582,7 +596,7 @@ public abstract class ComparisonExpression<T> extends BinaryExpression<T> implem
         return (object != null) && (object == Boolean.TRUE);
     }
 
-    private static class EqualExpression<E> extends ComparisonExpression<E>
+    static class EqualExpression<E> extends ComparisonExpression<E>
     {
         public EqualExpression(final Expression<E> left, final Expression<E> right)
         {
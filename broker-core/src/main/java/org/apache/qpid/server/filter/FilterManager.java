@@ -23,6 +23,7 @@ package org.apache.qpid.server.filter;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
 
 public class FilterManager
 {
@@ -38,6 +39,16 @@ public class FilterManager
         _filters.put(name, filter);
     }
 
+    /**
+     * Replaces every filter by the result of applying the given function to it, keeping the name of the filter.
+     *
+     * @param replacement function returning the filter to use in place of the given one
+     */
+    public void replaceFilters(UnaryOperator<MessageFilter> replacement)
+    {
+        _filters.replaceAll((name, filter) -> replacement.apply(filter));
+    }
+
     public boolean allAllow(Filterable msg)
     {
         for (MessageFilter filter : _filters.values())
@@ -34,15 +34,37 @@ public class JMSSelectorFilter implements MessageFilter
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(JMSSelectorFilter.class);
 
+    public static final String COMPILE_SELECTORS = "qpid.selector.compile";
+    private static final boolean DEFAULT_COMPILE_SELECTORS = true;
+
     private String _selector;
-    private BooleanExpression _matcher;
+    private BooleanExpression<FilterableMessage> _matcher;
 
     public JMSSelectorFilter(String selector) throws ParseException, TokenMgrError, SelectorParsingException
     {
         _selector = selector;
         SelectorParser<FilterableMessage> selectorParser = new SelectorParser<>();
         selectorParser.setPropertyExpressionFactory(JMSMessagePropertyExpression.FACTORY);
-        _matcher = selectorParser.parse(selector);
+        final BooleanExpression<FilterableMessage> matcher = selectorParser.parse(selector);
+        _matcher = isCompilationEnabled() ? compile(matcher) : matcher;
+    }
+
+    private static boolean isCompilationEnabled()
+    {
+        return Boolean.parseBoolean(System.getProperty(COMPILE_SELECTORS, String.valueOf(DEFAULT_COMPILE_SELECTORS)));
+    }
+
+    private BooleanExpression<FilterableMessage> compile(final BooleanExpression<FilterableMessage> matcher)
+    {
+        try
+        {
+            return SelectorCompiler.compile(matcher);
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.warn("Unable to compile selector '{}', it will be interpreted", _selector, e);
+            return matcher;
+        }
     }
 
     @Override
@@ -0,0 +1,798 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *
+ */
+package org.apache.qpid.server.filter;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Compiles the expression tree built by the selector parser into a tree of evaluators specialised for the shape of
+ * the selector.  A compiled selector gives exactly the same answers as the interpreted one, but:
+ * <ul>
+ * <li>sub-expressions with constant operands are folded;</li>
+ * <li>comparisons of a property against a numeric literal are made on primitive values;</li>
+ * <li>IS NULL and comparisons of a property against a string literal avoid the generic comparison;</li>
+ * <li>IN lists made of string literals are matched with a hash lookup;</li>
+ * <li>LIKE patterns which only use leading and/or trailing '%' wildcards are matched with
+ * {@link String#startsWith(String)}, {@link String#endsWith(String)}, {@link String#contains(CharSequence)} or
+ * {@link String#equals(Object)} rather than a regular expression.</li>
+ * </ul>
+ * Any expression the compiler has no specialisation for, and any case a specialisation does not cover at runtime,
+ * is evaluated by the interpreted expression.
+ */
+public final class SelectorCompiler
+{
+    private SelectorCompiler()
+    {
+    }
+
+    public static <T> BooleanExpression<T> compile(BooleanExpression<T> expression)
+    {
+        return compileBoolean(expression);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> BooleanExpression<T> compileBoolean(BooleanExpression<T> expression)
+    {
+        if (expression instanceof LogicExpression.AndExpression)
+        {
+            final LogicExpression<T> and = (LogicExpression<T>) expression;
+            return compileAnd(compileBoolean((BooleanExpression<T>) and.getLeft()),
+                              compileBoolean((BooleanExpression<T>) and.getRight()));
+        }
+        else if (expression instanceof LogicExpression.OrExpression)
+        {
+            final LogicExpression<T> or = (LogicExpression<T>) expression;
+            return compileOr(compileBoolean((BooleanExpression<T>) or.getLeft()),
+                             compileBoolean((BooleanExpression<T>) or.getRight()));
+        }
+        else if (expression instanceof UnaryExpression.NotExpression)
+        {
+            final UnaryExpression<T> not = (UnaryExpression<T>) expression;
+            return fold(new NotNode<>(compileBoolean((BooleanExpression<T>) not.getRight())));
+        }
+        else if (expression instanceof UnaryExpression.BooleanCastExpression)
+        {
+            final UnaryExpression<T> cast = (UnaryExpression<T>) expression;
+            return fold(new BooleanCastNode<>(compileValue(cast.getRight())));
+        }
+        else if (expression instanceof UnaryExpression.InExpression)
+        {
+            return compileIn((UnaryExpression.InExpression<T>) expression);
+        }
+        else if (expression instanceof ComparisonExpression.LikeExpression)
+        {
+            return compileLike((ComparisonExpression.LikeExpression<T>) expression);
+        }
+        else if (expression instanceof ComparisonExpression)
+        {
+            return compileComparison((ComparisonExpression<T>) expression);
+        }
+        return expression;
+    }
+
+    private static <T> Expression<T> compileValue(Expression<T> expression)
+    {
+        if (expression instanceof BooleanExpression)
+        {
+            return compileBoolean((BooleanExpression<T>) expression);
+        }
+        return expression;
+    }
+
+    private static <T> BooleanExpression<T> compileAnd(BooleanExpression<T> left, BooleanExpression<T> right)
+    {
+        if (left instanceof ConstantExpression && isBooleanOrNull(left))
+        {
+            final Object value = ((ConstantExpression<T>) left).getValue();
+            if (value == null)
+            {
+                return ConstantExpression.NULL;
+            }
+            return (Boolean) value ? right : ConstantExpression.FALSE;
+        }
+        return fold(new AndNode<>(left, right));
+    }
+
+    private static <T> BooleanExpression<T> compileOr(BooleanExpression<T> left, BooleanExpression<T> right)
+    {
+        if (left instanceof ConstantExpression && isBooleanOrNull(left))
+        {
+            final Object value = ((ConstantExpression<T>) left).getValue();
+            return value != null && (Boolean) value ? ConstantExpression.TRUE : right;
+        }
+        return fold(new OrNode<>(left, right));
+    }
+
+    private static <T> BooleanExpression<T> compileIn(UnaryExpression.InExpression<T> in)
+    {
+        final Collection<?> inList = in.getInList();
+        if (inList == null)
+        {
+            return in;
+        }
+        final Set<String> values = new HashSet<>();
+        for (Object item : inList)
+        {
+            if (!(item instanceof String))
+            {
+                return in;
+            }
+            values.add((String) item);
+        }
+        return new StringInNode<>(in, compileValue(in.getRight()), values, in.isNot());
+    }
+
+    private static <T> BooleanExpression<T> compileLike(ComparisonExpression.LikeExpression<T> like)
+    {
+        final String pattern = like.getLike();
+        final int escape = like.getEscape();
+        for (int i = 0; i < pattern.length(); i++)
+        {
+            final char c = pattern.charAt(i);
+            if (c == '_' || escape == (0xFFFF & c))
+            {
+                return like;
+            }
+        }
+
+        int start = 0;
+        int end = pattern.length();
+        while (start < end && pattern.charAt(start) == '%')
+        {
+            start++;
+        }
+        while (end > start && pattern.charAt(end - 1) == '%')
+        {
+            end--;
+        }
+        final String literal = pattern.substring(start, end);
+        if (literal.indexOf('%') != -1)
+        {
+            return like;
+        }
+
+        final LikeNode.Kind kind;
+        if (start > 0 && end < pattern.length())
+        {
+            kind = LikeNode.Kind.CONTAINS;
+        }
+        else if (start > 0)
+        {
+            kind = literal.isEmpty() ? LikeNode.Kind.CONTAINS : LikeNode.Kind.ENDS_WITH;
+        }
+        else if (end < pattern.length())
+        {
+            kind = LikeNode.Kind.STARTS_WITH;
+        }
+        else
+        {
+            kind = LikeNode.Kind.EQUALS;
+        }
+        return fold(new LikeNode<>(like, compileValue(like.getRight()), kind, literal));
+    }
+
+    private static <T> BooleanExpression<T> compileComparison(ComparisonExpression<T> comparison)
+    {
+        final boolean equality = comparison instanceof ComparisonExpression.EqualExpression;
+        final Expression<T> left = compileValue(comparison.getLeft());
+        final Expression<T> right = compileValue(comparison.getRight());
+        final boolean leftConstant = left instanceof ConstantExpression;
+        final boolean rightConstant = right instanceof ConstantExpression;
+
+        if (leftConstant != rightConstant)
+        {
+            final Object constant = ((ConstantExpression<T>) (leftConstant ? left : right)).getValue();
+            final Expression<T> value = leftConstant ? right : left;
+            if (isPrimitiveNumber(constant))
+            {
+                return new NumericComparisonNode<>(comparison, equality, value, (Number) constant, leftConstant);
+            }
+            else if (equality && constant == null)
+            {
+                return new IsNullNode<>(comparison, value);
+            }
+            else if (equality && constant instanceof String)
+            {
+                return new StringEqualityNode<>(comparison, value, (String) constant, leftConstant);
+            }
+        }
+        return fold(new ComparisonNode<>(comparison, equality, left, right));
+    }
+
+    private static boolean isBooleanOrNull(Expression<?> constant)
+    {
+        final Object value = ((ConstantExpression<?>) constant).getValue();
+        return value == null || value instanceof Boolean;
+    }
+
+    private static boolean isPrimitiveNumber(Object value)
+    {
+        return value instanceof Integer || value instanceof Long || value instanceof Double;
+    }
+
+    /**
+     * Replaces a node whose operands are all constant by its value.  A node whose evaluation fails is kept, so that
+     * the failure still happens when a message is evaluated, as it would with the interpreter.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> BooleanExpression<T> fold(CompiledNode<T> node)
+    {
+        for (Expression<T> operand : node.getOperands())
+        {
+            if (!(operand instanceof ConstantExpression))
+            {
+                return node;
+            }
+        }
+
+        final Object value;
+        try
+        {
+            value = node.evaluate(null);
+        }
+        catch (RuntimeException e)
+        {
+            return node;
+        }
+
+        if (value == null)
+        {
+            return ConstantExpression.NULL;
+        }
+        else if (value == Boolean.TRUE)
+        {
+            return ConstantExpression.TRUE;
+        }
+        else if (value == Boolean.FALSE)
+        {
+            return ConstantExpression.FALSE;
+        }
+        return node;
+    }
+
+    /**
+     * Equality as evaluated by the interpreter.
+     */
+    private static Object equal(ComparisonExpression<?> comparison, Object lv, Object rv)
+    {
+        if ((lv == null) ^ (rv == null))
+        {
+            return Boolean.FALSE;
+        }
+        if ((lv == rv) || lv.equals(rv))
+        {
+            return Boolean.TRUE;
+        }
+        if ((lv instanceof Comparable) && (rv instanceof Comparable))
+        {
+            return comparison.compare((Comparable) lv, (Comparable) rv);
+        }
+        return Boolean.FALSE;
+    }
+
+    /**
+     * Ordering comparison as evaluated by the interpreter.
+     */
+    private static Object order(ComparisonExpression<?> comparison, Object lv, Object rv)
+    {
+        final Comparable left = (Comparable) lv;
+        if (left == null)
+        {
+            return null;
+        }
+        final Comparable right = (Comparable) rv;
+        if (right == null)
+        {
+            return null;
+        }
+        return comparison.compare(left, right);
+    }
+
+    private abstract static class CompiledNode<T> implements BooleanExpression<T>
+    {
+        @Override
+        public final boolean matches(T message)
+        {
+            return evaluate(message) == Boolean.TRUE;
+        }
+
+        abstract Expression<T>[] getOperands();
+    }
+
+    private static final class AndNode<T> extends CompiledNode<T>
+    {
+        private final BooleanExpression<T> _left;
+        private final BooleanExpression<T> _right;
+
+        private AndNode(final BooleanExpression<T> left, final BooleanExpression<T> right)
+        {
+            _left = left;
+            _right = right;
+        }
+
+        @Override
+        public Object evaluate(T message)
+        {
+            final Boolean lv = (Boolean) _left.evaluate(message);
+            if (lv == null)
+            {
+                return null;
+            }
+            if (!lv)
+            {
+                return Boolean.FALSE;
+            }
+            return (Boolean) _right.evaluate(message);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Expression<T>[] getOperands()
+        {
+            return new Expression[] {_left, _right};
+        }
+
+        @Override
+        public String toString()
+        {
+            return "(" + _left + " AND " + _right + ")";
+        }
+    }
+
+    private static final class OrNode<T> extends CompiledNode<T>
+    {
+        private final BooleanExpression<T> _left;
+        private final BooleanExpression<T> _right;
+
+        private OrNode(final BooleanExpression<T> left, final BooleanExpression<T> right)
+        {
+            _left = left;
+            _right = right;
+        }
+
+        @Override
+        public Object evaluate(T message)
+        {
+            final Boolean lv = (Boolean) _left.evaluate(message);
+            if (lv != null && lv)
+            {
+                return Boolean.TRUE;
+            }
+            return (Boolean) _right.evaluate(message);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Expression<T>[] getOperands()
+        {
+            return new Expression[] {_left, _right};
+        }
+
+        @Override
+        public String toString()
+        {
+            return "(" + _left + " OR " + _right + ")";
+        }
+    }
+
+    private static final class NotNode<T> extends CompiledNode<T>
+    {
+        private final BooleanExpression<T> _operand;
+
+        private NotNode(final BooleanExpression<T> operand)
+        {
+            _operand = operand;
+        }
+
+        @Override
+        public Object evaluate(T message)
+        {
+            final Boolean value = (Boolean) _operand.evaluate(message);
+            if (value == null)
+            {
+                return null;
+            }
+            return value ? Boolean.FALSE : Boolean.TRUE;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Expression<T>[] getOperands()
+        {
+            return new Expression[] {_operand};
+        }
+
+        @Override
+        public String toString()
+        {
+            return "(NOT " + _operand + ")";
+        }
+    }
+
+    private static final class BooleanCastNode<T> extends CompiledNode<T>
+    {
+        private final Expression<T> _operand;
+
+        private BooleanCastNode(final Expression<T> operand)
+        {
+            _operand = operand;
+        }
+
+        @Override
+        public Object evaluate(T message)
+        {
+            final Object value = _operand.evaluate(message);
+            if (value == null)
+            {
+                return null;
+            }
+            if (value.getClass() != Boolean.class)
+            {
+                return Boolean.FALSE;
+            }
+            return (Boolean) value ? Boolean.TRUE : Boolean.FALSE;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Expression<T>[] getOperands()
+        {
+            return new Expression[] {_operand};
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.valueOf(_operand);
+        }
+    }
+
+    private static final class StringInNode<T> extends CompiledNode<T>
+    {
+        private final UnaryExpression.InExpression<T> _source;
+        private final Expression<T> _operand;
+        private final Set<String> _values;
+        private final boolean _not;
+
+        private StringInNode(final UnaryExpression.InExpression<T> source,
+                             final Expression<T> operand,
+                             final Set<String> values,
+                             final boolean not)
+        {
+            _source = source;
+            _operand = operand;
+            _values = values;
+            _not = not;
+        }
+
+        @Override
+        public Object evaluate(T message)
+        {
+            final Object value = _operand.evaluate(message);
+            if (value == null)
+            {
+                return null;
+            }
+            if (value instanceof String)
+            {
+                return _values.contains(value) ^ _not ? Boolean.TRUE : Boolean.FALSE;
+            }
+            return _source.evaluate(message);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Expression<T>[] getOperands()
+        {
+            return new Expression[] {_operand};
+        }
+
+        @Override
+        public String toString()
+        {
+            return _source.toString();
+        }
+    }
+
+    private static final class LikeNode<T> extends CompiledNode<T>
+    {
+        private enum Kind
+        {
+            EQUALS, STARTS_WITH, ENDS_WITH, CONTAINS
+        }
+
+        private final ComparisonExpression.LikeExpression<T> _source;
+        private final Expression<T> _operand;
+        private final Kind _kind;
+        private final String _literal;
+
+        private LikeNode(final ComparisonExpression.LikeExpression<T> source,
+                         final Expression<T> operand,
+                         final Kind kind,
+                         final String literal)
+        {
+            _source = source;
+            _operand = operand;
+            _kind = kind;
+            _literal = literal;
+        }
+
+        @Override
+        public Object evaluate(T message)
+        {
+            final Object value = _operand.evaluate(message);
+            if (value == null)
+            {
+                return null;
+            }
+            if (!(value instanceof String))
+            {
+                return Boolean.FALSE;
+            }
+
+            final String string = (String) value;
+            final boolean match;
+            switch (_kind)
+            {
+                case EQUALS:
+                    match = string.equals(_literal);
+                    break;
+                case STARTS_WITH:
+                    match = string.startsWith(_literal);
+                    break;
+                case ENDS_WITH:
+                    match = string.endsWith(_literal);
+                    break;
+                default:
+                    match = string.contains(_literal);
+                    break;
+            }
+            return match ? Boolean.TRUE : Boolean.FALSE;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Expression<T>[] getOperands()
+        {
+            return new Expression[] {_operand};
+        }
+
+        @Override
+        public String toString()
+        {
+            return _source.toString();
+        }
+    }
+
+    /**
+     * Compares a value against a numeric literal on primitives, following the type promotions made by
+     * {@link ComparisonExpression#compare(Comparable, Comparable)}.  The interpreter does not promote a byte or short
+     * value which is the right hand operand, so such a comparison is left to the interpreter.
+     */
+    private static final class NumericComparisonNode<T> extends CompiledNode<T>
+    {
+        private final ComparisonExpression<T> _source;
+        private final boolean _equality;
+        private final Expression<T> _operand;
+        private final Number _constant;
+        private final boolean _constantOnLeft;
+        private final boolean _integralConstant;
+        private final long _longConstant;
+        private final double _doubleConstant;
+
+        private NumericComparisonNode(final ComparisonExpression<T> source,
+                                      final boolean equality,
+                                      final Expression<T> operand,
+                                      final Number constant,
+                                      final boolean constantOnLeft)
+        {
+            _source = source;
+            _equality = equality;
+            _operand = operand;
+            _constant = constant;
+            _constantOnLeft = constantOnLeft;
+            _integralConstant = !(constant instanceof Double);
+            _longConstant = constant.longValue();
+            _doubleConstant = constant.doubleValue();
+        }
+
+        @Override
+        public Object evaluate(T message)
+        {
+            final Object value = _operand.evaluate(message);
+            if (value == null)
+            {
+                return _equality ? Boolean.FALSE : null;
+            }
+
+            final Class<?> type = value.getClass();
+            int result;
+            if (type == Integer.class
+                || type == Long.class
+                || (!_constantOnLeft && (type == Short.class || type == Byte.class)))
+            {
+                final Number number = (Number) value;
+                result = _integralConstant
+                        ? Long.compare(number.longValue(), _longConstant)
+                        : Double.compare(number.doubleValue(), _doubleConstant);
+            }
+            else if (type == Double.class)
+            {
+                result = Double.compare((Double) value, _doubleConstant);
+            }
+            else if (_constantOnLeft)
+            {
+                return _equality ? equal(_source, _constant, value) : order(_source, _constant, value);
+            }
+            else
+            {
+                return _equality ? equal(_source, value, _constant) : order(_source, value, _constant);
+            }
+
+            if (_constantOnLeft)
+            {
+                result = -result;
+            }
+            final boolean match = _equality ? result == 0 : _source.asBoolean(result);
+            return match ? Boolean.TRUE : Boolean.FALSE;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Expression<T>[] getOperands()
+        {
+            return new Expression[] {_operand};
+        }
+
+        @Override
+        public String toString()
+        {
+            return _source.toString();
+        }
+    }
+
+    private static final class IsNullNode<T> extends CompiledNode<T>
+    {
+        private final ComparisonExpression<T> _source;
+        private final Expression<T> _operand;
+
+        private IsNullNode(final ComparisonExpression<T> source, final Expression<T> operand)
+        {
+            _source = source;
+            _operand = operand;
+        }
+
+        @Override
+        public Object evaluate(T message)
+        {
+            return _operand.evaluate(message) == null ? Boolean.TRUE : Boolean.FALSE;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Expression<T>[] getOperands()
+        {
+            return new Expression[] {_operand};
+        }
+
+        @Override
+        public String toString()
+        {
+            return _source.toString();
+        }
+    }
+
+    private static final class StringEqualityNode<T> extends CompiledNode<T>
+    {
+        private final ComparisonExpression<T> _source;
+        private final Expression<T> _operand;
+        private final String _constant;
+        private final boolean _constantOnLeft;
+
+        private StringEqualityNode(final ComparisonExpression<T> source,
+                                   final Expression<T> operand,
+                                   final String constant,
+                                   final boolean constantOnLeft)
+        {
+            _source = source;
+            _operand = operand;
+            _constant = constant;
+            _constantOnLeft = constantOnLeft;
+        }
+
+        @Override
+        public Object evaluate(T message)
+        {
+            final Object value = _operand.evaluate(message);
+            if (value == null)
+            {
+                return Boolean.FALSE;
+            }
+            if (value.getClass() == String.class)
+            {
+                return _constant.equals(value) ? Boolean.TRUE : Boolean.FALSE;
+            }
+            return _constantOnLeft ? equal(_source, _constant, value) : equal(_source, value, _constant);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Expression<T>[] getOperands()
+        {
+            return new Expression[] {_operand};
+        }
+
+        @Override
+        public String toString()
+        {
+            return _source.toString();
+        }
+    }
+
+    private static final class ComparisonNode<T> extends CompiledNode<T>
+    {
+        private final ComparisonExpression<T> _source;
+        private final boolean _equality;
+        private final Expression<T> _left;
+        private final Expression<T> _right;
+
+        private ComparisonNode(final ComparisonExpression<T> source,
+                               final boolean equality,
+                               final Expression<T> left,
+                               final Expression<T> right)
+        {
+            _source = source;
+            _equality = equality;
+            _left = left;
+            _right = right;
+        }
+
+        @Override
+        public Object evaluate(T message)
+        {
+            if (_equality)
+            {
+                return equal(_source, _left.evaluate(message), _right.evaluate(message));
+            }
+            final Object lv = _left.evaluate(message);
+            if (lv == null)
+            {
+                return null;
+            }
+            return order(_source, lv, _right.evaluate(message));
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Expression<T>[] getOperands()
+        {
+            return new Expression[] {_left, _right};
+        }
+
+        @Override
+        public String toString()
+        {
+            return _source.toString();
+        }
+    }
+}
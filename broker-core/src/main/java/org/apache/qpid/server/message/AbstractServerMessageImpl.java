@@ -48,6 +48,7 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
     private final Object _connectionReference;
     @SuppressWarnings("unused")
     private volatile Collection<UUID> _resources;
+    private volatile ConvertedMessageCache _convertedMessageCache;
 
 
     public AbstractServerMessageImpl(StoredMessage<T> handle, Object connectionReference)
@@ -127,6 +128,30 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
         while (!updated);
     }
 
+    boolean isReferencedByMultipleResources()
+    {
+        Collection<UUID> resources = _resources;
+        return resources != null && resources.size() > 1;
+    }
+
+    ConvertedMessageCache getConvertedMessageCache()
+    {
+        ConvertedMessageCache cache = _convertedMessageCache;
+        if (cache == null)
+        {
+            synchronized (this)
+            {
+                cache = _convertedMessageCache;
+                if (cache == null)
+                {
+                    cache = new ConvertedMessageCache();
+                    _convertedMessageCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
     public String debugIdentity()
     {
         return "(HC:" + System.identityHashCode(this) + " ID:" + getMessageNumber() + " Ref:" + getReferenceCount() + ")";
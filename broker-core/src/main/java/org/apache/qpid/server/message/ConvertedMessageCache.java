@@ -0,0 +1,202 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.apache.qpid.server.model.NamedAddressSpace;
+import org.apache.qpid.server.plugin.MessageConverter;
+import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
+
+/**
+ * Holds the forms a message has been converted into for delivery to consumers of other protocol versions, so that
+ * deliveries of a message routed to several queues which are in progress at the same time share one conversion per
+ * target message class rather than converting once each.
+ * <p>
+ * A converted form is shared by reference counting: every delivery holds a reference until it has been sent.  The
+ * cache holds none of its own, so a converted form is removed from the cache and disposed as soon as the last
+ * delivery using it has released it, and converted copies are never retained for messages awaiting consumers.
+ * Messages referenced by a single queue are converted without being cached.
+ */
+public final class ConvertedMessageCache
+{
+    private final List<SharedConversion<?>> _conversions = new ArrayList<>(2);
+
+    /**
+     * Converts the message using the given converter, reusing the cached converted form where the message is
+     * shared between queues.
+     *
+     * @return a reference to the converted message which must be released once the converted message is no
+     * longer used
+     */
+    public static <M extends ServerMessage, N extends ServerMessage> MessageReference<N> convert(final MessageConverter<M, N> converter,
+                                                                                                   final M message,
+                                                                                                   final NamedAddressSpace addressSpace)
+    {
+        if (message instanceof AbstractServerMessageImpl)
+        {
+            final AbstractServerMessageImpl<?, ?> sourceMessage = (AbstractServerMessageImpl<?, ?>) message;
+            if (sourceMessage.isReferencedByMultipleResources())
+            {
+                return sourceMessage.getConvertedMessageCache().getConvertedMessage(converter, message, addressSpace);
+            }
+        }
+        registerConversion(addressSpace, false);
+        return new SharedConversion<>(null, converter, converter.convert(message, addressSpace), addressSpace).newReference();
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <M extends ServerMessage, N extends ServerMessage> MessageReference<N> getConvertedMessage(final MessageConverter<M, N> converter,
+                                                                                                                      final M message,
+                                                                                                                      final NamedAddressSpace addressSpace)
+    {
+        for (SharedConversion<?> conversion : _conversions)
+        {
+            if (conversion.getConverter() == converter && conversion.getAddressSpace() == addressSpace)
+            {
+                registerConversion(addressSpace, true);
+                return ((SharedConversion<N>) conversion).newReference();
+            }
+        }
+
+        registerConversion(addressSpace, false);
+        final SharedConversion<N> conversion =
+                new SharedConversion<>(this, converter, converter.convert(message, addressSpace), addressSpace);
+        _conversions.add(conversion);
+        return conversion.newReference();
+    }
+
+    /**
+     * Drops a reference to a cached conversion, removing the conversion from the cache if it was the last one.  The
+     * count is decremented under the lock of the cache so that a conversion being removed cannot be handed out again.
+     *
+     * @return true if the conversion is no longer referenced and should be disposed
+     */
+    private synchronized boolean release(final SharedConversion<?> conversion)
+    {
+        if (conversion.decrementReferences() == 0)
+        {
+            _conversions.remove(conversion);
+            return true;
+        }
+        return false;
+    }
+
+    synchronized int size()
+    {
+        return _conversions.size();
+    }
+
+    private static void registerConversion(final NamedAddressSpace addressSpace, final boolean cacheHit)
+    {
+        if (addressSpace instanceof QueueManagingVirtualHost)
+        {
+            ((QueueManagingVirtualHost<?>) addressSpace).registerMessageConversion(cacheHit);
+        }
+    }
+
+    private static final class SharedConversion<N extends ServerMessage>
+    {
+        private final ConvertedMessageCache _cache;
+        private final MessageConverter<?, N> _converter;
+        private final N _message;
+        private final NamedAddressSpace _addressSpace;
+        private final AtomicInteger _references = new AtomicInteger();
+
+        private SharedConversion(final ConvertedMessageCache cache,
+                                 final MessageConverter<?, N> converter,
+                                 final N message,
+                                 final NamedAddressSpace addressSpace)
+        {
+            _cache = cache;
+            _converter = converter;
+            _message = message;
+            _addressSpace = addressSpace;
+        }
+
+        MessageConverter<?, N> getConverter()
+        {
+            return _converter;
+        }
+
+        NamedAddressSpace getAddressSpace()
+        {
+            return _addressSpace;
+        }
+
+        MessageReference<N> newReference()
+        {
+            _references.incrementAndGet();
+            return new ConversionReference<>(this);
+        }
+
+        int decrementReferences()
+        {
+            return _references.decrementAndGet();
+        }
+
+        void release()
+        {
+            if (_cache == null ? decrementReferences() == 0 : _cache.release(this))
+            {
+                _converter.dispose(_message);
+            }
+        }
+    }
+
+    private static final class ConversionReference<N extends ServerMessage> implements MessageReference<N>
+    {
+        private static final AtomicIntegerFieldUpdater<ConversionReference> _releasedUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(ConversionReference.class, "_released");
+
+        private final SharedConversion<N> _conversion;
+        private volatile int _released;
+
+        private ConversionReference(final SharedConversion<N> conversion)
+        {
+            _conversion = conversion;
+        }
+
+        @Override
+        public N getMessage()
+        {
+            return _conversion._message;
+        }
+
+        @Override
+        public void release()
+        {
+            if (_releasedUpdater.compareAndSet(this, 0, 1))
+            {
+                _conversion.release();
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            release();
+        }
+    }
+}
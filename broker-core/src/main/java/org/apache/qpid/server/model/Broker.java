@@ -290,6 +290,27 @@ public interface Broker<X extends Broker<X>> extends ConfiguredObject<X>, EventL
             description = "Number of unused direct memory buffers currently in the pool.")
     long getNumberOfBuffersInPool();
 
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE,
+            units = StatisticUnit.COUNT,
+            label = "Buffer Pool Hits",
+            description = "Number of direct memory buffers taken from the thread cache or the home shard of the pool.")
+    long getBufferPoolHits();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE,
+            units = StatisticUnit.COUNT,
+            label = "Buffer Pool Misses",
+            description = "Number of direct memory buffers allocated because the pool was empty.")
+    long getBufferPoolMisses();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE,
+            units = StatisticUnit.COUNT,
+            label = "Buffer Pool Steals",
+            description = "Number of direct memory buffers taken from a pool shard other than the home shard of the thread.")
+    long getBufferPoolSteals();
+
     @ManagedOperation(nonModifying = true,
             description = "Restart the broker within the same JVM",
             changesConfiguredObjectState = false,
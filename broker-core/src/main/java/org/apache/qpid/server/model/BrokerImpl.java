@@ -849,6 +849,24 @@ public class BrokerImpl extends AbstractContainer<BrokerImpl> implements Broker<
         return QpidByteBuffer.getNumberOfBuffersInPool();
     }
 
+    @Override
+    public long getBufferPoolHits()
+    {
+        return QpidByteBuffer.getPooledBufferHitCount();
+    }
+
+    @Override
+    public long getBufferPoolMisses()
+    {
+        return QpidByteBuffer.getPooledBufferMissCount();
+    }
+
+    @Override
+    public long getBufferPoolSteals()
+    {
+        return QpidByteBuffer.getPooledBufferStealCount();
+    }
+
     @Override
     public long getMessagesIn()
     {
@@ -23,16 +23,29 @@ package org.apache.qpid.server.model;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.util.ServerScopedRuntimeException;
 
 abstract class ConfiguredObjectMethodAttributeOrStatistic<C extends ConfiguredObject, T>
         implements ConfiguredObjectAttributeOrStatistic<C,T>
 {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfiguredObjectMethodAttributeOrStatistic.class);
+
+    // accessors generated by the broker-codegen annotation processor, keyed by the interface declaring the getters
+    private static final Map<Class<?>, Map<String, Function<Object, Object>>> GENERATED_ACCESSORS =
+            new ConcurrentHashMap<>();
 
     private final String _name;
     private final Class<T> _type;
     private final Method _getter;
+    private final Function<Object, Object> _accessor;
 
     ConfiguredObjectMethodAttributeOrStatistic(final Method getter)
     {
@@ -40,6 +53,9 @@ abstract class ConfiguredObjectMethodAttributeOrStatistic<C extends ConfiguredOb
         _getter = getter;
         _type = (Class<T>) AttributeValueConverter.getTypeFromMethod(getter);
         _name = AttributeValueConverter.getNameFromMethod(getter, getType());
+        _accessor = GENERATED_ACCESSORS.computeIfAbsent(getter.getDeclaringClass(),
+                                                        ConfiguredObjectMethodAttributeOrStatistic::loadGeneratedAccessors)
+                                       .get(getter.getName());
     }
 
     @Override
@@ -63,6 +79,10 @@ abstract class ConfiguredObjectMethodAttributeOrStatistic<C extends ConfiguredOb
     @Override
     public T getValue(C configuredObject)
     {
+        if (_accessor != null)
+        {
+            return (T) _accessor.apply(configuredObject);
+        }
         try
         {
             return (T) getGetter().invoke(configuredObject);
@@ -101,4 +121,25 @@ abstract class ConfiguredObjectMethodAttributeOrStatistic<C extends ConfiguredOb
         return _getter;
     }
 
+    private static Map<String, Function<Object, Object>> loadGeneratedAccessors(final Class<?> declaringClass)
+    {
+        final String accessorsClassName = declaringClass.getName().replace('$', '_') + "Accessors";
+        try
+        {
+            final Class<?> accessorsClass = Class.forName(accessorsClassName, true, declaringClass.getClassLoader());
+            return (Map<String, Function<Object, Object>>) accessorsClass.getMethod("getAccessors").invoke(null);
+        }
+        catch (ClassNotFoundException e)
+        {
+            LOGGER.debug("No generated accessors for {}, getters will be invoked reflectively", declaringClass.getName());
+            return Collections.emptyMap();
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            LOGGER.warn("Unable to load generated accessors for {}, getters will be invoked reflectively",
+                        declaringClass.getName(), e);
+            return Collections.emptyMap();
+        }
+    }
+
 }
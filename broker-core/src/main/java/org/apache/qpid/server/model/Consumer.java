@@ -42,6 +42,20 @@ public interface Consumer<X extends Consumer<X,T>, T extends ConsumerTarget> ext
     @ManagedContextDefault( name = SUSPEND_NOTIFICATION_PERIOD)
     long SUSPEND_NOTIFICATION_PERIOD_DEFAULT = 10000;
 
+    String DELIVERY_BATCH_MAX_MESSAGES = "consumer.deliveryBatch.maxMessages";
+
+    @ManagedContextDefault(name = DELIVERY_BATCH_MAX_MESSAGES,
+                           description = "Maximum number of messages sent to a consumer in one batched run before"
+                                         + " the transfers are flushed and other consumers get a turn. A value of 1"
+                                         + " sends messages one at a time.")
+    int DELIVERY_BATCH_MAX_MESSAGES_DEFAULT = 1;
+
+    String DELIVERY_BATCH_MAX_BYTES = "consumer.deliveryBatch.maxBytes";
+
+    @ManagedContextDefault(name = DELIVERY_BATCH_MAX_BYTES,
+                           description = "Maximum number of message bytes sent to a consumer in one batched run.")
+    long DELIVERY_BATCH_MAX_BYTES_DEFAULT = 256 * 1024;
+
     AtomicLong CONSUMER_NUMBER_GENERATOR = new AtomicLong(0);
 
     @DerivedAttribute
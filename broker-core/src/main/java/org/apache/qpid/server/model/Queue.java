@@ -93,6 +93,19 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
     @ManagedContextDefault( name = QUEUE_SCAVANGE_COUNT)
     int DEFAULT_QUEUE_SCAVANGE_COUNT = 100;
 
+    String QUEUE_MESSAGE_ID_INDEX_ENABLED = "qpid.queue.messageIdIndexEnabled";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault( name = QUEUE_MESSAGE_ID_INDEX_ENABLED,
+            description = "If true, an index of the queue entries by message id is built on the first lookup of "
+                          + "a message by its id and maintained thereafter.  If false, such lookups scan the queue.")
+    boolean DEFAULT_QUEUE_MESSAGE_ID_INDEX_ENABLED = true;
+
+    String QUEUE_MESSAGE_EXPIRY_CHECK_PERIOD = "qpid.queue.messageExpiryCheckPeriod";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault( name = QUEUE_MESSAGE_EXPIRY_CHECK_PERIOD,
+            description = "The period (in ms) at which messages whose time-to-live has elapsed are removed from the "
+                          + "queue.  If 0, they are removed by the virtualhost housekeeping only.")
+    long DEFAULT_QUEUE_MESSAGE_EXPIRY_CHECK_PERIOD = 1000L;
 
     String MIME_TYPE_TO_FILE_EXTENSION = "qpid.mimeTypeToFileExtension";
     @SuppressWarnings("unused")
@@ -414,6 +427,22 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
             description = "Total number of messages expired by message time-to-live on this queue.")
     long getTotalExpiredMessages();
 
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Expirations Scheduled",
+            description = "Total number of message expirations scheduled on this queue.")
+    long getTotalScheduledExpirations();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Expirations Fired",
+            description = "Total number of scheduled message expirations which have fallen due on this queue,"
+                          + " counting again those retried because the message could not be deleted when it fell due.")
+    long getTotalFiredExpirations();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.MESSAGES, label = "Expirations Pending",
+            description = "Current number of messages on this queue with a scheduled expiration.")
+    int getPendingExpirations();
+
 
     @SuppressWarnings("unused")
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES, label = "Prefetched",
@@ -460,6 +489,16 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
                       description = "Current age of oldest message on the queue.")
     long getOldestMessageAge();
 
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.MESSAGES, label = "Recovered",
+                      description = "Number of messages recovered from the message store when the virtualhost started.")
+    long getRecoveredMessages();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Recovery Time",
+                      description = "Time taken to recover the messages of this queue from the message store.")
+    long getRecoveryTime();
+
     @ManagedOperation(description = "move messages from this queue to another", changesConfiguredObjectState = false)
     List<Long> moveMessages(@Param(name = "destination", description = "The queue to which the messages should be moved", mandatory = true) Queue<?> destination,
                             @Param(name = "messageIds", description = "If provided, only messages in the queue whose (internal) message-id is supplied will be considered for moving") List<Long> messageIds,
@@ -58,4 +58,12 @@ public interface Session<X extends Session<X>> extends ConfiguredObject<X>
 
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.MESSAGES, label = "Prefetched")
     long getUnacknowledgedMessages();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Publish Authorisation Cache Hits",
+                      description = "Total number of publishes authorised from the cached outcome of an earlier check.")
+    long getPublishAuthorisationCacheHits();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Publish Authorisation Cache Misses",
+                      description = "Total number of publishes which required the publish to be authorised.")
+    long getPublishAuthorisationCacheMisses();
 }
@@ -116,6 +116,35 @@ public interface AmqpPort<X extends AmqpPort<X>> extends Port<X>
     @ManagedContextDefault(name = HEART_BEAT_DELAY)
     int DEFAULT_HEART_BEAT_DELAY = 0;
 
+    String WEBSOCKET_DIRECT_WRITE_THRESHOLD = "qpid.port.websocket.directWriteThreshold";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = WEBSOCKET_DIRECT_WRITE_THRESHOLD,
+                           description = "Size in bytes from which an outgoing buffer of a WebSocket port is sent in"
+                                         + " its own message rather than copied together with other small buffers.")
+    int DEFAULT_WEBSOCKET_DIRECT_WRITE_THRESHOLD = 16 * 1024;
+
+    String WEBSOCKET_MAX_PENDING_WRITE_BYTES = "qpid.port.websocket.maxPendingWriteBytes";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = WEBSOCKET_MAX_PENDING_WRITE_BYTES,
+                           description = "Number of bytes of a WebSocket connection which may await sending before the"
+                                         + " connection stops producing output, resuming once half have been sent.")
+    int DEFAULT_WEBSOCKET_MAX_PENDING_WRITE_BYTES = 1024 * 1024;
+
+    String TLS_HANDSHAKE_THREAD_POOL_SIZE = "qpid.port.amqp.tlsHandshake.threadPoolSize";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = TLS_HANDSHAKE_THREAD_POOL_SIZE,
+                           description = "Number of threads of an AMQP port running the delegated tasks of TLS"
+                                         + " handshakes, such as key exchange and certificate validation, off the IO"
+                                         + " threads. If zero, the tasks are run by the IO threads.")
+    int DEFAULT_TLS_HANDSHAKE_THREAD_POOL_SIZE = Math.max(Runtime.getRuntime().availableProcessors() / 2, 1);
+
+    String TLS_HANDSHAKE_QUEUE_SIZE = "qpid.port.amqp.tlsHandshake.queueSize";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = TLS_HANDSHAKE_QUEUE_SIZE,
+                           description = "Number of TLS handshakes of an AMQP port which may wait for a handshake"
+                                         + " thread. Further handshakes run their tasks on the IO threads.")
+    int DEFAULT_TLS_HANDSHAKE_QUEUE_SIZE = 1024;
+
     String TLS_SESSION_TIMEOUT = "qpid.port.amqp.tlsSessionTimeout";
     @SuppressWarnings("unused")
     @ManagedContextDefault(name = TLS_SESSION_TIMEOUT, description = "TLS session timeout for AMQP ports (seconds).")
@@ -170,6 +199,85 @@ public interface AmqpPort<X extends AmqpPort<X>> extends Port<X>
                       description = "Current number of connections made through this port")
     int getConnectionCount();
 
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.BYTES,
+                      label = "Bytes Written",
+                      description = "Total number of bytes written to the network by connections made through this"
+                                    + " port")
+    long getBytesWritten();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.BYTES,
+                      label = "Bytes Copied For Write",
+                      description = "Total number of bytes of small outgoing buffers copied so as to be written together"
+                                    + " by connections made through this port. Connections which write their buffers"
+                                    + " with gathering writes copy none.")
+    long getBytesCopiedForWrite();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES,
+                      label = "Pending Write Bytes",
+                      description = "Current number of bytes awaiting writing to the network by connections made"
+                                    + " through this port")
+    long getPendingWriteBytes();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT,
+                      label = "Max Selector Connections",
+                      description = "Current number of connections assigned to the most loaded selector of this port")
+    int getMaxSelectorConnectionCount();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Selects",
+                      description = "Total number of selects performed by the selectors of this port")
+    long getSelectCount();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Selector Wakeups",
+                      description = "Total number of times the selectors of this port were woken from a select")
+    long getSelectorWakeupCount();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.TIME_DURATION,
+                      label = "Select Latency",
+                      description = "Total time taken by the selectors of this port to hand ready connections on for"
+                                    + " processing after their selects returned")
+    long getSelectLatency();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT,
+                      label = "TLS Handshakes",
+                      description = "Total number of TLS handshakes completed by connections made through this port")
+    long getTlsHandshakesCompleted();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.TIME_DURATION,
+                      label = "TLS Handshake Time",
+                      description = "Total time taken by the TLS handshakes completed by connections made through"
+                                    + " this port")
+    long getTlsHandshakeTime();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT,
+                      label = "TLS Handshake Task Batches",
+                      description = "Total number of batches of delegated TLS handshake tasks run by the handshake"
+                                    + " threads of this port")
+    long getTlsHandshakeTaskBatchesRun();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT,
+                      label = "TLS Handshake Task Batches On IO Threads",
+                      description = "Total number of batches of delegated TLS handshake tasks run by the IO threads"
+                                    + " of this port because the handshake threads were saturated or disabled")
+    long getTlsHandshakeTasksRunOnIoThreads();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.TIME_DURATION,
+                      label = "TLS Handshake Task Queue Time",
+                      description = "Total time the batches of delegated TLS handshake tasks spent queueing for a"
+                                    + " handshake thread of this port")
+    long getTlsHandshakeTaskQueueTime();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.TIME_DURATION,
+                      label = "TLS Handshake Task Time",
+                      description = "Total time taken by the handshake threads of this port to run batches of"
+                                    + " delegated TLS handshake tasks")
+    long getTlsHandshakeTaskTime();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT,
+                      label = "Queued TLS Handshake Task Batches",
+                      description = "Current number of batches of delegated TLS handshake tasks queueing for a"
+                                    + " handshake thread of this port")
+    int getQueuedTlsHandshakeTaskBatches();
+
     @DerivedAttribute(description = "Maximum time allowed for a new connection to send a protocol header."
                                     + " If the connection does not send a protocol header within this time,"
                                     + " the connection will be aborted.")
@@ -599,6 +599,104 @@ public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort
         return _connectionCount.get();
     }
 
+    @Override
+    public long getBytesWritten()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0L : transport.getBytesWritten();
+    }
+
+    @Override
+    public long getBytesCopiedForWrite()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0L : transport.getBytesCopiedForWrite();
+    }
+
+    @Override
+    public long getPendingWriteBytes()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0L : transport.getPendingWriteBytes();
+    }
+
+    @Override
+    public int getMaxSelectorConnectionCount()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0 : transport.getMaxSelectorConnectionCount();
+    }
+
+    @Override
+    public long getSelectCount()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0L : transport.getSelectCount();
+    }
+
+    @Override
+    public long getSelectorWakeupCount()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0L : transport.getSelectorWakeupCount();
+    }
+
+    @Override
+    public long getSelectLatency()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0L : transport.getSelectLatency();
+    }
+
+    @Override
+    public long getTlsHandshakesCompleted()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0L : transport.getTlsHandshakesCompleted();
+    }
+
+    @Override
+    public long getTlsHandshakeTime()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0L : transport.getTlsHandshakeTime();
+    }
+
+    @Override
+    public long getTlsHandshakeTaskBatchesRun()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0L : transport.getTlsHandshakeTaskBatchesRun();
+    }
+
+    @Override
+    public long getTlsHandshakeTasksRunOnIoThreads()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0L : transport.getTlsHandshakeTasksRunOnIoThreads();
+    }
+
+    @Override
+    public long getTlsHandshakeTaskQueueTime()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0L : transport.getTlsHandshakeTaskQueueTime();
+    }
+
+    @Override
+    public long getTlsHandshakeTaskTime()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0L : transport.getTlsHandshakeTaskTime();
+    }
+
+    @Override
+    public int getQueuedTlsHandshakeTaskBatches()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? 0 : transport.getQueuedTlsHandshakeTaskBatches();
+    }
+
     @Override
     public long getProtocolHandshakeTimeout()
     {
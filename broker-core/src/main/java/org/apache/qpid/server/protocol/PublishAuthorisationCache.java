@@ -20,29 +20,39 @@
  */
 package org.apache.qpid.server.protocol;
 
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.security.SecurityToken;
 import org.apache.qpid.server.transport.AbstractAMQPConnection;
 
+/**
+ * Caches the outcome of successful publish authorisation checks for a limited time.
+ * <p>
+ * Cached results are held per destination and routing key, so a publish that hits the cache neither
+ * takes a lock nor allocates.  Once the number of cached routing keys reaches the size limit, expired
+ * results are purged and, if none have expired, an arbitrary result is evicted to make room.
+ * <p>
+ * The cache is safe for concurrent use.
+ */
 public class PublishAuthorisationCache
 {
+    private static final Object NULL_ROUTING_KEY = new Object();
+
     private final SecurityToken _token;
 
     private final long _publishAuthCacheTimeout;
     private final int _publishAuthCacheSize;
-    private final LinkedHashMap<PublishAuthKey, Long> _publishAuthCache =
-            new LinkedHashMap<PublishAuthKey, Long>()
-            {
-                @Override
-                protected boolean removeEldestEntry(final Map.Entry<PublishAuthKey, Long> eldest)
-                {
-                    return size() > _publishAuthCacheSize;
-                }
-            };
+    private final ConcurrentMap<MessageDestination, ConcurrentMap<Object, Expiration>> _publishAuthCache =
+            new ConcurrentHashMap<>();
+    private final AtomicInteger _size = new AtomicInteger();
+    private final AtomicLong _hits = new AtomicLong();
+    private final AtomicLong _misses = new AtomicLong();
 
     public PublishAuthorisationCache(final SecurityToken token,
                                      final long publishAuthCacheTimeout,
@@ -53,58 +63,131 @@ public class PublishAuthorisationCache
         _publishAuthCacheSize = publishAuthCacheSize;
     }
 
-    private final class PublishAuthKey
+    private static final class Expiration
     {
-        private final MessageDestination _messageDestination;
-        private final String _routingKey;
-        private final boolean _immediate;
-        private final int _hashCode;
-
-        public PublishAuthKey(final MessageDestination messageDestination,
-                              final String routingKey,
-                              final boolean immediate)
+        private volatile long _expiration = Long.MIN_VALUE;
+        private volatile long _immediateExpiration = Long.MIN_VALUE;
+
+        long get(final boolean immediate)
         {
-            _messageDestination = messageDestination;
-            _routingKey = routingKey;
-            _immediate = immediate;
-            _hashCode = Objects.hash(_messageDestination, _routingKey, _immediate);
+            return immediate ? _immediateExpiration : _expiration;
         }
 
-        @Override
-        public boolean equals(final Object o)
+        void set(final boolean immediate, final long expiration)
         {
-            if (this == o)
+            if (immediate)
             {
-                return true;
+                _immediateExpiration = expiration;
             }
-            if (o == null || getClass() != o.getClass())
+            else
             {
-                return false;
+                _expiration = expiration;
             }
-            final PublishAuthKey that = (PublishAuthKey) o;
-            return _hashCode == that._hashCode
-                   && _immediate == that._immediate
-                   && Objects.equals(_messageDestination, that._messageDestination)
-                   && Objects.equals(_routingKey, that._routingKey);
         }
 
-        @Override
-        public int hashCode()
+        boolean isExpired(final long currentTime)
         {
-            return _hashCode;
+            return _expiration < currentTime && _immediateExpiration < currentTime;
         }
     }
 
     public void authorisePublish(MessageDestination destination, String routingKey, boolean isImmediate, long currentTime)
     {
-        PublishAuthKey key = new PublishAuthKey(destination, routingKey, isImmediate);
-        Long expiration = _publishAuthCache.get(key);
+        final Object key = routingKey == null ? NULL_ROUTING_KEY : routingKey;
+        final Map<Object, Expiration> routingKeys = _publishAuthCache.get(destination);
+        final Expiration expiration = routingKeys == null ? null : routingKeys.get(key);
 
-        if(expiration == null || expiration < currentTime)
+        if(expiration == null || expiration.get(isImmediate) < currentTime)
         {
+            _misses.incrementAndGet();
             destination.authorisePublish(_token, AbstractAMQPConnection.PUBLISH_ACTION_MAP_CREATOR.createMap(routingKey, isImmediate));
-            _publishAuthCache.put(key, currentTime + _publishAuthCacheTimeout);
+            cache(destination, key, isImmediate, currentTime);
+        }
+        else
+        {
+            _hits.incrementAndGet();
+        }
+    }
+
+    public long getHits()
+    {
+        return _hits.get();
+    }
+
+    public long getMisses()
+    {
+        return _misses.get();
+    }
+
+    public int getSize()
+    {
+        return _size.get();
+    }
+
+    private void cache(final MessageDestination destination,
+                       final Object key,
+                       final boolean isImmediate,
+                       final long currentTime)
+    {
+        final Map<Object, Expiration> routingKeys = _publishAuthCache.get(destination);
+        if (routingKeys == null || !routingKeys.containsKey(key))
+        {
+            if (_size.get() >= _publishAuthCacheSize)
+            {
+                evict(currentTime);
+            }
+            if (_size.get() >= _publishAuthCacheSize)
+            {
+                return;
+            }
         }
+
+        _publishAuthCache.compute(destination, (d, existing) ->
+        {
+            final ConcurrentMap<Object, Expiration> keys = existing == null ? new ConcurrentHashMap<>() : existing;
+            final Expiration expiration = keys.computeIfAbsent(key, k ->
+            {
+                _size.incrementAndGet();
+                return new Expiration();
+            });
+            expiration.set(isImmediate, currentTime + _publishAuthCacheTimeout);
+            return keys;
+        });
     }
 
+    private void evict(final long currentTime)
+    {
+        for (MessageDestination destination : _publishAuthCache.keySet())
+        {
+            _publishAuthCache.computeIfPresent(destination, (d, keys) ->
+            {
+                final Iterator<Expiration> iterator = keys.values().iterator();
+                while (iterator.hasNext())
+                {
+                    if (iterator.next().isExpired(currentTime))
+                    {
+                        iterator.remove();
+                        _size.decrementAndGet();
+                    }
+                }
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+
+        final Iterator<MessageDestination> destinations = _publishAuthCache.keySet().iterator();
+        while (_size.get() >= _publishAuthCacheSize && destinations.hasNext())
+        {
+            _publishAuthCache.computeIfPresent(destinations.next(), (d, keys) ->
+            {
+                final Iterator<Expiration> iterator = keys.values().iterator();
+                if (iterator.hasNext())
+                {
+                    iterator.next();
+                    iterator.remove();
+                    _size.decrementAndGet();
+                }
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
 }
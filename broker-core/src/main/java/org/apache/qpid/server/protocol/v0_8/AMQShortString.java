@@ -151,6 +151,29 @@ public final class AMQShortString implements Comparable<AMQShortString>
     }
 
 
+    /**
+     * Reads the short string encoded at the position of the given buffer and tells whether it is equal to this one.
+     * The buffer is left positioned after the encoded string.
+     */
+    boolean readEncodedAndCompare(QpidByteBuffer buffer)
+    {
+        final int length = buffer.getUnsignedByte();
+        if (length != _length)
+        {
+            buffer.position(buffer.position() + length);
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (buffer.get() != _data[_offset + i])
+            {
+                buffer.position(buffer.position() + length - i - 1);
+                return false;
+            }
+        }
+        return true;
+    }
+
     public AMQShortString(byte[] data, final int offset, final int length)
     {
         if (length > MAX_LENGTH)
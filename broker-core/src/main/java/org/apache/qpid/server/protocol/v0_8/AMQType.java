@@ -987,4 +987,55 @@ public enum AMQType
      * @return An instance of the type.
      */
     abstract Object readValueFromBuffer(QpidByteBuffer buffer);
+
+    /**
+     * Moves the position of the given buffer past an instance of the type without decoding it.
+     *
+     * @param buffer The byte buffer positioned at an instance of the type.
+     */
+    void skipValue(QpidByteBuffer buffer)
+    {
+        final int length;
+        switch (this)
+        {
+            case LONG_STRING:
+            case FIELD_TABLE:
+            case FIELD_ARRAY:
+            case BINARY:
+            case ASCII_STRING:
+            case WIDE_STRING:
+                length = (int) buffer.getUnsignedInt();
+                break;
+            case VOID:
+                length = 0;
+                break;
+            case BOOLEAN:
+            case ASCII_CHARACTER:
+            case BYTE:
+            case UNSIGNED_BYTE:
+                length = 1;
+                break;
+            case SHORT:
+            case UNSIGNED_SHORT:
+                length = 2;
+                break;
+            case INTEGER:
+            case INT:
+            case FLOAT:
+                length = 4;
+                break;
+            case DECIMAL:
+                length = 5;
+                break;
+            case TIMESTAMP:
+            case LONG:
+            case DOUBLE:
+                length = 8;
+                break;
+            default:
+                readValueFromBuffer(buffer);
+                return;
+        }
+        buffer.position(buffer.position() + length);
+    }
 }
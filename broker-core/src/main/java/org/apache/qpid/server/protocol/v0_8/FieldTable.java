@@ -47,7 +47,13 @@ public class FieldTable
     private QpidByteBuffer _encodedForm;
     private Map<AMQShortString, AMQTypedValue> _properties = null;
     private long _encodedSize;
+    private int _scanningLookups;
     private static final int INITIAL_HASHMAP_CAPACITY = 16;
+    /**
+     * Number of lookups answered by scanning the encoded form before it is decoded into a map.  Most users of a
+     * table read only one or two of its fields.
+     */
+    private static final int MAX_SCANNING_LOOKUPS = 4;
     private final boolean _strictAMQP;
 
     public FieldTable()
@@ -105,6 +111,11 @@ public class FieldTable
                 {
                     return null;
                 }
+                else if (_scanningLookups < MAX_SCANNING_LOOKUPS)
+                {
+                    _scanningLookups++;
+                    return findInBuffer(string);
+                }
                 else
                 {
                     populateFromBuffer();
@@ -122,6 +133,40 @@ public class FieldTable
         }
     }
 
+    /**
+     * Finds the value of the given property by walking the encoded form, without decoding the other properties.  As
+     * when the table is decoded, the last of duplicated properties wins.
+     */
+    private AMQTypedValue findInBuffer(AMQShortString name)
+    {
+        if (_encodedSize > 0)
+        {
+            try (QpidByteBuffer slice = _encodedForm.slice())
+            {
+                int valuePosition = -1;
+                do
+                {
+                    final boolean matches = name.readEncodedAndCompare(slice);
+                    final int position = slice.position();
+                    final AMQType type = AMQTypeMap.getType(slice.get());
+                    if (matches)
+                    {
+                        valuePosition = position;
+                    }
+                    type.skipValue(slice);
+                }
+                while (slice.hasRemaining());
+
+                if (valuePosition >= 0)
+                {
+                    slice.position(valuePosition);
+                    return AMQTypedValue.readFromBuffer(slice);
+                }
+            }
+        }
+        return null;
+    }
+
     private void populateFromBuffer()
     {
         try
@@ -757,10 +802,7 @@ public class FieldTable
 
     public boolean itemExists(AMQShortString propertyName)
     {
-        checkPropertyName(propertyName);
-        initMapIfNecessary();
-
-        return _properties.containsKey(propertyName);
+        return getProperty(propertyName) != null;
     }
 
     public boolean itemExists(String string)
@@ -49,6 +49,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -253,14 +254,20 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     private final AtomicInteger _recovering = new AtomicInteger(RECOVERING);
     private final AtomicInteger _enqueuingWhileRecovering = new AtomicInteger(0);
+    private final AtomicLong _recoveredMessages = new AtomicLong();
+    private volatile long _recoveryStartTime;
+    private volatile long _recoveryTime;
     private final ConcurrentLinkedQueue<EnqueueRequest> _postRecoveryQueue = new ConcurrentLinkedQueue<>();
     private final ConcurrentMap<String, Callable<MessageFilter>> _defaultFiltersMap = new ConcurrentHashMap<>();
+    private final SharedFilterRegistry _sharedFilterRegistry = new SharedFilterRegistry();
     private final List<HoldMethod> _holdMethods = new CopyOnWriteArrayList<>();
     private final Set<DestinationReferrer> _referrers = Collections.newSetFromMap(new ConcurrentHashMap<DestinationReferrer,Boolean>());
 
     private boolean _closing;
     private Map<String, String> _mimeTypeToFileExtension = Collections.emptyMap();
     private AdvanceConsumersTask _queueHouseKeepingTask;
+    private ExpireMessagesTask _expireMessagesTask;
+    private final MessageExpiryIndex _expiryIndex = new MessageExpiryIndex(System.currentTimeMillis());
     private volatile int _bindingCount;
     private volatile RejectPolicyHandler _rejectPolicyHandler;
     private volatile OverflowPolicyHandler _postEnqueueOverflowPolicyHandler;
@@ -359,6 +366,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         _logSubject = new QueueLogSubject(this);
 
         _queueHouseKeepingTask = new AdvanceConsumersTask();
+        _expireMessagesTask = new ExpireMessagesTask();
         Subject activeSubject = Subject.getSubject(AccessController.getContext());
         Set<SessionPrincipal> sessionPrincipals = activeSubject == null ? Collections.<SessionPrincipal>emptySet() : activeSubject.getPrincipals(SessionPrincipal.class);
         AMQPSession<?, ?> session;
@@ -997,13 +1005,23 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             optionSet.removeAll(EnumSet.of(ConsumerOption.SEES_REQUEUES, ConsumerOption.ACQUIRES));
         }
 
-        QueueConsumerImpl<T> consumer = new QueueConsumerImpl<>(this,
-                                                           target,
-                                                           consumerName,
-                                                           filters,
-                                                           messageClass,
-                                                           optionSet,
-                                                           priority);
+        _sharedFilterRegistry.register(filters);
+        final QueueConsumerImpl<T> consumer;
+        try
+        {
+            consumer = new QueueConsumerImpl<>(this,
+                                               target,
+                                               consumerName,
+                                               filters,
+                                               messageClass,
+                                               optionSet,
+                                               priority);
+        }
+        catch (RuntimeException e)
+        {
+            _sharedFilterRegistry.release(filters);
+            throw e;
+        }
 
         _exclusiveOwner = exclusiveOwner;
 
@@ -1058,6 +1076,11 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
 
 
+    SharedFilterRegistry getSharedFilterRegistry()
+    {
+        return _sharedFilterRegistry;
+    }
+
     void unregisterConsumer(final QueueConsumerImpl consumer)
     {
         if (consumer == null)
@@ -1074,6 +1097,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             setExclusiveSubscriber(null);
 
             consumer.setQueueContext(null);
+            _sharedFilterRegistry.release(consumer.getFilters());
 
             if(_exclusive == ExclusivityPolicy.LINK)
             {
@@ -1213,6 +1237,10 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     @Override
     public final void recover(ServerMessage message, final MessageEnqueueRecord enqueueRecord)
     {
+        if (_recoveredMessages.getAndIncrement() == 0)
+        {
+            _recoveryStartTime = System.currentTimeMillis();
+        }
         doEnqueue(message, null, enqueueRecord);
     }
 
@@ -1233,6 +1261,10 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
             enqueueFromPostRecoveryQueue();
 
+            if (_recoveryStartTime != 0)
+            {
+                _recoveryTime = System.currentTimeMillis() - _recoveryStartTime;
+            }
             _recovering.set(RECOVERED);
 
         }
@@ -1253,6 +1285,10 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     {
         final QueueEntry entry = getEntries().add(message, enqueueRecord);
         updateExpiration(entry);
+        if (entry instanceof QueueEntryImpl)
+        {
+            _expiryIndex.add((QueueEntryImpl) entry);
+        }
 
         try
         {
@@ -1519,6 +1555,18 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return oldestMessageArrivalTime;
     }
 
+    @Override
+    public long getRecoveredMessages()
+    {
+        return _recoveredMessages.get();
+    }
+
+    @Override
+    public long getRecoveryTime()
+    {
+        return _recoveryTime;
+    }
+
     @Override
     public long getOldestMessageAge()
     {
@@ -1600,24 +1648,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     @Override
     public QueueEntry getMessageOnTheQueue(final long messageId)
     {
-        List<QueueEntry> entries = getMessagesOnTheQueue(new QueueEntryFilter()
-        {
-            private boolean _complete;
-
-            @Override
-            public boolean accept(QueueEntry entry)
-            {
-                _complete = entry.getMessage().getMessageNumber() == messageId;
-                return _complete;
-            }
-
-            @Override
-            public boolean filterComplete()
-            {
-                return _complete;
-            }
-        });
-        return entries.isEmpty() ? null : entries.get(0);
+        return getEntries().getEntryByMessageId(messageId);
     }
 
     List<QueueEntry> getMessagesOnTheQueue(QueueEntryFilter filter)
@@ -1826,6 +1857,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
                 _stopped.set(true);
                 _queueHouseKeepingTask.cancel();
+                _expireMessagesTask.cancel();
 
                 performQueueDeleteTasks();
                 deleted();
@@ -1879,6 +1911,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         _stopped.set(true);
         _closing = false;
         _queueHouseKeepingTask.cancel();
+        _expireMessagesTask.cancel();
         return Futures.immediateFuture(null);
     }
 
@@ -2129,10 +2162,32 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     }
 
 
+    /**
+     * Deletes the entries whose time-to-live has elapsed, as found by the expiry index.  Entries which cannot be
+     * deleted yet, such as those acquired by a consumer, are put back in the index to be retried.
+     */
+    void expireMessages()
+    {
+        for (final QueueEntryImpl entry : _expiryIndex.advance(System.currentTimeMillis()))
+        {
+            if (!entry.isDeleted())
+            {
+                if (entry.expired())
+                {
+                    deleteEntry(entry, () -> _queueStatistics.addToExpired(entry.getSizeWithHeader()));
+                }
+                if (!entry.isDeleted())
+                {
+                    _expiryIndex.retry(entry);
+                }
+            }
+        }
+    }
+
     @Override
     public void checkMessageStatus()
     {
-        QueueEntryIterator queueListIterator = getEntries().iterator();
+        expireMessages();
 
         final Set<NotificationCheck> perMessageChecks = new HashSet<>();
         final Set<NotificationCheck> queueLevelChecks = new HashSet<>();
@@ -2152,7 +2207,11 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         final long currentTime = System.currentTimeMillis();
         final long thresholdTime = currentTime - getAlertRepeatGap();
 
-        while (!_stopped.get() && queueListIterator.advance())
+        // expired entries are found through the expiry index, so the queue only needs to be scanned for the checks
+        // made against each message
+        final boolean scanEntries = !perMessageChecks.isEmpty() || !_holdMethods.isEmpty();
+        final QueueEntryIterator queueListIterator = getEntries().iterator();
+        while (scanEntries && !_stopped.get() && queueListIterator.advance())
         {
             final QueueEntry node = queueListIterator.getNode();
             // Only process nodes that are not currently deleted and not dequeued
@@ -2621,6 +2680,24 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return _queueStatistics.getExpiredCount();
     }
 
+    @Override
+    public long getTotalScheduledExpirations()
+    {
+        return _expiryIndex.getScheduledCount();
+    }
+
+    @Override
+    public long getTotalFiredExpirations()
+    {
+        return _expiryIndex.getFiredCount();
+    }
+
+    @Override
+    public int getPendingExpirations()
+    {
+        return _expiryIndex.size();
+    }
+
     private void checkForNotification(final ServerMessage<?> msg,
                                       final QueueNotificationListener listener,
                                       final long currentTime,
@@ -2953,6 +3030,11 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     private ListenableFuture<Void> activate()
     {
         _virtualHost.scheduleHouseKeepingTask(_virtualHost.getHousekeepingCheckPeriod(), _queueHouseKeepingTask);
+        final long expiryCheckPeriod = getContextValue(Long.class, QUEUE_MESSAGE_EXPIRY_CHECK_PERIOD);
+        if (expiryCheckPeriod > 0L)
+        {
+            _virtualHost.scheduleHouseKeepingTask(expiryCheckPeriod, _expireMessagesTask);
+        }
         setState(State.ACTIVE);
         return Futures.immediateFuture(null);
     }
@@ -3233,11 +3315,21 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     @Override
     public Content getMessageContent(final long messageId, final long limit, boolean returnJson, boolean decompressBeforeLimiting)
     {
-        final MessageContentFinder messageFinder = new MessageContentFinder(messageId);
-        visit(messageFinder);
-        if (messageFinder.isFound())
+        final QueueEntry entry = getMessageOnTheQueue(messageId);
+        final ServerMessage message = entry == null ? null : entry.getMessage();
+        if (message != null)
         {
-            return createMessageContent(messageFinder.getMessageReference(), returnJson, limit, decompressBeforeLimiting);
+            final MessageReference<?> messageReference;
+            try
+            {
+                messageReference = message.newReference();
+            }
+            catch (MessageDeletedException e)
+            {
+                // ignore - the message was deleted as we tried too look at it, treat as if no message found
+                return null;
+            }
+            return createMessageContent(messageReference, returnJson, limit, decompressBeforeLimiting);
         }
         else
         {
@@ -3303,9 +3395,23 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     @Override
     public MessageInfo getMessageInfoById(final long messageId, boolean includeHeaders)
     {
-        final MessageFinder messageFinder = new MessageFinder(messageId, includeHeaders);
-        visit(messageFinder);
-        return messageFinder.getMessageInfo();
+        final QueueEntry entry = getMessageOnTheQueue(messageId);
+        final MessageReference reference = entry == null ? null : entry.newMessageReference();
+        if (reference != null)
+        {
+            try
+            {
+                if (!entry.isDeleted())
+                {
+                    return new MessageInfoImpl(entry, includeHeaders);
+                }
+            }
+            finally
+            {
+                reference.release();
+            }
+        }
+        return null;
     }
 
     @Override
@@ -3331,86 +3437,6 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return !_referrers.isEmpty();
     }
 
-    private class MessageFinder implements QueueEntryVisitor
-    {
-        private final long _messageNumber;
-        private final boolean _includeHeaders;
-        private MessageInfo _messageInfo;
-
-        private MessageFinder(long messageNumber, final boolean includeHeaders)
-        {
-            _messageNumber = messageNumber;
-            _includeHeaders = includeHeaders;
-        }
-
-        @Override
-        public boolean visit(QueueEntry entry)
-        {
-            ServerMessage message = entry.getMessage();
-            if(message != null)
-            {
-                if (_messageNumber == message.getMessageNumber())
-                {
-                    _messageInfo = new MessageInfoImpl(entry, _includeHeaders);
-                    return true;
-                }
-            }
-            return false;
-        }
-
-        public MessageInfo getMessageInfo()
-        {
-            return _messageInfo;
-        }
-    }
-
-    private class MessageContentFinder implements QueueEntryVisitor
-    {
-        private final long _messageNumber;
-        private boolean _found;
-        private MessageReference<?> _messageReference;
-
-        private MessageContentFinder(long messageNumber)
-        {
-            _messageNumber = messageNumber;
-        }
-
-
-        @Override
-        public boolean visit(QueueEntry entry)
-        {
-            ServerMessage message = entry.getMessage();
-            if(message != null)
-            {
-                if(_messageNumber == message.getMessageNumber())
-                {
-                    try
-                    {
-                        _messageReference = message.newReference();
-                        _found = true;
-                        return true;
-                    }
-                    catch (MessageDeletedException e)
-                    {
-                        // ignore - the message was deleted as we tried too look at it, treat as if no message found
-                    }
-                }
-
-            }
-            return false;
-        }
-
-        MessageReference<?> getMessageReference()
-        {
-            return _messageReference;
-        }
-
-        public boolean isFound()
-        {
-            return _found;
-        }
-    }
-
     private class MessageCollector implements QueueEntryVisitor
     {
 
@@ -3459,6 +3485,24 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         }
     }
 
+    private class ExpireMessagesTask extends HouseKeepingTask
+    {
+        ExpireMessagesTask()
+        {
+            super("Queue Message Expiry: " + AbstractQueue.this.getName(),
+                  _virtualHost, getSystemTaskControllerContext("Queue Message Expiry", _virtualHost.getPrincipal()));
+        }
+
+        @Override
+        public void execute()
+        {
+            if (!_stopped.get())
+            {
+                expireMessages();
+            }
+        }
+    }
+
     private class AdvanceConsumersTask extends HouseKeepingTask
     {
 
@@ -20,7 +20,11 @@
  */
 package org.apache.qpid.server.queue;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.qpid.server.message.MessageInstance;
+import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.store.MessageDurability;
 
@@ -31,6 +35,9 @@ abstract class AbstractQueueEntryList implements QueueEntryList
     private final boolean _respectPersistent;
     private final Queue<?> _queue;
     private final QueueStatistics _queueStatistics;
+    private final boolean _messageIdIndexEnabled;
+    private final Object _messageIdIndexLock = new Object();
+    private volatile ConcurrentMap<Long, QueueEntry> _messageIdIndex;
 
     protected AbstractQueueEntryList(final Queue<?> queue, final QueueStatistics queueStatistics)
     {
@@ -40,6 +47,105 @@ abstract class AbstractQueueEntryList implements QueueEntryList
         _queueStatistics = queueStatistics;
         _forcePersistent = messageDurability == MessageDurability.ALWAYS;
         _respectPersistent = messageDurability == MessageDurability.DEFAULT;
+        _messageIdIndexEnabled =
+                !Boolean.FALSE.equals(queue.getContextValue(Boolean.class, Queue.QUEUE_MESSAGE_ID_INDEX_ENABLED));
+    }
+
+    /**
+     * Finds the entry for the given message id.  The message id index is built on the first call (unless disabled
+     * by context variable {@link Queue#QUEUE_MESSAGE_ID_INDEX_ENABLED}) and is then maintained as entries are added
+     * and deleted, so that subsequent lookups need not scan the list.
+     */
+    @Override
+    public QueueEntry getEntryByMessageId(final long messageId)
+    {
+        if (!_messageIdIndexEnabled)
+        {
+            return findEntryByMessageId(messageId);
+        }
+
+        final ConcurrentMap<Long, QueueEntry> index = getMessageIdIndex();
+        final QueueEntry entry = index.get(messageId);
+        if (entry != null && entry.isDeleted())
+        {
+            index.remove(messageId, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    void addToMessageIdIndex(final QueueEntry entry)
+    {
+        final ConcurrentMap<Long, QueueEntry> index = _messageIdIndex;
+        if (index != null)
+        {
+            final ServerMessage message = entry.getMessage();
+            if (message != null)
+            {
+                index.put(message.getMessageNumber(), entry);
+            }
+        }
+    }
+
+    void removeFromMessageIdIndex(final QueueEntry entry)
+    {
+        final ConcurrentMap<Long, QueueEntry> index = _messageIdIndex;
+        if (index != null)
+        {
+            final ServerMessage message = entry.getMessage();
+            if (message != null)
+            {
+                index.remove(message.getMessageNumber(), entry);
+            }
+        }
+    }
+
+    private ConcurrentMap<Long, QueueEntry> getMessageIdIndex()
+    {
+        ConcurrentMap<Long, QueueEntry> index = _messageIdIndex;
+        if (index == null)
+        {
+            synchronized (_messageIdIndexLock)
+            {
+                index = _messageIdIndex;
+                if (index == null)
+                {
+                    index = new ConcurrentHashMap<>();
+                    // publish the index before populating it so that concurrently added entries are not missed
+                    _messageIdIndex = index;
+                    final QueueEntryIterator iterator = iterator();
+                    while (iterator.advance())
+                    {
+                        final QueueEntry entry = iterator.getNode();
+                        final ServerMessage message = entry.getMessage();
+                        if (message != null)
+                        {
+                            index.putIfAbsent(message.getMessageNumber(), entry);
+                            if (entry.isDeleted())
+                            {
+                                index.remove(message.getMessageNumber(), entry);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return index;
+    }
+
+    private QueueEntry findEntryByMessageId(final long messageId)
+    {
+        final QueueEntryIterator iterator = iterator();
+        while (iterator.advance())
+        {
+            final QueueEntry entry = iterator.getNode();
+            final ServerMessage message = entry.getMessage();
+            if (message != null && message.getMessageNumber() == messageId && !entry.isDeleted())
+            {
+                return entry;
+            }
+        }
+        return null;
     }
 
 
@@ -20,10 +20,10 @@
  */
 package org.apache.qpid.server.queue;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,24 +35,41 @@ import org.apache.qpid.server.message.MessageInstance.EntryState;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.util.StateChangeListener;
 
+/**
+ * Assigns each message group to the consumer that acquired the group's first message until the group has no
+ * acquired messages left.
+ * <p>
+ * Groups are guarded by locks striped by group key rather than by a single lock, so that delivery decisions for
+ * different groups do not contend.  The group map, and the consumer and the activity count of a group, are only
+ * changed while holding the lock of the group's stripe.  They are only read without it in
+ * {@link #mightAssign(QueueEntry, QueueConsumer)}, whose answer is a hint confirmed under the lock before a message
+ * is assigned.
+ * <p>
+ * A group is replaced in the group map when it becomes invalid, so groups are compared by identity.
+ */
 public class DefinedGroupMessageGroupManager implements MessageGroupManager
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefinedGroupMessageGroupManager.class);
+    private static final int LOCK_STRIPES = 64;
+
     private final String _groupId;
     private final String _defaultGroup;
-    private final Map<Object, Group> _groupMap = new HashMap<>();
+    private final ConcurrentMap<Object, Group> _groupMap = new ConcurrentHashMap<>();
+    private final Object[] _locks = new Object[LOCK_STRIPES];
     private final ConsumerResetHelper _resetHelper;
 
     private final class Group
     {
         private final Object _group;
+        private final Object _lock;
         private final SortedSet<QueueEntry> _skippedEntries = new TreeSet<>();
-        private QueueConsumer<?,?> _consumer;
-        private int _activeCount;
+        private volatile QueueConsumer<?,?> _consumer;
+        private volatile int _activeCount;
 
-        private Group(final Object key, final QueueConsumer<?,?> consumer)
+        private Group(final Object key, final Object lock, final QueueConsumer<?,?> consumer)
         {
             _group = key;
+            _lock = lock;
             _consumer = consumer;
         }
         
@@ -77,7 +94,10 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
             }
             if(--_activeCount == 0)
             {
-                _groupMap.remove(_group);
+                if(_groupMap.get(_group) == this)
+                {
+                    _groupMap.remove(_group);
+                }
                 if(!_skippedEntries.isEmpty())
                 {
                     _resetHelper.resetSubPointersForGroups(_skippedEntries.first());
@@ -87,29 +107,6 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
             }
         }
 
-        @Override
-        public boolean equals(final Object o)
-        {
-            if (this == o)
-            {
-                return true;
-            }
-            if (o == null || getClass() != o.getClass())
-            {
-                return false;
-            }
-
-            Group group = (Group) o;
-
-            return _group.equals(group._group);
-        }
-
-        @Override
-        public int hashCode()
-        {
-            return _group.hashCode();
-        }
-
         public boolean isValid()
         {
             return !(_consumer == null || (_activeCount == 0 && _consumer.isClosed()));
@@ -141,36 +138,58 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         _groupId = groupId;
         _defaultGroup = defaultGroup;
         _resetHelper = resetHelper;
+        for(int i = 0; i < LOCK_STRIPES; i++)
+        {
+            _locks[i] = new Object();
+        }
     }
-    
+
+    private Object getLock(final Object groupId)
+    {
+        final int hash = groupId.hashCode();
+        return _locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
     @Override
-    public synchronized boolean mightAssign(final QueueEntry entry, final QueueConsumer sub)
+    public boolean mightAssign(final QueueEntry entry, final QueueConsumer sub)
     {
         Object groupId = getKey(entry);
 
         Group group = _groupMap.get(groupId);
-        final boolean possibleAssignment = group == null || !group.isValid() || group.getConsumer() == sub;
-        if(!possibleAssignment)
+        if(group == null || !group.isValid() || group.getConsumer() == sub)
         {
-            group.addSkippedEntry(entry);
+            return true;
+        }
+
+        synchronized (getLock(groupId))
+        {
+            group = _groupMap.get(groupId);
+            final boolean possibleAssignment = group == null || !group.isValid() || group.getConsumer() == sub;
+            if(!possibleAssignment)
+            {
+                group.addSkippedEntry(entry);
+            }
+            return possibleAssignment;
         }
-        return possibleAssignment;
     }
 
     @Override
-    public synchronized boolean acceptMessage(final QueueConsumer<?,?> sub, final QueueEntry entry)
+    public boolean acceptMessage(final QueueConsumer<?,?> sub, final QueueEntry entry)
     {
-        return assignMessage(sub, entry) && entry.acquire(sub);
+        Object groupId = getKey(entry);
+        synchronized (getLock(groupId))
+        {
+            return assignMessage(sub, entry, groupId) && entry.acquire(sub);
+        }
     }
 
-    private boolean assignMessage(final QueueConsumer<?,?> sub, final QueueEntry entry)
+    private boolean assignMessage(final QueueConsumer<?,?> sub, final QueueEntry entry, final Object groupId)
     {
-        Object groupId = getKey(entry);
         Group group = _groupMap.get(groupId);
 
         if(group == null || !group.isValid())
         {
-            group = new Group(groupId, sub);
+            group = new Group(groupId, getLock(groupId), sub);
 
             _groupMap.put(groupId, group);
 
@@ -198,7 +217,7 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
     }
 
     @Override
-    public synchronized QueueEntry findEarliestAssignedAvailableEntry(final QueueConsumer<?,?> sub)
+    public QueueEntry findEarliestAssignedAvailableEntry(final QueueConsumer<?,?> sub)
     {
         EntryFinder visitor = new EntryFinder(sub);
         sub.getQueue().visit(visitor);
@@ -225,15 +244,18 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
 
             Object groupId = getKey(entry);
 
-            Group group = _groupMap.get(groupId);
-            if(group != null && group.getConsumer() == _sub)
-            {
-                _entry = entry;
-                return true;
-            }
-            else
+            synchronized (getLock(groupId))
             {
-                return false;
+                Group group = _groupMap.get(groupId);
+                if(group != null && group.getConsumer() == _sub)
+                {
+                    _entry = entry;
+                    return true;
+                }
+                else
+                {
+                    return false;
+                }
             }
         }
 
@@ -277,7 +299,7 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         @Override
         public void stateChanged(final MessageInstance entry, final EntryState oldState, final EntryState newState)
         {
-            synchronized (DefinedGroupMessageGroupManager.this)
+            synchronized (_group._lock)
             {
                 if(_group.isValid())
                 {
@@ -0,0 +1,289 @@
+/*
+*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*
+*/
+package org.apache.qpid.server.queue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Index of the queue entries which have an expiration time, held in a hierarchical timing wheel so that the entries
+ * whose time-to-live has elapsed are found without scanning the queue.
+ * <p>
+ * The wheel has {@link #LEVELS} levels of {@link #SLOTS} slots.  A slot of the lowest level spans one tick of
+ * {@link #TICK_MILLIS} milliseconds and a slot of each higher level spans all the slots of the level below.  An entry
+ * is put in the lowest level whose span reaches its expiration time.  As the wheel advances, the slot of a higher
+ * level whose span starts is cascaded into the lower levels, so advancing the wheel only touches the entries which
+ * are due and those being cascaded.  Entries expiring beyond the span of the wheel are put in the last slot of the
+ * highest level and cascaded again until they come within its span.
+ * <p>
+ * An entry is removed from the wheel when it is deleted from the queue.
+ */
+final class MessageExpiryIndex
+{
+    static final long TICK_MILLIS = 100L;
+    static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final Node[][] _slots = new Node[LEVELS][];
+    private long _currentTick;
+    private int _size;
+    private long _scheduledCount;
+    private long _firedCount;
+
+    MessageExpiryIndex(final long currentTime)
+    {
+        _currentTick = currentTime / TICK_MILLIS;
+    }
+
+    /**
+     * Schedules the expiry of the given entry at its expiration time.  Entries without an expiration time are ignored.
+     */
+    void add(final QueueEntryImpl entry)
+    {
+        schedule(entry, true);
+    }
+
+    /**
+     * Schedules the expiry of an entry returned by {@link #advance(long)} again, as it could not be deleted yet.  The
+     * entry is not counted as a further scheduled expiration.
+     */
+    void retry(final QueueEntryImpl entry)
+    {
+        schedule(entry, false);
+    }
+
+    private void schedule(final QueueEntryImpl entry, final boolean newExpiration)
+    {
+        final long expiration = entry.getExpiration();
+        if (expiration == 0L)
+        {
+            return;
+        }
+
+        final Node node = new Node(this, entry, expiration / TICK_MILLIS);
+        synchronized (this)
+        {
+            link(node);
+            entry.setExpiryNode(node);
+            _size++;
+            if (newExpiration)
+            {
+                _scheduledCount++;
+            }
+        }
+
+        // the entry may have been deleted before it was linked, in which case it has not seen the node
+        if (entry.isDeleted())
+        {
+            remove(node);
+        }
+    }
+
+    private synchronized void remove(final Node node)
+    {
+        if (node.isLinked())
+        {
+            unlink(node);
+            node._entry.setExpiryNode(null);
+            _size--;
+        }
+    }
+
+    /**
+     * Advances the wheel to the given time, removing and returning the entries of the ticks up to and including the
+     * current one.  The entries of the current tick may not have expired yet.
+     *
+     * @param currentTime current time in milliseconds
+     * @return the entries whose expiration time has passed or is in the current tick
+     */
+    synchronized List<QueueEntryImpl> advance(final long currentTime)
+    {
+        final long targetTick = currentTime / TICK_MILLIS;
+        if (_size == 0)
+        {
+            _currentTick = Math.max(_currentTick, targetTick + 1);
+            return Collections.emptyList();
+        }
+
+        List<QueueEntryImpl> due = null;
+        while (_currentTick <= targetTick)
+        {
+            final long tick = _currentTick;
+            for (int level = LEVELS - 1; level > 0; level--)
+            {
+                if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0)
+                {
+                    cascade(level, (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                }
+            }
+
+            final Node head = getHead(0, (int) tick & SLOT_MASK, false);
+            if (head != null)
+            {
+                Node node;
+                while ((node = head._next) != head)
+                {
+                    unlink(node);
+                    node._entry.setExpiryNode(null);
+                    _size--;
+                    _firedCount++;
+                    if (due == null)
+                    {
+                        due = new ArrayList<>();
+                    }
+                    due.add(node._entry);
+                }
+            }
+            _currentTick = tick + 1;
+
+            if (_size == 0)
+            {
+                _currentTick = targetTick + 1;
+            }
+        }
+        return due == null ? Collections.<QueueEntryImpl>emptyList() : due;
+    }
+
+    synchronized int size()
+    {
+        return _size;
+    }
+
+    synchronized long getScheduledCount()
+    {
+        return _scheduledCount;
+    }
+
+    synchronized long getFiredCount()
+    {
+        return _firedCount;
+    }
+
+    private void cascade(final int level, final int slot)
+    {
+        final Node head = getHead(level, slot, false);
+        if (head != null && head._next != head)
+        {
+            Node node = head._next;
+            head._next = head;
+            head._previous = head;
+            while (node != head)
+            {
+                final Node next = node._next;
+                link(node);
+                node = next;
+            }
+        }
+    }
+
+    private void link(final Node node)
+    {
+        final long expirationTick = Math.max(node._expirationTick, _currentTick);
+        final long delta = expirationTick - _currentTick;
+
+        int level = 0;
+        while (level < LEVELS && delta >= (1L << (SLOT_BITS * (level + 1))))
+        {
+            level++;
+        }
+
+        final int slot;
+        if (level == LEVELS)
+        {
+            level = LEVELS - 1;
+            slot = (int) ((_currentTick >>> (SLOT_BITS * level)) - 1) & SLOT_MASK;
+        }
+        else
+        {
+            slot = (int) (expirationTick >>> (SLOT_BITS * level)) & SLOT_MASK;
+        }
+
+        final Node head = getHead(level, slot, true);
+        node._previous = head._previous;
+        node._next = head;
+        head._previous._next = node;
+        head._previous = node;
+    }
+
+    private void unlink(final Node node)
+    {
+        node._previous._next = node._next;
+        node._next._previous = node._previous;
+        node._previous = null;
+        node._next = null;
+    }
+
+    private Node getHead(final int level, final int slot, final boolean create)
+    {
+        Node[] slots = _slots[level];
+        if (slots == null)
+        {
+            if (!create)
+            {
+                return null;
+            }
+            slots = new Node[SLOTS];
+            _slots[level] = slots;
+        }
+
+        Node head = slots[slot];
+        if (head == null && create)
+        {
+            head = new Node(this, null, 0L);
+            head._next = head;
+            head._previous = head;
+            slots[slot] = head;
+        }
+        return head;
+    }
+
+    static final class Node
+    {
+        private final MessageExpiryIndex _index;
+        private final QueueEntryImpl _entry;
+        private final long _expirationTick;
+        private Node _previous;
+        private Node _next;
+
+        private Node(final MessageExpiryIndex index, final QueueEntryImpl entry, final long expirationTick)
+        {
+            _index = index;
+            _entry = entry;
+            _expirationTick = expirationTick;
+        }
+
+        /**
+         * Removes the entry from the index, as it has been deleted from the queue.
+         */
+        void remove()
+        {
+            _index.remove(this);
+        }
+
+        private boolean isLinked()
+        {
+            return _next != null;
+        }
+    }
+}
@@ -103,6 +103,7 @@ public abstract class OrderedQueueEntryList extends AbstractQueueEntryList
                     if (_nextUpdater.compareAndSet(tail, null, node))
                     {
                         _tailUpdater.compareAndSet(this, tail, node);
+                        addToMessageIdIndex(node);
 
                         return node;
                     }
@@ -186,6 +187,8 @@ public abstract class OrderedQueueEntryList extends AbstractQueueEntryList
     @Override
     public void entryDeleted(QueueEntry queueEntry)
     {
+        removeFromMessageIdIndex(queueEntry);
+
         QueueEntry next = _head.getNextNode();
         QueueEntry newNext = _head.getNextValidEntry();
 
@@ -216,6 +216,20 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
             return oldest;
         }
 
+        @Override
+        public QueueEntry getEntryByMessageId(final long messageId)
+        {
+            for(PriorityQueueEntrySubList subList : _priorityLists)
+            {
+                QueueEntry entry = subList.getEntryByMessageId(messageId);
+                if(entry != null)
+                {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
         @Override
         public QueueEntry getLeastSignificantOldestEntry()
         {
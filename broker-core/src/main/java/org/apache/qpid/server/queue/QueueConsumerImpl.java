@@ -23,9 +23,11 @@ package org.apache.qpid.server.queue;
 import static org.apache.qpid.server.logging.subjects.LogSubjectFormat.SUBSCRIPTION_FORMAT;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -78,6 +80,8 @@ class QueueConsumerImpl<T extends ConsumerTarget>
     private final AtomicLong _deliveredCount = new AtomicLong(0);
     private final AtomicLong _deliveredBytes = new AtomicLong(0);
     private final FilterManager _filters;
+    private final MessageFilter[] _filterArray;
+    private final int[] _sharedFilterIds;
     private final Class<? extends ServerMessage> _messageClass;
     private final Object _sessionReference;
     private final AbstractQueue _queue;
@@ -117,6 +121,21 @@ class QueueConsumerImpl<T extends ConsumerTarget>
         _sessionReference = target.getSession().getConnectionReference();
         _consumerNumber = CONSUMER_NUMBER_GENERATOR.getAndIncrement();
         _filters = filters;
+        final List<MessageFilter> filterList = new ArrayList<>();
+        if (filters != null)
+        {
+            final Iterator<MessageFilter> iterator = filters.filters();
+            while (iterator.hasNext())
+            {
+                filterList.add(iterator.next());
+            }
+        }
+        _filterArray = filterList.toArray(new MessageFilter[filterList.size()]);
+        _sharedFilterIds = new int[_filterArray.length];
+        for (int i = 0; i < _filterArray.length; i++)
+        {
+            _sharedFilterIds[i] = queue.getSharedFilterRegistry().getId(_filterArray[i]);
+        }
         _acquires = optionSet.contains(ConsumerOption.ACQUIRES);
         _seesRequeues = optionSet.contains(ConsumerOption.SEES_REQUEUES);
         _isTransient = optionSet.contains(ConsumerOption.TRANSIENT);
@@ -427,15 +446,14 @@ class QueueConsumerImpl<T extends ConsumerTarget>
                 try
                 {
 
-                    Filterable msg = entry.asFilterable();
                     try
                     {
-                        return _filters.allAllow(msg);
+                        return allFiltersAllow(entry);
                     }
                     catch (SelectorParsingException e)
                     {
                         LOGGER.info(this + " could not evaluate filter [" + _filters
-                                    + "]  against message " + msg
+                                    + "]  against message " + entry.asFilterable()
                                     + ". Error was : " + e.getMessage());
                         return false;
                     }
@@ -452,6 +470,38 @@ class QueueConsumerImpl<T extends ConsumerTarget>
         }
     }
 
+    private boolean allFiltersAllow(final QueueEntry entry)
+    {
+        Filterable msg = null;
+        for (int i = 0; i < _filterArray.length; i++)
+        {
+            final boolean matches;
+            if (_sharedFilterIds[i] == SharedFilterRegistry.NO_ID)
+            {
+                if (msg == null)
+                {
+                    msg = entry.asFilterable();
+                }
+                matches = _filterArray[i].matches(msg);
+            }
+            else
+            {
+                matches = entry.matchesSharedFilter(_filterArray[i], _sharedFilterIds[i]);
+            }
+
+            if (!matches)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    FilterManager getFilters()
+    {
+        return _filters;
+    }
+
     protected String getFilterLogString()
     {
         StringBuilder filterLogString = new StringBuilder();
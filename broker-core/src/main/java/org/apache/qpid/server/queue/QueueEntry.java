@@ -20,12 +20,17 @@
 */
 package org.apache.qpid.server.queue;
 
+import org.apache.qpid.server.filter.MessageFilter;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.model.Queue;
 
 public interface QueueEntry extends MessageInstance, Comparable<QueueEntry>
 {
+    /**
+     * Number of filters shared between the consumers of a queue whose results an entry can remember.
+     */
+    int MAX_SHARED_FILTERS = 31;
 
     Queue<?> getQueue();
 
@@ -46,4 +51,14 @@ public interface QueueEntry extends MessageInstance, Comparable<QueueEntry>
     MessageReference newMessageReference();
 
     boolean checkHeld(final long evaluationTime);
+
+    /**
+     * Evaluates a filter shared between the consumers of the queue against this entry.  The result is remembered
+     * under the id of the filter, so that the filter is evaluated once per entry rather than once per consumer.
+     *
+     * @param filter   the shared filter
+     * @param filterId the id of the shared filter, from zero to {@link #MAX_SHARED_FILTERS} exclusive
+     * @return true if the filter matches this entry
+     */
+    boolean matchesSharedFilter(MessageFilter filter, int filterId);
 }
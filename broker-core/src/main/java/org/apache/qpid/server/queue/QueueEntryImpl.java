@@ -29,6 +29,7 @@ import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.apache.qpid.server.filter.Filterable;
+import org.apache.qpid.server.filter.MessageFilter;
 import org.apache.qpid.server.message.InstanceProperties;
 import org.apache.qpid.server.message.MessageDeletedException;
 import org.apache.qpid.server.message.MessageDestination;
@@ -114,6 +115,18 @@ public abstract class QueueEntryImpl implements QueueEntry
 
     private final MessageEnqueueRecord _enqueueRecord;
 
+    /**
+     * Results of the shared filters evaluated against this entry: bit 2n is set once the filter with id n has been
+     * evaluated and bit 2n+1 holds its result.  The top bit is set when the entry is marked as redelivered, which
+     * discards the results obtained before, as a filter may depend on whether the message is redelivered.
+     */
+    private volatile long _sharedFilterResults;
+    private static final AtomicLongFieldUpdater<QueueEntryImpl> _sharedFilterResultsUpdater =
+            AtomicLongFieldUpdater.newUpdater(QueueEntryImpl.class, "_sharedFilterResults");
+    private static final long REDELIVERED_FILTER_RESULTS = 1L << 63;
+
+    private volatile MessageExpiryIndex.Node _expiryNode;
+
 
     QueueEntryImpl(QueueEntryList queueEntryList)
     {
@@ -164,6 +177,16 @@ public abstract class QueueEntryImpl implements QueueEntry
         _expiration = expiration;
     }
 
+    long getExpiration()
+    {
+        return _expiration;
+    }
+
+    void setExpiryNode(final MessageExpiryIndex.Node expiryNode)
+    {
+        _expiryNode = expiryNode;
+    }
+
     @Override
     public InstanceProperties getInstanceProperties()
     {
@@ -553,6 +576,11 @@ public abstract class QueueEntryImpl implements QueueEntry
         {
             notifyStateChange(state, DELETED_STATE);
             _queueEntryList.entryDeleted(this);
+            final MessageExpiryIndex.Node expiryNode = _expiryNode;
+            if (expiryNode != null)
+            {
+                expiryNode.remove();
+            }
             onDelete();
             _message.release();
 
@@ -706,6 +734,31 @@ public abstract class QueueEntryImpl implements QueueEntry
         return Filterable.Factory.newInstance(getMessage(), getInstanceProperties());
     }
 
+    @Override
+    public boolean matchesSharedFilter(final MessageFilter filter, final int filterId)
+    {
+        final long evaluatedBit = 1L << (filterId << 1);
+        final long matchedBit = evaluatedBit << 1;
+
+        final long results = _sharedFilterResults;
+        if ((results & evaluatedBit) != 0)
+        {
+            return (results & matchedBit) != 0;
+        }
+
+        final boolean matches = filter.matches(asFilterable());
+        final long newBits = matches ? evaluatedBit | matchedBit : evaluatedBit;
+        long current = results;
+        // the result is only stored if the entry has not been marked as redelivered since the results were read
+        while ((current & REDELIVERED_FILTER_RESULTS) == (results & REDELIVERED_FILTER_RESULTS)
+               && (current & evaluatedBit) == 0
+               && !_sharedFilterResultsUpdater.compareAndSet(this, current, current | newBits))
+        {
+            current = _sharedFilterResults;
+        }
+        return matches;
+    }
+
     @Override
     public String toString()
     {
@@ -725,6 +778,7 @@ public abstract class QueueEntryImpl implements QueueEntry
     public void setRedelivered()
     {
         _flags |= REDELIVERED_FLAG;
+        _sharedFilterResults = REDELIVERED_FILTER_RESULTS;
     }
 
     private void setPersistent()
@@ -48,4 +48,6 @@ interface QueueEntryList
 
     QueueEntry getLeastSignificantOldestEntry();
 
+    QueueEntry getEntryByMessageId(long messageId);
+
 }
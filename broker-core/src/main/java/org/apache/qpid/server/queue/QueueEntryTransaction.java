@@ -21,9 +21,13 @@
 package org.apache.qpid.server.queue;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.qpid.server.filter.MessageFilter;
+import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
@@ -31,7 +35,7 @@ import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
 abstract class QueueEntryTransaction implements QueueManagingVirtualHost.TransactionalOperation
 {
     private final Queue _sourceQueue;
-    private final List<Long> _messageIds;
+    private final Set<Long> _messageIds;
     private final MessageFilter _filter;
     private final List<Long> _modifiedMessageIds = new ArrayList<>();
     private int _limit;
@@ -39,7 +43,7 @@ abstract class QueueEntryTransaction implements QueueManagingVirtualHost.Transac
     QueueEntryTransaction(Queue sourceQueue, List<Long> messageIds, final MessageFilter filter, final int limit)
     {
         _sourceQueue = sourceQueue;
-        _messageIds = messageIds == null ? null : new ArrayList<>(messageIds);
+        _messageIds = messageIds == null ? null : new LinkedHashSet<>(messageIds);
         _filter = filter;
         _limit = limit;
     }
@@ -49,7 +53,7 @@ abstract class QueueEntryTransaction implements QueueManagingVirtualHost.Transac
     {
         if(_limit != 0)
         {
-            _sourceQueue.visit(new QueueEntryVisitor()
+            final QueueEntryVisitor visitor = new QueueEntryVisitor()
             {
 
                 @Override
@@ -73,9 +77,55 @@ abstract class QueueEntryTransaction implements QueueManagingVirtualHost.Transac
                     }
                     return stop || _limit == 0 || (_messageIds != null && _messageIds.isEmpty());
                 }
-            });
+            };
+
+            if (_messageIds == null)
+            {
+                _sourceQueue.visit(visitor);
+            }
+            else
+            {
+                visitEntriesById(visitor);
+            }
+        }
+
+    }
+
+    /**
+     * Looks up the entries for the requested message ids rather than scanning the whole queue, visiting them
+     * in queue order.  The ids are held as a set, so an id requested more than once is visited only once.
+     */
+    private void visitEntriesById(final QueueEntryVisitor visitor)
+    {
+        final List<QueueEntry> entries = new ArrayList<>(_messageIds.size());
+        for (Long messageId : _messageIds)
+        {
+            final QueueEntry entry = _sourceQueue.getMessageOnTheQueue(messageId);
+            if (entry != null)
+            {
+                entries.add(entry);
+            }
         }
+        Collections.sort(entries);
 
+        for (QueueEntry entry : entries)
+        {
+            final MessageReference reference = entry.newMessageReference();
+            if (reference != null)
+            {
+                try
+                {
+                    if (!entry.isDeleted() && visitor.visit(entry))
+                    {
+                        break;
+                    }
+                }
+                finally
+                {
+                    reference.release();
+                }
+            }
+        }
     }
 
     protected abstract boolean updateEntry(QueueEntry entry, QueueManagingVirtualHost.Transaction txn);
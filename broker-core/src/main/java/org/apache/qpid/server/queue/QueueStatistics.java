@@ -20,225 +20,241 @@
  */
 package org.apache.qpid.server.queue;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
-
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of a queue, updated on every enqueue, dequeue, acknowledgement and expiry.
+ * <p>
+ * The depth of the queue and the number of available messages are read when delivering and when applying the overflow
+ * policy, so they are kept exact in {@link Gauge}s, each count/size pair on a cache line of its own.  Their high
+ * watermarks are held apart from them as they are read by every update but rarely written.  All other statistics are
+ * only ever read by management and are accumulated in {@link LongAdder}s, which stripe concurrent updates over
+ * separate cells.
+ */
 final class QueueStatistics
 {
-    private final AtomicInteger _queueCount = new AtomicInteger();
-    private final AtomicLong _queueSize = new AtomicLong();
-
-    private final AtomicInteger _unackedCount = new AtomicInteger();
-    private final AtomicLong _unackedSize = new AtomicLong();
-
-    private final AtomicInteger _availableCount = new AtomicInteger();
-    private final AtomicLong _availableSize = new AtomicLong();
-
-    private final AtomicLong _dequeueCount = new AtomicLong();
-    private final AtomicLong _dequeueSize = new AtomicLong();
+    private final Gauge _queue = new Gauge();
+    private final Gauge _available = new Gauge();
+    private final Gauge _queueHwm = new Gauge();
+    private final Gauge _availableHwm = new Gauge();
 
-    private final AtomicLong _enqueueCount = new AtomicLong();
-    private final AtomicLong _enqueueSize = new AtomicLong();
+    private final LongAdder _unackedCount = new LongAdder();
+    private final LongAdder _unackedSize = new LongAdder();
 
-    private final AtomicLong _persistentEnqueueCount = new AtomicLong();
-    private final AtomicLong _persistentEnqueueSize = new AtomicLong();
+    private final LongAdder _dequeueCount = new LongAdder();
+    private final LongAdder _dequeueSize = new LongAdder();
 
-    private final AtomicLong _persistentDequeueCount = new AtomicLong();
-    private final AtomicLong _persistentDequeueSize = new AtomicLong();
+    private final LongAdder _enqueueCount = new LongAdder();
+    private final LongAdder _enqueueSize = new LongAdder();
 
-    private final AtomicInteger _queueCountHwm = new AtomicInteger();
-    private final AtomicLong _queueSizeHwm = new AtomicLong();
+    private final LongAdder _persistentEnqueueCount = new LongAdder();
+    private final LongAdder _persistentEnqueueSize = new LongAdder();
 
-    private final AtomicInteger _availableCountHwm = new AtomicInteger();
-    private final AtomicLong _availableSizeHwm = new AtomicLong();
+    private final LongAdder _persistentDequeueCount = new LongAdder();
+    private final LongAdder _persistentDequeueSize = new LongAdder();
 
-    private final AtomicInteger _expiredCount = new AtomicInteger();
-    private final AtomicLong _expiredSize = new AtomicLong();
+    private final LongAdder _expiredCount = new LongAdder();
+    private final LongAdder _expiredSize = new LongAdder();
 
     public final int getQueueCount()
     {
-        return _queueCount.get();
+        return (int) _queue._count;
     }
 
     public final long getQueueSize()
     {
-        return _queueSize.get();
+        return _queue._size;
     }
 
     public final int getUnackedCount()
     {
-        return _unackedCount.get();
+        return _unackedCount.intValue();
     }
 
     public final long getUnackedSize()
     {
-        return _unackedSize.get();
+        return _unackedSize.sum();
     }
 
     public final int getAvailableCount()
     {
-        return _availableCount.get();
+        return (int) _available._count;
     }
 
     public final long getAvailableSize()
     {
-        return _availableSize.get();
+        return _available._size;
     }
 
     public final long getEnqueueCount()
     {
-        return _enqueueCount.get();
+        return _enqueueCount.sum();
     }
 
     public final long getEnqueueSize()
     {
-        return _enqueueSize.get();
+        return _enqueueSize.sum();
     }
 
     public final long getDequeueCount()
     {
-        return _dequeueCount.get();
+        return _dequeueCount.sum();
     }
 
     public final long getDequeueSize()
     {
-        return _dequeueSize.get();
+        return _dequeueSize.sum();
     }
 
     public final long getPersistentEnqueueCount()
     {
-        return _persistentEnqueueCount.get();
+        return _persistentEnqueueCount.sum();
     }
 
     public final long getPersistentEnqueueSize()
     {
-        return _persistentEnqueueSize.get();
+        return _persistentEnqueueSize.sum();
     }
 
     public final long getPersistentDequeueCount()
     {
-        return _persistentDequeueCount.get();
+        return _persistentDequeueCount.sum();
     }
 
     public final long getPersistentDequeueSize()
     {
-        return _persistentDequeueSize.get();
+        return _persistentDequeueSize.sum();
     }
 
     public final int getQueueCountHwm()
     {
-        return _queueCountHwm.get();
+        return (int) _queueHwm._count;
     }
 
     public final long getQueueSizeHwm()
     {
-        return _queueSizeHwm.get();
+        return _queueHwm._size;
     }
 
     public final int getAvailableCountHwm()
     {
-        return _availableCountHwm.get();
+        return (int) _availableHwm._count;
     }
 
     public final long getAvailableSizeHwm()
     {
-        return _availableSizeHwm.get();
+        return _availableHwm._size;
     }
 
     public int getExpiredCount()
     {
-        return _expiredCount.get();
+        return _expiredCount.intValue();
     }
 
     public long getExpiredSize()
     {
-        return _expiredSize.get();
+        return _expiredSize.sum();
     }
 
     void addToQueue(long size)
     {
-        int count = _queueCount.incrementAndGet();
-        long queueSize = _queueSize.addAndGet(size);
-        int hwm;
-        while((hwm = _queueCountHwm.get()) < count)
-        {
-            _queueCountHwm.compareAndSet(hwm, count);
-        }
-        long sizeHwm;
-        while((sizeHwm = _queueSizeHwm.get()) < queueSize)
-        {
-            _queueSizeHwm.compareAndSet(sizeHwm, queueSize);
-        }
+        final long count = Gauge.COUNT.incrementAndGet(_queue);
+        final long queueSize = Gauge.SIZE.addAndGet(_queue, size);
+        _queueHwm.raiseTo(count, queueSize);
     }
 
     void removeFromQueue(long size)
     {
-        _queueCount.decrementAndGet();
-        _queueSize.addAndGet(-size);
+        Gauge.COUNT.decrementAndGet(_queue);
+        Gauge.SIZE.addAndGet(_queue, -size);
     }
 
     void addToAvailable(long size)
     {
-        int count = _availableCount.incrementAndGet();
-        long availableSize = _availableSize.addAndGet(size);
-        int hwm;
-        while((hwm = _availableCountHwm.get()) < count)
-        {
-            _availableCountHwm.compareAndSet(hwm, count);
-        }
-        long sizeHwm;
-        while((sizeHwm = _availableSizeHwm.get()) < availableSize)
-        {
-            _availableSizeHwm.compareAndSet(sizeHwm, availableSize);
-        }
+        final long count = Gauge.COUNT.incrementAndGet(_available);
+        final long availableSize = Gauge.SIZE.addAndGet(_available, size);
+        _availableHwm.raiseTo(count, availableSize);
     }
 
     void removeFromAvailable(long size)
     {
-        _availableCount.decrementAndGet();
-        _availableSize.addAndGet(-size);
+        Gauge.COUNT.decrementAndGet(_available);
+        Gauge.SIZE.addAndGet(_available, -size);
     }
 
     void addToUnacknowledged(long size)
     {
-        _unackedCount.incrementAndGet();
-        _unackedSize.addAndGet(size);
+        _unackedCount.increment();
+        _unackedSize.add(size);
     }
 
     void removeFromUnacknowledged(long size)
     {
-        _unackedCount.decrementAndGet();
-        _unackedSize.addAndGet(-size);
+        _unackedCount.decrement();
+        _unackedSize.add(-size);
     }
 
     void addToEnqueued(long size)
     {
-        _enqueueCount.incrementAndGet();
-        _enqueueSize.addAndGet(size);
+        _enqueueCount.increment();
+        _enqueueSize.add(size);
     }
 
     void addToDequeued(long size)
     {
-        _dequeueCount.incrementAndGet();
-        _dequeueSize.addAndGet(size);
+        _dequeueCount.increment();
+        _dequeueSize.add(size);
     }
 
     void addToPersistentEnqueued(long size)
     {
-        _persistentEnqueueCount.incrementAndGet();
-        _persistentEnqueueSize.addAndGet(size);
+        _persistentEnqueueCount.increment();
+        _persistentEnqueueSize.add(size);
     }
 
     void addToPersistentDequeued(long size)
     {
-        _persistentDequeueCount.incrementAndGet();
-        _persistentDequeueSize.addAndGet(size);
+        _persistentDequeueCount.increment();
+        _persistentDequeueSize.add(size);
     }
 
     void addToExpired(final long size)
     {
-        _expiredCount.incrementAndGet();
-        _expiredSize.addAndGet(size);
+        _expiredCount.increment();
+        _expiredSize.add(size);
     }
 
+    /**
+     * A count and a size padded to occupy a cache line of their own, so that updates of one gauge do not invalidate
+     * the cache lines holding the others.
+     */
+    @SuppressWarnings("unused")
+    private static final class Gauge
+    {
+        private static final AtomicLongFieldUpdater<Gauge> COUNT = AtomicLongFieldUpdater.newUpdater(Gauge.class, "_count");
+        private static final AtomicLongFieldUpdater<Gauge> SIZE = AtomicLongFieldUpdater.newUpdater(Gauge.class, "_size");
+
+        private long _p0, _p1, _p2, _p3, _p4, _p5, _p6;
+        private volatile long _count;
+        private volatile long _size;
+        private long _q0, _q1, _q2, _q3, _q4, _q5, _q6;
+
+        /**
+         * Raises the watermarks to the given values if they exceed them.
+         */
+        private void raiseTo(final long count, final long size)
+        {
+            long hwm;
+            while((hwm = _count) < count)
+            {
+                COUNT.compareAndSet(this, hwm, count);
+            }
+            long sizeHwm;
+            while((sizeHwm = _size) < size)
+            {
+                SIZE.compareAndSet(this, sizeHwm, size);
+            }
+        }
+    }
 }
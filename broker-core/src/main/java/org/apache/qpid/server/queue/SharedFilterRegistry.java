@@ -0,0 +1,140 @@
+/*
+*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*
+*/
+package org.apache.qpid.server.queue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.qpid.server.filter.FilterManager;
+import org.apache.qpid.server.filter.JMSSelectorFilter;
+import org.apache.qpid.server.filter.MessageFilter;
+
+/**
+ * Shares the JMS selector filters of the consumers of a queue.  Consumers using the same selector are given the same
+ * filter instance, so the selector is parsed once, and the first {@link QueueEntry#MAX_SHARED_FILTERS} distinct
+ * selectors are each given an id under which queue entries remember the result of evaluating the selector.  A
+ * selector is then evaluated at most once per entry however many consumers use it.
+ * <p>
+ * As entries may hold results under it, an id is never given to another selector for the life of the queue.
+ */
+final class SharedFilterRegistry
+{
+    static final int NO_ID = -1;
+
+    private final Map<String, SharedFilter> _selectorFilters = new HashMap<>();
+    private int _nextId;
+
+    /**
+     * Replaces the selector filters of a consumer by the shared filters for the same selectors.
+     */
+    synchronized void register(final FilterManager filters)
+    {
+        if (filters != null)
+        {
+            filters.replaceFilters(this::share);
+        }
+    }
+
+    /**
+     * Releases the shared filters of a consumer which has been removed from the queue.
+     */
+    synchronized void release(final FilterManager filters)
+    {
+        if (filters != null)
+        {
+            final Iterator<MessageFilter> iterator = filters.filters();
+            while (iterator.hasNext())
+            {
+                final MessageFilter filter = iterator.next();
+                final SharedFilter sharedFilter = getSharedFilter(filter);
+                if (sharedFilter != null && --sharedFilter._references == 0 && sharedFilter._id == NO_ID)
+                {
+                    _selectorFilters.remove(getKey((JMSSelectorFilter) filter));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the id under which queue entries remember the result of the given filter, or {@link #NO_ID} if the
+     * result of the filter is not remembered
+     */
+    synchronized int getId(final MessageFilter filter)
+    {
+        final SharedFilter sharedFilter = getSharedFilter(filter);
+        return sharedFilter == null ? NO_ID : sharedFilter._id;
+    }
+
+    synchronized int getSharedFilterCount()
+    {
+        return _selectorFilters.size();
+    }
+
+    private MessageFilter share(final MessageFilter filter)
+    {
+        if (!(filter instanceof JMSSelectorFilter))
+        {
+            return filter;
+        }
+
+        SharedFilter sharedFilter = _selectorFilters.get(getKey((JMSSelectorFilter) filter));
+        if (sharedFilter == null)
+        {
+            final int id = _nextId < QueueEntry.MAX_SHARED_FILTERS ? _nextId++ : NO_ID;
+            sharedFilter = new SharedFilter((JMSSelectorFilter) filter, id);
+            _selectorFilters.put(getKey((JMSSelectorFilter) filter), sharedFilter);
+        }
+        sharedFilter._references++;
+        return sharedFilter._filter;
+    }
+
+    private SharedFilter getSharedFilter(final MessageFilter filter)
+    {
+        if (filter instanceof JMSSelectorFilter)
+        {
+            final SharedFilter sharedFilter = _selectorFilters.get(getKey((JMSSelectorFilter) filter));
+            if (sharedFilter != null && sharedFilter._filter == filter)
+            {
+                return sharedFilter;
+            }
+        }
+        return null;
+    }
+
+    private static String getKey(final JMSSelectorFilter filter)
+    {
+        return filter.getSelector().trim();
+    }
+
+    private static final class SharedFilter
+    {
+        private final JMSSelectorFilter _filter;
+        private final int _id;
+        private int _references;
+
+        private SharedFilter(final JMSSelectorFilter filter, final int id)
+        {
+            _filter = filter;
+            _id = id;
+        }
+    }
+}
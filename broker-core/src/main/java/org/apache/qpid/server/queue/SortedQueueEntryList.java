@@ -72,6 +72,7 @@ public class SortedQueueEntryList extends AbstractQueueEntryList
             entry.setKey(key);
 
             insert(entry);
+            addToMessageIdIndex(entry);
 
             return entry;
         }
@@ -370,6 +371,7 @@ public class SortedQueueEntryList extends AbstractQueueEntryList
     @Override
     public void entryDeleted(final QueueEntry e)
     {
+        removeFromMessageIdIndex(e);
         SortedQueueEntry entry = (SortedQueueEntry)e;
         synchronized(_lock)
         {
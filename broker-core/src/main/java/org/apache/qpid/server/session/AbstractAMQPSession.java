@@ -174,6 +174,18 @@ public abstract class AbstractAMQPSession<S extends AbstractAMQPSession<S, X>,
         return getUnacknowledgedMessageCount();
     }
 
+    @Override
+    public long getPublishAuthorisationCacheHits()
+    {
+        return _publishAuthCache.getHits();
+    }
+
+    @Override
+    public long getPublishAuthorisationCacheMisses()
+    {
+        return _publishAuthCache.getMisses();
+    }
+
     @Override
     public void addDeleteTask(final Action<? super S> task)
     {
@@ -0,0 +1,246 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.server.model.ConfiguredObjectJacksonModule;
+import org.apache.qpid.server.util.FileHelper;
+
+/**
+ * Append-only log of the changes made to a {@link JsonFileConfigStore} since its snapshot file was last written.
+ * <p>
+ * Every change is appended as a single line holding a JSON object: either the records created or updated, or the ids
+ * of the records removed.  A line which cannot be parsed, as left behind by a crash part way through an append, ends
+ * the journal: it and anything following it are ignored when the journal is read.
+ */
+class JsonFileConfigJournal implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(JsonFileConfigJournal.class);
+
+    private static final String UPDATED = "updated";
+    private static final String REMOVED = "removed";
+    private static final String ID = "id";
+    private static final String TYPE = "type";
+    private static final String ATTRIBUTES = "attributes";
+    private static final String PARENTS = "parents";
+
+    interface ChangeHandler
+    {
+        void updated(ConfiguredObjectRecord record);
+
+        void removed(UUID id);
+    }
+
+    private final File _file;
+    private final String _posixFileAttributes;
+    private final ObjectMapper _objectMapper = ConfiguredObjectJacksonModule.newObjectMapper(true);
+    private FileChannel _channel;
+    private int _changeCount;
+
+    JsonFileConfigJournal(final File file, final String posixFileAttributes)
+    {
+        _file = file;
+        _posixFileAttributes = posixFileAttributes;
+    }
+
+    File getFile()
+    {
+        return _file;
+    }
+
+    /**
+     * @return the number of changes appended since the journal was last cleared
+     */
+    int getChangeCount()
+    {
+        return _changeCount;
+    }
+
+    /**
+     * Passes the changes held in the journal to the given handler in the order they were made.
+     *
+     * @return the number of changes read
+     */
+    @SuppressWarnings("unchecked")
+    int replay(final ChangeHandler handler) throws IOException
+    {
+        if (!_file.exists())
+        {
+            return 0;
+        }
+
+        int changes = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(_file.toPath()),
+                                                                              StandardCharsets.UTF_8)))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (line.isEmpty())
+                {
+                    continue;
+                }
+
+                final Map<String, Object> change;
+                try
+                {
+                    change = _objectMapper.readValue(line, Map.class);
+                }
+                catch (IOException e)
+                {
+                    LOGGER.warn("Ignoring incomplete change at the end of configuration journal {}", _file);
+                    break;
+                }
+                replay(change, handler);
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void replay(final Map<String, Object> change, final ChangeHandler handler)
+    {
+        final Collection<Map<String, Object>> updated = (Collection<Map<String, Object>>) change.get(UPDATED);
+        if (updated != null)
+        {
+            for (Map<String, Object> record : updated)
+            {
+                final Map<String, UUID> parents = new LinkedHashMap<>();
+                final Map<String, String> parentIds = (Map<String, String>) record.get(PARENTS);
+                if (parentIds != null)
+                {
+                    for (Map.Entry<String, String> parent : parentIds.entrySet())
+                    {
+                        parents.put(parent.getKey(), UUID.fromString(parent.getValue()));
+                    }
+                }
+                handler.updated(new ConfiguredObjectRecordImpl(UUID.fromString((String) record.get(ID)),
+                                                               (String) record.get(TYPE),
+                                                               (Map<String, Object>) record.get(ATTRIBUTES),
+                                                               parents));
+            }
+        }
+
+        final Collection<String> removed = (Collection<String>) change.get(REMOVED);
+        if (removed != null)
+        {
+            for (String id : removed)
+            {
+                handler.removed(UUID.fromString(id));
+            }
+        }
+    }
+
+    void appendUpdated(final Collection<ConfiguredObjectRecord> records) throws IOException
+    {
+        final List<Map<String, Object>> updated = new ArrayList<>(records.size());
+        for (ConfiguredObjectRecord record : records)
+        {
+            final Map<String, Object> recordMap = new LinkedHashMap<>();
+            recordMap.put(ID, record.getId());
+            recordMap.put(TYPE, record.getType());
+            recordMap.put(ATTRIBUTES, record.getAttributes());
+            recordMap.put(PARENTS, record.getParents());
+            updated.add(recordMap);
+        }
+        append(UPDATED, updated);
+    }
+
+    void appendRemoved(final Collection<UUID> ids) throws IOException
+    {
+        append(REMOVED, ids);
+    }
+
+    private void append(final String changeType, final Object value) throws IOException
+    {
+        final byte[] json = _objectMapper.writeValueAsBytes(Collections.singletonMap(changeType, value));
+        final ByteBuffer buffer = ByteBuffer.allocate(json.length + 1);
+        buffer.put(json).put((byte) '\n').flip();
+
+        final FileChannel channel = getChannel();
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        _changeCount++;
+    }
+
+    private FileChannel getChannel() throws IOException
+    {
+        if (_channel == null)
+        {
+            new FileHelper().createNewFile(_file.toPath(), _posixFileAttributes);
+            _channel = FileChannel.open(_file.toPath(),
+                                        StandardOpenOption.CREATE,
+                                        StandardOpenOption.WRITE,
+                                        StandardOpenOption.APPEND);
+        }
+        return _channel;
+    }
+
+    /**
+     * Discards the changes held in the journal.  Must only be called once the changes are held by the snapshot.
+     */
+    void clear() throws IOException
+    {
+        close();
+        Files.deleteIfExists(_file.toPath());
+        _changeCount = 0;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (_channel != null)
+        {
+            try
+            {
+                _channel.close();
+            }
+            finally
+            {
+                _channel = null;
+            }
+        }
+    }
+}
@@ -53,6 +53,14 @@ import org.apache.qpid.server.store.handler.ConfiguredObjectRecordHandler;
 
 public class JsonFileConfigStore extends AbstractJsonFileStore implements DurableConfigurationStore
 {
+    public static final String JOURNAL_ENABLED = "qpid.jsonConfigStore.journal.enabled";
+    public static final boolean DEFAULT_JOURNAL_ENABLED = false;
+
+    public static final String JOURNAL_COMPACTION_THRESHOLD = "qpid.jsonConfigStore.journal.compactionThreshold";
+    public static final int DEFAULT_JOURNAL_COMPACTION_THRESHOLD = 1000;
+
+    private static final String JOURNAL_FILE_SUFFIX = ".journal";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(JsonFileConfigStore.class);
 
     private static final Comparator<Class<? extends ConfiguredObject>> CATEGORY_CLASS_COMPARATOR =
@@ -85,6 +93,14 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
 
     private ConfiguredObject<?> _parent;
 
+    /**
+     * Changes made since the configuration file was last written.  Changes are only appended to the journal when
+     * journaling is enabled, but a journal left behind is always replayed.
+     */
+    private JsonFileConfigJournal _journal;
+    private boolean _journalEnabled;
+    private int _journalCompactionThreshold;
+
     private enum State { CLOSED, CONFIGURED, OPEN };
     private State _state = State.CLOSED;
     private final Object _lock = new Object();
@@ -110,10 +126,21 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
         _classNameMapping = generateClassNameMap(_parent.getModel(), _rootClass);
 
         FileBasedSettings fileBasedSettings = (FileBasedSettings) _parent;
+        final String posixFileAttributes = parent.getContextValue(String.class, SystemConfig.POSIX_FILE_PERMISSIONS);
         setup(parent.getName(),
               fileBasedSettings.getStorePath(),
-              parent.getContextValue(String.class, SystemConfig.POSIX_FILE_PERMISSIONS),
+              posixFileAttributes,
               Collections.emptyMap());
+
+        final File configFile = getConfigFile();
+        _journal = new JsonFileConfigJournal(new File(configFile.getParentFile(),
+                                                      configFile.getName() + JOURNAL_FILE_SUFFIX),
+                                             posixFileAttributes);
+        _journalEnabled = getContextValue(parent, Boolean.class, JOURNAL_ENABLED, DEFAULT_JOURNAL_ENABLED);
+        _journalCompactionThreshold = getContextValue(parent,
+                                                      Integer.class,
+                                                      JOURNAL_COMPACTION_THRESHOLD,
+                                                      DEFAULT_JOURNAL_COMPACTION_THRESHOLD);
         changeState(State.CLOSED, State.CONFIGURED);
 
     }
@@ -218,7 +245,27 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
                 }
                 idsForType.add(record.getId());
             }
-            if(updated)
+
+            final int journalChanges = _journal.replay(new JsonFileConfigJournal.ChangeHandler()
+            {
+                @Override
+                public void updated(final ConfiguredObjectRecord record)
+                {
+                    putRecord(record);
+                }
+
+                @Override
+                public void removed(final UUID id)
+                {
+                    removeRecord(id);
+                }
+            });
+            if(journalChanges > 0)
+            {
+                LOGGER.debug("Replayed {} change(s) from configuration journal {}", journalChanges, _journal.getFile());
+                compact();
+            }
+            else if(updated)
             {
                 save();
             }
@@ -272,10 +319,111 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
 
             idsForType.add(record.getId());
 
+            saveUpdated(Collections.singletonList(record));
+        }
+    }
+
+    private void putRecord(final ConfiguredObjectRecord record)
+    {
+        if(_objectsById.put(record.getId(), record) == null)
+        {
+            List<UUID> idsForType = _idsByType.get(record.getType());
+            if(idsForType == null)
+            {
+                idsForType = new ArrayList<>();
+                _idsByType.put(record.getType(), idsForType);
+            }
+            idsForType.add(record.getId());
+        }
+    }
+
+    private void removeRecord(final UUID id)
+    {
+        final ConfiguredObjectRecord record = _objectsById.remove(id);
+        if(record != null)
+        {
+            _idsByType.get(record.getType()).remove(id);
+        }
+    }
+
+    private void saveUpdated(final Collection<ConfiguredObjectRecord> records)
+    {
+        if(_journalEnabled)
+        {
+            try
+            {
+                _journal.appendUpdated(records);
+            }
+            catch (IOException e)
+            {
+                throw new StoreException("Cannot append to configuration journal " + _journal.getFile(), e);
+            }
+            compactIfNecessary();
+        }
+        else
+        {
             save();
         }
     }
 
+    private void saveRemoved(final Collection<UUID> ids)
+    {
+        if(_journalEnabled)
+        {
+            if(!ids.isEmpty())
+            {
+                try
+                {
+                    _journal.appendRemoved(ids);
+                }
+                catch (IOException e)
+                {
+                    throw new StoreException("Cannot append to configuration journal " + _journal.getFile(), e);
+                }
+                compactIfNecessary();
+            }
+        }
+        else
+        {
+            save();
+        }
+    }
+
+    /**
+     * Rewrites the configuration file once the journal holds the larger of the compaction threshold and the number
+     * of records in the store, so that the cost of rewriting the file is spread over the changes made since it was
+     * last written.
+     */
+    private void compactIfNecessary()
+    {
+        if(_journal.getChangeCount() >= Math.max(_journalCompactionThreshold, _objectsById.size()))
+        {
+            compact();
+        }
+    }
+
+    private void compact()
+    {
+        save();
+        try
+        {
+            _journal.clear();
+        }
+        catch (IOException e)
+        {
+            throw new StoreException("Cannot delete configuration journal " + _journal.getFile(), e);
+        }
+    }
+
+    private static <T> T getContextValue(final ConfiguredObject<?> parent,
+                                         final Class<T> type,
+                                         final String name,
+                                         final T defaultValue)
+    {
+        final T value = parent.getContextValue(type, name);
+        return value == null ? defaultValue : value;
+    }
+
     private UUID getRootId()
     {
         List<UUID> ids = _idsByType.get(_rootClass.getSimpleName());
@@ -406,7 +554,7 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
                 _idsByType.get(record.getType()).remove(record.getId());
             }
         }
-        save();
+        saveRemoved(removedIds);
         return removedIds.toArray(new UUID[removedIds.size()]);
     }
 
@@ -453,9 +601,11 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
                 throw new StoreException("Cannot update record of unknown type " + type);
             }
         }
+        final List<ConfiguredObjectRecord> updatedRecords = new ArrayList<>(records.length);
         for(ConfiguredObjectRecord record : records)
         {
             record = new ConfiguredObjectRecordImpl(record);
+            updatedRecords.add(record);
             final UUID id = record.getId();
             final String type = record.getType();
             if(_objectsById.put(id, record) == null)
@@ -475,7 +625,7 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
             }
         }
 
-        save();
+        saveUpdated(updatedRecords);
     }
 
     @Override
@@ -484,7 +634,14 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
 
         try
         {
-            cleanup();
+            try
+            {
+                closeJournal();
+            }
+            finally
+            {
+                cleanup();
+            }
         }
         finally
         {
@@ -497,11 +654,40 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
         }
     }
 
+    private synchronized void closeJournal()
+    {
+        if (_journal != null)
+        {
+            try
+            {
+                if (_journal.getChangeCount() > 0)
+                {
+                    compact();
+                }
+            }
+            finally
+            {
+                try
+                {
+                    _journal.close();
+                }
+                catch (IOException e)
+                {
+                    throw new StoreException("Cannot close configuration journal " + _journal.getFile(), e);
+                }
+            }
+        }
+    }
+
     @Override
     public void onDelete(ConfiguredObject<?> parent)
     {
         FileBasedSettings fileBasedSettings = (FileBasedSettings)parent;
 
+        if (_journal != null && _journal.getFile().exists() && !_journal.getFile().delete())
+        {
+            LOGGER.info("Failed to delete the configuration journal {}", _journal.getFile());
+        }
         delete(fileBasedSettings.getStorePath());
     }
 
@@ -353,6 +353,12 @@ public class MemoryMessageStore implements MessageStore
         return 0L;
     }
 
+    @Override
+    public long getBytesReloadedIntoMemory()
+    {
+        return 0L;
+    }
+
     @Override
     public Transaction newTransaction()
     {
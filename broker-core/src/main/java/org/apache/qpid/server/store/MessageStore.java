@@ -65,6 +65,12 @@ public interface MessageStore
 
     long getBytesEvacuatedFromMemory();
 
+    /**
+     * Returns the number of bytes of message data which have been read back into memory from the store, such as
+     * after the message has been flowed to disk.
+     */
+    long getBytesReloadedIntoMemory();
+
     /**
      * Is this store capable of persisting the data
      *
@@ -87,6 +93,11 @@ public interface MessageStore
 
     MessageStoreReader newMessageStoreReader();
 
+    /**
+     * Reads the durable state of the store during recovery.  {@link #visitMessageInstances(TransactionLogResource,
+     * MessageInstanceHandler)} may be invoked concurrently for different queues.  The other methods are not required
+     * to be thread-safe: callers reading from several threads must serialize them.
+     */
     interface MessageStoreReader
     {
         void visitMessages(MessageHandler handler) throws StoreException;
@@ -108,6 +108,12 @@ public abstract class NullMessageStore implements MessageStore, DurableConfigura
         return 0L;
     }
 
+    @Override
+    public long getBytesReloadedIntoMemory()
+    {
+        return 0L;
+    }
+
     @Override
     public Transaction newTransaction()
     {
@@ -27,4 +27,32 @@ public interface AcceptingTransport
     void close();
 
     int getAcceptingPort();
+
+    int getMaxSelectorConnectionCount();
+
+    long getSelectCount();
+
+    long getSelectorWakeupCount();
+
+    long getSelectLatency();
+
+    long getTlsHandshakesCompleted();
+
+    long getTlsHandshakeTime();
+
+    long getTlsHandshakeTaskBatchesRun();
+
+    long getTlsHandshakeTasksRunOnIoThreads();
+
+    long getTlsHandshakeTaskQueueTime();
+
+    long getTlsHandshakeTaskTime();
+
+    int getQueuedTlsHandshakeTaskBatches();
+
+    long getBytesWritten();
+
+    long getBytesCopiedForWrite();
+
+    long getPendingWriteBytes();
 }
@@ -181,6 +181,11 @@ public class NetworkConnectionScheduler
         _running.incrementAndGet();
     }
 
+    boolean isClosed()
+    {
+        return _selectorThread == null || _selectorThread.isClosed();
+    }
+
     public void close()
     {
         if(_selectorThread != null)
@@ -230,6 +235,34 @@ public class NetworkConnectionScheduler
         return _poolSize;
     }
 
+    /**
+     * @param reset whether the cumulative statistics are reset
+     * @return the statistics of each of the selectors of this scheduler
+     */
+    public int getMaxSelectorConnectionCount()
+    {
+        final SelectorThread selectorThread = _selectorThread;
+        return selectorThread == null ? 0 : selectorThread.getMaxSelectorConnectionCount();
+    }
+
+    public long getSelectCount()
+    {
+        final SelectorThread selectorThread = _selectorThread;
+        return selectorThread == null ? 0L : selectorThread.getSelectCount();
+    }
+
+    public long getSelectorWakeupCount()
+    {
+        final SelectorThread selectorThread = _selectorThread;
+        return selectorThread == null ? 0L : selectorThread.getWakeupCount();
+    }
+
+    public long getTotalSelectLatency()
+    {
+        final SelectorThread selectorThread = _selectorThread;
+        return selectorThread == null ? 0L : selectorThread.getTotalSelectLatency();
+    }
+
     public void schedule(final NonBlockingConnection connection)
     {
         _selectorThread.addToWork(connection);
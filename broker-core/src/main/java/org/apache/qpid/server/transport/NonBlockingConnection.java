@@ -65,8 +65,10 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
     private volatile boolean _partialRead = false;
 
     private final AmqpPort _port;
+    private final NonBlockingNetworkTransport _transport;
     private final AtomicBoolean _scheduled = new AtomicBoolean();
     private volatile long _scheduledTime;
+    private volatile long _firstReadNanoTime;
     private volatile boolean _unexpectedByteBufferSizeReported;
     private final String _threadName;
     private volatile SelectorThread.SelectionTask _selectionTask;
@@ -83,6 +85,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
                                  final Set<TransportEncryption> encryptionSet,
                                  final Runnable onTransportEncryptionAction,
                                  final NetworkConnectionScheduler scheduler,
+                                 final NonBlockingNetworkTransport transport,
                                  final AmqpPort port)
     {
         _socketChannel = socketChannel;
@@ -93,6 +96,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
 
         _remoteSocketAddress = _socketChannel.socket().getRemoteSocketAddress().toString();
         _port = port;
+        _transport = transport;
         _threadName = SelectorThread.IO_THREAD_NAME_PREFIX + _remoteSocketAddress.toString();
 
         protocolEngine.setWorkListener(new Action<ProtocolEngine>()
@@ -366,7 +370,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         return complete;
     }
 
-    private long getBufferedSize()
+    long getBufferedSize()
     {
         return _bufferedSize;
     }
@@ -399,6 +403,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
                 }
                 finally
                 {
+                    _transport.connectionClosed(this);
                     _socketChannel.close();
                 }
             }
@@ -491,7 +496,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         {
             long readData = readFromNetwork();
 
-            if (readData > 0)
+            if (readData > 0 || _delegate.hasDeferredInput())
             {
                 return _delegate.processData();
             }
@@ -509,6 +514,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
     long writeToTransport(Collection<QpidByteBuffer> buffers) throws IOException
     {
         long written  = QpidByteBuffer.write(_socketChannel, buffers);
+        _transport.bytesWritten(written);
         if (LOGGER.isDebugEnabled())
         {
             LOGGER.debug("Written " + written + " bytes");
@@ -543,6 +549,10 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         {
             _closed.set(true);
         }
+        else if (read > 0 && _firstReadNanoTime == 0L)
+        {
+            _firstReadNanoTime = System.nanoTime();
+        }
 
         _partialRead = read != 0;
 
@@ -605,6 +615,31 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         return "[NonBlockingConnection " + _remoteSocketAddress + "]";
     }
 
+    /**
+     * Schedules the connection for processing on behalf of work arising outside of the protocol engine, such as
+     * the completion of TLS handshake tasks on another thread.  The engine is also notified, so that a connection
+     * being processed at the time is processed again rather than returned to the selector.
+     */
+    void scheduleWork()
+    {
+        _protocolEngine.notifyWork();
+        // once the connection or the port is closed there is no selector left to schedule the connection on
+        final NetworkConnectionScheduler scheduler = getScheduler();
+        if(!_closed.get() && !_scheduled.get() && !scheduler.isClosed())
+        {
+            scheduler.schedule(this);
+        }
+    }
+
+    /**
+     * @return the value of {@link System#nanoTime()} when bytes were first read from the connection, or 0 if none
+     * have been read yet
+     */
+    long getFirstReadNanoTime()
+    {
+        return _firstReadNanoTime;
+    }
+
     public void processAmqpData(QpidByteBuffer applicationData)
     {
         _protocolEngine.received(applicationData);
@@ -617,7 +652,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         {
             case TLS:
                 _onTransportEncryptionAction.run();
-                _delegate = new NonBlockingConnectionTLSDelegate(this, _port);
+                _delegate = new NonBlockingConnectionTLSDelegate(this, _port, _transport.getTlsHandshakeExecutor());
                 break;
             case NONE:
                 _delegate = new NonBlockingConnectionPlainDelegate(this, _port);
@@ -56,6 +56,12 @@ interface NonBlockingConnectionDelegate
 
     boolean processData() throws IOException;
 
+    /**
+     * @return true if input already read from the network is awaiting processing, for instance because its
+     * processing was suspended until work done on another thread completed
+     */
+    boolean hasDeferredInput();
+
     Principal getPeerPrincipal();
 
     Certificate getPeerCertificate();
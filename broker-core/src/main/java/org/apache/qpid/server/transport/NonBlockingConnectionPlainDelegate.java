@@ -142,6 +142,12 @@ public class NonBlockingConnectionPlainDelegate implements NonBlockingConnection
         return false;
     }
 
+    @Override
+    public boolean hasDeferredInput()
+    {
+        return false;
+    }
+
     @Override
     public QpidByteBuffer getNetInputBuffer()
     {
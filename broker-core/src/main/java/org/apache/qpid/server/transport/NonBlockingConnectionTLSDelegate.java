@@ -61,11 +61,18 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
     private QpidByteBuffer _netInputBuffer;
     private QpidByteBuffer _netOutputBuffer;
     private QpidByteBuffer _applicationBuffer;
+    private final TLSHandshakeExecutor _handshakeExecutor;
+    private volatile boolean _delegatedTasksRunning;
+    private volatile boolean _deferredInput;
+    private boolean _handshakeCompleted;
 
 
-    public NonBlockingConnectionTLSDelegate(NonBlockingConnection parent, AmqpPort port)
+    public NonBlockingConnectionTLSDelegate(NonBlockingConnection parent,
+                                            AmqpPort port,
+                                            TLSHandshakeExecutor handshakeExecutor)
     {
         _parent = parent;
+        _handshakeExecutor = handshakeExecutor;
         _sslEngine = createSSLEngine(port);
         _networkBufferSize = port.getNetworkBufferSize();
 
@@ -87,9 +94,21 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
         return _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_WRAP;
     }
 
+    @Override
+    public boolean hasDeferredInput()
+    {
+        return _deferredInput;
+    }
+
     @Override
     public boolean processData() throws IOException
     {
+        if (_delegatedTasksRunning)
+        {
+            // the engine cannot make progress until its tasks complete, the input is kept until then
+            return false;
+        }
+        _deferredInput = false;
         if(!_hostChecked)
         {
             try (QpidByteBuffer buffer = _netInputBuffer.duplicate())
@@ -123,6 +142,7 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
             oldNetBufferPos = _netInputBuffer.position();
 
             _status = QpidByteBuffer.decryptSSL(_sslEngine, _netInputBuffer, _applicationBuffer);
+            checkHandshakeCompleted(_status);
             if (_status.getStatus() == SSLEngineResult.Status.CLOSED)
             {
                 int remaining = _netInputBuffer.remaining();
@@ -143,7 +163,8 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
             restoreApplicationBufferForWrite();
 
         }
-        while((_netInputBuffer.hasRemaining() && (_netInputBuffer.position()>oldNetBufferPos)) || tasksRun);
+        while(!_delegatedTasksRunning
+              && ((_netInputBuffer.hasRemaining() && (_netInputBuffer.position()>oldNetBufferPos)) || tasksRun));
 
         if(_netInputBuffer.hasRemaining())
         {
@@ -236,7 +257,8 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
         boolean encrypted;
         do
         {
-            if(_sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP)
+            if(!_delegatedTasksRunning
+               && _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP)
             {
                 if(_netOutputBuffer.remaining() < _sslEngine.getSession().getPacketBufferSize())
                 {
@@ -255,6 +277,7 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
                 _status = QpidByteBuffer.encryptSSL(_sslEngine, buffers, _netOutputBuffer);
                 encrypted = _status.bytesProduced() > 0;
                 totalConsumed += _status.bytesConsumed();
+                checkHandshakeCompleted(_status);
                 runSSLEngineTasks(_status);
                 if(encrypted && _netOutputBuffer.remaining() < _sslEngine.getSession().getPacketBufferSize())
                 {
@@ -285,14 +308,36 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
         return totalConsumed;
     }
 
+    /**
+     * Runs the delegated tasks of the engine, on the handshake threads of the port if they will take them, in which
+     * case processing of the connection is suspended until the tasks complete.
+     *
+     * @return true if the tasks were run on this thread
+     */
     private boolean runSSLEngineTasks(final SSLEngineResult status)
     {
-        if(status.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK)
+        if(status.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK && !_delegatedTasksRunning)
         {
+            final List<Runnable> tasks = new ArrayList<>();
             Runnable task;
             while((task = _sslEngine.getDelegatedTask()) != null)
             {
-                task.run();
+                tasks.add(task);
+            }
+
+            if (_handshakeExecutor != null && !tasks.isEmpty())
+            {
+                _delegatedTasksRunning = true;
+                if (_handshakeExecutor.execute(tasks, this::delegatedTasksCompleted))
+                {
+                    return false;
+                }
+                _delegatedTasksRunning = false;
+            }
+
+            for (Runnable delegatedTask : tasks)
+            {
+                delegatedTask.run();
             }
 
             return true;
@@ -301,6 +346,25 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
         return false;
     }
 
+    private void delegatedTasksCompleted()
+    {
+        _deferredInput = true;
+        _delegatedTasksRunning = false;
+        _parent.scheduleWork();
+    }
+
+    private void checkHandshakeCompleted(final SSLEngineResult status)
+    {
+        if (!_handshakeCompleted && status.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.FINISHED)
+        {
+            _handshakeCompleted = true;
+            if (_handshakeExecutor != null)
+            {
+                _handshakeExecutor.handshakeCompleted(System.nanoTime() - _parent.getFirstReadNanoTime());
+            }
+        }
+    }
+
     @Override
     public Principal getPeerPrincipal()
     {
@@ -318,7 +382,8 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
     @Override
     public boolean needsWork()
     {
-        return _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP;
+        return !_delegatedTasksRunning
+               && _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP;
     }
 
     private synchronized void checkPeerPrincipal()
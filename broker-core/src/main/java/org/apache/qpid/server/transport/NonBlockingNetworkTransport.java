@@ -29,6 +29,8 @@ import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.EnumSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,12 +48,16 @@ public class NonBlockingNetworkTransport
     private final MultiVersionProtocolEngineFactory _factory;
     private final ServerSocketChannel _serverSocket;
     private final NetworkConnectionScheduler _scheduler;
+    private final TLSHandshakeExecutor _tlsHandshakeExecutor;
     private final AmqpPort<?> _port;
     private final InetSocketAddress _address;
+    private final Set<NonBlockingConnection> _connections = ConcurrentHashMap.newKeySet();
+    private final LongAdder _bytesWritten = new LongAdder();
 
     public NonBlockingNetworkTransport(final MultiVersionProtocolEngineFactory factory,
                                        final EnumSet<TransportEncryption> encryptionSet,
                                        final NetworkConnectionScheduler scheduler,
+                                       final TLSHandshakeExecutor tlsHandshakeExecutor,
                                        final AmqpPort<?> port)
     {
         try
@@ -90,6 +96,7 @@ public class NonBlockingNetworkTransport
             _serverSocket.configureBlocking(false);
             _encryptionSet = encryptionSet;
             _scheduler = scheduler;
+            _tlsHandshakeExecutor = tlsHandshakeExecutor;
             _port = port;
 
         }
@@ -123,6 +130,36 @@ public class NonBlockingNetworkTransport
         return _serverSocket.socket().getLocalPort();
     }
 
+    TLSHandshakeExecutor getTlsHandshakeExecutor()
+    {
+        return _tlsHandshakeExecutor;
+    }
+
+    long getBytesWritten()
+    {
+        return _bytesWritten.sum();
+    }
+
+    long getPendingWriteBytes()
+    {
+        long pendingWriteBytes = 0L;
+        for (NonBlockingConnection connection : _connections)
+        {
+            pendingWriteBytes += connection.getBufferedSize();
+        }
+        return pendingWriteBytes;
+    }
+
+    void bytesWritten(final long bytes)
+    {
+        _bytesWritten.add(bytes);
+    }
+
+    void connectionClosed(final NonBlockingConnection connection)
+    {
+        _connections.remove(connection);
+    }
+
     void acceptSocketChannel(final ServerSocketChannel serverSocketChannel)
     {
         SocketChannel socketChannel = null;
@@ -163,9 +200,11 @@ public class NonBlockingNetworkTransport
                                                           }
                                                       },
                                                       _scheduler,
+                                                      this,
                                                       _port);
 
                     engine.setNetworkConnection(connection);
+                    _connections.add(connection);
 
                     connection.start();
 
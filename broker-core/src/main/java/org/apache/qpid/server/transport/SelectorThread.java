@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -43,6 +44,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.util.concurrent.SettableFuture;
 import org.slf4j.Logger;
@@ -84,6 +86,12 @@ class SelectorThread extends Thread
         /** Set of connections that are currently being selected upon */
         private final Set<NonBlockingConnection> _unscheduledConnections = new HashSet<>();
 
+        /** Set of connections assigned to this selector until they are removed from the scheduler */
+        private final Set<NonBlockingConnection> _assignedConnections = ConcurrentHashMap.newKeySet();
+
+        private final AtomicLong _selectCount = new AtomicLong();
+        private final AtomicLong _wakeupCount = new AtomicLong();
+        private final AtomicLong _totalSelectLatency = new AtomicLong();
 
 
         private SelectionTask() throws IOException
@@ -122,6 +130,17 @@ class SelectorThread extends Thread
             return _unscheduledConnections;
         }
 
+        private SelectorThread getSelectorThread()
+        {
+            return SelectorThread.this;
+        }
+
+        int getConnectionCount()
+        {
+            return _assignedConnections.size();
+        }
+
+
         private List<NonBlockingConnection> processUnscheduledConnections()
         {
             _nextTimeout = Integer.MAX_VALUE;
@@ -323,6 +342,7 @@ class SelectorThread extends Thread
                                 {
                                     _inSelect.set(false);
                                 }
+                                final long selectReturnTime = System.nanoTime();
                                 for (NonBlockingConnection connection : processSelectionKeys())
                                 {
                                     if (connection.setScheduled())
@@ -345,6 +365,10 @@ class SelectorThread extends Thread
                                     }
                                 }
                                 runTasks();
+
+                                final long latency = System.nanoTime() - selectReturnTime;
+                                _selectCount.incrementAndGet();
+                                _totalSelectLatency.addAndGet(latency);
                             }
                         }
                         finally
@@ -400,6 +424,7 @@ class SelectorThread extends Thread
             _wakeups.compareAndSet(0, 1);
             if(_inSelect.get() && _wakeups.get() != 0)
             {
+                _wakeupCount.incrementAndGet();
                 _selector.wakeup();
             }
         }
@@ -615,8 +640,13 @@ class SelectorThread extends Thread
     {
         if(selectionInterestRequiresUpdate(connection))
         {
-            SelectionTask selectionTask = getNextSelectionTask();
-            connection.setSelectionTask(selectionTask);
+            SelectionTask selectionTask = connection.getSelectionTask();
+            if (selectionTask == null || selectionTask.getSelectorThread() != this)
+            {
+                selectionTask = getLeastLoadedSelectionTask();
+                connection.setSelectionTask(selectionTask);
+            }
+            selectionTask._assignedConnections.add(connection);
             selectionTask.getUnregisteredConnections().add(connection);
             selectionTask.wakeup();
         }
@@ -650,8 +680,82 @@ class SelectorThread extends Thread
         return _selectionTasks[index];
     }
 
+    /**
+     * Finds the selector with the fewest assigned connections.  The search starts from the next selector in turn so
+     * that ties are spread across the selectors.
+     */
+    private SelectionTask getLeastLoadedSelectionTask()
+    {
+        SelectionTask leastLoaded = getNextSelectionTask();
+        if (_selectionTasks.length > 1)
+        {
+            int fewestConnections = leastLoaded.getConnectionCount();
+            for (SelectionTask selectionTask : _selectionTasks)
+            {
+                final int connectionCount = selectionTask.getConnectionCount();
+                if (connectionCount < fewestConnections)
+                {
+                    leastLoaded = selectionTask;
+                    fewestConnections = connectionCount;
+                }
+            }
+        }
+        return leastLoaded;
+    }
+
+    int getMaxSelectorConnectionCount()
+    {
+        int maxConnectionCount = 0;
+        for (SelectionTask selectionTask : _selectionTasks)
+        {
+            maxConnectionCount = Math.max(maxConnectionCount, selectionTask.getConnectionCount());
+        }
+        return maxConnectionCount;
+    }
+
+    long getSelectCount()
+    {
+        long selectCount = 0L;
+        for (SelectionTask selectionTask : _selectionTasks)
+        {
+            selectCount += selectionTask._selectCount.get();
+        }
+        return selectCount;
+    }
+
+    long getWakeupCount()
+    {
+        long wakeupCount = 0L;
+        for (SelectionTask selectionTask : _selectionTasks)
+        {
+            wakeupCount += selectionTask._wakeupCount.get();
+        }
+        return wakeupCount;
+    }
+
+    /**
+     * Select latency is the time from the return of a select until the ready connections have been handed on for
+     * processing, i.e. the delay the selector loop adds to every connection that becomes ready.
+     *
+     * @return the total select latency of the selectors in nanoseconds
+     */
+    long getTotalSelectLatency()
+    {
+        long totalSelectLatency = 0L;
+        for (SelectionTask selectionTask : _selectionTasks)
+        {
+            totalSelectLatency += selectionTask._totalSelectLatency.get();
+        }
+        return totalSelectLatency;
+    }
+
     void removeConnection(NonBlockingConnection connection)
     {
+        final SelectionTask selectionTask = connection.getSelectionTask();
+        if (selectionTask != null)
+        {
+            selectionTask._assignedConnections.remove(connection);
+        }
         try
         {
             unregisterConnection(connection);
@@ -698,6 +802,11 @@ class SelectorThread extends Thread
 
     }
 
+     boolean isClosed()
+     {
+         return _closed.get();
+     }
+
      public void addToWork(final NonBlockingConnection connection)
      {
          if (_closed.get())
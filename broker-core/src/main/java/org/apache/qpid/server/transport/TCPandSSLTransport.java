@@ -22,6 +22,7 @@ package org.apache.qpid.server.transport;
 
 import java.util.EnumSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.qpid.server.model.Broker;
 import org.apache.qpid.server.model.Protocol;
@@ -37,6 +38,7 @@ class TCPandSSLTransport implements AcceptingTransport
     private Set<Protocol> _supported;
     private Protocol _defaultSupportedProtocolReply;
     private NetworkConnectionScheduler _scheduler;
+    private TLSHandshakeExecutor _tlsHandshakeExecutor;
 
     TCPandSSLTransport(final Set<Transport> transports,
                        final AmqpPort<?> port,
@@ -75,8 +77,17 @@ class TCPandSSLTransport implements AcceptingTransport
         _scheduler = new NetworkConnectionScheduler("Port-"+_port.getName(), _port.getNumberOfSelectors(),
                                                     _port.getThreadPoolSize(), threadPoolKeepAliveTimeout);
         _scheduler.start();
+        if (encryptionSet.contains(TransportEncryption.TLS))
+        {
+            _tlsHandshakeExecutor =
+                    new TLSHandshakeExecutor("Port-" + _port.getName(),
+                                             _port.getContextValue(Integer.class,
+                                                                   AmqpPort.TLS_HANDSHAKE_THREAD_POOL_SIZE),
+                                             _port.getContextValue(Integer.class, AmqpPort.TLS_HANDSHAKE_QUEUE_SIZE),
+                                             threadPoolKeepAliveTimeout);
+        }
         _networkTransport = new NonBlockingNetworkTransport(protocolEngineFactory,
-                                                            encryptionSet, _scheduler, _port);
+                                                            encryptionSet, _scheduler, _tlsHandshakeExecutor, _port);
         _networkTransport.start();
     }
 
@@ -86,6 +97,97 @@ class TCPandSSLTransport implements AcceptingTransport
         return _networkTransport.getAcceptingPort();
     }
 
+    @Override
+    public int getMaxSelectorConnectionCount()
+    {
+        return _scheduler == null ? 0 : _scheduler.getMaxSelectorConnectionCount();
+    }
+
+    @Override
+    public long getSelectCount()
+    {
+        return _scheduler == null ? 0L : _scheduler.getSelectCount();
+    }
+
+    @Override
+    public long getSelectorWakeupCount()
+    {
+        return _scheduler == null ? 0L : _scheduler.getSelectorWakeupCount();
+    }
+
+    @Override
+    public long getSelectLatency()
+    {
+        return _scheduler == null ? 0L : TimeUnit.NANOSECONDS.toMillis(_scheduler.getTotalSelectLatency());
+    }
+
+    @Override
+    public long getTlsHandshakesCompleted()
+    {
+        return _tlsHandshakeExecutor == null ? 0L : _tlsHandshakeExecutor.getHandshakesCompleted();
+    }
+
+    @Override
+    public long getTlsHandshakeTime()
+    {
+        return _tlsHandshakeExecutor == null
+                ? 0L
+                : TimeUnit.NANOSECONDS.toMillis(_tlsHandshakeExecutor.getHandshakeTimeNanos());
+    }
+
+    @Override
+    public long getTlsHandshakeTaskBatchesRun()
+    {
+        return _tlsHandshakeExecutor == null ? 0L : _tlsHandshakeExecutor.getTaskBatchesRun();
+    }
+
+    @Override
+    public long getTlsHandshakeTasksRunOnIoThreads()
+    {
+        return _tlsHandshakeExecutor == null ? 0L : _tlsHandshakeExecutor.getTaskBatchesRunOnIoThreads();
+    }
+
+    @Override
+    public long getTlsHandshakeTaskQueueTime()
+    {
+        return _tlsHandshakeExecutor == null
+                ? 0L
+                : TimeUnit.NANOSECONDS.toMillis(_tlsHandshakeExecutor.getQueueTimeNanos());
+    }
+
+    @Override
+    public long getTlsHandshakeTaskTime()
+    {
+        return _tlsHandshakeExecutor == null
+                ? 0L
+                : TimeUnit.NANOSECONDS.toMillis(_tlsHandshakeExecutor.getTaskTimeNanos());
+    }
+
+    @Override
+    public int getQueuedTlsHandshakeTaskBatches()
+    {
+        return _tlsHandshakeExecutor == null ? 0 : _tlsHandshakeExecutor.getQueuedTaskBatches();
+    }
+
+    @Override
+    public long getBytesWritten()
+    {
+        return _networkTransport == null ? 0L : _networkTransport.getBytesWritten();
+    }
+
+    @Override
+    public long getBytesCopiedForWrite()
+    {
+        // buffers are written with gathering writes rather than copied
+        return 0L;
+    }
+
+    @Override
+    public long getPendingWriteBytes()
+    {
+        return _networkTransport == null ? 0L : _networkTransport.getPendingWriteBytes();
+    }
+
     @Override
     public void close()
     {
@@ -97,5 +199,9 @@ class TCPandSSLTransport implements AcceptingTransport
         {
             _scheduler.close();
         }
+        if (_tlsHandshakeExecutor != null)
+        {
+            _tlsHandshakeExecutor.close();
+        }
     }
 }
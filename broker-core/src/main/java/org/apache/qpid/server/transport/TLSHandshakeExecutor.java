@@ -0,0 +1,188 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the delegated tasks of the SSLEngines of a port, which perform the expensive parts of TLS handshakes such as
+ * key exchange and certificate validation, on a bounded pool of threads so that they do not hold up the IO threads.
+ * <p>
+ * When the pool is saturated, or has no threads, the tasks are rejected and the caller is expected to run them
+ * itself.
+ */
+class TLSHandshakeExecutor
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(TLSHandshakeExecutor.class);
+
+    private final ThreadPoolExecutor _executor;
+
+    private final AtomicLong _handshakes = new AtomicLong();
+    private final AtomicLong _handshakeTimeNanos = new AtomicLong();
+    private final AtomicLong _taskBatches = new AtomicLong();
+    private final AtomicLong _queueTimeNanos = new AtomicLong();
+    private final AtomicLong _taskTimeNanos = new AtomicLong();
+    private final AtomicLong _taskBatchesRunInline = new AtomicLong();
+
+    TLSHandshakeExecutor(final String name,
+                         final int threadPoolSize,
+                         final int queueSize,
+                         final long threadKeepAliveTimeout)
+    {
+        if (threadPoolSize < 1)
+        {
+            _executor = null;
+            return;
+        }
+        final ThreadFactory factory = new ThreadFactory()
+        {
+            final AtomicInteger _count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable r)
+            {
+                Thread t = Executors.defaultThreadFactory().newThread(r);
+                t.setName("TLS-handshake-" + name + "-" + _count.incrementAndGet());
+                return t;
+            }
+        };
+        _executor = new ThreadPoolExecutor(threadPoolSize,
+                                           threadPoolSize,
+                                           threadKeepAliveTimeout,
+                                           TimeUnit.MINUTES,
+                                           new ArrayBlockingQueue<>(queueSize),
+                                           factory);
+        _executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param tasks        the delegated tasks of an SSLEngine
+     * @param onCompletion invoked by the handshake thread once the tasks have been run
+     * @return false if the tasks were not accepted, in which case the caller must run them
+     */
+    boolean execute(final List<Runnable> tasks, final Runnable onCompletion)
+    {
+        if (_executor == null)
+        {
+            _taskBatchesRunInline.incrementAndGet();
+            return false;
+        }
+        final long submitTime = System.nanoTime();
+        try
+        {
+            _executor.execute(() ->
+                              {
+                                  final long startTime = System.nanoTime();
+                                  final long queueTime = startTime - submitTime;
+                                  try
+                                  {
+                                      for (Runnable task : tasks)
+                                      {
+                                          task.run();
+                                      }
+                                  }
+                                  finally
+                                  {
+                                      _taskBatches.incrementAndGet();
+                                      _queueTimeNanos.addAndGet(queueTime);
+                                      _taskTimeNanos.addAndGet(System.nanoTime() - startTime);
+                                      onCompletion.run();
+                                  }
+                              });
+            return true;
+        }
+        catch (RejectedExecutionException e)
+        {
+            LOGGER.debug("TLS handshake tasks rejected, running them on the IO thread");
+            _taskBatchesRunInline.incrementAndGet();
+            return false;
+        }
+    }
+
+    void handshakeCompleted(final long handshakeTimeNanos)
+    {
+        _handshakes.incrementAndGet();
+        _handshakeTimeNanos.addAndGet(handshakeTimeNanos);
+    }
+
+    void close()
+    {
+        if (_executor != null)
+        {
+            _executor.shutdown();
+        }
+    }
+
+    long getHandshakesCompleted()
+    {
+        return _handshakes.get();
+    }
+
+    /**
+     * @return the total time taken by the completed handshakes, in nanoseconds
+     */
+    long getHandshakeTimeNanos()
+    {
+        return _handshakeTimeNanos.get();
+    }
+
+    long getTaskBatchesRun()
+    {
+        return _taskBatches.get();
+    }
+
+    long getTaskBatchesRunOnIoThreads()
+    {
+        return _taskBatchesRunInline.get();
+    }
+
+    /**
+     * @return the total time the task batches run spent queueing for a handshake thread, in nanoseconds
+     */
+    long getQueueTimeNanos()
+    {
+        return _queueTimeNanos.get();
+    }
+
+    /**
+     * @return the total time taken by the handshake threads to run the task batches, in nanoseconds
+     */
+    long getTaskTimeNanos()
+    {
+        return _taskTimeNanos.get();
+    }
+
+    int getQueuedTaskBatches()
+    {
+        return _executor == null ? 0 : _executor.getQueue().size();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.virtualhost;
+
+import org.apache.qpid.server.message.MessageDeletedException;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.queue.QueueEntry;
+import org.apache.qpid.server.store.StoredMessage;
+
+abstract class AbstractFlowToDiskEvictionPolicy implements FlowToDiskEvictionPolicy
+{
+    /**
+     * Leaves the message of the given entry in memory if it is to be retained, otherwise flows it to disk.
+     *
+     * @return the in-memory size of the message, or 0 if the message was not in memory or has been deleted
+     */
+    static long retainOrFlowToDisk(final QueueEntry node, final boolean retain)
+    {
+        if (node != null && !node.isDeleted())
+        {
+            try (MessageReference messageReference = node.getMessage().newReference())
+            {
+                final StoredMessage storedMessage = messageReference.getMessage().getStoredMessage();
+                if (storedMessage.isInMemory())
+                {
+                    if (!retain)
+                    {
+                        storedMessage.flowToDisk();
+                    }
+                    return (long) storedMessage.getContentSize() + storedMessage.getMetadataSize();
+                }
+            }
+            catch (MessageDeletedException e)
+            {
+                // pass
+            }
+        }
+        return 0L;
+    }
+}
@@ -20,7 +20,6 @@
  */
 package org.apache.qpid.server.virtualhost;
 
-import static com.google.common.collect.Iterators.cycle;
 import static java.util.Collections.newSetFromMap;
 
 import java.io.BufferedInputStream;
@@ -86,10 +85,8 @@ import org.apache.qpid.server.logging.messages.VirtualHostMessages;
 import org.apache.qpid.server.logging.subjects.MessageStoreLogSubject;
 import org.apache.qpid.server.message.AMQMessageHeader;
 import org.apache.qpid.server.message.InstanceProperties;
-import org.apache.qpid.server.message.MessageDeletedException;
 import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.message.MessageNode;
-import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.message.MessageSource;
 import org.apache.qpid.server.message.RoutingResult;
 import org.apache.qpid.server.message.ServerMessage;
@@ -105,7 +102,6 @@ import org.apache.qpid.server.plugin.SystemNodeCreator;
 import org.apache.qpid.server.pool.SuppressingInheritedAccessControlContextThreadFactory;
 import org.apache.qpid.server.protocol.LinkModel;
 import org.apache.qpid.server.queue.QueueEntry;
-import org.apache.qpid.server.queue.QueueEntryIterator;
 import org.apache.qpid.server.security.AccessControl;
 import org.apache.qpid.server.security.CompoundAccessControl;
 import org.apache.qpid.server.security.Result;
@@ -274,6 +270,10 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     private Collection<VirtualHostLogger> _virtualHostLoggersToClose;
     private PreferenceStore _preferenceStore;
     private long _flowToDiskCheckPeriod;
+    private volatile FlowToDiskEvictionPolicy _flowToDiskEvictionPolicy;
+    private final AtomicLong _messagesEvacuatedFromMemory = new AtomicLong();
+    private final AtomicLong _convertedMessageCacheHits = new AtomicLong();
+    private final AtomicLong _convertedMessageCacheMisses = new AtomicLong();
     private volatile boolean _isDiscardGlobalSharedSubscriptionLinksOnDetach;
 
     public AbstractVirtualHost(final Map<String, Object> attributes, VirtualHostNode<?> virtualHostNode)
@@ -597,6 +597,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
 
         _fileSystemMaxUsagePercent = getContextValue(Integer.class, Broker.STORE_FILESYSTEM_MAX_USAGE_PERCENT);
         _flowToDiskCheckPeriod = getContextValue(Long.class, FLOW_TO_DISK_CHECK_PERIOD);
+        _flowToDiskEvictionPolicy = getContextValue(FlowToDiskEvictionPolicy.Type.class, FLOW_TO_DISK_EVICTION_POLICY).newInstance();
         _isDiscardGlobalSharedSubscriptionLinksOnDetach = getContextValue(Boolean.class, DISCARD_GLOBAL_SHARED_SUBSCRIPTION_LINKS_ON_DETACH);
 
         QpidServiceLoader serviceLoader = new QpidServiceLoader();
@@ -1476,6 +1477,43 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         return _messageStore == null ? -1 : _messageStore.getBytesEvacuatedFromMemory();
     }
 
+    @Override
+    public long getMessagesEvacuatedFromMemory()
+    {
+        return _messagesEvacuatedFromMemory.get();
+    }
+
+    @Override
+    public long getBytesReloadedIntoMemory()
+    {
+        return _messageStore == null ? -1 : _messageStore.getBytesReloadedIntoMemory();
+    }
+
+    @Override
+    public long getConvertedMessageCacheHits()
+    {
+        return _convertedMessageCacheHits.get();
+    }
+
+    @Override
+    public long getConvertedMessageCacheMisses()
+    {
+        return _convertedMessageCacheMisses.get();
+    }
+
+    @Override
+    public void registerMessageConversion(final boolean cacheHit)
+    {
+        if (cacheHit)
+        {
+            _convertedMessageCacheHits.incrementAndGet();
+        }
+        else
+        {
+            _convertedMessageCacheMisses.incrementAndGet();
+        }
+    }
+
     @Override
     public <T extends ConfiguredObject<?>> T getAttainedChildFromAddress(final Class<T> childClass,
                                                                          final String address)
@@ -1963,51 +2001,13 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         {
             if (isOverTargetSize())
             {
-                long currentTargetSize = _targetSize.get();
-                List<QueueEntryIterator> queueIterators = new ArrayList<>();
+                final List<Queue<?>> queues = new ArrayList<>();
                 for (Queue<?> q : getChildren(Queue.class))
                 {
-                    queueIterators.add(q.queueEntryIterator());
-                }
-                Collections.shuffle(queueIterators);
-
-                long cumulativeSize = 0;
-                final Iterator<QueueEntryIterator> cyclicIterators = cycle(queueIterators);
-                while (cyclicIterators.hasNext())
-                {
-                    final QueueEntryIterator queueIterator = cyclicIterators.next();
-                    if (queueIterator.advance())
-                    {
-                        QueueEntry node = queueIterator.getNode();
-                        if (node != null && !node.isDeleted())
-                        {
-                            try (MessageReference messageReference = node.getMessage().newReference())
-                            {
-                                final StoredMessage storedMessage = messageReference.getMessage().getStoredMessage();
-                                if (storedMessage.isInMemory())
-                                {
-                                    if (cumulativeSize <= currentTargetSize)
-                                    {
-                                        cumulativeSize += storedMessage.getContentSize();
-                                        cumulativeSize += storedMessage.getMetadataSize();
-                                    }
-                                    else
-                                    {
-                                        storedMessage.flowToDisk();
-                                    }
-                                }
-                            }
-                            catch (MessageDeletedException e)
-                            {
-                                // pass
-                            }
-                        }
-                    }
-                    else
-                    {
-                        cyclicIterators.remove();
-                    }
+                    queues.add(q);
                 }
+                final long evicted = _flowToDiskEvictionPolicy.evict(queues, _targetSize.get());
+                _messagesEvacuatedFromMemory.addAndGet(evicted);
             }
         }
     }
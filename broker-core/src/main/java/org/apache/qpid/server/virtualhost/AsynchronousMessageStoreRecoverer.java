@@ -22,13 +22,13 @@ package org.apache.qpid.server.virtualhost;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executors;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -98,14 +98,8 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
         private final long _maxMessageId;
         private final Set<Queue<?>> _recoveringQueues = new CopyOnWriteArraySet<>();
         private final AtomicBoolean _recoveryComplete = new AtomicBoolean();
-        private final Map<Long, MessageReference<? extends ServerMessage<?>>> _recoveredMessages = new HashMap<>();
-        private final ListeningExecutorService _queueRecoveryExecutor =
-                MoreExecutors.listeningDecorator(new ThreadPoolExecutor(0,
-                                                                        Integer.MAX_VALUE,
-                                                                        60L,
-                                                                        TimeUnit.SECONDS,
-                                                                        new SynchronousQueue<>(),
-                                                                        QpidByteBuffer.createQpidByteBufferTrackingThreadFactory(Executors.defaultThreadFactory())));
+        private final Map<Long, MessageReference<? extends ServerMessage<?>>> _recoveredMessages = new ConcurrentHashMap<>();
+        private final ListeningExecutorService _queueRecoveryExecutor;
 
         private final MessageStore.MessageStoreReader _storeReader;
         private AtomicBoolean _continueRecovery = new AtomicBoolean(true);
@@ -119,6 +113,18 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
             _logSubject = new MessageStoreLogSubject(virtualHost.getName(), _store.getClass().getSimpleName());
 
             _maxMessageId = _store.getNextMessageId();
+
+            final int recoveryThreads =
+                    Math.max(1, virtualHost.getContextValue(Integer.class, QueueManagingVirtualHost.MESSAGE_RECOVERY_THREADS));
+            final ThreadPoolExecutor executor =
+                    new ThreadPoolExecutor(recoveryThreads,
+                                           recoveryThreads,
+                                           60L,
+                                           TimeUnit.SECONDS,
+                                           new LinkedBlockingQueue<>(),
+                                           QpidByteBuffer.createQpidByteBufferTrackingThreadFactory(Executors.defaultThreadFactory()));
+            executor.allowCoreThreadTimeOut(true);
+            _queueRecoveryExecutor = MoreExecutors.listeningDecorator(executor);
             Collection children = _virtualHost.getChildren(Queue.class);
             _recoveringQueues.addAll((Collection<? extends Queue<?>>) children);
 
@@ -172,6 +178,7 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
 
         private void recoverQueue(Queue<?> queue)
         {
+            final long startTime = System.currentTimeMillis();
             MessageInstanceVisitor handler = new MessageInstanceVisitor(queue);
             _storeReader.visitMessageInstances(queue, handler);
 
@@ -184,6 +191,8 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
             getEventLogger().message(getLogSubject(), TransactionLogMessages.RECOVERED(handler.getRecoveredCount(), queue.getName()));
             getEventLogger().message(getLogSubject(), TransactionLogMessages.RECOVERY_COMPLETE(queue.getName(), true));
             queue.completeRecovery();
+            LOGGER.debug("Recovered {} message(s) of queue '{}' in {} ms",
+                         handler.getRecoveredCount(), queue.getName(), System.currentTimeMillis() - startTime);
 
             _recoveringQueues.remove(queue);
             if (_recoveringQueues.isEmpty() && _recoveryComplete.compareAndSet(false, true))
@@ -195,10 +204,9 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
         private synchronized void completeRecovery()
         {
             // at this point nothing should be writing to the map of recovered messages
-            for (Map.Entry<Long,MessageReference<? extends ServerMessage<?>>> entry : _recoveredMessages.entrySet())
+            for (MessageReference<? extends ServerMessage<?>> reference : _recoveredMessages.values())
             {
-                entry.getValue().release();
-                entry.setValue(null); // free up any memory associated with the reference object
+                reference.release();
             }
             final List<StoredMessage<?>> messagesToDelete = new ArrayList<>();
             getStoreReader().visitMessages(new MessageHandler()
@@ -240,27 +248,49 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
             _queueRecoveryExecutor.shutdown();
         }
 
-        private synchronized ServerMessage<?> getRecoveredMessage(final long messageId)
+        /**
+         * Returns the message with the given id, reading it from the store on first use.  A message enqueued on
+         * several queues may be read by more than one recovery thread at once; the first to publish it wins and the
+         * others discard their copies.  Store reads are serialized on the reader, whose
+         * {@link MessageStore.MessageStoreReader#getMessage(long)} is not required to be thread-safe.
+         */
+        private ServerMessage<?> getRecoveredMessage(final long messageId)
         {
             MessageReference<? extends ServerMessage<?>> ref = _recoveredMessages.get(messageId);
             if (ref == null)
             {
-                StoredMessage<?> message = _storeReader.getMessage(messageId);
-                if(message != null)
+                final StoredMessage<?> message;
+                synchronized (_storeReader)
+                {
+                    message = _storeReader.getMessage(messageId);
+                }
+                if (message == null)
                 {
-                    StorableMessageMetaData metaData = message.getMetaData();
+                    return null;
+                }
+
+                StorableMessageMetaData metaData = message.getMetaData();
 
-                    @SuppressWarnings("rawtypes")
-                    MessageMetaDataType type = metaData.getType();
+                @SuppressWarnings("rawtypes")
+                MessageMetaDataType type = metaData.getType();
 
-                    @SuppressWarnings("unchecked")
-                    ServerMessage<?> serverMessage = type.createMessage(message);
+                @SuppressWarnings("unchecked")
+                ServerMessage<?> serverMessage = type.createMessage(message);
 
-                    ref = serverMessage.newReference();
-                    _recoveredMessages.put(messageId, ref);
+                MessageReference<? extends ServerMessage<?>> newRef = serverMessage.newReference();
+                ref = _recoveredMessages.putIfAbsent(messageId, newRef);
+                if (ref == null)
+                {
+                    ref = newRef;
+                }
+                else
+                {
+                    // Releasing the losing reference would remove the message from the store, as the copy is
+                    // referenced by nothing else, so only the memory held by the copy is given up.
+                    message.flowToDisk();
                 }
             }
-            return ref == null ? null : ref.getMessage();
+            return ref.getMessage();
         }
 
         public void cancel()
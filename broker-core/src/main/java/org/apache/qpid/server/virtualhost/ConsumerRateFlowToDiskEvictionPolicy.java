@@ -0,0 +1,137 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.virtualhost;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.queue.QueueEntryIterator;
+
+/**
+ * Shares the target size between the queues in proportion to the rate at which their messages are consumed, so that
+ * the messages of queues which are not being consumed are flowed to disk first.  Within each queue the messages
+ * nearest the head, which are the next to be delivered, are retained and the messages nearest the tail are flowed to
+ * disk.
+ * <p>
+ * The consumption rate of a queue is estimated from the number of messages dequeued between invocations, decayed by
+ * half at each invocation.  Any share of the target size a queue does not use is passed on to the queues which follow
+ * it, the queues being visited in decreasing order of consumption rate.  Queues which have consumers but have not
+ * yet consumed are weighted above queues without consumers.
+ * <p>
+ * So that a queue which is not being consumed keeps the messages at its head in memory, {@link
+ * #MINIMUM_SHARE_FRACTION} of the target size is shared equally between all the queues whatever their weight.
+ */
+class ConsumerRateFlowToDiskEvictionPolicy extends AbstractFlowToDiskEvictionPolicy
+{
+    static final double MINIMUM_SHARE_FRACTION = 0.1;
+
+    private Map<Queue<?>, QueueRate> _queueRates = new HashMap<>();
+
+    @Override
+    public synchronized long evict(final Collection<? extends Queue<?>> queues, final long targetSize)
+    {
+        final Map<Queue<?>, QueueRate> queueRates = new HashMap<>();
+        final List<QueueRate> rates = new ArrayList<>();
+        double totalWeight = 0;
+        for (Queue<?> queue : queues)
+        {
+            QueueRate rate = _queueRates.get(queue);
+            if (rate == null)
+            {
+                rate = new QueueRate(queue);
+            }
+            rate.update();
+            queueRates.put(queue, rate);
+            rates.add(rate);
+            totalWeight += rate.getWeight();
+        }
+        _queueRates = queueRates;
+        rates.sort(Comparator.comparingDouble(QueueRate::getWeight).reversed());
+
+        final long minimumShare = rates.isEmpty() ? 0L : (long) (targetSize * MINIMUM_SHARE_FRACTION) / rates.size();
+        long remainingSize = targetSize - minimumShare * rates.size();
+        long evicted = 0;
+        int remainingQueues = rates.size();
+        for (QueueRate rate : rates)
+        {
+            final long share = minimumShare + (totalWeight > 0
+                    ? (long) (remainingSize * (rate.getWeight() / totalWeight))
+                    : remainingSize / remainingQueues);
+            long retainedSize = 0;
+            final QueueEntryIterator queueIterator = rate.getQueue().queueEntryIterator();
+            while (queueIterator.advance())
+            {
+                final boolean retain = retainedSize < share;
+                final long size = retainOrFlowToDisk(queueIterator.getNode(), retain);
+                if (retain)
+                {
+                    retainedSize += size;
+                }
+                else if (size > 0)
+                {
+                    evicted++;
+                }
+            }
+
+            remainingSize = Math.max(0L, remainingSize + minimumShare - retainedSize);
+            totalWeight = Math.max(0, totalWeight - rate.getWeight());
+            remainingQueues--;
+        }
+        return evicted;
+    }
+
+    private static final class QueueRate
+    {
+        private final Queue<?> _queue;
+        private long _lastDequeuedMessages;
+        private double _dequeueRate;
+        private double _weight;
+
+        private QueueRate(final Queue<?> queue)
+        {
+            _queue = queue;
+            _lastDequeuedMessages = queue.getTotalDequeuedMessages();
+        }
+
+        private void update()
+        {
+            final long dequeuedMessages = _queue.getTotalDequeuedMessages();
+            _dequeueRate = _dequeueRate / 2 + Math.max(0L, dequeuedMessages - _lastDequeuedMessages);
+            _lastDequeuedMessages = dequeuedMessages;
+            _weight = _dequeueRate + (_queue.getConsumerCount() > 0 ? 1 : 0);
+        }
+
+        private double getWeight()
+        {
+            return _weight;
+        }
+
+        private Queue<?> getQueue()
+        {
+            return _queue;
+        }
+    }
+}
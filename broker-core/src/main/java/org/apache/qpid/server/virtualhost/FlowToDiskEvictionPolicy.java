@@ -0,0 +1,69 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.virtualhost;
+
+import java.util.Collection;
+
+import org.apache.qpid.server.model.Queue;
+
+/**
+ * Chooses the messages the virtualhost flows to disk when the size of the messages held in memory exceeds its target.
+ * A policy instance is used by a single virtualhost and may keep state between invocations.
+ */
+public interface FlowToDiskEvictionPolicy
+{
+    /**
+     * Flows messages of the given queues to disk so that approximately no more than the target size of message data
+     * remains in memory.
+     *
+     * @param queues the queues of the virtualhost
+     * @param targetSize the target size in bytes of the message data held in memory
+     * @return the number of messages flowed to disk
+     */
+    long evict(Collection<? extends Queue<?>> queues, long targetSize);
+
+    enum Type
+    {
+        /** Retains the messages nearest the head of each queue, sharing the target size equally between queues. */
+        ROUND_ROBIN
+        {
+            @Override
+            public FlowToDiskEvictionPolicy newInstance()
+            {
+                return new RoundRobinFlowToDiskEvictionPolicy();
+            }
+        },
+        /**
+         * Retains the messages nearest the head of each queue, giving each queue a small minimum share of the target
+         * size and sharing the rest between the queues in proportion to the rate at which their messages are consumed.
+         */
+        CONSUMER_RATE_WEIGHTED
+        {
+            @Override
+            public FlowToDiskEvictionPolicy newInstance()
+            {
+                return new ConsumerRateFlowToDiskEvictionPolicy();
+            }
+        };
+
+        public abstract FlowToDiskEvictionPolicy newInstance();
+    }
+}
@@ -81,6 +81,16 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
     @ManagedContextDefault(name = FLOW_TO_DISK_CHECK_PERIOD)
     long DEFAULT_FLOW_TO_DISK_CHECK_PERIOD = 30000L;
 
+    String FLOW_TO_DISK_EVICTION_POLICY = "virtualhost.flowToDiskEvictionPolicy";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = FLOW_TO_DISK_EVICTION_POLICY,
+                           description = "Policy choosing the messages flowed to disk when the in-memory message size"
+                                         + " exceeds the target: ROUND_ROBIN shares the target equally between queues,"
+                                         + " CONSUMER_RATE_WEIGHTED shares most of it by the rate at which queues are"
+                                         + " consumed. Either policy keeps the messages nearest the head of each queue"
+                                         + " in memory.")
+    String DEFAULT_FLOW_TO_DISK_EVICTION_POLICY = "ROUND_ROBIN";
+
     String CONNECTION_THREAD_POOL_KEEP_ALIVE_TIMEOUT = "connectionThreadPoolKeepAliveTimeout";
     @SuppressWarnings("unused")
     @ManagedContextDefault(name = QueueManagingVirtualHost.CONNECTION_THREAD_POOL_KEEP_ALIVE_TIMEOUT)
@@ -150,6 +160,13 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
     @DerivedAttribute( description = "Indicates whether global shared durable subscriptions are disabled")
     boolean isDiscardGlobalSharedSubscriptionLinksOnDetach();
 
+    String MESSAGE_RECOVERY_THREADS = "virtualhost.messageRecoveryThreads";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = MESSAGE_RECOVERY_THREADS,
+                           description = "Maximum number of queues whose messages are recovered in parallel when"
+                                         + " message store recovery is asynchronous.")
+    int DEFAULT_MESSAGE_RECOVERY_THREADS = Math.max(Runtime.getRuntime().availableProcessors(), 4);
+
     String VIRTUALHOST_CONNECTION_THREAD_POOL_SIZE = "virtualhost.connectionThreadPool.size";
     @SuppressWarnings("unused")
     @ManagedContextDefault( name = VIRTUALHOST_CONNECTION_THREAD_POOL_SIZE)
@@ -262,6 +279,26 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
                       description = "Total Number of Bytes Evacuated from Memory Due to Flow to Disk.")
     long getBytesEvacuatedFromMemory();
 
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Evacuated Messages",
+                      description = "Total Number of Messages Evacuated from Memory by the Virtualhost Flow to Disk Check.")
+    long getMessagesEvacuatedFromMemory();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.BYTES, label = "Reloaded Message Bytes",
+                      description = "Total Number of Bytes of Messages Read Back into Memory from the Store.")
+    long getBytesReloadedIntoMemory();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Converted Message Cache Hits",
+                      description = "Total Number of Message Conversions Avoided by Reusing the Converted Form of a Message Delivered from more than one Queue.")
+    long getConvertedMessageCacheHits();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Converted Message Cache Misses",
+                      description = "Total Number of Message Conversions Performed for Delivery to Consumers.")
+    long getConvertedMessageCacheMisses();
+
     @Override
     @ManagedOperation(nonModifying = true, changesConfiguredObjectState = false)
     Collection<? extends Connection<?>> getConnections();
@@ -347,6 +384,8 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
 
     boolean isOverTargetSize();
 
+    void registerMessageConversion(boolean cacheHit);
+
     interface Transaction
     {
         void dequeue(QueueEntry entry);
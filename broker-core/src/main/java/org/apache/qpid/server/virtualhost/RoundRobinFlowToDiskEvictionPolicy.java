@@ -0,0 +1,76 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.virtualhost;
+
+import static com.google.common.collect.Iterators.cycle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.queue.QueueEntryIterator;
+
+/**
+ * Walks the queues from their heads in turn, retaining messages until the target size is reached and flowing the
+ * remainder to disk.
+ */
+class RoundRobinFlowToDiskEvictionPolicy extends AbstractFlowToDiskEvictionPolicy
+{
+    @Override
+    public long evict(final Collection<? extends Queue<?>> queues, final long targetSize)
+    {
+        List<QueueEntryIterator> queueIterators = new ArrayList<>();
+        for (Queue<?> q : queues)
+        {
+            queueIterators.add(q.queueEntryIterator());
+        }
+        Collections.shuffle(queueIterators);
+
+        long cumulativeSize = 0;
+        long evicted = 0;
+        final Iterator<QueueEntryIterator> cyclicIterators = cycle(queueIterators);
+        while (cyclicIterators.hasNext())
+        {
+            final QueueEntryIterator queueIterator = cyclicIterators.next();
+            if (queueIterator.advance())
+            {
+                final boolean retain = cumulativeSize <= targetSize;
+                final long size = retainOrFlowToDisk(queueIterator.getNode(), retain);
+                if (retain)
+                {
+                    cumulativeSize += size;
+                }
+                else if (size > 0)
+                {
+                    evicted++;
+                }
+            }
+            else
+            {
+                cyclicIterators.remove();
+            }
+        }
+        return evicted;
+    }
+}
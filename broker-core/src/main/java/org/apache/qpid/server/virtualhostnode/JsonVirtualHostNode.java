@@ -20,7 +20,9 @@
 package org.apache.qpid.server.virtualhostnode;
 
 import org.apache.qpid.server.model.ManagedAttribute;
+import org.apache.qpid.server.model.ManagedContextDefault;
 import org.apache.qpid.server.model.ManagedObject;
+import org.apache.qpid.server.store.JsonFileConfigStore;
 import org.apache.qpid.server.store.preferences.PreferenceStoreAttributes;
 
 @ManagedObject(type=JsonVirtualHostNodeImpl.VIRTUAL_HOST_NODE_TYPE,
@@ -31,6 +33,19 @@ public interface JsonVirtualHostNode<X extends JsonVirtualHostNode<X>> extends o
 
     String STORE_PATH = "storePath";
 
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = JsonFileConfigStore.JOURNAL_ENABLED,
+            description = "If true, changes to the configuration are appended to a journal next to the configuration"
+                          + " file rather than rewriting the whole file on every change")
+    boolean DEFAULT_JSON_CONFIG_STORE_JOURNAL_ENABLED = JsonFileConfigStore.DEFAULT_JOURNAL_ENABLED;
+
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = JsonFileConfigStore.JOURNAL_COMPACTION_THRESHOLD,
+            description = "Minimum number of changes held in the configuration journal before they are written to the"
+                          + " configuration file.  If the configuration has more records than this, the changes are"
+                          + " written once the journal holds as many changes as the configuration has records.")
+    int DEFAULT_JSON_CONFIG_STORE_JOURNAL_COMPACTION_THRESHOLD = JsonFileConfigStore.DEFAULT_JOURNAL_COMPACTION_THRESHOLD;
+
     @Override
     @ManagedAttribute(mandatory = true, defaultValue = "${qpid.work_dir}${file.separator}${this:name}${file.separator}config${file.separator}")
     String getStorePath();
@@ -0,0 +1,203 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.bytebuffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class BufferPoolTest extends QpidTestCase
+{
+    private static final int BUFFER_SIZE = 10;
+    private static final int POOL_SIZE = 8;
+    private static final int CONCURRENCY = 2;
+
+    private BufferPool _bufferPool;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _bufferPool = new BufferPool(POOL_SIZE, CONCURRENCY);
+    }
+
+    public void testSizing()
+    {
+        assertEquals("Unexpected max size", POOL_SIZE, _bufferPool.getMaxSize());
+        assertEquals("Unexpected shard count", CONCURRENCY, _bufferPool.getShardCount());
+        assertEquals("Unexpected thread cache size", 2, _bufferPool.getThreadCacheSize());
+
+        final BufferPool tinyPool = new BufferPool(1, CONCURRENCY);
+        assertEquals("Unexpected shard count", 1, tinyPool.getShardCount());
+        assertEquals("Unexpected thread cache size", 0, tinyPool.getThreadCacheSize());
+    }
+
+    public void testReturnedBufferIsReused()
+    {
+        assertNull("Pool should be empty", _bufferPool.getBuffer());
+        assertEquals("Unexpected misses", 1, _bufferPool.getMissCount());
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        _bufferPool.returnBuffer(buffer);
+        assertEquals("Unexpected pool size", 1, _bufferPool.size());
+
+        assertSame("Returned buffer was not reused", buffer, _bufferPool.getBuffer());
+        assertEquals("Unexpected pool size", 0, _bufferPool.size());
+        assertEquals("Unexpected hits", 1, _bufferPool.getHitCount());
+        assertEquals("Unexpected steals", 0, _bufferPool.getStealCount());
+    }
+
+    public void testPoolSizeIsBounded()
+    {
+        for (int i = 0; i < POOL_SIZE * 3; i++)
+        {
+            _bufferPool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+        assertEquals("Unexpected pool size", POOL_SIZE, _bufferPool.size());
+
+        for (int i = 0; i < POOL_SIZE; i++)
+        {
+            assertNotNull("Expected pooled buffer " + i, _bufferPool.getBuffer());
+        }
+        assertNull("Pool should be empty", _bufferPool.getBuffer());
+        assertEquals("Unexpected pool size", 0, _bufferPool.size());
+    }
+
+    public void testPoolSizeIsBoundedAcrossThreadCaches() throws Exception
+    {
+        final int threadCount = 4;
+        final CountDownLatch returned = new CountDownLatch(threadCount);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++)
+        {
+            final Thread thread = new Thread(() ->
+                                             {
+                                                 for (int i = 0; i < POOL_SIZE; i++)
+                                                 {
+                                                     _bufferPool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+                                                 }
+                                                 returned.countDown();
+                                                 try
+                                                 {
+                                                     release.await(10, TimeUnit.SECONDS);
+                                                 }
+                                                 catch (InterruptedException e)
+                                                 {
+                                                     Thread.currentThread().interrupt();
+                                                 }
+                                             });
+            threads.add(thread);
+            thread.start();
+        }
+        try
+        {
+            assertTrue("Threads did not return buffers", returned.await(10, TimeUnit.SECONDS));
+            assertEquals("Unexpected thread caches", threadCount, _bufferPool.getThreadCacheCount());
+            assertEquals("Unexpected pool size", POOL_SIZE, _bufferPool.size());
+        }
+        finally
+        {
+            release.countDown();
+            for (Thread thread : threads)
+            {
+                thread.join(10000);
+            }
+        }
+    }
+
+    public void testBufferStolenFromOtherShard() throws Exception
+    {
+        runInThread(() ->
+                    {
+                        for (int i = 0; i < 3; i++)
+                        {
+                            _bufferPool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+                        }
+                        _bufferPool.releaseThreadCache();
+                    });
+        assertEquals("Unexpected pool size", 3, _bufferPool.size());
+
+        assertNotNull("Expected buffer from other shard", _bufferPool.getBuffer());
+        assertEquals("Unexpected steals", 1, _bufferPool.getStealCount());
+        assertEquals("Unexpected hits", 0, _bufferPool.getHitCount());
+        assertEquals("Unexpected misses", 0, _bufferPool.getMissCount());
+    }
+
+    public void testCacheOfTerminatedThreadIsReclaimed() throws Exception
+    {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        runInThread(() ->
+                    {
+                        assertNull("Pool should be empty", _bufferPool.getBuffer());
+                        _bufferPool.returnBuffer(buffer);
+                    });
+        assertEquals("Unexpected pool size", 1, _bufferPool.size());
+
+        assertSame("Buffer of terminated thread was not reclaimed", buffer, _bufferPool.getBuffer());
+        assertEquals("Unexpected pool size", 0, _bufferPool.size());
+        assertEquals("Misses of terminated thread not retained", 1, _bufferPool.getMissCount());
+    }
+
+    public void testCacheOfTerminatedThreadIsReclaimedBySweep() throws Exception
+    {
+        _bufferPool = new BufferPool(POOL_SIZE, CONCURRENCY, 0);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        runInThread(() -> _bufferPool.returnBuffer(buffer));
+        assertEquals("Unexpected thread caches", 1, _bufferPool.getThreadCacheCount());
+
+        for (int i = 0; i <= _bufferPool.getThreadCacheSize(); i++)
+        {
+            _bufferPool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+
+        assertEquals("Cache of terminated thread was not reclaimed", 1, _bufferPool.getThreadCacheCount());
+        assertEquals("Unexpected pool size", _bufferPool.getThreadCacheSize() + 2, _bufferPool.size());
+    }
+
+    private void runInThread(final Runnable runnable) throws Exception
+    {
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread thread = new Thread(() ->
+                                         {
+                                             try
+                                             {
+                                                 runnable.run();
+                                             }
+                                             catch (Throwable t)
+                                             {
+                                                 failure.set(t);
+                                             }
+                                         });
+        thread.start();
+        thread.join(10000);
+        assertFalse("Thread did not terminate", thread.isAlive());
+        if (failure.get() != null)
+        {
+            throw new AssertionError("Failure in thread", failure.get());
+        }
+    }
+}
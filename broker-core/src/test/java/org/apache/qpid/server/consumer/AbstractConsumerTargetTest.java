@@ -22,6 +22,7 @@ package org.apache.qpid.server.consumer;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -30,6 +31,10 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.mockito.InOrder;
 
 import org.apache.qpid.server.message.MessageContainer;
@@ -216,6 +221,51 @@ public class AbstractConsumerTargetTest extends QpidTestCase
         verify(_messageInstance, never()).routeToAlternate(any(Action.class), any(ServerTransaction.class));
     }
 
+    public void testProcessPendingSendsBatchUpToMessageLimit() throws Exception
+    {
+        configureDeliveryBatch(3, 1024L);
+
+        assertTrue("Messages should have been sent", _consumerTarget.processPending());
+        assertEquals("Unexpected sends", Arrays.asList(true, true, true), _consumerTarget.getSends());
+        assertEquals("Unexpected number of flushes", 1, _consumerTarget.getFlushCount());
+    }
+
+    public void testProcessPendingSendsBatchUpToByteLimit() throws Exception
+    {
+        configureDeliveryBatch(10, 150L);
+
+        assertTrue("Messages should have been sent", _consumerTarget.processPending());
+        assertEquals("Unexpected sends", Arrays.asList(true, true), _consumerTarget.getSends());
+        assertEquals("Unexpected number of flushes", 1, _consumerTarget.getFlushCount());
+    }
+
+    public void testProcessPendingWithoutBatching() throws Exception
+    {
+        configureDeliveryBatch(1, 1024L);
+
+        assertTrue("Message should have been sent", _consumerTarget.processPending());
+        assertEquals("Unexpected sends", Arrays.asList(false), _consumerTarget.getSends());
+        assertEquals("Unexpected number of flushes", 0, _consumerTarget.getFlushCount());
+    }
+
+    private void configureDeliveryBatch(final int maxMessages, final long maxBytes)
+    {
+        when(_connection.getContextValue(eq(Integer.class),
+                                         eq(Consumer.DELIVERY_BATCH_MAX_MESSAGES))).thenReturn(maxMessages);
+        when(_connection.getContextValue(eq(Long.class),
+                                         eq(Consumer.DELIVERY_BATCH_MAX_BYTES))).thenReturn(maxBytes);
+        when(_connection.isIOThread()).thenReturn(true);
+        doReturn(_connection).when(_session).getAMQPConnection();
+
+        final ServerMessage message = mock(ServerMessage.class);
+        when(message.getSizeIncludingHeader()).thenReturn(100L);
+        when(_messageInstance.getMessage()).thenReturn(message);
+
+        _consumerTarget = new TestAbstractConsumerTarget();
+        _consumerTarget.setSendFails(false);
+        _consumerTarget.consumerAdded(_consumer);
+    }
+
     private void configureBehaviour(final boolean acquires,
                                     final MessageSource.MessageConversionExceptionHandlingPolicy exceptionHandlingPolicy)
     {
@@ -225,7 +275,10 @@ public class AbstractConsumerTargetTest extends QpidTestCase
 
     private class TestAbstractConsumerTarget extends AbstractConsumerTarget<TestAbstractConsumerTarget>
     {
+        private final List<Boolean> _sends = new ArrayList<>();
         private boolean _creditRestored;
+        private boolean _sendFails = true;
+        private int _flushCount;
 
         TestAbstractConsumerTarget()
         {
@@ -235,7 +288,11 @@ public class AbstractConsumerTargetTest extends QpidTestCase
         @Override
         protected void doSend(final MessageInstanceConsumer consumer, final MessageInstance entry, final boolean batch)
         {
-            throw new MessageConversionException("testException");
+            if (_sendFails)
+            {
+                throw new MessageConversionException("testException");
+            }
+            _sends.add(batch);
         }
 
         @Override
@@ -259,7 +316,7 @@ public class AbstractConsumerTargetTest extends QpidTestCase
         @Override
         public void flushBatched()
         {
-
+            _flushCount++;
         }
 
         @Override
@@ -284,5 +341,20 @@ public class AbstractConsumerTargetTest extends QpidTestCase
         {
             return _creditRestored;
         }
+
+        void setSendFails(final boolean sendFails)
+        {
+            _sendFails = sendFails;
+        }
+
+        List<Boolean> getSends()
+        {
+            return _sends;
+        }
+
+        int getFlushCount()
+        {
+            return _flushCount;
+        }
     }
 }
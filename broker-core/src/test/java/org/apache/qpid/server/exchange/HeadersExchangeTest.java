@@ -189,6 +189,38 @@ public class HeadersExchangeTest extends QpidTestCase
     }
 
 
+    public void testOnBindingUpdated() throws Exception
+    {
+        Queue<?> q1 = createAndBind("Q1", "F0000=Aardvark");
+
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=Aardvark")), q1);
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=Bear")));
+
+        _exchange.replaceBinding("Q1", q1, getArgsMapFromStrings("F0000=Bear"));
+
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=Aardvark")));
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=Bear")), q1);
+    }
+
+    public void testMixedAnyAndAllOverManyBindings() throws Exception
+    {
+        List<Queue<?>> allQueues = new ArrayList<>();
+        List<Queue<?>> anyQueues = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+        {
+            allQueues.add(createAndBind("ALL" + i, "F0000=" + i, "F0001"));
+            anyQueues.add(createAndBind("ANY" + i, "F0000=" + i, "F0002=" + i, "X-match=any"));
+        }
+        Queue<?> unconditional = createAndBind("UNCONDITIONAL");
+
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=7")), anyQueues.get(7), unconditional);
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=7", "F0001")),
+                     allQueues.get(7), anyQueues.get(7), unconditional);
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=7", "F0001", "F0002=9")),
+                     allQueues.get(7), anyQueues.get(7), anyQueues.get(9), unconditional);
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0001")), unconditional);
+    }
+
     public void testWithSelectors() throws Exception
     {
         Queue<?> q1 = _virtualHost.createChild(Queue.class, Collections.singletonMap(Queue.NAME, "Q1"));
@@ -276,6 +276,42 @@ public class TopicExchangeTest extends QpidTestCase
 
     }
 
+    public void testRouteAfterBindingsRemoved() throws Exception
+    {
+        Queue<?> queue1 = _vhost.createChild(Queue.class, Collections.singletonMap(Queue.NAME, getTestName() + "_queue1"));
+        Queue<?> queue2 = _vhost.createChild(Queue.class, Collections.singletonMap(Queue.NAME, getTestName() + "_queue2"));
+        _exchange.bind(queue2.getName(), "a.#", null, false);
+
+        final int bindingCount = 50;
+        for (int i = 0; i < bindingCount; i++)
+        {
+            _exchange.bind(queue1.getName(), "a.b" + i + ".*", null, false);
+        }
+
+        for (int i = 0; i < bindingCount; i++)
+        {
+            RoutingResult<ServerMessage<?>> result = _exchange.route(_messageWithNoHeaders,
+                                                                     "a.b" + i + ".c",
+                                                                     _instanceProperties);
+            assertEquals("Unexpected number of routes for binding " + i, 2, result.getNumberOfRoutes());
+
+            _exchange.deleteBinding("a.b" + i + ".*", queue1);
+
+            result = _exchange.route(_messageWithNoHeaders, "a.b" + i + ".c", _instanceProperties);
+            assertEquals("Unexpected number of routes after unbinding " + i, 1, result.getNumberOfRoutes());
+            assertTrue("Message was not routed to queue2", result.getRoutes().contains(queue2));
+        }
+
+        _exchange.bind(queue1.getName(), "a.b0.*", null, false);
+        RoutingResult<ServerMessage<?>> result = _exchange.route(_messageWithNoHeaders,
+                                                                 "a.b0.c",
+                                                                 _instanceProperties);
+        assertEquals("Unexpected number of routes after rebinding", 2, result.getNumberOfRoutes());
+
+        result = _exchange.route(_messageWithNoHeaders, "a.b1.c", _instanceProperties);
+        assertEquals("Unexpected number of routes for removed binding", 1, result.getNumberOfRoutes());
+    }
+
     public void testRouteToQueueWithSelector()
     {
         String bindingKey = "mybinding";
@@ -0,0 +1,303 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ *
+ */
+package org.apache.qpid.server.filter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.qpid.server.filter.selector.SelectorParser;
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class SelectorCompilerTest extends QpidTestCase
+{
+    private static final String[] SELECTORS = {
+            "intProp = 5",
+            "5 = intProp",
+            "intProp <> 5",
+            "intProp > 4",
+            "intProp >= 5",
+            "4 < intProp",
+            "intProp < 5.5",
+            "5.5 > intProp",
+            "longProp > 2147483648",
+            "longProp = 10",
+            "doubleProp > 1",
+            "doubleProp <= 2.5",
+            "shortProp > 1",
+            "1 < shortProp",
+            "byteProp = 3",
+            "3 = byteProp",
+            "floatProp > 1",
+            "intProp BETWEEN 1 AND 10",
+            "intProp NOT BETWEEN 1 AND 10",
+            "strProp = 'abc'",
+            "'abc' = strProp",
+            "strProp <> 'abc'",
+            "strProp = intProp",
+            "strProp IS NULL",
+            "strProp IS NOT NULL",
+            "missing IS NULL",
+            "missing = 1",
+            "missing > 1",
+            "NOT (missing > 1)",
+            "strProp IN ('abc', 'def', 'ghi', 'jkl', 'mno')",
+            "strProp NOT IN ('abc', 'def')",
+            "intProp IN ('5', '6')",
+            "strProp LIKE 'ab%'",
+            "strProp LIKE '%bc'",
+            "strProp LIKE '%b%'",
+            "strProp LIKE 'abc'",
+            "strProp LIKE '%'",
+            "strProp LIKE 'a_c'",
+            "strProp LIKE 'a\\%%' ESCAPE '\\'",
+            "strProp NOT LIKE 'x%'",
+            "intProp LIKE 'a%'",
+            "boolProp",
+            "NOT boolProp",
+            "boolProp = TRUE",
+            "strProp",
+            "missing",
+            "boolProp AND intProp > 1",
+            "missing > 1 OR intProp = 5",
+            "missing > 1 AND intProp = 5",
+            "intProp = 5 OR missing > 1",
+            "intProp = 5 AND missing > 1",
+            "1 = 1",
+            "1 = 2 OR strProp = 'abc'",
+            "1 = 1 AND strProp = 'abc'",
+            "TRUE AND boolProp",
+            "FALSE OR boolProp",
+            "intProp + 1 = 6",
+            "intProp * 2 > longProp",
+            "JMSPriority > 4",
+            "JMSType = 'type'",
+            "JMSDeliveryMode = 'PERSISTENT'",
+            "JMSRedelivered",
+            "JMSTimestamp > 1000",
+            "(intProp > 1 AND strProp LIKE 'a%') OR (doubleProp < 0 AND JMSPriority = 9)"
+    };
+
+    private List<FilterableMessage> _messages;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _messages = new ArrayList<>();
+        _messages.add(createMessage(new HashMap<String, Object>()));
+
+        final Map<String, Object> matching = new HashMap<>();
+        matching.put("intProp", 5);
+        matching.put("longProp", 10L);
+        matching.put("doubleProp", 2.5d);
+        matching.put("shortProp", (short) 2);
+        matching.put("byteProp", (byte) 3);
+        matching.put("floatProp", 1.5f);
+        matching.put("strProp", "abc");
+        matching.put("boolProp", Boolean.TRUE);
+        _messages.add(createMessage(matching));
+
+        final Map<String, Object> other = new HashMap<>();
+        other.put("intProp", 10L);
+        other.put("longProp", 4294967296L);
+        other.put("doubleProp", -1);
+        other.put("shortProp", 1);
+        other.put("byteProp", 3L);
+        other.put("floatProp", 0.5d);
+        other.put("strProp", "a%bcd");
+        other.put("boolProp", "true");
+        _messages.add(createMessage(other));
+
+        final Map<String, Object> mismatchedTypes = new HashMap<>();
+        mismatchedTypes.put("intProp", "5");
+        mismatchedTypes.put("longProp", 10.0d);
+        mismatchedTypes.put("doubleProp", 2);
+        mismatchedTypes.put("strProp", 7);
+        mismatchedTypes.put("boolProp", Boolean.FALSE);
+        _messages.add(createMessage(mismatchedTypes));
+    }
+
+    public void testCompiledSelectorsMatchInterpretedSelectors() throws Exception
+    {
+        for (String selector : SELECTORS)
+        {
+            final BooleanExpression<FilterableMessage> interpreted = parse(selector);
+            final BooleanExpression<FilterableMessage> compiled = SelectorCompiler.compile(interpreted);
+            for (FilterableMessage message : _messages)
+            {
+                assertEquals("Unexpected result of '" + selector + "' for " + message,
+                             evaluate(interpreted, message),
+                             evaluate(compiled, message));
+            }
+        }
+    }
+
+    public void testConstantSelectorsAreFolded() throws Exception
+    {
+        assertSame(ConstantExpression.TRUE, SelectorCompiler.compile(parse("1 = 1")));
+        assertSame(ConstantExpression.FALSE, SelectorCompiler.compile(parse("1 = 2 AND intProp = 5")));
+        assertSame(ConstantExpression.TRUE, SelectorCompiler.compile(parse("'abc' LIKE 'a%' OR intProp = 5")));
+    }
+
+    public void testUnsupportedExpressionIsInterpreted() throws Exception
+    {
+        final BooleanExpression<FilterableMessage> interpreted = parse("strProp LIKE 'a_c'");
+        assertSame(interpreted, SelectorCompiler.compile(interpreted));
+    }
+
+    public void testJMSSelectorFilterCanBeInterpreted() throws Exception
+    {
+        setTestSystemProperty(JMSSelectorFilter.COMPILE_SELECTORS, "false");
+        final JMSSelectorFilter filter = new JMSSelectorFilter("intProp > 4 AND strProp LIKE 'ab%'");
+        assertTrue(filter.matches((Filterable) _messages.get(1)));
+        assertFalse(filter.matches((Filterable) _messages.get(2)));
+    }
+
+    /**
+     * @return the result of the expression and whether it matches, or the type of the exception thrown
+     */
+    private Object evaluate(final BooleanExpression<FilterableMessage> expression, final FilterableMessage message)
+    {
+        try
+        {
+            return expression.evaluate(message) + "/" + expression.matches(message);
+        }
+        catch (RuntimeException e)
+        {
+            return e.getClass();
+        }
+    }
+
+    private BooleanExpression<FilterableMessage> parse(final String selector) throws Exception
+    {
+        final SelectorParser<FilterableMessage> parser = new SelectorParser<>();
+        parser.setPropertyExpressionFactory(JMSMessagePropertyExpression.FACTORY);
+        return parser.parse(selector);
+    }
+
+    private FilterableMessage createMessage(final Map<String, Object> headers)
+    {
+        return new TestMessage(headers);
+    }
+
+    private static class TestMessage implements Filterable
+    {
+        private final Map<String, Object> _headers;
+
+        private TestMessage(final Map<String, Object> headers)
+        {
+            _headers = headers;
+        }
+
+        @Override
+        public AMQMessageHeader getMessageHeader()
+        {
+            return null;
+        }
+
+        @Override
+        public boolean isPersistent()
+        {
+            return _headers.containsKey("intProp");
+        }
+
+        @Override
+        public boolean isRedelivered()
+        {
+            return _headers.containsKey("strProp");
+        }
+
+        @Override
+        public Object getConnectionReference()
+        {
+            return null;
+        }
+
+        @Override
+        public long getMessageNumber()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getArrivalTime()
+        {
+            return 0;
+        }
+
+        @Override
+        public Object getHeader(final String name)
+        {
+            return _headers.get(name);
+        }
+
+        @Override
+        public String getReplyTo()
+        {
+            return null;
+        }
+
+        @Override
+        public String getType()
+        {
+            return _headers.isEmpty() ? null : "type";
+        }
+
+        @Override
+        public byte getPriority()
+        {
+            return (byte) _headers.size();
+        }
+
+        @Override
+        public String getMessageId()
+        {
+            return null;
+        }
+
+        @Override
+        public long getTimestamp()
+        {
+            return _headers.size() * 500L;
+        }
+
+        @Override
+        public String getCorrelationId()
+        {
+            return null;
+        }
+
+        @Override
+        public long getExpiration()
+        {
+            return 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "TestMessage" + _headers;
+        }
+    }
+}
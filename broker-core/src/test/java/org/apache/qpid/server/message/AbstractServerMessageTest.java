@@ -20,14 +20,21 @@
  */
 package org.apache.qpid.server.message;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.UUID;
 
+import org.apache.qpid.server.model.NamedAddressSpace;
+import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.store.StorableMessageMetaData;
 import org.apache.qpid.server.store.StoredMessage;
 import org.apache.qpid.server.store.TransactionLogResource;
+import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
 import org.apache.qpid.test.utils.QpidTestCase;
 
 public class AbstractServerMessageTest extends QpidTestCase
@@ -155,4 +162,109 @@ public class AbstractServerMessageTest extends QpidTestCase
         }
 
     }
+
+    public void testConvertedMessageNotCachedForSingleQueue()
+    {
+        final QueueManagingVirtualHost<?> virtualHost = mock(QueueManagingVirtualHost.class);
+        final MessageConverter<ServerMessage, ServerMessage> converter = mock(MessageConverter.class);
+        final ServerMessage converted1 = mock(ServerMessage.class);
+        final ServerMessage converted2 = mock(ServerMessage.class);
+        when(converter.convert(any(ServerMessage.class), any(NamedAddressSpace.class))).thenReturn(converted1, converted2);
+
+        TestMessage<StorableMessageMetaData> msg = new TestMessage<StorableMessageMetaData>(mock(StoredMessage.class),this);
+        MessageReference<TestMessage<StorableMessageMetaData>> q1ref = msg.newReference(createQueue("1"));
+
+        MessageReference<ServerMessage> ref1 = ConvertedMessageCache.convert(converter, msg, virtualHost);
+        MessageReference<ServerMessage> ref2 = ConvertedMessageCache.convert(converter, msg, virtualHost);
+        assertSame(converted1, ref1.getMessage());
+        assertSame(converted2, ref2.getMessage());
+
+        ref1.release();
+        verify(converter).dispose(converted1);
+        ref2.release();
+        verify(converter).dispose(converted2);
+        verify(virtualHost, times(2)).registerMessageConversion(false);
+
+        q1ref.release();
+    }
+
+    public void testConvertedMessageSharedBetweenQueues()
+    {
+        final QueueManagingVirtualHost<?> virtualHost = mock(QueueManagingVirtualHost.class);
+        final MessageConverter<ServerMessage, ServerMessage> converter = mock(MessageConverter.class);
+        final ServerMessage converted = mock(ServerMessage.class);
+        when(converter.convert(any(ServerMessage.class), any(NamedAddressSpace.class))).thenReturn(converted);
+
+        TestMessage<StorableMessageMetaData> msg = new TestMessage<StorableMessageMetaData>(mock(StoredMessage.class),this);
+        MessageReference<TestMessage<StorableMessageMetaData>> q1ref = msg.newReference(createQueue("1"));
+        MessageReference<TestMessage<StorableMessageMetaData>> q2ref = msg.newReference(createQueue("2"));
+
+        MessageReference<ServerMessage> ref1 = ConvertedMessageCache.convert(converter, msg, virtualHost);
+        MessageReference<ServerMessage> ref2 = ConvertedMessageCache.convert(converter, msg, virtualHost);
+        assertSame(converted, ref1.getMessage());
+        assertSame(converted, ref2.getMessage());
+        verify(converter, times(1)).convert(msg, virtualHost);
+        verify(virtualHost).registerMessageConversion(false);
+        verify(virtualHost).registerMessageConversion(true);
+
+        ref1.release();
+        ref1.release();
+        verify(converter, never()).dispose(converted);
+
+        ref2.release();
+        verify(converter).dispose(converted);
+
+        q1ref.release();
+        q2ref.release();
+    }
+
+    public void testConvertedMessageNotRetainedOnceReleased()
+    {
+        final QueueManagingVirtualHost<?> virtualHost = mock(QueueManagingVirtualHost.class);
+        final MessageConverter<ServerMessage, ServerMessage> converter = mock(MessageConverter.class);
+        final ServerMessage converted1 = mock(ServerMessage.class);
+        final ServerMessage converted2 = mock(ServerMessage.class);
+        when(converter.convert(any(ServerMessage.class), any(NamedAddressSpace.class))).thenReturn(converted1, converted2);
+
+        TestMessage<StorableMessageMetaData> msg = new TestMessage<StorableMessageMetaData>(mock(StoredMessage.class),this);
+        MessageReference<TestMessage<StorableMessageMetaData>> q1ref = msg.newReference(createQueue("1"));
+        MessageReference<TestMessage<StorableMessageMetaData>> q2ref = msg.newReference(createQueue("2"));
+
+        MessageReference<ServerMessage> ref1 = ConvertedMessageCache.convert(converter, msg, virtualHost);
+        assertEquals("Unexpected number of cached conversions", 1, msg.getConvertedMessageCache().size());
+
+        ref1.release();
+        verify(converter).dispose(converted1);
+        assertEquals("Released conversion was retained", 0, msg.getConvertedMessageCache().size());
+
+        MessageReference<ServerMessage> ref2 = ConvertedMessageCache.convert(converter, msg, virtualHost);
+        assertSame(converted2, ref2.getMessage());
+        verify(virtualHost, times(2)).registerMessageConversion(false);
+
+        ref2.release();
+        verify(converter).dispose(converted2);
+
+        q1ref.release();
+        q2ref.release();
+    }
+
+    public void testConvertedMessageInUseWhenMessageDeleted()
+    {
+        final NamedAddressSpace addressSpace = mock(NamedAddressSpace.class);
+        final MessageConverter<ServerMessage, ServerMessage> converter = mock(MessageConverter.class);
+        final ServerMessage converted = mock(ServerMessage.class);
+        when(converter.convert(any(ServerMessage.class), any(NamedAddressSpace.class))).thenReturn(converted);
+
+        TestMessage<StorableMessageMetaData> msg = new TestMessage<StorableMessageMetaData>(mock(StoredMessage.class),this);
+        MessageReference<TestMessage<StorableMessageMetaData>> q1ref = msg.newReference(createQueue("1"));
+        MessageReference<TestMessage<StorableMessageMetaData>> q2ref = msg.newReference(createQueue("2"));
+
+        MessageReference<ServerMessage> ref = ConvertedMessageCache.convert(converter, msg, addressSpace);
+        q1ref.release();
+        q2ref.release();
+        verify(converter, never()).dispose(converted);
+
+        ref.release();
+        verify(converter).dispose(converted);
+    }
 }
@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import javax.security.auth.Subject;
 
@@ -924,6 +925,26 @@ public class AbstractConfiguredObjectTest extends QpidTestCase
         assertTrue("Expected statistic not found", stats.containsKey("longStatistic"));
     }
 
+    public void testStatisticsReadThroughGeneratedAccessors() throws Exception
+    {
+        final Class<?> accessorsClass = Class.forName(TestSingleton.class.getName() + "Accessors");
+        final Map<String, Function<Object, Object>> accessors =
+                (Map<String, Function<Object, Object>>) accessorsClass.getMethod("getAccessors").invoke(null);
+        assertTrue("Accessor for statistic not generated", accessors.containsKey("getLongStatistic"));
+        assertTrue("Accessor for attribute not generated", accessors.containsKey("getStringValue"));
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(TestSingleton.NAME, "myName");
+        attributes.put(TestSingleton.STRING_VALUE, "myValue");
+        TestSingleton object = _model.getObjectFactory().create(TestSingleton.class, attributes, null);
+
+        assertEquals("Unexpected attribute value read through accessor",
+                     "myValue", accessors.get("getStringValue").apply(object));
+        final long before = System.currentTimeMillis();
+        final Object statistic = object.getStatistics().get("longStatistic");
+        assertTrue("Unexpected statistic value", statistic instanceof Long && (Long) statistic >= before);
+    }
+
     public void testAuditInformation() throws Exception
     {
         final String creatingUser = "creatingUser";
@@ -0,0 +1,111 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.security.AccessControlException;
+import java.util.Map;
+
+import org.apache.qpid.server.message.MessageDestination;
+import org.apache.qpid.server.security.SecurityToken;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class PublishAuthorisationCacheTest extends QpidTestCase
+{
+    private static final long TIMEOUT = 1000L;
+
+    private SecurityToken _token;
+    private MessageDestination _destination;
+    private PublishAuthorisationCache _cache;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _token = mock(SecurityToken.class);
+        _destination = mock(MessageDestination.class);
+        _cache = new PublishAuthorisationCache(_token, TIMEOUT, 2);
+    }
+
+    public void testCachedAuthorisationReusedUntilExpiry()
+    {
+        _cache.authorisePublish(_destination, "key", false, 0L);
+        _cache.authorisePublish(_destination, "key", false, TIMEOUT);
+        verify(_destination, times(1)).authorisePublish(eq(_token), any(Map.class));
+
+        _cache.authorisePublish(_destination, "key", false, TIMEOUT + 1);
+        verify(_destination, times(2)).authorisePublish(eq(_token), any(Map.class));
+
+        assertEquals("Unexpected hits", 1, _cache.getHits());
+        assertEquals("Unexpected misses", 2, _cache.getMisses());
+    }
+
+    public void testRoutingKeyAndImmediateCachedSeparately()
+    {
+        _cache.authorisePublish(_destination, "key", false, 0L);
+        _cache.authorisePublish(_destination, "key", true, 0L);
+        _cache.authorisePublish(_destination, null, false, 0L);
+        _cache.authorisePublish(_destination, "", false, 0L);
+
+        assertEquals("Unexpected hits", 0, _cache.getHits());
+        assertEquals("Unexpected misses", 4, _cache.getMisses());
+    }
+
+    public void testSizeBounded()
+    {
+        final MessageDestination destination2 = mock(MessageDestination.class);
+        _cache.authorisePublish(_destination, "key1", false, 0L);
+        _cache.authorisePublish(_destination, "key2", false, 0L);
+        _cache.authorisePublish(destination2, "key1", false, 0L);
+        assertEquals("Unexpected cache size", 2, _cache.getSize());
+
+        _cache.authorisePublish(destination2, "key1", false, 0L);
+        assertEquals("Newest entry should have been cached", 1, _cache.getHits());
+
+        _cache.authorisePublish(destination2, "key2", false, 2 * TIMEOUT);
+        assertEquals("Expired entries should have been purged", 1, _cache.getSize());
+    }
+
+    public void testFailedAuthorisationNotCached()
+    {
+        doThrow(new AccessControlException("denied")).when(_destination).authorisePublish(eq(_token), any(Map.class));
+        for (int i = 0; i < 2; i++)
+        {
+            try
+            {
+                _cache.authorisePublish(_destination, "key", false, 0L);
+                fail("Exception not thrown");
+            }
+            catch (AccessControlException e)
+            {
+                // pass
+            }
+        }
+        assertEquals("Unexpected misses", 2, _cache.getMisses());
+        assertEquals("Unexpected cache size", 0, _cache.getSize());
+    }
+}
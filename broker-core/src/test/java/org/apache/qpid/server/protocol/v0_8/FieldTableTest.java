@@ -21,6 +21,8 @@
 package org.apache.qpid.server.protocol.v0_8;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -931,6 +933,85 @@ public class FieldTableTest extends QpidTestCase
         assertTrue("unexpected property value", destinationTable.getBoolean(myBooleanTestProperty));
     }
 
+    public void testLookupOnEncodedTable()
+    {
+        FieldTable table = new FieldTable();
+        table.setBoolean("bool", true);
+        table.setByte("byte", Byte.MAX_VALUE);
+        table.setBytes("bytes", new byte[] { 0, 1, 2, 3 });
+        table.setChar("char", 'c');
+        table.setDouble("double", Double.MAX_VALUE);
+        table.setFloat("float", Float.MAX_VALUE);
+        table.setInteger("int", Integer.MAX_VALUE);
+        table.setLong("long", Long.MAX_VALUE);
+        table.setShort("short", Short.MAX_VALUE);
+        table.setString("string", "hello");
+        table.setDecimal(new AMQShortString("decimal"), new BigDecimal("12.345"));
+        table.setTimestamp(new AMQShortString("timestamp"), 1234567890L);
+        table.setVoid(new AMQShortString("void"));
+        table.setFieldArray("field-array", Arrays.asList("hello", Integer.valueOf(42)));
+        FieldTable innerTable = new FieldTable();
+        innerTable.setString("inner", "value");
+        table.setFieldTable("innerTable", innerTable);
+        byte[] data = table.getDataAsBytes();
+
+        FieldTable decodedTable = new FieldTable(QpidByteBuffer.wrap(data));
+        for (String key : table.keys())
+        {
+            FieldTable lookupTable = new FieldTable(QpidByteBuffer.wrap(data));
+            AMQShortString name = new AMQShortString(key);
+            assertValueEquals(key, decodedTable.getProperty(name), lookupTable.getProperty(name));
+            Assert.assertTrue("Expected property " + key, lookupTable.itemExists(key));
+        }
+
+        FieldTable lookupTable = new FieldTable(QpidByteBuffer.wrap(data));
+        Assert.assertNull(lookupTable.getObject("missing"));
+        Assert.assertFalse(lookupTable.itemExists("missing"));
+        Assert.assertEquals("value", lookupTable.getFieldTable("innerTable").getString("inner"));
+    }
+
+    public void testLookupOnEncodedTableWithDuplicateProperty()
+    {
+        FieldTable first = new FieldTable();
+        first.setString("dup", "first");
+        first.setInteger("other", 1);
+        FieldTable second = new FieldTable();
+        second.setString("dup", "second");
+        byte[] firstData = first.getDataAsBytes();
+        byte[] secondData = second.getDataAsBytes();
+        byte[] data = new byte[firstData.length + secondData.length];
+        System.arraycopy(firstData, 0, data, 0, firstData.length);
+        System.arraycopy(secondData, 0, data, firstData.length, secondData.length);
+
+        FieldTable lookupTable = new FieldTable(QpidByteBuffer.wrap(data));
+        Assert.assertEquals("second", lookupTable.getString("dup"));
+        Assert.assertEquals(Integer.valueOf(1), lookupTable.getInteger("other"));
+
+        FieldTable decodedTable = new FieldTable(QpidByteBuffer.wrap(data));
+        Assert.assertEquals(2, decodedTable.size());
+        Assert.assertEquals("second", decodedTable.getString("dup"));
+    }
+
+    private void assertValueEquals(String key, AMQTypedValue expected, AMQTypedValue actual)
+    {
+        Assert.assertNotNull("No value for " + key, actual);
+        Assert.assertEquals("Unexpected type for " + key, expected.getType(), actual.getType());
+        if (expected.getValue() instanceof byte[])
+        {
+            assertBytesEqual((byte[]) expected.getValue(), (byte[]) actual.getValue());
+        }
+        else if (expected.getValue() instanceof Collection)
+        {
+            Assert.assertEquals("Unexpected value for " + key,
+                                new ArrayList<>((Collection) expected.getValue()),
+                                new ArrayList<>((Collection) actual.getValue()));
+        }
+        else
+        {
+            Assert.assertEquals("Unexpected value for " + key, expected.getValue(), actual.getValue());
+        }
+    }
+
     private void assertBytesEqual(byte[] expected, byte[] actual)
     {
         Assert.assertEquals(expected.length, actual.length);
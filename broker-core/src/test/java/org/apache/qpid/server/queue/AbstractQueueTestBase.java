@@ -31,9 +31,11 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -1114,6 +1116,22 @@ abstract class AbstractQueueTestBase extends QpidTestCase
         assertEquals("Unexpected number of messages on target queue after test", 2, target.getQueueDepthMessages());
     }
 
+    public void testCopyMessagesWithDuplicateIds() throws Exception
+    {
+        Queue target = _virtualHost.createChild(Queue.class, Collections.singletonMap(Queue.NAME, getTestName() + "_target"));
+
+        _queue.enqueue(createMessage(1L), null, null);
+        _queue.enqueue(createMessage(2L), null, null);
+
+        List<Long> copied = _queue.copyMessages(target, Arrays.asList(2L, 2L, 1L, 2L), null, -1);
+
+        assertEquals("Unexpected number of copied messages", 2, copied.size());
+        assertEquals("Unexpected copied message ids",
+                     new HashSet<>(Arrays.asList(1L, 2L)), new HashSet<>(copied));
+        assertEquals("Unexpected number of messages on source queue after test", 2, _queue.getQueueDepthMessages());
+        assertEquals("Unexpected number of messages on target queue after test", 2, target.getQueueDepthMessages());
+    }
+
     private long getExpirationOnQueue(final Queue<?> queue, long arrivalTime, long expiration)
     {
         final List<QueueEntry> entries = new ArrayList<>();
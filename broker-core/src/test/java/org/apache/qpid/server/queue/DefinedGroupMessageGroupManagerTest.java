@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.MessageInstance.StealableConsumerAcquiredState;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.BrokerTestHelper;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.store.TransactionLogResource;
+import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class DefinedGroupMessageGroupManagerTest extends QpidTestCase
+{
+    private static final String DEFAULT_GROUP = "qpid.no-group";
+    private static final int GROUP_COUNT = 8;
+    private static final int MESSAGES_PER_GROUP = 200;
+    private static final int MESSAGE_COUNT = GROUP_COUNT * MESSAGES_PER_GROUP;
+    private static final int CONSUMER_COUNT = 4;
+    private static final int MAX_STEPS = 100 * MESSAGE_COUNT;
+
+    private StandardQueueEntryList _entries;
+    private DefinedGroupMessageGroupManager _groupManager;
+    private final Map<QueueConsumer<?,?>, AtomicReference<QueueEntry>> _releasedEntries = new HashMap<>();
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        final Map<String, Object> queueAttributes = new HashMap<>();
+        queueAttributes.put(Queue.ID, UUID.randomUUID());
+        queueAttributes.put(Queue.NAME, getName());
+        final QueueManagingVirtualHost virtualHost = BrokerTestHelper.createVirtualHost("testVH");
+        final StandardQueueImpl queue = new StandardQueueImpl(queueAttributes, virtualHost);
+        queue.open();
+        _entries = queue.getEntries();
+
+        _groupManager = new DefinedGroupMessageGroupManager(null, DEFAULT_GROUP, new TestConsumerResetHelper());
+    }
+
+    /**
+     * Interleaves the acquisitions and acknowledgements of competing consumers in an order chosen by a seeded
+     * random, so that the run is reproducible, and checks that each group is only ever held by one consumer at a
+     * time and is delivered in order.
+     */
+    public void testGroupsAreDeliveredExclusivelyAndInOrderToCompetingConsumers()
+    {
+        for (int i = 0; i < MESSAGE_COUNT; i++)
+        {
+            _entries.add(createServerMessage(i), null);
+        }
+
+        final List<QueueConsumer<?,?>> consumers = new ArrayList<>();
+        final Map<QueueConsumer<?,?>, List<QueueEntry>> acquired = new HashMap<>();
+        for (int i = 0; i < CONSUMER_COUNT; i++)
+        {
+            final QueueConsumer<?,?> consumer = createConsumer();
+            consumers.add(consumer);
+            acquired.put(consumer, new ArrayList<>());
+        }
+
+        final GroupTracker tracker = new GroupTracker();
+        final Random random = new Random(0);
+        int consumedCount = 0;
+        int steps = 0;
+        while (consumedCount < MESSAGE_COUNT)
+        {
+            assertTrue("Only " + consumedCount + " messages were consumed after " + MAX_STEPS + " steps",
+                       ++steps <= MAX_STEPS);
+
+            final QueueConsumer<?,?> consumer = consumers.get(random.nextInt(CONSUMER_COUNT));
+            final List<QueueEntry> held = acquired.get(consumer);
+            if (!held.isEmpty() && random.nextInt(3) == 0)
+            {
+                consumedCount += acknowledge(held, tracker);
+            }
+            else
+            {
+                acquireNext(consumer, held, tracker);
+            }
+        }
+
+        for (int group = 0; group < GROUP_COUNT; group++)
+        {
+            assertEquals("Unexpected number of messages consumed from group " + group,
+                         MESSAGES_PER_GROUP, tracker.getNextIndex(group));
+        }
+    }
+
+    private void acquireNext(final QueueConsumer<?,?> consumer,
+                             final List<QueueEntry> held,
+                             final GroupTracker tracker)
+    {
+        _releasedEntries.get(consumer).set(null);
+        final QueueEntryIterator iterator = _entries.iterator();
+        while (iterator.advance())
+        {
+            final QueueEntry entry = iterator.getNode();
+            if (entry.isAvailable()
+                && _groupManager.mightAssign(entry, consumer)
+                && _groupManager.acceptMessage(consumer, entry))
+            {
+                tracker.delivered(consumer, entry);
+                held.add(entry);
+                return;
+            }
+        }
+    }
+
+    private int acknowledge(final List<QueueEntry> held, final GroupTracker tracker)
+    {
+        final int count = held.size();
+        for (QueueEntry entry : held)
+        {
+            tracker.acknowledged(entry);
+            entry.delete();
+        }
+        held.clear();
+        return count;
+    }
+
+    private QueueConsumer<?,?> createConsumer()
+    {
+        final QueueConsumer consumer = mock(QueueConsumer.class);
+        when(consumer.getOwningState()).thenReturn(new StealableConsumerAcquiredState<>(consumer));
+        _releasedEntries.put(consumer, new AtomicReference<>());
+        return consumer;
+    }
+
+    private ServerMessage createServerMessage(final long number)
+    {
+        final ServerMessage message = mock(ServerMessage.class);
+        when(message.getMessageNumber()).thenReturn(number);
+        final MessageReference ref = mock(MessageReference.class);
+        when(ref.getMessage()).thenReturn(message);
+        when(message.newReference()).thenReturn(ref);
+        when(message.newReference(any(TransactionLogResource.class))).thenReturn(ref);
+        final AMQMessageHeader header = mock(AMQMessageHeader.class);
+        when(header.getGroupId()).thenReturn(String.valueOf(number % GROUP_COUNT));
+        when(message.getMessageHeader()).thenReturn(header);
+        return message;
+    }
+
+    private static int getGroup(final QueueEntry entry)
+    {
+        return (int) (entry.getMessage().getMessageNumber() % GROUP_COUNT);
+    }
+
+    private static int getIndexInGroup(final QueueEntry entry)
+    {
+        return (int) (entry.getMessage().getMessageNumber() / GROUP_COUNT);
+    }
+
+    /**
+     * Moves the consumers back to the given entry in the way the queue does, by recording it as the consumer's
+     * released entry.
+     */
+    private class TestConsumerResetHelper implements MessageGroupManager.ConsumerResetHelper
+    {
+        @Override
+        public void resetSubPointersForGroups(final QueueEntry entry)
+        {
+            for (AtomicReference<QueueEntry> releasedEntry : _releasedEntries.values())
+            {
+                final QueueEntry oldEntry = releasedEntry.get();
+                if (oldEntry == null || oldEntry.compareTo(entry) > 0)
+                {
+                    releasedEntry.set(entry);
+                }
+            }
+        }
+
+        @Override
+        public boolean isEntryAheadOfConsumer(final QueueEntry entry, final QueueConsumer<?,?> sub)
+        {
+            final QueueEntry releasedEntry = _releasedEntries.get(sub).get();
+            return releasedEntry != null && releasedEntry.compareTo(entry) < 0;
+        }
+    }
+
+    /**
+     * Records which consumer holds unacknowledged messages of each group and the next message expected from it.
+     */
+    private static class GroupTracker
+    {
+        private final Map<Integer, QueueConsumer<?,?>> _owners = new HashMap<>();
+        private final int[] _outstanding = new int[GROUP_COUNT];
+        private final int[] _nextIndex = new int[GROUP_COUNT];
+
+        void delivered(final QueueConsumer<?,?> consumer, final QueueEntry entry)
+        {
+            final int group = getGroup(entry);
+            final QueueConsumer<?,?> owner = _owners.get(group);
+            if (_outstanding[group] > 0)
+            {
+                assertSame("Group " + group + " delivered while held by another consumer", owner, consumer);
+            }
+            assertEquals("Unexpected message delivered from group " + group,
+                         _nextIndex[group], getIndexInGroup(entry));
+            _owners.put(group, consumer);
+            _outstanding[group]++;
+            _nextIndex[group]++;
+        }
+
+        void acknowledged(final QueueEntry entry)
+        {
+            _outstanding[getGroup(entry)]--;
+        }
+
+        int getNextIndex(final int group)
+        {
+            return _nextIndex[group];
+        }
+    }
+}
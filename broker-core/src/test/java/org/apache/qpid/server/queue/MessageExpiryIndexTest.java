@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.ArgumentCaptor;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class MessageExpiryIndexTest extends QpidTestCase
+{
+    private static final long START_TIME = 1500000000000L;
+
+    private MessageExpiryIndex _index;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _index = new MessageExpiryIndex(START_TIME);
+    }
+
+    public void testEntryWithoutExpirationIsIgnored()
+    {
+        _index.add(createEntry(0L));
+
+        assertEquals("Unexpected pending expirations", 0, _index.size());
+        assertEquals("Unexpected scheduled expirations", 0, _index.getScheduledCount());
+    }
+
+    public void testEntryIsReturnedOnceExpired()
+    {
+        final QueueEntryImpl entry = createEntry(START_TIME + 1000L);
+        _index.add(entry);
+        assertEquals("Unexpected pending expirations", 1, _index.size());
+
+        assertTrue("Entry returned before the tick of its expiration",
+                   _index.advance(START_TIME + 1000L - MessageExpiryIndex.TICK_MILLIS).isEmpty());
+        assertEquals("Unexpected entries", Collections.singletonList(entry), _index.advance(START_TIME + 1000L));
+        assertTrue("Entry returned twice", _index.advance(START_TIME + 2000L).isEmpty());
+
+        assertEquals("Unexpected pending expirations", 0, _index.size());
+        assertEquals("Unexpected scheduled expirations", 1, _index.getScheduledCount());
+        assertEquals("Unexpected fired expirations", 1, _index.getFiredCount());
+    }
+
+    public void testEntryAlreadyExpiredIsReturnedOnNextAdvance()
+    {
+        final QueueEntryImpl entry = createEntry(START_TIME - 1000L);
+        _index.add(entry);
+
+        assertEquals("Unexpected entries", Collections.singletonList(entry), _index.advance(START_TIME));
+    }
+
+    public void testEntriesAreCascadedFromHigherLevels()
+    {
+        final long[] ttls = {TimeUnit.SECONDS.toMillis(10),
+                             TimeUnit.MINUTES.toMillis(5),
+                             TimeUnit.HOURS.toMillis(3),
+                             TimeUnit.DAYS.toMillis(2),
+                             TimeUnit.DAYS.toMillis(100)};
+        final QueueEntryImpl[] entries = new QueueEntryImpl[ttls.length];
+        for (int i = ttls.length - 1; i >= 0; i--)
+        {
+            entries[i] = createEntry(START_TIME + ttls[i]);
+            _index.add(entries[i]);
+        }
+
+        long lastTime = START_TIME;
+        for (int i = 0; i < ttls.length; i++)
+        {
+            final long expiration = START_TIME + ttls[i];
+            // advance in steps coarser than a tick, but not beyond the expiration
+            final long step = Math.max(TimeUnit.MINUTES.toMillis(1), (expiration - lastTime) / 100);
+            for (long time = lastTime; time < expiration; time += step)
+            {
+                assertTrue("Entry " + i + " returned before its expiration", _index.advance(time).isEmpty());
+            }
+
+            final List<QueueEntryImpl> expired = _index.advance(expiration);
+            assertEquals("Unexpected entries at expiration of entry " + i,
+                         Collections.singletonList(entries[i]), expired);
+            lastTime = expiration + MessageExpiryIndex.TICK_MILLIS;
+        }
+
+        assertEquals("Unexpected pending expirations", 0, _index.size());
+        assertEquals("Unexpected fired expirations", ttls.length, _index.getFiredCount());
+    }
+
+    public void testRetriedEntryIsNotCountedAgain()
+    {
+        final QueueEntryImpl entry = createEntry(START_TIME + 1000L);
+        _index.add(entry);
+        assertEquals("Unexpected entries", Collections.singletonList(entry), _index.advance(START_TIME + 1000L));
+
+        _index.retry(entry);
+        assertEquals("Unexpected pending expirations", 1, _index.size());
+        assertEquals("Unexpected entries", Collections.singletonList(entry), _index.advance(START_TIME + 1100L));
+
+        assertEquals("Retried entry counted as scheduled again", 1, _index.getScheduledCount());
+        assertEquals("Unexpected fired expirations", 2, _index.getFiredCount());
+    }
+
+    public void testRemovedEntryIsNotReturned()
+    {
+        final QueueEntryImpl entry = createEntry(START_TIME + 1000L);
+        _index.add(entry);
+
+        final ArgumentCaptor<MessageExpiryIndex.Node> nodeCaptor = ArgumentCaptor.forClass(MessageExpiryIndex.Node.class);
+        verify(entry).setExpiryNode(nodeCaptor.capture());
+        nodeCaptor.getValue().remove();
+
+        assertEquals("Unexpected pending expirations", 0, _index.size());
+        assertTrue("Removed entry returned", _index.advance(START_TIME + 2000L).isEmpty());
+        assertEquals("Unexpected fired expirations", 0, _index.getFiredCount());
+    }
+
+    public void testEntryDeletedBeforeAddIsNotScheduled()
+    {
+        final QueueEntryImpl entry = createEntry(START_TIME + 1000L);
+        when(entry.isDeleted()).thenReturn(true);
+        _index.add(entry);
+
+        assertEquals("Unexpected pending expirations", 0, _index.size());
+        assertTrue("Deleted entry returned", _index.advance(START_TIME + 2000L).isEmpty());
+    }
+
+    private QueueEntryImpl createEntry(final long expiration)
+    {
+        final QueueEntryImpl entry = mock(QueueEntryImpl.class);
+        when(entry.getExpiration()).thenReturn(expiration);
+        return entry;
+    }
+}
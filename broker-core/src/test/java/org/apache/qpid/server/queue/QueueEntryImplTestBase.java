@@ -23,6 +23,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,6 +35,8 @@ import java.util.UUID;
 
 import org.apache.qpid.server.configuration.updater.CurrentThreadTaskExecutor;
 import org.apache.qpid.server.configuration.updater.TaskExecutor;
+import org.apache.qpid.server.filter.Filterable;
+import org.apache.qpid.server.filter.MessageFilter;
 import org.apache.qpid.server.logging.EventLogger;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstance.EntryState;
@@ -118,6 +121,27 @@ public abstract class QueueEntryImplTestBase extends QpidTestCase
                 _queueEntry.isDeleted());
     }
 
+    public void testSharedFilterResultIsRemembered()
+    {
+        final MessageFilter matchingFilter = mock(MessageFilter.class);
+        when(matchingFilter.matches(any(Filterable.class))).thenReturn(true);
+        final MessageFilter nonMatchingFilter = mock(MessageFilter.class);
+
+        assertTrue("Unexpected result", _queueEntry.matchesSharedFilter(matchingFilter, 0));
+        assertTrue("Unexpected remembered result", _queueEntry.matchesSharedFilter(matchingFilter, 0));
+        assertFalse("Unexpected result", _queueEntry.matchesSharedFilter(nonMatchingFilter, 1));
+        assertFalse("Unexpected remembered result", _queueEntry.matchesSharedFilter(nonMatchingFilter, 1));
+        assertTrue("Unexpected result for last id",
+                   _queueEntry.matchesSharedFilter(matchingFilter, QueueEntry.MAX_SHARED_FILTERS - 1));
+
+        verify(matchingFilter, times(2)).matches(any(Filterable.class));
+        verify(nonMatchingFilter, times(1)).matches(any(Filterable.class));
+
+        _queueEntry.setRedelivered();
+        assertTrue("Unexpected result after redelivery", _queueEntry.matchesSharedFilter(matchingFilter, 0));
+        verify(matchingFilter, times(3)).matches(any(Filterable.class));
+    }
+
     /**
      * A helper method to put tested object into deleted state and assert the state
      */
@@ -242,4 +242,23 @@ public abstract class QueueEntryListTestBase extends QpidTestCase
         assertTrue("Iterator should have been 'atTail'", iter.atTail());
         assertFalse("Iterator should not have been able to advance", iter.advance());
     }
+
+    public void testGetEntryByMessageId() throws Exception
+    {
+        QueueEntryList list = getTestList(true);
+
+        QueueEntry queueEntry1 = list.add(createServerMessage(100), null);
+        QueueEntry queueEntry2 = list.add(createServerMessage(101), null);
+
+        assertSame("Unexpected entry for existing message", queueEntry1, list.getEntryByMessageId(100));
+        assertNull("Unexpected entry for unknown message", list.getEntryByMessageId(200));
+
+        QueueEntry queueEntry3 = list.add(createServerMessage(102), null);
+        assertSame("Unexpected entry for message added after lookup", queueEntry3, list.getEntryByMessageId(102));
+
+        queueEntry2.acquire();
+        queueEntry2.delete();
+        assertNull("Unexpected entry for deleted message", list.getEntryByMessageId(101));
+        assertSame("Unexpected entry for remaining message", queueEntry1, list.getEntryByMessageId(100));
+    }
 }
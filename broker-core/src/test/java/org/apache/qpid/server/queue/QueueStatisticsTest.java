@@ -0,0 +1,122 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class QueueStatisticsTest extends QpidTestCase
+{
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 10000;
+    private static final long MESSAGE_SIZE = 10;
+
+    private QueueStatistics _statistics;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _statistics = new QueueStatistics();
+    }
+
+    public void testQueueDepthAndHighWatermark()
+    {
+        _statistics.addToQueue(MESSAGE_SIZE);
+        _statistics.addToQueue(MESSAGE_SIZE * 2);
+        _statistics.removeFromQueue(MESSAGE_SIZE);
+        _statistics.addToQueue(MESSAGE_SIZE);
+
+        assertEquals("Unexpected queue count", 2, _statistics.getQueueCount());
+        assertEquals("Unexpected queue size", MESSAGE_SIZE * 3, _statistics.getQueueSize());
+        assertEquals("Unexpected queue count high watermark", 2, _statistics.getQueueCountHwm());
+        assertEquals("Unexpected queue size high watermark", MESSAGE_SIZE * 3, _statistics.getQueueSizeHwm());
+
+        _statistics.removeFromQueue(MESSAGE_SIZE);
+        _statistics.removeFromQueue(MESSAGE_SIZE * 2);
+        assertEquals("Unexpected queue count", 0, _statistics.getQueueCount());
+        assertEquals("Unexpected queue size", 0, _statistics.getQueueSize());
+        assertEquals("High watermark should not decrease", 2, _statistics.getQueueCountHwm());
+    }
+
+    public void testConcurrentUpdates() throws Exception
+    {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try
+        {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++)
+            {
+                futures.add(executor.submit(() ->
+                                            {
+                                                start.await();
+                                                for (int j = 0; j < OPERATIONS; j++)
+                                                {
+                                                    _statistics.addToQueue(MESSAGE_SIZE);
+                                                    _statistics.addToAvailable(MESSAGE_SIZE);
+                                                    _statistics.addToEnqueued(MESSAGE_SIZE);
+                                                    _statistics.removeFromAvailable(MESSAGE_SIZE);
+                                                    _statistics.addToUnacknowledged(MESSAGE_SIZE);
+                                                    _statistics.removeFromUnacknowledged(MESSAGE_SIZE);
+                                                    _statistics.removeFromQueue(MESSAGE_SIZE);
+                                                    _statistics.addToDequeued(MESSAGE_SIZE);
+                                                }
+                                                return null;
+                                            }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+            {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        final long operations = (long) THREADS * OPERATIONS;
+        assertEquals("Unexpected queue count", 0, _statistics.getQueueCount());
+        assertEquals("Unexpected queue size", 0, _statistics.getQueueSize());
+        assertEquals("Unexpected available count", 0, _statistics.getAvailableCount());
+        assertEquals("Unexpected unacknowledged count", 0, _statistics.getUnackedCount());
+        assertEquals("Unexpected unacknowledged size", 0, _statistics.getUnackedSize());
+        assertEquals("Unexpected enqueue count", operations, _statistics.getEnqueueCount());
+        assertEquals("Unexpected enqueue size", operations * MESSAGE_SIZE, _statistics.getEnqueueSize());
+        assertEquals("Unexpected dequeue count", operations, _statistics.getDequeueCount());
+        assertEquals("Unexpected dequeue size", operations * MESSAGE_SIZE, _statistics.getDequeueSize());
+
+        final int queueCountHwm = _statistics.getQueueCountHwm();
+        assertTrue("Unexpected queue count high watermark " + queueCountHwm,
+                   queueCountHwm >= 1 && queueCountHwm <= THREADS);
+        final long queueSizeHwm = _statistics.getQueueSizeHwm();
+        assertTrue("Unexpected queue size high watermark " + queueSizeHwm,
+                   queueSizeHwm >= MESSAGE_SIZE && queueSizeHwm <= THREADS * MESSAGE_SIZE);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.Iterator;
+
+import org.apache.qpid.server.filter.FilterManager;
+import org.apache.qpid.server.filter.JMSSelectorFilter;
+import org.apache.qpid.server.filter.MessageFilter;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class SharedFilterRegistryTest extends QpidTestCase
+{
+    private static final String SELECTOR_NAME = "x-filter-jms-selector";
+
+    private SharedFilterRegistry _registry;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _registry = new SharedFilterRegistry();
+    }
+
+    public void testConsumersWithSameSelectorShareFilter() throws Exception
+    {
+        final FilterManager filters1 = createFilters("a = 1");
+        final FilterManager filters2 = createFilters(" a = 1 ");
+        final FilterManager filters3 = createFilters("a = 2");
+
+        _registry.register(filters1);
+        _registry.register(filters2);
+        _registry.register(filters3);
+
+        final MessageFilter filter1 = getSelectorFilter(filters1);
+        final MessageFilter filter2 = getSelectorFilter(filters2);
+        final MessageFilter filter3 = getSelectorFilter(filters3);
+        assertSame("Filter should be shared", filter1, filter2);
+        assertNotSame("Filter should not be shared", filter1, filter3);
+        assertEquals("Unexpected number of shared filters", 2, _registry.getSharedFilterCount());
+
+        assertEquals("Unexpected id", 0, _registry.getId(filter1));
+        assertEquals("Unexpected id", 1, _registry.getId(filter3));
+    }
+
+    public void testFiltersOtherThanSelectorsAreNotShared() throws Exception
+    {
+        final MessageFilter otherFilter = mock(MessageFilter.class);
+        final FilterManager filters = createFilters("a = 1");
+        filters.add("other", otherFilter);
+
+        _registry.register(filters);
+
+        assertTrue("Unexpected filter", filters.hasFilter(otherFilter));
+        assertEquals("Unexpected id", SharedFilterRegistry.NO_ID, _registry.getId(otherFilter));
+        assertEquals("Unexpected id", 0, _registry.getId(getSelectorFilter(filters)));
+    }
+
+    public void testUnregisteredFilterHasNoId() throws Exception
+    {
+        final FilterManager filters = createFilters("a = 1");
+        _registry.register(filters);
+
+        assertEquals("Unexpected id",
+                     SharedFilterRegistry.NO_ID,
+                     _registry.getId(new JMSSelectorFilter("a = 1")));
+    }
+
+    public void testIdsAreLimitedAndNotReused() throws Exception
+    {
+        for (int i = 0; i < QueueEntry.MAX_SHARED_FILTERS; i++)
+        {
+            final FilterManager filters = createFilters("a = " + i);
+            _registry.register(filters);
+            assertEquals("Unexpected id", i, _registry.getId(getSelectorFilter(filters)));
+            _registry.release(filters);
+        }
+
+        final FilterManager filters = createFilters("b = 1");
+        _registry.register(filters);
+        final MessageFilter filter = getSelectorFilter(filters);
+        assertEquals("Unexpected id once all ids are used", SharedFilterRegistry.NO_ID, _registry.getId(filter));
+        assertEquals("Filters with ids should be retained",
+                     QueueEntry.MAX_SHARED_FILTERS + 1,
+                     _registry.getSharedFilterCount());
+
+        _registry.release(filters);
+        assertEquals("Filter without id should be released",
+                     QueueEntry.MAX_SHARED_FILTERS,
+                     _registry.getSharedFilterCount());
+
+        final FilterManager sameSelector = createFilters("a = 0");
+        _registry.register(sameSelector);
+        assertEquals("Selector should keep its id", 0, _registry.getId(getSelectorFilter(sameSelector)));
+    }
+
+    private FilterManager createFilters(final String selector) throws Exception
+    {
+        final FilterManager filters = new FilterManager();
+        filters.add(SELECTOR_NAME, new JMSSelectorFilter(selector));
+        return filters;
+    }
+
+    private MessageFilter getSelectorFilter(final FilterManager filters)
+    {
+        final Iterator<MessageFilter> iterator = filters.filters();
+        while (iterator.hasNext())
+        {
+            final MessageFilter filter = iterator.next();
+            if (filter instanceof JMSSelectorFilter)
+            {
+                return filter;
+            }
+        }
+        fail("No selector filter found");
+        return null;
+    }
+}
@@ -24,11 +24,15 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -429,6 +433,101 @@ public class JsonFileConfigStoreTest extends QpidTestCase
     }
 
 
+    public void testCreateUpdateAndRemoveObjectsWithJournal() throws Exception
+    {
+        when(_parent.getContextValue(Boolean.class, JsonFileConfigStore.JOURNAL_ENABLED)).thenReturn(true);
+        File configFile = new File(_storeLocation, _parent.getName() + ".json");
+        File journalFile = new File(_storeLocation, _parent.getName() + ".json.journal");
+
+        _store.init(_parent);
+        _store.openConfigurationStore(mock(ConfiguredObjectRecordHandler.class));
+        createRootRecord();
+
+        final UUID queueId = new UUID(0, 1);
+        final UUID queue2Id = new UUID(0, 2);
+        Map<String, Object> queueAttr = Collections.<String, Object>singletonMap(ConfiguredObject.NAME, "q1");
+        final Map<String, Object> queue2Attr = Collections.<String, Object>singletonMap(ConfiguredObject.NAME, "q2");
+        _store.create(new ConfiguredObjectRecordImpl(queueId, "Queue", queueAttr, getRootAsParentMap()));
+        final ConfiguredObjectRecordImpl queue2Record =
+                new ConfiguredObjectRecordImpl(queue2Id, "Queue", queue2Attr, getRootAsParentMap());
+        _store.create(queue2Record);
+
+        queueAttr = new HashMap<>(queueAttr);
+        queueAttr.put("owner", "theowner");
+        _store.update(false, new ConfiguredObjectRecordImpl(queueId, "Queue", queueAttr, getRootAsParentMap()));
+        _store.remove(queue2Record);
+
+        assertTrue("Journal should exist", journalFile.exists());
+        assertFalse("Configuration file should not yet hold the queue",
+                    new String(Files.readAllBytes(configFile.toPath()), StandardCharsets.UTF_8).contains("q1"));
+
+        _store.closeConfigurationStore();
+        assertFalse("Journal should be compacted on close", journalFile.exists());
+
+        _store.init(_parent);
+        _store.openConfigurationStore(_handler);
+        verify(_handler).handle(matchesRecord(queueId, "Queue", queueAttr));
+        verify(_handler, never()).handle(matchesRecord(queue2Id, "Queue", queue2Attr));
+        verify(_handler).handle(matchesRecord(ANY_UUID, VIRTUAL_HOST_TYPE, ANY_MAP));
+        _store.closeConfigurationStore();
+    }
+
+    public void testJournalReplayedOnOpen() throws Exception
+    {
+        when(_parent.getContextValue(Boolean.class, JsonFileConfigStore.JOURNAL_ENABLED)).thenReturn(true);
+        File configFile = new File(_storeLocation, _parent.getName() + ".json");
+        File journalFile = new File(_storeLocation, _parent.getName() + ".json.journal");
+
+        _store.init(_parent);
+        _store.openConfigurationStore(mock(ConfiguredObjectRecordHandler.class));
+        createRootRecord();
+        _store.closeConfigurationStore();
+
+        _store.init(_parent);
+        _store.openConfigurationStore(mock(ConfiguredObjectRecordHandler.class));
+        final UUID queueId = new UUID(0, 1);
+        final Map<String, Object> queueAttr = Collections.<String, Object>singletonMap(ConfiguredObject.NAME, "q1");
+        _store.create(new ConfiguredObjectRecordImpl(queueId, "Queue", queueAttr, getRootAsParentMap()));
+
+        // simulate a crash part way through appending a further change
+        final byte[] snapshot = Files.readAllBytes(configFile.toPath());
+        final byte[] journal = Files.readAllBytes(journalFile.toPath());
+        _store.closeConfigurationStore();
+        Files.write(configFile.toPath(), snapshot);
+        Files.write(journalFile.toPath(), journal);
+        Files.write(journalFile.toPath(),
+                    "{\"updated\":[{\"id\":\"".getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.APPEND);
+
+        _store.init(_parent);
+        _store.openConfigurationStore(_handler);
+        verify(_handler).handle(matchesRecord(queueId, "Queue", queueAttr));
+        verify(_handler).handle(matchesRecord(ANY_UUID, VIRTUAL_HOST_TYPE, ANY_MAP));
+        assertFalse("Journal should be compacted once replayed", journalFile.exists());
+        assertTrue("Configuration file should hold the replayed queue",
+                   new String(Files.readAllBytes(configFile.toPath()), StandardCharsets.UTF_8).contains("q1"));
+        _store.closeConfigurationStore();
+    }
+
+    public void testJournalCompactedWhenThresholdReached() throws Exception
+    {
+        when(_parent.getContextValue(Boolean.class, JsonFileConfigStore.JOURNAL_ENABLED)).thenReturn(true);
+        when(_parent.getContextValue(Integer.class, JsonFileConfigStore.JOURNAL_COMPACTION_THRESHOLD)).thenReturn(2);
+        File journalFile = new File(_storeLocation, _parent.getName() + ".json.journal");
+
+        _store.init(_parent);
+        _store.openConfigurationStore(mock(ConfiguredObjectRecordHandler.class));
+        createRootRecord();
+        assertTrue("Journal should exist", journalFile.exists());
+
+        _store.create(new ConfiguredObjectRecordImpl(new UUID(0, 1),
+                                                     "Queue",
+                                                     Collections.<String, Object>singletonMap(ConfiguredObject.NAME, "q1"),
+                                                     getRootAsParentMap()));
+        assertFalse("Journal should have been compacted", journalFile.exists());
+        _store.closeConfigurationStore();
+    }
+
     private void createRootRecord()
     {
         UUID rootRecordId = UUID.randomUUID();
@@ -32,8 +32,10 @@ import static org.mockito.Mockito.when;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import org.hamcrest.Description;
 import org.mockito.ArgumentMatcher;
 
@@ -366,6 +368,37 @@ public abstract class MessageStoreTestCase extends QpidTestCase
         assertTrue("Message with id " + messageId3 + " is not found", enqueuedIds.contains(messageId3));
     }
 
+    public void testDequeueFollowedByEnqueueOfSameMessage() throws Exception
+    {
+        final UUID mockQueueId = UUIDGenerator.generateRandomUUID();
+        TransactionLogResource mockQueue = createTransactionLogResource(mockQueueId);
+
+        long messageId = 40L;
+        final EnqueueableMessage enqueueableMessage = createEnqueueableMessage(messageId);
+
+        Transaction txn = getStore().newTransaction();
+        final MessageEnqueueRecord enqueueRecord = txn.enqueueMessage(mockQueue, enqueueableMessage);
+        txn.commitTran();
+
+        txn = getStore().newTransaction();
+        txn.dequeueMessage(enqueueRecord);
+        final ListenableFuture<Void> dequeued = txn.commitTranAsync((Void) null);
+
+        txn = getStore().newTransaction();
+        txn.enqueueMessage(mockQueue, enqueueableMessage);
+        final ListenableFuture<Void> enqueued = txn.commitTranAsync((Void) null);
+
+        dequeued.get(10, TimeUnit.SECONDS);
+        enqueued.get(10, TimeUnit.SECONDS);
+
+        QueueFilteringMessageInstanceHandler filter = new QueueFilteringMessageInstanceHandler(mockQueueId);
+        _storeReader.visitMessageInstances(filter);
+        Set<Long> enqueuedIds = filter.getEnqueuedIds();
+
+        assertEquals("Number of enqueued messages is incorrect", 1, enqueuedIds.size());
+        assertTrue("Message with id " + messageId + " is not found", enqueuedIds.contains(messageId));
+    }
+
     public void testAddAndRemoveMessageWithoutContent() throws Exception
     {
         long messageId = 1;
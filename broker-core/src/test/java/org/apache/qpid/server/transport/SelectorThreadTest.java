@@ -0,0 +1,181 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class SelectorThreadTest extends QpidTestCase
+{
+    private static final int NUMBER_OF_SELECTORS = 3;
+
+    private SelectorThread _selectorThread;
+    private final List<NonBlockingConnection> _connections = new ArrayList<>();
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        final NetworkConnectionScheduler scheduler = new NetworkConnectionScheduler("test", NUMBER_OF_SELECTORS, 4, 1);
+        _selectorThread = new SelectorThread(scheduler, NUMBER_OF_SELECTORS);
+    }
+
+    @Override
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            final Set<SelectorThread.SelectionTask> selectionTasks = new HashSet<>();
+            for (NonBlockingConnection connection : _connections)
+            {
+                connection.getSocketChannel().close();
+                selectionTasks.add(connection.getSelectionTask());
+            }
+            for (SelectorThread.SelectionTask selectionTask : selectionTasks)
+            {
+                selectionTask.getSelector().close();
+            }
+            _selectorThread.close();
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    public void testConnectionsBalancedAcrossSelectors() throws Exception
+    {
+        for (int i = 0; i < NUMBER_OF_SELECTORS * 2; i++)
+        {
+            _selectorThread.addConnection(createConnection());
+        }
+
+        assertConnectionCounts(2, 2, 2);
+    }
+
+    public void testConnectionAssignedToLeastLoadedSelector() throws Exception
+    {
+        for (int i = 0; i < NUMBER_OF_SELECTORS * 2; i++)
+        {
+            _selectorThread.addConnection(createConnection());
+        }
+        final NonBlockingConnection removed = _connections.get(1);
+        final SelectorThread.SelectionTask selectionTask = removed.getSelectionTask();
+        _selectorThread.removeConnection(removed);
+        _selectorThread.removeConnection(removed);
+
+        assertConnectionCounts(2, 2, 1);
+        assertEquals("Unexpected number of connections on the most loaded selector",
+                     2, _selectorThread.getMaxSelectorConnectionCount());
+
+        final NonBlockingConnection added = createConnection();
+        _selectorThread.addConnection(added);
+        assertSame("Connection not assigned to least loaded selector", selectionTask, added.getSelectionTask());
+        assertConnectionCounts(2, 2, 2);
+    }
+
+    public void testSelectorAffinityRetainedWhenConnectionReturned() throws Exception
+    {
+        final NonBlockingConnection connection = createConnection();
+        _selectorThread.addConnection(connection);
+        final SelectorThread.SelectionTask selectionTask = connection.getSelectionTask();
+
+        for (int i = 0; i < NUMBER_OF_SELECTORS; i++)
+        {
+            _selectorThread.addConnection(connection);
+            assertSame("Connection moved to another selector", selectionTask, connection.getSelectionTask());
+        }
+        assertConnectionCounts(1, 0, 0);
+    }
+
+    private void assertConnectionCounts(final Integer... expected)
+    {
+        final Set<SelectorThread.SelectionTask> selectionTasks = new HashSet<>();
+        for (NonBlockingConnection connection : _connections)
+        {
+            if (connection.getSelectionTask() != null)
+            {
+                selectionTasks.add(connection.getSelectionTask());
+            }
+        }
+        final List<Integer> counts = new ArrayList<>();
+        for (SelectorThread.SelectionTask selectionTask : selectionTasks)
+        {
+            counts.add(selectionTask.getConnectionCount());
+        }
+        while (counts.size() < NUMBER_OF_SELECTORS)
+        {
+            counts.add(0);
+        }
+        counts.sort(null);
+        final List<Integer> expectedCounts = new ArrayList<>();
+        for (Integer count : expected)
+        {
+            expectedCounts.add(count);
+        }
+        expectedCounts.sort(null);
+        assertEquals("Unexpected connections per selector", expectedCounts, counts);
+    }
+
+    private NonBlockingConnection createConnection() throws IOException
+    {
+        final SocketChannel socketChannel = SocketChannel.open();
+        socketChannel.configureBlocking(false);
+
+        final NonBlockingConnection connection = mock(NonBlockingConnection.class);
+        final SelectorThread.SelectionTask[] selectionTask = new SelectorThread.SelectionTask[1];
+        doAnswer(new Answer<Void>()
+        {
+            @Override
+            public Void answer(final InvocationOnMock invocation)
+            {
+                selectionTask[0] = (SelectorThread.SelectionTask) invocation.getArguments()[0];
+                return null;
+            }
+        }).when(connection).setSelectionTask(any(SelectorThread.SelectionTask.class));
+        when(connection.getSelectionTask()).thenAnswer(new Answer<SelectorThread.SelectionTask>()
+        {
+            @Override
+            public SelectorThread.SelectionTask answer(final InvocationOnMock invocation)
+            {
+                return selectionTask[0];
+            }
+        });
+        when(connection.getSocketChannel()).thenReturn(socketChannel);
+        when(connection.wantsRead()).thenReturn(true);
+        _connections.add(connection);
+        return connection;
+    }
+}
@@ -54,6 +54,7 @@ import org.apache.qpid.test.utils.QpidTestCase;
 public class TCPandSSLTransportTest extends QpidTestCase
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(TCPandSSLTransportTest.class);
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 10000;
 
     public void testNoSSLv3SupportOnSSLOnlyPort() throws Exception
     {
@@ -126,12 +127,74 @@ public class TCPandSSLTransportTest extends QpidTestCase
 
 
 
+    public void testTlsHandshakeWithHandshakeThreadsOnSSLOnlyPort() throws Exception
+    {
+        checkTlsHandshakeWithHandshakeThreads(Transport.SSL);
+    }
+
+
+    public void testTlsHandshakeWithHandshakeThreadsOnSharedPort() throws Exception
+    {
+        checkTlsHandshakeWithHandshakeThreads(Transport.TCP, Transport.SSL);
+    }
+
+
+
     private void checkSSLExcluded(String clientProtocol, final Transport... transports) throws Exception
+    {
+        final KeyStore keyStore = createKeyStore();
+        final TCPandSSLTransport transport = createTransport(keyStore, 0, transports);
+
+        try (SSLSocket sslSocket = createClientSocket(keyStore, transport))
+        {
+
+            sslSocket.setEnabledProtocols(new String[]{clientProtocol});
+            sslSocket.startHandshake();
+        }
+        finally
+        {
+            transport.close();
+        }
+    }
+
+    private void checkTlsHandshakeWithHandshakeThreads(final Transport... transports) throws Exception
+    {
+        final KeyStore keyStore = createKeyStore();
+        final TCPandSSLTransport transport = createTransport(keyStore, 1, transports);
+
+        try (SSLSocket sslSocket = createClientSocket(keyStore, transport))
+        {
+            // the handshake stalls if the connection is not processed again once the handshake tasks complete
+            sslSocket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            sslSocket.setEnabledProtocols(new String[]{"TLSv1.2"});
+            sslSocket.startHandshake();
+
+            assertTrue("Session not established", sslSocket.getSession().isValid());
+
+            assertEquals("Unexpected number of completed handshakes", 1L, transport.getTlsHandshakesCompleted());
+            assertTrue("Handshake tasks were not run on the handshake threads",
+                       transport.getTlsHandshakeTaskBatchesRun() > 0L);
+            assertEquals("Handshake tasks were run on the IO threads",
+                         0L, transport.getTlsHandshakeTasksRunOnIoThreads());
+            assertTrue("Handshake bytes written were not counted", transport.getBytesWritten() > 0L);
+        }
+        finally
+        {
+            transport.close();
+        }
+    }
+
+    private KeyStore createKeyStore() throws Exception
     {
         KeyStore keyStore = KeyStore.getInstance("JKS");
         keyStore.load(new ByteArrayInputStream(DatatypeConverter.parseBase64Binary(keystoreString)), "password".toCharArray());
+        return keyStore;
+    }
 
-
+    private TCPandSSLTransport createTransport(final KeyStore keyStore,
+                                               final int tlsHandshakeThreadPoolSize,
+                                               final Transport... transports) throws Exception
+    {
         final SSLContext sslContext = SSLContext.getInstance("TLS");
         KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
         kmf.init(keyStore, "password".toCharArray());
@@ -150,6 +213,8 @@ public class TCPandSSLTransportTest extends QpidTestCase
         when(port.getSSLContext()).thenReturn(sslContext);
         when(port.getContextValue(Long.class, AmqpPort.PORT_AMQP_THREAD_POOL_KEEP_ALIVE_TIMEOUT)).thenReturn(1L);
         when(port.getContextValue(Integer.class, AmqpPort.PORT_AMQP_ACCEPT_BACKLOG)).thenReturn(AmqpPort.DEFAULT_PORT_AMQP_ACCEPT_BACKLOG);
+        when(port.getContextValue(Integer.class, AmqpPort.TLS_HANDSHAKE_THREAD_POOL_SIZE)).thenReturn(tlsHandshakeThreadPoolSize);
+        when(port.getContextValue(Integer.class, AmqpPort.TLS_HANDSHAKE_QUEUE_SIZE)).thenReturn(AmqpPort.DEFAULT_TLS_HANDSHAKE_QUEUE_SIZE);
         when(port.getProtocolHandshakeTimeout()).thenReturn(AmqpPort.DEFAULT_PROTOCOL_HANDSHAKE_TIMEOUT);
         ObjectMapper mapper = new ObjectMapper();
         JavaType type = mapper.getTypeFactory().constructCollectionType(List.class, String.class);
@@ -171,24 +236,19 @@ public class TCPandSSLTransportTest extends QpidTestCase
                                                               Protocol.AMQP_0_9_1);
 
         transport.start();
+        return transport;
+    }
+
+    private SSLSocket createClientSocket(final KeyStore keyStore, final TCPandSSLTransport transport) throws Exception
+    {
         SSLContext clientContext = SSLContext.getInstance("TLS");
         TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
         tmf.init(keyStore);
 
         clientContext.init(null, tmf.getTrustManagers(), null);
 
-        try (SSLSocket sslSocket = (SSLSocket) clientContext.getSocketFactory()
-                                                            .createSocket(InetAddress.getLoopbackAddress(),
-                                                                          transport.getAcceptingPort()))
-        {
-
-            sslSocket.setEnabledProtocols(new String[]{clientProtocol});
-            sslSocket.startHandshake();
-        }
-        finally
-        {
-            transport.close();
-        }
+        return (SSLSocket) clientContext.getSocketFactory().createSocket(InetAddress.getLoopbackAddress(),
+                                                                         transport.getAcceptingPort());
     }
 
 
@@ -0,0 +1,136 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class TLSHandshakeExecutorTest extends QpidTestCase
+{
+    private TLSHandshakeExecutor _executor;
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        try
+        {
+            if (_executor != null)
+            {
+                _executor.close();
+            }
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    public void testTasksRunOffCallingThread() throws Exception
+    {
+        _executor = new TLSHandshakeExecutor("test", 1, 1, 1);
+
+        final AtomicInteger tasksRun = new AtomicInteger();
+        final Thread callingThread = Thread.currentThread();
+        final Runnable task = () ->
+        {
+            if (Thread.currentThread() != callingThread)
+            {
+                tasksRun.incrementAndGet();
+            }
+        };
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        assertTrue("Tasks should be accepted", _executor.execute(Arrays.asList(task, task), completed::countDown));
+        assertTrue("Tasks did not complete", completed.await(10, TimeUnit.SECONDS));
+        assertEquals("Unexpected number of tasks run on the handshake thread", 2, tasksRun.get());
+
+        assertEquals("Unexpected number of task batches", 1L, _executor.getTaskBatchesRun());
+        assertEquals("Unexpected number of task batches run on IO threads", 0L,
+                     _executor.getTaskBatchesRunOnIoThreads());
+    }
+
+    public void testTasksRejectedWhenSaturated() throws Exception
+    {
+        _executor = new TLSHandshakeExecutor("test", 1, 1, 1);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final List<Runnable> blockingTask = Collections.singletonList(() ->
+        {
+            started.countDown();
+            try
+            {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        });
+        final List<Runnable> task = Collections.singletonList(() -> {});
+        final CountDownLatch completed = new CountDownLatch(2);
+        try
+        {
+            assertTrue("Tasks should be accepted", _executor.execute(blockingTask, completed::countDown));
+            assertTrue("Tasks did not start", started.await(10, TimeUnit.SECONDS));
+            assertTrue("Tasks should be queued", _executor.execute(task, completed::countDown));
+            assertEquals("Unexpected number of queued task batches", 1, _executor.getQueuedTaskBatches());
+
+            assertFalse("Tasks should be rejected", _executor.execute(task, completed::countDown));
+        }
+        finally
+        {
+            release.countDown();
+        }
+        assertTrue("Tasks did not complete", completed.await(10, TimeUnit.SECONDS));
+
+        assertEquals("Unexpected number of task batches", 2L, _executor.getTaskBatchesRun());
+        assertEquals("Unexpected number of task batches run on IO threads", 1L,
+                     _executor.getTaskBatchesRunOnIoThreads());
+        assertEquals("Unexpected number of queued task batches", 0, _executor.getQueuedTaskBatches());
+    }
+
+    public void testTasksRejectedWithoutThreads()
+    {
+        _executor = new TLSHandshakeExecutor("test", 0, 1, 1);
+
+        assertFalse("Tasks should be rejected", _executor.execute(Collections.singletonList(() -> {}), () -> {}));
+        assertEquals("Unexpected number of task batches run on IO threads", 1L,
+                     _executor.getTaskBatchesRunOnIoThreads());
+    }
+
+    public void testHandshakeStatistics()
+    {
+        _executor = new TLSHandshakeExecutor("test", 1, 1, 1);
+
+        _executor.handshakeCompleted(TimeUnit.MILLISECONDS.toNanos(10));
+        _executor.handshakeCompleted(TimeUnit.MILLISECONDS.toNanos(30));
+
+        assertEquals("Unexpected number of handshakes", 2L, _executor.getHandshakesCompleted());
+        assertEquals("Unexpected handshake time", TimeUnit.MILLISECONDS.toNanos(40), _executor.getHandshakeTimeNanos());
+    }
+}
@@ -26,6 +26,7 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -35,6 +36,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import org.mockito.ArgumentMatcher;
@@ -153,6 +155,41 @@ public class AsynchronousMessageStoreRecovererTest extends QpidTestCase
         }), same(messageEnqueueRecord));
     }
 
+    public void testParallelRecoveryOfQueuesSharingMessage() throws Exception
+    {
+        when(_virtualHost.getContextValue(Integer.class, QueueManagingVirtualHost.MESSAGE_RECOVERY_THREADS)).thenReturn(2);
+        when(_store.getNextMessageId()).thenReturn(2L);
+
+        final List<Queue<?>> queues = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+        {
+            Queue<?> queue = mock(Queue.class);
+            when(queue.getId()).thenReturn(UUID.randomUUID());
+            queues.add(queue);
+        }
+        when(_virtualHost.getChildren(eq(Queue.class))).thenReturn(queues);
+
+        final StoredMessage<?> storedMessage = createTestMessage(1L);
+        final MessageEnqueueRecord messageEnqueueRecord = mock(MessageEnqueueRecord.class);
+        when(messageEnqueueRecord.getMessageNumber()).thenReturn(1L);
+
+        MockStoreReader storeReader = new MockStoreReader(Collections.singletonList(messageEnqueueRecord),
+                                                          Collections.<StoredMessage<?>>singletonList(storedMessage));
+        when(_store.newMessageStoreReader()).thenReturn(storeReader);
+
+        AsynchronousMessageStoreRecoverer recoverer = new AsynchronousMessageStoreRecoverer();
+        ListenableFuture<Void> result = recoverer.recover(_virtualHost);
+        assertNull(result.get());
+
+        for (Queue<?> queue : queues)
+        {
+            verify(queue).recover(any(ServerMessage.class), same(messageEnqueueRecord));
+            verify(queue).completeRecovery();
+        }
+        assertEquals("Message shared by the queues should be read once", 1, storeReader.getMessageReads());
+        verify(storedMessage, never()).remove();
+    }
+
     private StoredMessage<?> createTestMessage(final long messageNumber)
     {
         final StorableMessageMetaData metaData = new TestMessageMetaData(messageNumber, 0);
@@ -166,6 +203,7 @@ public class AsynchronousMessageStoreRecovererTest extends QpidTestCase
     {
         private final List<MessageEnqueueRecord> _messageEnqueueRecords;
         private final List<StoredMessage<?>> _messages;
+        private final AtomicInteger _messageReads = new AtomicInteger();
 
         private MockStoreReader(final List<MessageEnqueueRecord> messageEnqueueRecords, List<StoredMessage<?>> messages)
         {
@@ -207,6 +245,7 @@ public class AsynchronousMessageStoreRecovererTest extends QpidTestCase
         @Override
         public StoredMessage<?> getMessage(final long messageId)
         {
+            _messageReads.incrementAndGet();
             for(StoredMessage<?> message: _messages)
             {
                 if (message.getMessageNumber() == messageId)
@@ -222,5 +261,10 @@ public class AsynchronousMessageStoreRecovererTest extends QpidTestCase
         {
 
         }
+
+        int getMessageReads()
+        {
+            return _messageReads.get();
+        }
     }
 }
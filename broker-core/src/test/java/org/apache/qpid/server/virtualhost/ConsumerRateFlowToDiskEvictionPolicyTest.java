@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.server.virtualhost;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.queue.QueueEntry;
+import org.apache.qpid.server.queue.QueueEntryIterator;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class ConsumerRateFlowToDiskEvictionPolicyTest extends QpidTestCase
+{
+    private static final int MESSAGE_COUNT = 10;
+    private static final int CONTENT_SIZE = 90;
+    private static final int METADATA_SIZE = 10;
+    private static final long MESSAGE_SIZE = CONTENT_SIZE + METADATA_SIZE;
+
+    private ConsumerRateFlowToDiskEvictionPolicy _policy;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _policy = new ConsumerRateFlowToDiskEvictionPolicy();
+    }
+
+    public void testQueueWithoutConsumersIsEvictedFirst()
+    {
+        final List<StoredMessage<?>> consumedMessages = new ArrayList<>();
+        final List<StoredMessage<?>> unconsumedMessages = new ArrayList<>();
+        final Queue<?> consumedQueue = createQueue(consumedMessages, 1);
+        final Queue<?> unconsumedQueue = createQueue(unconsumedMessages, 0);
+
+        final long evicted = _policy.evict(Arrays.asList(unconsumedQueue, consumedQueue), MESSAGE_COUNT * MESSAGE_SIZE);
+
+        // each queue has a minimum share of 50 bytes of the 1000, the consumed queue is given the other 900 and
+        // retains all its messages, leaving the unconsumed queue only its minimum share
+        assertEquals("Unexpected number of evicted messages", MESSAGE_COUNT - 1, evicted);
+        for (StoredMessage<?> message : consumedMessages)
+        {
+            verify(message, never()).flowToDisk();
+        }
+        verify(unconsumedMessages.get(0), never()).flowToDisk();
+        for (StoredMessage<?> message : unconsumedMessages.subList(1, MESSAGE_COUNT))
+        {
+            verify(message).flowToDisk();
+        }
+    }
+
+    public void testQueuesWithoutConsumersShareTargetEqually()
+    {
+        final List<StoredMessage<?>> firstMessages = new ArrayList<>();
+        final List<StoredMessage<?>> secondMessages = new ArrayList<>();
+        final Queue<?> firstQueue = createQueue(firstMessages, 0);
+        final Queue<?> secondQueue = createQueue(secondMessages, 0);
+
+        final long evicted = _policy.evict(Arrays.asList(firstQueue, secondQueue), MESSAGE_COUNT * MESSAGE_SIZE);
+
+        assertEquals("Unexpected number of evicted messages", MESSAGE_COUNT, evicted);
+        assertEquals("Unexpected evictions from first queue", MESSAGE_COUNT / 2, countEvicted(firstMessages));
+        assertEquals("Unexpected evictions from second queue", MESSAGE_COUNT / 2, countEvicted(secondMessages));
+    }
+
+    public void testTargetSizeSharedByConsumptionRate()
+    {
+        final List<StoredMessage<?>> fastMessages = new ArrayList<>();
+        final List<StoredMessage<?>> slowMessages = new ArrayList<>();
+        final Queue<?> fastQueue = createQueue(fastMessages, 1);
+        final Queue<?> slowQueue = createQueue(slowMessages, 1);
+
+        assertEquals("Unexpected evictions under a large target size",
+                     0, _policy.evict(Arrays.asList(slowQueue, fastQueue), Long.MAX_VALUE));
+
+        when(fastQueue.getTotalDequeuedMessages()).thenReturn(90L);
+        when(slowQueue.getTotalDequeuedMessages()).thenReturn(10L);
+        final long evicted = _policy.evict(Arrays.asList(slowQueue, fastQueue), MESSAGE_COUNT * MESSAGE_SIZE);
+
+        // each queue has a minimum share of 50 bytes of the 1000; the fast queue is weighted 91 and the slow queue
+        // 11, so the fast queue gets 50 + 802 bytes and retains 9 messages, leaving 50 + 50 bytes to the slow queue
+        assertEquals("Unexpected number of evicted messages", MESSAGE_COUNT, evicted);
+        assertEquals("Unexpected evictions from fast queue", 1, countEvicted(fastMessages));
+        assertEquals("Unexpected evictions from slow queue", MESSAGE_COUNT - 1, countEvicted(slowMessages));
+        verify(fastMessages.get(MESSAGE_COUNT - 1)).flowToDisk();
+        verify(slowMessages.get(0), never()).flowToDisk();
+    }
+
+    public void testDeletedQueueIsForgotten()
+    {
+        final Queue<?> queue = createQueue(new ArrayList<>(), 1);
+        _policy.evict(Arrays.asList(queue), Long.MAX_VALUE);
+        final long evicted = _policy.evict(new ArrayList<Queue<?>>(), 0);
+        assertEquals("Unexpected number of evicted messages", 0, evicted);
+    }
+
+    private int countEvicted(final List<StoredMessage<?>> messages)
+    {
+        int count = 0;
+        for (StoredMessage<?> message : messages)
+        {
+            if (!message.isInMemory())
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Queue<?> createQueue(final List<StoredMessage<?>> storedMessages, final int consumerCount)
+    {
+        final List<QueueEntry> entries = new ArrayList<>();
+        for (int i = 0; i < MESSAGE_COUNT; i++)
+        {
+            final StoredMessage storedMessage = mock(StoredMessage.class);
+            final AtomicBoolean inMemory = new AtomicBoolean(true);
+            when(storedMessage.isInMemory()).thenAnswer(invocation -> inMemory.get());
+            when(storedMessage.flowToDisk()).thenAnswer(invocation -> !inMemory.getAndSet(false));
+            when(storedMessage.getContentSize()).thenReturn(CONTENT_SIZE);
+            when(storedMessage.getMetadataSize()).thenReturn(METADATA_SIZE);
+            storedMessages.add(storedMessage);
+
+            final ServerMessage message = mock(ServerMessage.class);
+            final MessageReference reference = mock(MessageReference.class);
+            when(message.newReference()).thenReturn(reference);
+            when(reference.getMessage()).thenReturn(message);
+            when(message.getStoredMessage()).thenReturn(storedMessage);
+
+            final QueueEntry entry = mock(QueueEntry.class);
+            when(entry.getMessage()).thenReturn(message);
+            entries.add(entry);
+        }
+
+        final Queue<?> queue = mock(Queue.class);
+        when(queue.getConsumerCount()).thenReturn(consumerCount);
+        when(queue.queueEntryIterator()).thenAnswer(invocation -> new ListQueueEntryIterator(entries));
+        return queue;
+    }
+
+    private static class ListQueueEntryIterator implements QueueEntryIterator
+    {
+        private final Iterator<QueueEntry> _iterator;
+        private QueueEntry _node;
+
+        ListQueueEntryIterator(final List<QueueEntry> entries)
+        {
+            _iterator = entries.iterator();
+        }
+
+        @Override
+        public boolean atTail()
+        {
+            return !_iterator.hasNext();
+        }
+
+        @Override
+        public QueueEntry getNode()
+        {
+            return _node;
+        }
+
+        @Override
+        public boolean advance()
+        {
+            if (_iterator.hasNext())
+            {
+                _node = _iterator.next();
+                return true;
+            }
+            return false;
+        }
+    }
+}
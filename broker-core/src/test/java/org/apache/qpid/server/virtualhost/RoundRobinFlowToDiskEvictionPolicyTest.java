@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.server.virtualhost;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.queue.QueueEntry;
+import org.apache.qpid.server.queue.QueueEntryIterator;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class RoundRobinFlowToDiskEvictionPolicyTest extends QpidTestCase
+{
+    private static final int MESSAGE_COUNT = 10;
+    private static final int CONTENT_SIZE = 90;
+    private static final int METADATA_SIZE = 10;
+    private static final long MESSAGE_SIZE = CONTENT_SIZE + METADATA_SIZE;
+
+    private RoundRobinFlowToDiskEvictionPolicy _policy;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _policy = new RoundRobinFlowToDiskEvictionPolicy();
+    }
+
+    public void testNothingEvictedWithinTarget()
+    {
+        final List<StoredMessage<?>> messages = new ArrayList<>();
+        final Queue<?> queue = createQueue(messages);
+
+        final long evicted = _policy.evict(Collections.singletonList(queue), MESSAGE_COUNT * MESSAGE_SIZE);
+
+        assertEquals("Unexpected number of evicted messages", 0, evicted);
+        assertEquals("Unexpected evictions", 0, countEvicted(messages));
+    }
+
+    public void testTailOfSingleQueueIsEvicted()
+    {
+        final List<StoredMessage<?>> messages = new ArrayList<>();
+        final Queue<?> queue = createQueue(messages);
+
+        final long evicted = _policy.evict(Collections.singletonList(queue), MESSAGE_COUNT * MESSAGE_SIZE / 2);
+
+        // messages are retained until the retained size exceeds the target
+        assertEquals("Unexpected number of evicted messages", MESSAGE_COUNT / 2 - 1, evicted);
+        assertEquals("Unexpected evictions", MESSAGE_COUNT / 2 - 1, countEvicted(messages));
+        for (int i = 0; i <= MESSAGE_COUNT / 2; i++)
+        {
+            assertTrue("Message " + i + " at head of queue was evicted", messages.get(i).isInMemory());
+        }
+    }
+
+    public void testTargetSizeSharedEquallyBetweenQueues()
+    {
+        final List<StoredMessage<?>> firstMessages = new ArrayList<>();
+        final List<StoredMessage<?>> secondMessages = new ArrayList<>();
+        final Queue<?> firstQueue = createQueue(firstMessages);
+        final Queue<?> secondQueue = createQueue(secondMessages);
+
+        final long evicted = _policy.evict(Arrays.asList(firstQueue, secondQueue), MESSAGE_COUNT * MESSAGE_SIZE);
+
+        // eleven messages are retained between the two queues, whichever queue is visited first retaining six
+        assertEquals("Unexpected number of evicted messages", MESSAGE_COUNT - 1, evicted);
+        final int firstEvicted = countEvicted(firstMessages);
+        final int secondEvicted = countEvicted(secondMessages);
+        assertEquals("Unexpected total evictions", MESSAGE_COUNT - 1, firstEvicted + secondEvicted);
+        assertTrue("Unexpected evictions from first queue: " + firstEvicted,
+                   firstEvicted == MESSAGE_COUNT / 2 || firstEvicted == MESSAGE_COUNT / 2 - 1);
+        for (int i = 0; i < MESSAGE_COUNT / 2; i++)
+        {
+            assertTrue("Message " + i + " at head of first queue was evicted", firstMessages.get(i).isInMemory());
+            assertTrue("Message " + i + " at head of second queue was evicted", secondMessages.get(i).isInMemory());
+        }
+    }
+
+    public void testMessagesAlreadyOnDiskAreNotCounted()
+    {
+        final List<StoredMessage<?>> messages = new ArrayList<>();
+        final Queue<?> queue = createQueue(messages);
+        _policy.evict(Collections.singletonList(queue), 0);
+        final int alreadyEvicted = countEvicted(messages);
+
+        final long evicted = _policy.evict(Collections.singletonList(queue), 0);
+
+        assertEquals("Unexpected evictions after first pass", MESSAGE_COUNT - 1, alreadyEvicted);
+        assertEquals("Messages already on disk were counted as evicted", 0, evicted);
+    }
+
+    public void testNoQueues()
+    {
+        final long evicted = _policy.evict(new ArrayList<Queue<?>>(), 0);
+        assertEquals("Unexpected number of evicted messages", 0, evicted);
+    }
+
+    private int countEvicted(final List<StoredMessage<?>> messages)
+    {
+        int count = 0;
+        for (StoredMessage<?> message : messages)
+        {
+            if (!message.isInMemory())
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Queue<?> createQueue(final List<StoredMessage<?>> storedMessages)
+    {
+        final List<QueueEntry> entries = new ArrayList<>();
+        for (int i = 0; i < MESSAGE_COUNT; i++)
+        {
+            final StoredMessage storedMessage = mock(StoredMessage.class);
+            final AtomicBoolean inMemory = new AtomicBoolean(true);
+            when(storedMessage.isInMemory()).thenAnswer(invocation -> inMemory.get());
+            when(storedMessage.flowToDisk()).thenAnswer(invocation -> !inMemory.getAndSet(false));
+            when(storedMessage.getContentSize()).thenReturn(CONTENT_SIZE);
+            when(storedMessage.getMetadataSize()).thenReturn(METADATA_SIZE);
+            storedMessages.add(storedMessage);
+
+            final ServerMessage message = mock(ServerMessage.class);
+            final MessageReference reference = mock(MessageReference.class);
+            when(message.newReference()).thenReturn(reference);
+            when(reference.getMessage()).thenReturn(message);
+            when(message.getStoredMessage()).thenReturn(storedMessage);
+
+            final QueueEntry entry = mock(QueueEntry.class);
+            when(entry.getMessage()).thenReturn(message);
+            entries.add(entry);
+        }
+
+        final Queue<?> queue = mock(Queue.class);
+        when(queue.queueEntryIterator()).thenAnswer(invocation -> new ListQueueEntryIterator(entries));
+        return queue;
+    }
+
+    private static class ListQueueEntryIterator implements QueueEntryIterator
+    {
+        private final Iterator<QueueEntry> _iterator;
+        private QueueEntry _node;
+
+        ListQueueEntryIterator(final List<QueueEntry> entries)
+        {
+            _iterator = entries.iterator();
+        }
+
+        @Override
+        public boolean atTail()
+        {
+            return !_iterator.hasNext();
+        }
+
+        @Override
+        public QueueEntry getNode()
+        {
+            return _node;
+        }
+
+        @Override
+        public boolean advance()
+        {
+            if (_iterator.hasNext())
+            {
+                _node = _iterator.next();
+                return true;
+            }
+            return false;
+        }
+    }
+}
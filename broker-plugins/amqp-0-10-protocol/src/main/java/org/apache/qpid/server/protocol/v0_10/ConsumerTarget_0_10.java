@@ -31,11 +31,13 @@ import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.server.consumer.AbstractConsumerTarget;
 import org.apache.qpid.server.logging.EventLogger;
 import org.apache.qpid.server.logging.messages.ChannelMessages;
+import org.apache.qpid.server.message.ConvertedMessageCache;
 import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstance.ConsumerAcquiredState;
 import org.apache.qpid.server.message.MessageInstance.EntryState;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
+import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.plugin.MessageConverter;
@@ -76,6 +78,7 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
     private final ServerSession _session;
     private final AtomicBoolean _stopped = new AtomicBoolean(true);
 
+    private boolean _batchedTransferPending;
     private int _deferredMessageCredit;
     private long _deferredSizeCredit;
 
@@ -193,7 +196,7 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
         MessageProperties messageProps = null;
 
         MessageTransferMessage msg;
-        MessageConverter<? super ServerMessage, MessageTransferMessage> converter = null;
+        MessageReference<MessageTransferMessage> convertedMessageReference = null;
 
         if(serverMsg instanceof MessageTransferMessage)
         {
@@ -203,8 +206,10 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
         }
         else
         {
-            converter = (MessageConverter<? super ServerMessage, MessageTransferMessage>) MessageConverterRegistry.getConverter(serverMsg.getClass(), MessageTransferMessage.class);
-            msg = converter.convert(serverMsg, _session.getAddressSpace());
+            MessageConverter<? super ServerMessage, MessageTransferMessage> converter =
+                    (MessageConverter<? super ServerMessage, MessageTransferMessage>) MessageConverterRegistry.getConverter(serverMsg.getClass(), MessageTransferMessage.class);
+            convertedMessageReference = ConvertedMessageCache.convert(converter, serverMsg, _session.getAddressSpace());
+            msg = convertedMessageReference.getMessage();
         }
 
         DeliveryProperties origDeliveryProps = msg.getHeader() == null ? null : msg.getHeader().getDeliveryProperties();
@@ -257,6 +262,7 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
         if(msgCompressed && !compressionSupported && bodyBuffer != null)
         {
             QpidByteBuffer uncompressedBuffer = inflateIfPossible(bodyBuffer);
+            messageProps = new MessageProperties(messageProps);
             messageProps.setContentEncoding(null);
             bodyBuffer.dispose();
             bodyBuffer = uncompressedBuffer;
@@ -268,10 +274,7 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
                 && bodyBuffer.remaining() > _session.getConnection().getMessageCompressionThreshold())
         {
             QpidByteBuffer compressedBuffers = deflateIfPossible(bodyBuffer);
-            if(messageProps == null)
-            {
-                messageProps = new MessageProperties();
-            }
+            messageProps = messageProps == null ? new MessageProperties() : new MessageProperties(messageProps);
             messageProps.setContentEncoding(GZIPUtils.GZIP_CONTENT_ENCODING);
             bodyBuffer.dispose();
             bodyBuffer = compressedBuffers;
@@ -320,10 +323,11 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
 
 
         _session.sendMessage(xfr, _postIdSettingAction);
+        _batchedTransferPending |= batch;
         xfr.dispose();
-        if(converter != null)
+        if(convertedMessageReference != null)
         {
-            converter.dispose(msg);
+            convertedMessageReference.release();
         }
         _postIdSettingAction.setAction(null);
         _postIdSettingAction.setXfr(null);
@@ -584,6 +588,11 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
     @Override
     public void flushBatched()
     {
+        if (_batchedTransferPending)
+        {
+            _batchedTransferPending = false;
+            _session.getConnection().flush();
+        }
     }
 
     @Override
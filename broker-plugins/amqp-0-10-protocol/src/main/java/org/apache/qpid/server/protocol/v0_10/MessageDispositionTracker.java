@@ -0,0 +1,436 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.qpid.server.protocol.v0_10;
+
+import static org.apache.qpid.server.util.Serial.gt;
+import static org.apache.qpid.server.util.Serial.max;
+import static org.apache.qpid.server.util.Serial.min;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.apache.qpid.server.protocol.v0_10.ServerSession.MessageDispositionChangeListener;
+import org.apache.qpid.server.util.Serial;
+
+/**
+ * Holds the disposition listeners of the message transfers which await acceptance, keyed by the command id of the
+ * transfer.
+ * <p>
+ * Command ids are serial numbers which are allocated in increasing order, so the listeners are held in fixed size
+ * segments, each covering a contiguous run of command ids, found through a directory indexed by the segment number
+ * modulo the size of the directory.  Adding and removing a listener neither boxes the command id nor allocates a map
+ * entry, and a range of command ids is processed by walking the slots of the segments it covers, skipping segments
+ * which no longer hold any listener.  Segments are released as soon as they become empty, the last one released
+ * being kept for reuse.
+ * <p>
+ * Listeners with a command id before the first segment - because the directory was moved past them rather than grown
+ * beyond its maximum size - are held in an overflow map.
+ * <p>
+ * Apart from {@link #size()}, the tracker must only be accessed from the thread processing the connection.
+ */
+class MessageDispositionTracker
+{
+    interface DispositionVisitor
+    {
+        void visit(int commandId, MessageDispositionChangeListener listener);
+    }
+
+    private static final int SEGMENT_SHIFT = 8;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int INITIAL_DIRECTORY_SIZE = 4;
+    private static final int MAXIMUM_DIRECTORY_SIZE = 1 << 12;
+
+    private MessageDispositionChangeListener[][] _segments = new MessageDispositionChangeListener[INITIAL_DIRECTORY_SIZE][];
+    private int[] _populations = new int[INITIAL_DIRECTORY_SIZE];
+    // segment number (command id >>> SEGMENT_SHIFT) of the first segment covered by the directory
+    private int _firstSegment;
+    // number of segments, from the first, covering command ids which have been added
+    private int _segmentSpan;
+    private NavigableMap<Integer, MessageDispositionChangeListener> _overflow;
+    // an empty segment kept for reuse, so that a session with few outstanding transfers does not allocate segments
+    private MessageDispositionChangeListener[] _spareSegment;
+    // we keep this separately as it is accessed by the management thread
+    private volatile int _size;
+
+    void put(final int commandId, final MessageDispositionChangeListener listener)
+    {
+        final int segmentNumber = segmentNumber(commandId);
+        if (belongsInOverflow(segmentNumber))
+        {
+            if (overflow().put(commandId, listener) == null)
+            {
+                _size++;
+            }
+            return;
+        }
+
+        if (_segmentSpan == 0)
+        {
+            _firstSegment = segmentNumber;
+            _segmentSpan = 1;
+        }
+        else
+        {
+            final int offset = segmentOffset(segmentNumber);
+            if (offset < 0)
+            {
+                ensureDirectorySize(_segmentSpan - offset);
+                _firstSegment = segmentNumber;
+                _segmentSpan -= offset;
+            }
+            else if (offset >= _segmentSpan)
+            {
+                if (offset >= MAXIMUM_DIRECTORY_SIZE)
+                {
+                    spill(offset - MAXIMUM_DIRECTORY_SIZE + 1);
+                }
+                if (_segmentSpan == 0)
+                {
+                    _firstSegment = segmentNumber;
+                    _segmentSpan = 1;
+                }
+                else
+                {
+                    final int newSpan = segmentOffset(segmentNumber) + 1;
+                    ensureDirectorySize(newSpan);
+                    _segmentSpan = newSpan;
+                }
+            }
+        }
+
+        final int index = directoryIndex(segmentNumber);
+        MessageDispositionChangeListener[] segment = _segments[index];
+        if (segment == null)
+        {
+            if (_spareSegment != null)
+            {
+                segment = _spareSegment;
+                _spareSegment = null;
+            }
+            else
+            {
+                segment = new MessageDispositionChangeListener[SEGMENT_SIZE];
+            }
+            _segments[index] = segment;
+        }
+        final int slot = commandId & SEGMENT_MASK;
+        if (segment[slot] == null)
+        {
+            _populations[index]++;
+            _size++;
+        }
+        segment[slot] = listener;
+    }
+
+    MessageDispositionChangeListener remove(final int commandId)
+    {
+        final int segmentNumber = segmentNumber(commandId);
+        final MessageDispositionChangeListener[] segment = segment(segmentNumber);
+        if (segment != null)
+        {
+            final int slot = commandId & SEGMENT_MASK;
+            final MessageDispositionChangeListener listener = segment[slot];
+            if (listener != null)
+            {
+                clearSlot(segmentNumber, segment, slot);
+            }
+            return listener;
+        }
+        else if (_overflow != null && !_overflow.isEmpty())
+        {
+            final MessageDispositionChangeListener listener = _overflow.remove(commandId);
+            if (listener != null)
+            {
+                _size--;
+            }
+            return listener;
+        }
+        return null;
+    }
+
+    /**
+     * Visits, in command id order, the listeners with a command id in the given (inclusive) range, optionally
+     * removing them before they are visited.  The work done is proportional to the part of the range which is
+     * covered by segments holding listeners.
+     */
+    void visitRange(final int lower, final int upper, final boolean remove, final DispositionVisitor visitor)
+    {
+        if (gt(lower, upper))
+        {
+            return;
+        }
+
+        if (_overflow != null && !_overflow.isEmpty())
+        {
+            final Iterator<Map.Entry<Integer, MessageDispositionChangeListener>> entries =
+                    _overflow.subMap(lower, true, upper, true).entrySet().iterator();
+            while (entries.hasNext())
+            {
+                final Map.Entry<Integer, MessageDispositionChangeListener> entry = entries.next();
+                // read the entry before removing it, as the removal may reuse the entry for its successor
+                final int commandId = entry.getKey();
+                final MessageDispositionChangeListener listener = entry.getValue();
+                if (remove)
+                {
+                    entries.remove();
+                    _size--;
+                }
+                visitor.visit(commandId, listener);
+            }
+        }
+
+        if (_segmentSpan == 0)
+        {
+            return;
+        }
+        final int windowStart = _firstSegment << SEGMENT_SHIFT;
+        final int windowEnd = windowStart + (_segmentSpan << SEGMENT_SHIFT) - 1;
+        final int from = max(lower, windowStart);
+        final int to = min(upper, windowEnd);
+        if (gt(from, to))
+        {
+            return;
+        }
+
+        int commandId = from;
+        int remaining = to - from + 1;
+        while (remaining > 0)
+        {
+            final int segmentNumber = segmentNumber(commandId);
+            final int firstSlot = commandId & SEGMENT_MASK;
+            final int slots = Math.min(remaining, SEGMENT_SIZE - firstSlot);
+            final MessageDispositionChangeListener[] segment = segment(segmentNumber);
+            if (segment != null)
+            {
+                for (int slot = firstSlot; slot < firstSlot + slots; slot++)
+                {
+                    final MessageDispositionChangeListener listener = segment[slot];
+                    if (listener != null)
+                    {
+                        if (remove)
+                        {
+                            clearSlot(segmentNumber, segment, slot);
+                        }
+                        visitor.visit(commandId + (slot - firstSlot), listener);
+                        if (segment(segmentNumber) != segment)
+                        {
+                            // the segment was emptied and released, possibly for reuse by the visitor
+                            break;
+                        }
+                    }
+                }
+            }
+            commandId += slots;
+            remaining -= slots;
+        }
+    }
+
+    /**
+     * Removes all the listeners, visiting them in command id order.
+     */
+    void removeAll(final DispositionVisitor visitor)
+    {
+        final NavigableMap<Integer, MessageDispositionChangeListener> overflow = _overflow;
+        final MessageDispositionChangeListener[][] segments = _segments;
+        final int firstSegment = _firstSegment;
+        final int segmentSpan = _segmentSpan;
+
+        _segments = new MessageDispositionChangeListener[INITIAL_DIRECTORY_SIZE][];
+        _populations = new int[INITIAL_DIRECTORY_SIZE];
+        _segmentSpan = 0;
+        _overflow = null;
+        _spareSegment = null;
+        _size = 0;
+
+        if (overflow != null)
+        {
+            for (Map.Entry<Integer, MessageDispositionChangeListener> entry : overflow.entrySet())
+            {
+                visitor.visit(entry.getKey(), entry.getValue());
+            }
+        }
+        for (int i = 0; i < segmentSpan; i++)
+        {
+            final int segmentNumber = firstSegment + i;
+            final MessageDispositionChangeListener[] segment = segments[segmentNumber & (segments.length - 1)];
+            if (segment != null)
+            {
+                for (int slot = 0; slot < SEGMENT_SIZE; slot++)
+                {
+                    if (segment[slot] != null)
+                    {
+                        visitor.visit((segmentNumber << SEGMENT_SHIFT) | slot, segment[slot]);
+                    }
+                }
+            }
+        }
+    }
+
+    int size()
+    {
+        return _size;
+    }
+
+    boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    private static int segmentNumber(final int commandId)
+    {
+        return commandId >>> SEGMENT_SHIFT;
+    }
+
+    /**
+     * Segment numbers wrap around with the command ids, so the offset from the first segment is taken modulo
+     * the number of segment numbers and sign extended.
+     */
+    private int segmentOffset(final int segmentNumber)
+    {
+        return ((segmentNumber - _firstSegment) << SEGMENT_SHIFT) >> SEGMENT_SHIFT;
+    }
+
+    private int directoryIndex(final int segmentNumber)
+    {
+        return segmentNumber & (_segments.length - 1);
+    }
+
+    private MessageDispositionChangeListener[] segment(final int segmentNumber)
+    {
+        if (_segmentSpan == 0)
+        {
+            return null;
+        }
+        final int offset = segmentOffset(segmentNumber);
+        return offset >= 0 && offset < _segmentSpan ? _segments[directoryIndex(segmentNumber)] : null;
+    }
+
+    private boolean belongsInOverflow(final int segmentNumber)
+    {
+        if (_overflow == null || _overflow.isEmpty())
+        {
+            return _segmentSpan != 0
+                   && segmentOffset(segmentNumber) < 0
+                   && _segmentSpan - segmentOffset(segmentNumber) > MAXIMUM_DIRECTORY_SIZE;
+        }
+        else
+        {
+            // keep every overflow entry before the first segment
+            final int lastOverflowSegment = segmentNumber(_overflow.lastKey());
+            return (((segmentNumber - lastOverflowSegment) << SEGMENT_SHIFT) >> SEGMENT_SHIFT) <= 0
+                   || (_segmentSpan != 0 && segmentOffset(segmentNumber) < 0);
+        }
+    }
+
+    private void clearSlot(final int segmentNumber,
+                           final MessageDispositionChangeListener[] segment,
+                           final int slot)
+    {
+        segment[slot] = null;
+        _size--;
+        final int index = directoryIndex(segmentNumber);
+        if (--_populations[index] == 0)
+        {
+            _segments[index] = null;
+            _spareSegment = segment;
+            trim();
+        }
+    }
+
+    private void trim()
+    {
+        while (_segmentSpan > 0 && _segments[directoryIndex(_firstSegment)] == null)
+        {
+            _firstSegment++;
+            _segmentSpan--;
+        }
+        while (_segmentSpan > 0 && _segments[directoryIndex(_firstSegment + _segmentSpan - 1)] == null)
+        {
+            _segmentSpan--;
+        }
+    }
+
+    private void ensureDirectorySize(final int segmentSpan)
+    {
+        if (segmentSpan > _segments.length)
+        {
+            int size = _segments.length;
+            while (size < segmentSpan)
+            {
+                size <<= 1;
+            }
+            final MessageDispositionChangeListener[][] segments = new MessageDispositionChangeListener[size][];
+            final int[] populations = new int[size];
+            for (int i = 0; i < _segmentSpan; i++)
+            {
+                final int segmentNumber = _firstSegment + i;
+                final int oldIndex = directoryIndex(segmentNumber);
+                segments[segmentNumber & (size - 1)] = _segments[oldIndex];
+                populations[segmentNumber & (size - 1)] = _populations[oldIndex];
+            }
+            _segments = segments;
+            _populations = populations;
+        }
+    }
+
+    /**
+     * Moves the listeners of the given number of leading segments to the overflow map.
+     */
+    private void spill(final int segmentCount)
+    {
+        final int count = Math.min(segmentCount, _segmentSpan);
+        for (int i = 0; i < count; i++)
+        {
+            final int segmentNumber = _firstSegment + i;
+            final int index = directoryIndex(segmentNumber);
+            final MessageDispositionChangeListener[] segment = _segments[index];
+            if (segment != null)
+            {
+                for (int slot = 0; slot < SEGMENT_SIZE; slot++)
+                {
+                    if (segment[slot] != null)
+                    {
+                        overflow().put((segmentNumber << SEGMENT_SHIFT) | slot, segment[slot]);
+                        segment[slot] = null;
+                    }
+                }
+                _segments[index] = null;
+                _populations[index] = 0;
+            }
+        }
+        _firstSegment += count;
+        _segmentSpan -= count;
+        trim();
+    }
+
+    private NavigableMap<Integer, MessageDispositionChangeListener> overflow()
+    {
+        if (_overflow == null)
+        {
+            _overflow = new TreeMap<>(Serial.COMPARATOR);
+        }
+        return _overflow;
+    }
+}
@@ -52,10 +52,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -148,8 +146,7 @@ public class ServerSession extends SessionInvoker
     private Map<Integer,ResultFuture<?>> results = new HashMap<>();
     private org.apache.qpid.server.protocol.v0_10.transport.ExecutionException exception = null;
 
-    private final SortedMap<Integer, MessageDispositionChangeListener> _messageDispositionListenerMap =
-            new ConcurrentSkipListMap<>();
+    private final MessageDispositionTracker _messageDispositionTracker = new MessageDispositionTracker();
 
     private volatile ServerTransaction _transaction;
     private Map<String, ConsumerTarget_0_10> _subscriptions = new ConcurrentHashMap<String, ConsumerTarget_0_10>();
@@ -987,7 +984,7 @@ public class ServerSession extends SessionInvoker
 
     public void onMessageDispositionChange(MessageTransfer xfr, MessageDispositionChangeListener acceptListener)
     {
-        _messageDispositionListenerMap.put(xfr.getId(), acceptListener);
+        _messageDispositionTracker.put(xfr.getId(), acceptListener);
     }
 
     public void accept(RangeSet ranges)
@@ -1029,47 +1026,21 @@ public class ServerSession extends SessionInvoker
 
     public RangeSet acquire(RangeSet transfers)
     {
-        RangeSet acquired = RangeSetFactory.createRangeSet();
+        final RangeSet acquired = RangeSetFactory.createRangeSet();
 
-        if(!_messageDispositionListenerMap.isEmpty())
+        if(!_messageDispositionTracker.isEmpty())
         {
-            Iterator<Integer> unacceptedMessages = _messageDispositionListenerMap.keySet().iterator();
-            Iterator<Range> rangeIter = transfers.iterator();
-
-            if(rangeIter.hasNext())
+            final MessageDispositionTracker.DispositionVisitor acquirer = (commandId, listener) ->
             {
-                Range range = rangeIter.next();
-
-                while(range != null && unacceptedMessages.hasNext())
+                if(listener.acquire())
                 {
-                    int next = unacceptedMessages.next();
-                    while(gt(next, range.getUpper()))
-                    {
-                        if(rangeIter.hasNext())
-                        {
-                            range = rangeIter.next();
-                        }
-                        else
-                        {
-                            range = null;
-                            break;
-                        }
-                    }
-                    if(range != null && range.includes(next))
-                    {
-                        MessageDispositionChangeListener changeListener = _messageDispositionListenerMap.get(next);
-                        if(changeListener != null && changeListener.acquire())
-                        {
-                            acquired.add(next);
-                        }
-                    }
-
-
+                    acquired.add(commandId);
                 }
-
+            };
+            for(Range range : transfers)
+            {
+                _messageDispositionTracker.visitRange(range.getLower(), range.getUpper(), false, acquirer);
             }
-
-
         }
 
         return acquired;
@@ -1077,62 +1048,20 @@ public class ServerSession extends SessionInvoker
 
     public void dispositionChange(RangeSet ranges, MessageDispositionAction action)
     {
-        if(ranges != null)
+        if(ranges != null && !_messageDispositionTracker.isEmpty())
         {
-
-            if(ranges.size() == 1)
+            final MessageDispositionTracker.DispositionVisitor visitor =
+                    (commandId, listener) -> action.performAction(listener);
+            for(Range range : ranges)
             {
-                Range r = ranges.getFirst();
-                for(int i = r.getLower(); i <= r.getUpper(); i++)
-                {
-                    MessageDispositionChangeListener changeListener = _messageDispositionListenerMap.remove(i);
-                    if(changeListener != null)
-                    {
-                        action.performAction(changeListener);
-                    }
-                }
-            }
-            else if(!_messageDispositionListenerMap.isEmpty())
-            {
-                Iterator<Integer> unacceptedMessages = _messageDispositionListenerMap.keySet().iterator();
-                Iterator<Range> rangeIter = ranges.iterator();
-
-                if(rangeIter.hasNext())
-                {
-                    Range range = rangeIter.next();
-
-                    while(range != null && unacceptedMessages.hasNext())
-                    {
-                        int next = unacceptedMessages.next();
-                        while(gt(next, range.getUpper()))
-                        {
-                            if(rangeIter.hasNext())
-                            {
-                                range = rangeIter.next();
-                            }
-                            else
-                            {
-                                range = null;
-                                break;
-                            }
-                        }
-                        if(range != null && range.includes(next))
-                        {
-                            MessageDispositionChangeListener changeListener = _messageDispositionListenerMap.remove(next);
-                            action.performAction(changeListener);
-                        }
-
-
-                    }
-
-                }
+                _messageDispositionTracker.visitRange(range.getLower(), range.getUpper(), true, visitor);
             }
         }
     }
 
     public void removeDispositionListener(Method method)
     {
-        _messageDispositionListenerMap.remove(method.getId());
+        _messageDispositionTracker.remove(method.getId());
     }
 
     public void onClose()
@@ -1152,11 +1081,7 @@ public class ServerSession extends SessionInvoker
             getAddressSpace().getDtxRegistry().endAssociations(_modelObject);
         }
 
-        for(MessageDispositionChangeListener listener : _messageDispositionListenerMap.values())
-        {
-            listener.onRelease(true);
-        }
-        _messageDispositionListenerMap.clear();
+        _messageDispositionTracker.removeAll((commandId, listener) -> listener.onRelease(true));
 
         for (Action<? super Session_0_10> task : _modelObject.getTaskList())
         {
@@ -1589,7 +1514,7 @@ public class ServerSession extends SessionInvoker
 
     public int getUnacknowledgedMessageCount()
     {
-        return _messageDispositionListenerMap.size();
+        return _messageDispositionTracker.size();
     }
 
     public boolean getBlocking()
@@ -0,0 +1,138 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_10;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.qpid.server.protocol.v0_10.ServerSession.MessageDispositionChangeListener;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class MessageDispositionTrackerTest extends QpidTestCase
+{
+    private MessageDispositionTracker _tracker;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _tracker = new MessageDispositionTracker();
+    }
+
+    public void testPutAndRemove()
+    {
+        final MessageDispositionChangeListener listener1 = mock(MessageDispositionChangeListener.class);
+        final MessageDispositionChangeListener listener2 = mock(MessageDispositionChangeListener.class);
+
+        _tracker.put(1, listener1);
+        _tracker.put(2, listener2);
+        assertEquals("Unexpected size", 2, _tracker.size());
+
+        assertSame("Unexpected listener", listener2, _tracker.remove(2));
+        assertNull("Listener should already be removed", _tracker.remove(2));
+        assertNull("Unknown command id should not have a listener", _tracker.remove(3));
+        assertSame("Unexpected listener", listener1, _tracker.remove(1));
+        assertTrue("Tracker should be empty", _tracker.isEmpty());
+    }
+
+    public void testRemoveRange()
+    {
+        for (int commandId = 0; commandId < 1000; commandId++)
+        {
+            _tracker.put(commandId, mock(MessageDispositionChangeListener.class));
+        }
+
+        final List<Integer> visited = new ArrayList<>();
+        _tracker.visitRange(10, 899, true, (commandId, listener) -> visited.add(commandId));
+
+        assertEquals("Unexpected number of listeners visited", 890, visited.size());
+        assertEquals("Unexpected first command id", Integer.valueOf(10), visited.get(0));
+        assertEquals("Unexpected last command id", Integer.valueOf(899), visited.get(visited.size() - 1));
+        assertEquals("Unexpected size", 110, _tracker.size());
+        assertNull("Listener in range should be removed", _tracker.remove(500));
+        assertNotNull("Listener outside range should remain", _tracker.remove(900));
+    }
+
+    public void testVisitRangeWithoutRemoving()
+    {
+        _tracker.put(5, mock(MessageDispositionChangeListener.class));
+        _tracker.put(7, mock(MessageDispositionChangeListener.class));
+
+        final List<Integer> visited = new ArrayList<>();
+        _tracker.visitRange(0, 6, false, (commandId, listener) -> visited.add(commandId));
+
+        assertEquals("Unexpected listeners visited", Arrays.asList(5), visited);
+        assertEquals("Unexpected size", 2, _tracker.size());
+    }
+
+    public void testCommandIdWraparound()
+    {
+        final int first = Integer.MAX_VALUE - 300;
+        for (int i = 0; i < 600; i++)
+        {
+            _tracker.put(first + i, mock(MessageDispositionChangeListener.class));
+        }
+
+        final List<Integer> visited = new ArrayList<>();
+        _tracker.visitRange(Integer.MAX_VALUE - 1, Integer.MIN_VALUE + 1, true,
+                            (commandId, listener) -> visited.add(commandId));
+
+        assertEquals("Unexpected listeners visited",
+                     Arrays.asList(Integer.MAX_VALUE - 1, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE + 1),
+                     visited);
+        assertEquals("Unexpected size", 596, _tracker.size());
+    }
+
+    public void testSparseCommandIds()
+    {
+        final MessageDispositionChangeListener oldest = mock(MessageDispositionChangeListener.class);
+        _tracker.put(0, oldest);
+        for (int commandId = 10000000; commandId < 10001000; commandId++)
+        {
+            _tracker.put(commandId, mock(MessageDispositionChangeListener.class));
+        }
+        _tracker.put(5, mock(MessageDispositionChangeListener.class));
+        assertEquals("Unexpected size", 1002, _tracker.size());
+
+        final List<Integer> visited = new ArrayList<>();
+        _tracker.visitRange(0, 10000001, true, (commandId, listener) -> visited.add(commandId));
+
+        assertEquals("Unexpected listeners visited", Arrays.asList(0, 5, 10000000, 10000001), visited);
+        assertEquals("Unexpected size", 998, _tracker.size());
+    }
+
+    public void testRemoveAll()
+    {
+        _tracker.put(3, mock(MessageDispositionChangeListener.class));
+        _tracker.put(1, mock(MessageDispositionChangeListener.class));
+        _tracker.put(700, mock(MessageDispositionChangeListener.class));
+
+        final List<Integer> visited = new ArrayList<>();
+        _tracker.removeAll((commandId, listener) -> visited.add(commandId));
+
+        assertEquals("Unexpected listeners visited", Arrays.asList(1, 3, 700), visited);
+        assertTrue("Tracker should be empty", _tracker.isEmpty());
+        assertNull("Listener should be removed", _tracker.remove(700));
+    }
+}
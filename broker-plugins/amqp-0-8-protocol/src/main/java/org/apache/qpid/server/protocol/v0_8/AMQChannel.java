@@ -26,12 +26,14 @@ import java.security.AccessControlContext;
 import java.security.AccessControlException;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -43,8 +45,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.security.auth.Subject;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Collections2;
 import com.google.common.util.concurrent.ListenableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -114,15 +114,6 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AMQChannel.class);
     private static final InfiniteCreditCreditManager INFINITE_CREDIT_CREDIT_MANAGER = new InfiniteCreditCreditManager();
-    private static final Function<MessageConsumerAssociation, MessageInstance>
-            MESSAGE_INSTANCE_FUNCTION = new Function<MessageConsumerAssociation, MessageInstance>()
-    {
-        @Override
-        public MessageInstance apply(final MessageConsumerAssociation input)
-        {
-            return input.getMessageInstance();
-        }
-    };
     private static final String ALTERNATE_EXCHANGE = "alternateExchange";
     private final DefaultQueueAssociationClearingTask
             _defaultQueueAssociationClearingTask = new DefaultQueueAssociationClearingTask();
@@ -160,6 +151,7 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
     private final LinkedList<AsyncCommand> _unfinishedCommandsQueue = new LinkedList<AsyncCommand>();
 
     private final UnacknowledgedMessageMap _unacknowledgedMessageMap;
+    private AcknowledgedMessages _acknowledgedMessages = new AcknowledgedMessages();
 
     private final AtomicBoolean _suspended = new AtomicBoolean(false);
 
@@ -1332,13 +1324,84 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
         }
     }
 
+    /**
+     * Collects the deliveries acknowledged by a basic.ack and presents their message instances to the transaction.
+     * Once the transaction has completed the action holding it, the channel reuses it for the next acknowledgement.
+     */
+    private static final class AcknowledgedMessages extends AbstractCollection<MessageInstance> implements Visitor
+    {
+        private final List<MessageConsumerAssociation> _associations = new ArrayList<>();
+        private boolean _inUse;
+
+        @Override
+        public boolean callback(final long deliveryTag, final MessageConsumerAssociation messageConsumerPair)
+        {
+            _associations.add(messageConsumerPair);
+            return false;
+        }
+
+        @Override
+        public void visitComplete()
+        {
+        }
+
+        @Override
+        public Iterator<MessageInstance> iterator()
+        {
+            final Iterator<MessageConsumerAssociation> iterator = _associations.iterator();
+            return new Iterator<MessageInstance>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public MessageInstance next()
+                {
+                    return iterator.next().getMessageInstance();
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return _associations.size();
+        }
+
+        List<MessageConsumerAssociation> getAssociations()
+        {
+            return _associations;
+        }
+
+        boolean isInUse()
+        {
+            return _inUse;
+        }
+
+        void open()
+        {
+            _inUse = true;
+        }
+
+        void close()
+        {
+            _associations.clear();
+            _inUse = false;
+        }
+    }
+
     private class MessageAcknowledgeAction implements ServerTransaction.Action
     {
+        private final AcknowledgedMessages _acknowledgedMessages;
         private Collection<MessageConsumerAssociation> _ackedMessages;
 
-        public MessageAcknowledgeAction(Collection<MessageConsumerAssociation> ackedMessages)
+        public MessageAcknowledgeAction(AcknowledgedMessages acknowledgedMessages)
         {
-            _ackedMessages = ackedMessages;
+            _acknowledgedMessages = acknowledgedMessages;
+            _ackedMessages = acknowledgedMessages.getAssociations();
         }
 
         @Override
@@ -1354,6 +1417,7 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
             finally
             {
                 _ackedMessages = Collections.emptySet();
+                _acknowledgedMessages.close();
             }
 
         }
@@ -1369,6 +1433,8 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
                     association.getMessageInstance().makeAcquisitionStealable();
                 }
                 _resendList.addAll(_ackedMessages);
+                _ackedMessages = Collections.emptySet();
+                _acknowledgedMessages.close();
             }
             else
             {
@@ -1383,6 +1449,7 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
                 finally
                 {
                     _ackedMessages = Collections.emptySet();
+                    _acknowledgedMessages.close();
                 }
             }
 
@@ -1735,9 +1802,16 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
             LOGGER.debug("RECV[" + _channelId + "] BasicAck[" +" deliveryTag: " + deliveryTag + " multiple: " + multiple + " ]");
         }
 
-        Collection<MessageConsumerAssociation> ackedMessages = _unacknowledgedMessageMap.acknowledge(deliveryTag, multiple);
-        final Collection<MessageInstance> messages = Collections2.transform(ackedMessages, MESSAGE_INSTANCE_FUNCTION);
-        _transaction.dequeue(messages, new MessageAcknowledgeAction(ackedMessages));
+        AcknowledgedMessages acknowledgedMessages = _acknowledgedMessages;
+        if (acknowledgedMessages.isInUse())
+        {
+            // the previous acknowledgement is still held by the transaction
+            acknowledgedMessages = new AcknowledgedMessages();
+            _acknowledgedMessages = acknowledgedMessages;
+        }
+        acknowledgedMessages.open();
+        _unacknowledgedMessageMap.acknowledge(deliveryTag, multiple, acknowledgedMessages);
+        _transaction.dequeue(acknowledgedMessages, new MessageAcknowledgeAction(acknowledgedMessages));
     }
 
     @Override
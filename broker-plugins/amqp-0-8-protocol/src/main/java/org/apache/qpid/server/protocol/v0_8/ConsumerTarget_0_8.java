@@ -23,6 +23,7 @@ package org.apache.qpid.server.protocol.v0_8;
 import org.apache.qpid.server.filter.AMQPFilterTypes;
 import org.apache.qpid.server.consumer.AbstractConsumerTarget;
 import org.apache.qpid.server.flow.FlowCreditManager;
+import org.apache.qpid.server.message.ConvertedMessageCache;
 import org.apache.qpid.server.message.InstanceProperties;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstance.EntryState;
@@ -394,7 +395,7 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget<Consumer
     final protected void doSend(final MessageInstanceConsumer consumer, final MessageInstance entry, final boolean batch)
     {
         ServerMessage serverMessage = entry.getMessage();
-        MessageConverter<ServerMessage<?>, AMQMessage> messageConverter = null;
+        MessageReference<AMQMessage> convertedMessageReference = null;
         final AMQMessage msg;
         if(serverMessage instanceof AMQMessage)
         {
@@ -402,8 +403,11 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget<Consumer
         }
         else
         {
-            messageConverter = MessageConverterRegistry.getConverter((Class<ServerMessage<?>>) serverMessage.getClass(), AMQMessage.class);
-            msg = messageConverter.convert(serverMessage, getConnection().getAddressSpace());
+            MessageConverter<ServerMessage<?>, AMQMessage> messageConverter =
+                    MessageConverterRegistry.getConverter((Class<ServerMessage<?>>) serverMessage.getClass(), AMQMessage.class);
+            convertedMessageReference =
+                    ConvertedMessageCache.convert(messageConverter, serverMessage, getConnection().getAddressSpace());
+            msg = convertedMessageReference.getMessage();
         }
 
         try
@@ -412,9 +416,9 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget<Consumer
         }
         finally
         {
-            if(messageConverter != null)
+            if(convertedMessageReference != null)
             {
-                messageConverter.dispose(msg);
+                convertedMessageReference.release();
             }
         }
     }
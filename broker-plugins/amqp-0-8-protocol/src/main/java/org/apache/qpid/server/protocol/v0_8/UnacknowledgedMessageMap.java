@@ -47,6 +47,12 @@ public interface UnacknowledgedMessageMap
     MessageInstance get(long deliveryTag);
 
     Collection<MessageConsumerAssociation> acknowledge(long deliveryTag, boolean multiple);
+
+    /**
+     * Removes the acknowledged deliveries and passes those whose acquisition could be made unstealable to the
+     * visitor, without collecting them in an intermediate collection.
+     */
+    void acknowledge(long deliveryTag, boolean multiple, Visitor visitor);
     void collect(long key, boolean multiple, Map<Long, MessageConsumerAssociation> msgs);
 }
 
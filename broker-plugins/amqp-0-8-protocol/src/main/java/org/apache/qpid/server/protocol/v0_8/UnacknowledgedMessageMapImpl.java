@@ -22,17 +22,30 @@ package org.apache.qpid.server.protocol.v0_8;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
 import org.apache.qpid.server.util.ConnectionScopedRuntimeException;
 
+/**
+ * Delivery tags increase monotonically on a channel, so the outstanding deliveries are held in a ring buffer
+ * indexed by the offset of their delivery tag from the oldest tag the ring covers.  Adding, removing and
+ * acknowledging a range of deliveries therefore neither boxes delivery tags nor allocates map entries.
+ * <p>
+ * Deliveries with a tag below the range covered by the ring - because they were added out of order, or because
+ * the ring was moved past them rather than grown when it had become mostly empty - are held in an overflow map.
+ */
 class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
 {
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final MessageConsumerAssociationImpl[] EMPTY_RING = new MessageConsumerAssociationImpl[0];
+
     private static final class MessageConsumerAssociationImpl implements MessageConsumerAssociation
     {
         private final MessageInstance _messageInstance;
@@ -69,7 +82,15 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
             return _usesCredit;
         }
     }
-    private final Map<Long, MessageConsumerAssociationImpl> _map;
+    private final int _initialCapacity;
+    private MessageConsumerAssociationImpl[] _ring = EMPTY_RING;
+    // index of the slot for the delivery tag _headTag
+    private int _head;
+    private long _headTag;
+    // number of slots, from the head, covering delivery tags which have been added
+    private int _span;
+    private int _ringCount;
+    private NavigableMap<Long, MessageConsumerAssociationImpl> _overflow;
     // we keep this separately as it is accessed by the management thread
     private volatile int _size;
 
@@ -77,7 +98,7 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
 
     UnacknowledgedMessageMapImpl(int prefetchLimit, CreditRestorer creditRestorer)
     {
-        _map = new LinkedHashMap<>(prefetchLimit);
+        _initialCapacity = capacityFor(Math.max(MINIMUM_CAPACITY, prefetchLimit));
         _creditRestorer = creditRestorer;
     }
 
@@ -86,11 +107,23 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         if (multiple)
         {
-            collect(deliveryTag, msgs);
+            final boolean all = deliveryTag == 0L;
+            if (_overflow != null)
+            {
+                msgs.putAll(all ? _overflow : _overflow.headMap(deliveryTag, true));
+            }
+            for (int i = 0; i < _span && (all || _headTag + i <= deliveryTag); i++)
+            {
+                final MessageConsumerAssociationImpl association = _ring[slot(i)];
+                if (association != null)
+                {
+                    msgs.put(_headTag + i, association);
+                }
+            }
         }
         else
         {
-            final MessageConsumerAssociation messageConsumerAssociation = _map.get(deliveryTag);
+            final MessageConsumerAssociation messageConsumerAssociation = lookup(deliveryTag);
             if(messageConsumerAssociation != null)
             {
                 msgs.put(deliveryTag, messageConsumerAssociation);
@@ -99,35 +132,50 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
 
     }
 
-    private void remove(Collection<Long> msgs)
-    {
-        for (Long deliveryTag : msgs)
-        {
-            remove(deliveryTag, true);
-        }
-    }
-
     @Override
     public MessageConsumerAssociation remove(long deliveryTag, final boolean restoreCredit)
     {
-        MessageConsumerAssociationImpl entry = _map.remove(deliveryTag);
-        if(entry != null)
+        final MessageConsumerAssociationImpl entry;
+        if (inRing(deliveryTag))
         {
-            _size--;
-            if(restoreCredit && entry.isUsesCredit())
+            final int index = slot((int) (deliveryTag - _headTag));
+            entry = _ring[index];
+            if (entry != null)
             {
-                _creditRestorer.restoreCredit(entry.getConsumer().getTarget(), 1, entry.getSize());
+                _ring[index] = null;
+                _ringCount--;
+                trimHead();
             }
         }
+        else
+        {
+            entry = _overflow == null ? null : _overflow.remove(deliveryTag);
+        }
+
+        if(entry != null)
+        {
+            removed(entry, restoreCredit);
+        }
         return entry;
     }
 
     @Override
     public void visit(Visitor visitor)
     {
-        for (Map.Entry<Long, MessageConsumerAssociationImpl> entry : _map.entrySet())
+        if (_overflow != null)
         {
-            visitor.callback(entry.getKey(), entry.getValue());
+            for (Map.Entry<Long, MessageConsumerAssociationImpl> entry : _overflow.entrySet())
+            {
+                visitor.callback(entry.getKey(), entry.getValue());
+            }
+        }
+        for (int i = 0; i < _span; i++)
+        {
+            final MessageConsumerAssociationImpl association = _ring[slot(i)];
+            if (association != null)
+            {
+                visitor.callback(_headTag + i, association);
+            }
         }
         visitor.visitComplete();
     }
@@ -135,14 +183,36 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     @Override
     public void add(long deliveryTag, MessageInstance message, final MessageInstanceConsumer consumer, final boolean usesCredit)
     {
-        if(_map.put(deliveryTag, new MessageConsumerAssociationImpl(message, consumer, usesCredit)) == null)
+        final MessageConsumerAssociationImpl association = new MessageConsumerAssociationImpl(message, consumer, usesCredit);
+        if (deliveryTag >= _headTag && deliveryTag - _headTag >= _span)
         {
-            _size++;
+            ensureCapacity(deliveryTag);
+            _ring[slot((int) (deliveryTag - _headTag))] = association;
+            _span = (int) (deliveryTag - _headTag) + 1;
+            _ringCount++;
+        }
+        else if (deliveryTag >= _headTag)
+        {
+            final int index = slot((int) (deliveryTag - _headTag));
+            if (_ring[index] != null)
+            {
+                throw new ConnectionScopedRuntimeException("Unexpected duplicate delivery tag created");
+            }
+            _ring[index] = association;
+            _ringCount++;
         }
         else
         {
-            throw new ConnectionScopedRuntimeException("Unexpected duplicate delivery tag created");
+            if (_overflow == null)
+            {
+                _overflow = new TreeMap<>();
+            }
+            if (_overflow.putIfAbsent(deliveryTag, association) != null)
+            {
+                throw new ConnectionScopedRuntimeException("Unexpected duplicate delivery tag created");
+            }
         }
+        _size++;
     }
 
     @Override
@@ -154,55 +224,175 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     @Override
     public MessageInstance get(long key)
     {
-        MessageConsumerAssociation association = _map.get(key);
+        MessageConsumerAssociation association = lookup(key);
         return association == null ? null : association.getMessageInstance();
     }
 
     @Override
     public Collection<MessageConsumerAssociation> acknowledge(long deliveryTag, boolean multiple)
+    {
+        final List<MessageConsumerAssociation> acknowledged = new ArrayList<>();
+        acknowledge(deliveryTag, multiple, new Visitor()
+        {
+            @Override
+            public boolean callback(final long tag, final MessageConsumerAssociation messageConsumerPair)
+            {
+                acknowledged.add(messageConsumerPair);
+                return false;
+            }
+
+            @Override
+            public void visitComplete()
+            {
+            }
+        });
+        return acknowledged;
+    }
+
+    @Override
+    public void acknowledge(final long deliveryTag, final boolean multiple, final Visitor visitor)
     {
         if(multiple)
         {
-            Map<Long, MessageConsumerAssociation> ackedMessageMap = new LinkedHashMap<>();
-            collect(deliveryTag, multiple, ackedMessageMap);
-            remove(ackedMessageMap.keySet());
-            List<MessageConsumerAssociation> acknowledged = new ArrayList<>();
-            for (MessageConsumerAssociation messageConsumerAssociation : ackedMessageMap.values())
+            final boolean all = deliveryTag == 0L;
+            if (_overflow != null)
+            {
+                final Iterator<Map.Entry<Long, MessageConsumerAssociationImpl>> iterator =
+                        (all ? _overflow : _overflow.headMap(deliveryTag, true)).entrySet().iterator();
+                while (iterator.hasNext())
+                {
+                    final Map.Entry<Long, MessageConsumerAssociationImpl> entry = iterator.next();
+                    iterator.remove();
+                    acknowledged(entry.getKey(), entry.getValue(), visitor);
+                }
+            }
+            while (_span > 0 && (all || _headTag <= deliveryTag))
             {
-                MessageInstance instance = messageConsumerAssociation.getMessageInstance();
-                if (instance.makeAcquisitionUnstealable(messageConsumerAssociation.getConsumer()))
+                final MessageConsumerAssociationImpl association = _ring[_head];
+                if (association != null)
                 {
-                    acknowledged.add(messageConsumerAssociation);
+                    _ring[_head] = null;
+                    _ringCount--;
+                    acknowledged(_headTag, association, visitor);
                 }
+                advanceHead();
             }
-            return acknowledged;
+            trimHead();
         }
         else
         {
             final MessageConsumerAssociation association = remove(deliveryTag, true);
-            final MessageInstance messageInstance = association.getMessageInstance();
-            if(association != null && messageInstance.makeAcquisitionUnstealable(association.getConsumer()))
-            {
-                return Collections.singleton(association);
-            }
-            else
+            if(association != null
+               && association.getMessageInstance().makeAcquisitionUnstealable(association.getConsumer()))
             {
-                return Collections.emptySet();
+                visitor.callback(deliveryTag, association);
             }
+        }
+        visitor.visitComplete();
+    }
+
+    private void acknowledged(final long deliveryTag,
+                              final MessageConsumerAssociationImpl association,
+                              final Visitor visitor)
+    {
+        removed(association, true);
+        if (association.getMessageInstance().makeAcquisitionUnstealable(association.getConsumer()))
+        {
+            visitor.callback(deliveryTag, association);
+        }
+    }
 
+    private void removed(final MessageConsumerAssociationImpl entry, final boolean restoreCredit)
+    {
+        _size--;
+        if(restoreCredit && entry.isUsesCredit())
+        {
+            _creditRestorer.restoreCredit(entry.getConsumer().getTarget(), 1, entry.getSize());
         }
     }
 
-    private void collect(long key, Map<Long, MessageConsumerAssociation> msgs)
+    private MessageConsumerAssociationImpl lookup(final long deliveryTag)
     {
-        for (Map.Entry<Long, MessageConsumerAssociationImpl> entry : _map.entrySet())
+        if (inRing(deliveryTag))
         {
-            msgs.put(entry.getKey(), entry.getValue());
-            if (entry.getKey() == key)
+            return _ring[slot((int) (deliveryTag - _headTag))];
+        }
+        return _overflow == null ? null : _overflow.get(deliveryTag);
+    }
+
+    private boolean inRing(final long deliveryTag)
+    {
+        return deliveryTag >= _headTag && deliveryTag - _headTag < _span;
+    }
+
+    private int slot(final int offset)
+    {
+        return (_head + offset) & (_ring.length - 1);
+    }
+
+    private void advanceHead()
+    {
+        _head = (_head + 1) & (_ring.length - 1);
+        _headTag++;
+        _span--;
+    }
+
+    private void trimHead()
+    {
+        while (_span > 0 && _ring[_head] == null)
+        {
+            advanceHead();
+        }
+    }
+
+    private void ensureCapacity(final long deliveryTag)
+    {
+        // rather than growing a ring which would be mostly empty, move its oldest deliveries to the overflow
+        while (_span > 0
+               && deliveryTag - _headTag >= _ring.length
+               && (long) _ringCount * 4 <= deliveryTag - _headTag)
+        {
+            final MessageConsumerAssociationImpl association = _ring[_head];
+            if (association != null)
             {
-                break;
+                if (_overflow == null)
+                {
+                    _overflow = new TreeMap<>();
+                }
+                _overflow.put(_headTag, association);
+                _ring[_head] = null;
+                _ringCount--;
             }
+            advanceHead();
+        }
+
+        if (_span == 0)
+        {
+            _head = 0;
+            _headTag = deliveryTag;
+        }
+
+        final long required = deliveryTag - _headTag + 1;
+        if (required > _ring.length)
+        {
+            if (required > MAXIMUM_CAPACITY)
+            {
+                throw new ConnectionScopedRuntimeException("Too many unacknowledged deliveries: " + required);
+            }
+            final MessageConsumerAssociationImpl[] ring =
+                    new MessageConsumerAssociationImpl[Math.max(_initialCapacity, capacityFor((int) required))];
+            for (int i = 0; i < _span; i++)
+            {
+                ring[i] = _ring[slot(i)];
+            }
+            _ring = ring;
+            _head = 0;
         }
     }
 
+    private static int capacityFor(final int size)
+    {
+        final int capacity = Integer.highestOneBit(size);
+        return capacity == size ? capacity : capacity << 1;
+    }
 }
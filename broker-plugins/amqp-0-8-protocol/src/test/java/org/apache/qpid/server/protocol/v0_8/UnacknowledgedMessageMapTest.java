@@ -23,7 +23,10 @@ package org.apache.qpid.server.protocol.v0_8;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
@@ -31,6 +34,7 @@ import com.google.common.collect.Collections2;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
 import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.util.ConnectionScopedRuntimeException;
 import org.apache.qpid.test.utils.QpidTestCase;
 
 public class UnacknowledgedMessageMapTest extends QpidTestCase
@@ -82,6 +86,93 @@ public class UnacknowledgedMessageMapTest extends QpidTestCase
 
     }
 
+    public void testAcknowledgeMultipleUpToDeliveryTag()
+    {
+        UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(100, mock(CreditRestorer.class));
+        MessageInstance[] msgs = populateMap(map, 5);
+        map.remove(2, true);
+
+        Collection<MessageConsumerAssociation> acknowledged = map.acknowledge(2, true);
+        Collection<MessageInstance> acknowledgedMessages = Collections2.transform(acknowledged, MESSAGE_INSTANCE_FUNCTION);
+        assertEquals(2, acknowledged.size());
+        assertTrue(acknowledgedMessages.contains(msgs[0]));
+        assertTrue(acknowledgedMessages.contains(msgs[1]));
+        assertEquals(2, map.size());
+        assertEquals(msgs[3], map.get(3));
+        assertEquals(msgs[4], map.get(4));
+
+        acknowledged = map.acknowledge(0, true);
+        assertEquals("Delivery tag zero should acknowledge all outstanding messages", 2, acknowledged.size());
+        assertEquals(0, map.size());
+    }
+
+    public void testSparseAndOutOfOrderDeliveryTags()
+    {
+        UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(1, mock(CreditRestorer.class));
+        final MessageInstance first = createMessageInstance(1);
+        final MessageInstance distant = createMessageInstance(2);
+        final MessageInstance outOfOrder = createMessageInstance(3);
+        map.add(10L, first, _consumer, true);
+        map.add(100000L, distant, _consumer, true);
+        map.add(5L, outOfOrder, _consumer, true);
+        assertEquals(3, map.size());
+        assertEquals(first, map.get(10L));
+        assertEquals(distant, map.get(100000L));
+        assertEquals(outOfOrder, map.get(5L));
+
+        try
+        {
+            map.add(10L, createMessageInstance(4), _consumer, true);
+            fail("Exception not thrown");
+        }
+        catch (ConnectionScopedRuntimeException e)
+        {
+            // pass
+        }
+
+        Collection<MessageInstance> acknowledged =
+                Collections2.transform(map.acknowledge(10L, true), MESSAGE_INSTANCE_FUNCTION);
+        assertEquals(2, acknowledged.size());
+        assertTrue(acknowledged.contains(first));
+        assertTrue(acknowledged.contains(outOfOrder));
+        assertEquals(1, map.size());
+        assertEquals(distant, map.remove(100000L, true).getMessageInstance());
+        assertEquals(0, map.size());
+    }
+
+    public void testAcknowledgeVisitsAcknowledgedDeliveries()
+    {
+        UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(100, mock(CreditRestorer.class));
+        MessageInstance[] msgs = populateMap(map, 5);
+        when(msgs[1].makeAcquisitionUnstealable(_consumer)).thenReturn(Boolean.FALSE);
+
+        final List<Long> deliveryTags = new ArrayList<>();
+        final List<MessageInstance> acknowledged = new ArrayList<>();
+        final boolean[] completed = new boolean[1];
+        map.acknowledge(3, true, new UnacknowledgedMessageMap.Visitor()
+        {
+            @Override
+            public boolean callback(final long deliveryTag, final MessageConsumerAssociation messageConsumerPair)
+            {
+                deliveryTags.add(deliveryTag);
+                acknowledged.add(messageConsumerPair.getMessageInstance());
+                return false;
+            }
+
+            @Override
+            public void visitComplete()
+            {
+                completed[0] = true;
+            }
+        });
+
+        assertTrue("Visit was not completed", completed[0]);
+        assertEquals(Arrays.asList(0L, 2L, 3L), deliveryTags);
+        assertEquals(Arrays.asList(msgs[0], msgs[2], msgs[3]), acknowledged);
+        assertEquals(1, map.size());
+        assertEquals(msgs[4], map.get(4));
+    }
+
     public MessageInstance[] populateMap(final UnacknowledgedMessageMap map, int size)
     {
         MessageInstance[] msgs = new MessageInstance[size];
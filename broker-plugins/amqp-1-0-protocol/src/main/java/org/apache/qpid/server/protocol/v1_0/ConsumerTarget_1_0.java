@@ -32,9 +32,11 @@ import org.apache.qpid.server.consumer.AbstractConsumerTarget;
 import org.apache.qpid.server.logging.EventLogger;
 import org.apache.qpid.server.logging.LogSubject;
 import org.apache.qpid.server.logging.messages.ChannelMessages;
+import org.apache.qpid.server.message.ConvertedMessageCache;
 import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
+import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.plugin.MessageConverter;
@@ -127,15 +129,15 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget<ConsumerTarget_1_0>
     {
         ServerMessage serverMessage = entry.getMessage();
         Message_1_0 message;
-        final MessageConverter<? super ServerMessage, Message_1_0> converter;
+        final MessageReference<Message_1_0> convertedMessageReference;
         if(serverMessage instanceof Message_1_0)
         {
-            converter = null;
+            convertedMessageReference = null;
             message = (Message_1_0) serverMessage;
         }
         else
         {
-            converter =
+            final MessageConverter<? super ServerMessage, Message_1_0> converter =
                     (MessageConverter<? super ServerMessage, Message_1_0>) MessageConverterRegistry.getConverter(serverMessage.getClass(), Message_1_0.class);
             if (converter == null)
             {
@@ -145,7 +147,9 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget<ConsumerTarget_1_0>
                         serverMessage.getClass(),
                         Message_1_0.class));
             }
-            message = converter.convert(serverMessage, _linkEndpoint.getAddressSpace());
+            convertedMessageReference =
+                    ConvertedMessageCache.convert(converter, serverMessage, _linkEndpoint.getAddressSpace());
+            message = convertedMessageReference.getMessage();
         }
 
         Transfer transfer = new Transfer();
@@ -301,9 +305,9 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget<ConsumerTarget_1_0>
         finally
         {
             transfer.dispose();
-            if(converter != null)
+            if(convertedMessageReference != null)
             {
-                converter.dispose(message);
+                convertedMessageReference.release();
             }
         }
     }
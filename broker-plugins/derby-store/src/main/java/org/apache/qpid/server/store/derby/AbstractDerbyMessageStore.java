@@ -93,11 +93,18 @@ public abstract class AbstractDerbyMessageStore extends AbstractJDBCMessageStore
         {
             try
             {
-                doClose();
+                stopCommitter();
             }
             finally
             {
-                super.closeMessageStore();
+                try
+                {
+                    doClose();
+                }
+                finally
+                {
+                    super.closeMessageStore();
+                }
             }
         }
     }
@@ -31,6 +31,7 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -88,6 +89,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
     private String _tablePrefix = "";
     private final AtomicLong _inMemorySize = new AtomicLong();
     private final AtomicLong _bytesEvacuatedFromMemory = new AtomicLong();
+    private final AtomicLong _bytesReloadedIntoMemory = new AtomicLong();
     private final Set<StoredJDBCMessage<?>> _messages = Collections.newSetFromMap(new ConcurrentHashMap<>());
     private final Set<MessageDeleteListener> _messageDeleteListeners = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
@@ -95,6 +97,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
 
     protected abstract void checkMessageStoreOpen();
     private ScheduledThreadPoolExecutor _executor;
+    private volatile CoalescingCommitter<TransactionOperations> _committer;
 
     public AbstractJDBCMessageStore()
     {
@@ -218,6 +221,73 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         });
         _executor.prestartAllCoreThreads();
 
+        if (getContextValue(parent, Boolean.class, CoalescingCommitter.ENABLED, CoalescingCommitter.DEFAULT_ENABLED))
+        {
+            _committer = new CoalescingCommitter<>(parent.getName(),
+                                                   new CoalescingCommitter.BatchWriter<TransactionOperations>()
+                                                   {
+                                                       @Override
+                                                       public Connection newConnection() throws SQLException
+                                                       {
+                                                           return AbstractJDBCMessageStore.this.newConnection();
+                                                       }
+
+                                                       @Override
+                                                       public void write(final Connection connection,
+                                                                         final List<TransactionOperations> transactions)
+                                                               throws SQLException
+                                                       {
+                                                           writeOperations(connection, transactions);
+                                                       }
+
+                                                       @Override
+                                                       public void rolledBack(final List<TransactionOperations> transactions)
+                                                       {
+                                                           operationsRolledBack(transactions);
+                                                       }
+                                                   },
+                                                   getContextValue(parent,
+                                                                   Integer.class,
+                                                                   CoalescingCommitter.MAX_BATCH_SIZE,
+                                                                   CoalescingCommitter.DEFAULT_MAX_BATCH_SIZE),
+                                                   getContextValue(parent,
+                                                                   Long.class,
+                                                                   CoalescingCommitter.LINGER_TIME,
+                                                                   CoalescingCommitter.DEFAULT_LINGER_TIME));
+            _committer.start();
+        }
+    }
+
+    private static <T> T getContextValue(final ConfiguredObject<?> parent,
+                                         final Class<T> type,
+                                         final String name,
+                                         final T defaultValue)
+    {
+        final T value = parent.getContextValue(type, name);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Stops the committer, if any, once the transactions it has queued are committed.  Must be called before the
+     * connections to the database are closed.
+     */
+    protected void stopCommitter()
+    {
+        final CoalescingCommitter<TransactionOperations> committer = _committer;
+        if (committer != null)
+        {
+            _committer = null;
+            committer.stop();
+        }
+    }
+
+    /**
+     * @return the committer coalescing asynchronous commits, or null if commits are not coalesced or the store is
+     * not open
+     */
+    public CoalescingCommitter<?> getCoalescingCommitter()
+    {
+        return _committer;
     }
 
     @Override
@@ -230,6 +300,8 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         _messages.clear();
         _inMemorySize.set(0);
         _bytesEvacuatedFromMemory.set(0);
+        _bytesReloadedIntoMemory.set(0);
+        stopCommitter();
         if(_executor != null)
         {
             _executor.shutdown();
@@ -524,71 +596,176 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         return new JDBCTransaction();
     }
 
-    private void enqueueMessage(ConnectionWrapper connWrapper, final TransactionLogResource queue, Long messageId) throws StoreException
+    /**
+     * Writes the messages, enqueues and dequeues of the given transactions using batch statements.  The enqueues and
+     * dequeues keep the order in which the transactions made them: those of consecutive transactions are batched
+     * together, enqueues ahead of dequeues, until an enqueue follows a dequeue of the same message from the same
+     * queue, at which point the operations batched so far are written first.
+     */
+    private void writeOperations(final Connection conn, final List<TransactionOperations> transactions)
+            throws SQLException
     {
-        Connection conn = connWrapper.getConnection();
+        storeMessages(conn, transactions);
 
+        final List<MessageEnqueueRecord> enqueues = new ArrayList<>();
+        final List<MessageEnqueueRecord> dequeues = new ArrayList<>();
+        final Set<JDBCEnqueueRecord> dequeuedEntries = new HashSet<>();
+        for (TransactionOperations transaction : transactions)
+        {
+            for (QueueEntryOperation operation : transaction.getQueueEntryOperations())
+            {
+                final MessageEnqueueRecord record = operation.getRecord();
+                if (operation.isEnqueue())
+                {
+                    if (!dequeuedEntries.isEmpty()
+                        && dequeuedEntries.contains(new JDBCEnqueueRecord(record.getQueueId(),
+                                                                          record.getMessageNumber())))
+                    {
+                        writeQueueEntries(conn, enqueues, dequeues);
+                        dequeuedEntries.clear();
+                    }
+                    enqueues.add(record);
+                }
+                else
+                {
+                    dequeues.add(record);
+                    dequeuedEntries.add(new JDBCEnqueueRecord(record.getQueueId(), record.getMessageNumber()));
+                }
+            }
+        }
+        writeQueueEntries(conn, enqueues, dequeues);
+    }
 
-        try
+    private void writeQueueEntries(final Connection conn,
+                                   final List<MessageEnqueueRecord> enqueues,
+                                   final List<MessageEnqueueRecord> dequeues) throws SQLException
+    {
+        if (!enqueues.isEmpty())
+        {
+            enqueueMessages(conn, enqueues);
+            enqueues.clear();
+        }
+        if (!dequeues.isEmpty())
+        {
+            dequeueMessages(conn, dequeues);
+            dequeues.clear();
+        }
+    }
+
+    /**
+     * Reverts the messages stored by a write of the given transactions which was rolled back to unstored, so that
+     * they are stored again when the transactions are retried.
+     */
+    private void operationsRolledBack(final List<TransactionOperations> transactions)
+    {
+        for (TransactionOperations transaction : transactions)
         {
-            if (getLogger().isDebugEnabled())
+            for (StoredJDBCMessage<?> message : transaction.getStoredMessages())
             {
-                getLogger().debug("Enqueuing message {} on queue {} with id {} [Connection {}]",
-                                  messageId, queue.getName(), queue.getId(), conn);
+                message.storeRolledBack();
             }
+            transaction.getStoredMessages().clear();
+        }
+    }
 
-            try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO " + getQueueEntryTableName()
-                                                                + " (queue_id, message_id) values (?,?)"))
+    private void storeMessages(final Connection conn, final List<TransactionOperations> transactions)
+            throws SQLException
+    {
+        final List<AutoCloseable> contentResources = new ArrayList<>();
+        try (PreparedStatement metaDataStmt = conn.prepareStatement("INSERT INTO " + getMetaDataTableName()
+                                                                    + "( message_id , meta_data ) values (?, ?)");
+             PreparedStatement contentStmt = conn.prepareStatement("INSERT INTO " + getMessageContentTableName()
+                                                                   + "( message_id, content ) values (?, ?)"))
+        {
+            int batchedMessages = 0;
+            for (TransactionOperations transaction : transactions)
             {
-                stmt.setString(1, queue.getId().toString());
-                stmt.setLong(2, messageId);
-                stmt.executeUpdate();
+                for (StoredJDBCMessage<?> message : transaction.getMessages())
+                {
+                    if (message.addToBatch(metaDataStmt, contentStmt, contentResources))
+                    {
+                        transaction.getStoredMessages().add(message);
+                        batchedMessages++;
+                    }
+                }
             }
 
+            if (batchedMessages > 0)
+            {
+                metaDataStmt.executeBatch();
+                contentStmt.executeBatch();
+                getLogger().debug("Stored {} message(s)", batchedMessages);
+            }
         }
-        catch (SQLException e)
+        finally
         {
-            getLogger().error("Failed to enqueue message {}", messageId, e);
-            throw new StoreException("Error writing enqueued message with id " + messageId + " for queue " + queue.getName() + " with id " + queue.getId()
-                                     + " to database", e);
+            for (AutoCloseable resource : contentResources)
+            {
+                try
+                {
+                    resource.close();
+                }
+                catch (Exception e)
+                {
+                    getLogger().debug("Failed to close message content", e);
+                }
+            }
         }
-
     }
 
-    private void dequeueMessage(ConnectionWrapper connWrapper, final UUID queueId,
-                                Long messageId) throws StoreException
+    private void enqueueMessages(final Connection conn, final List<MessageEnqueueRecord> enqueues) throws SQLException
     {
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO " + getQueueEntryTableName()
+                                                            + " (queue_id, message_id) values (?,?)"))
+        {
+            for (MessageEnqueueRecord record : enqueues)
+            {
+                getLogger().debug("Enqueuing message {} on queue with id {}",
+                                  record.getMessageNumber(), record.getQueueId());
 
-        Connection conn = connWrapper.getConnection();
+                stmt.setString(1, record.getQueueId().toString());
+                stmt.setLong(2, record.getMessageNumber());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        catch (SQLException e)
+        {
+            getLogger().error("Failed to enqueue {} message(s)", enqueues.size(), e);
+            throw new StoreException("Error writing " + enqueues.size() + " enqueued message(s) to database", e);
+        }
+    }
 
-        try
+    private void dequeueMessages(final Connection conn, final List<MessageEnqueueRecord> dequeues) throws SQLException
+    {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + getQueueEntryTableName()
+                                                            + " WHERE queue_id = ? AND message_id =?"))
         {
-            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + getQueueEntryTableName()
-                                                                + " WHERE queue_id = ? AND message_id =?"))
+            for (MessageEnqueueRecord record : dequeues)
             {
-                stmt.setString(1, queueId.toString());
-                stmt.setLong(2, messageId);
-                int results = stmt.executeUpdate();
-
+                stmt.setString(1, record.getQueueId().toString());
+                stmt.setLong(2, record.getMessageNumber());
+                stmt.addBatch();
+            }
 
-                if (results != 1)
+            final int[] results = stmt.executeBatch();
+            for (int i = 0; i < results.length; i++)
+            {
+                if (results[i] != 1 && results[i] != Statement.SUCCESS_NO_INFO)
                 {
-                    throw new StoreException("Unable to find message with id " + messageId
-                                             + " on queue with id " + queueId);
+                    final MessageEnqueueRecord record = dequeues.get(i);
+                    throw new StoreException("Unable to find message with id " + record.getMessageNumber()
+                                             + " on queue with id " + record.getQueueId());
                 }
-
-                getLogger().debug("Dequeuing message {} on queue with id {}", messageId, queueId);
-
             }
 
+            getLogger().debug("Dequeued {} message(s)", dequeues.size());
         }
         catch (SQLException e)
         {
-            getLogger().error("Failed to dequeue message {}", messageId, e);
-            throw new StoreException("Error deleting enqueued message with id " + messageId + " for queue with id "
-                                     + queueId + " from database", e);
+            getLogger().error("Failed to dequeue {} message(s)", dequeues.size(), e);
+            throw new StoreException("Error deleting " + dequeues.size() + " enqueued message(s) from database", e);
         }
-
     }
 
     private void removeXid(ConnectionWrapper connWrapper, long format, byte[] globalId, byte[] branchId)
@@ -826,17 +1003,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             stmt.setLong(1, messageId);
 
-            final int bodySize = 1 + metaData.getStorableSize();
-            byte[] underlying = new byte[bodySize];
-            underlying[0] = (byte) metaData.getType().ordinal();
-            try (QpidByteBuffer buf = QpidByteBuffer.wrap(underlying))
-            {
-                buf.position(1);
-                try (QpidByteBuffer bufSlice = buf.slice())
-                {
-                    metaData.writeToBuffer(buf);
-                }
-            }
+            final byte[] underlying = getMetaDataBytes(metaData);
             try(ByteArrayInputStream bis = new ByteArrayInputStream(underlying))
             {
                 stmt.setBinaryStream(2, bis, underlying.length);
@@ -856,6 +1023,22 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
     }
 
 
+    private static byte[] getMetaDataBytes(final StorableMessageMetaData metaData)
+    {
+        final int bodySize = 1 + metaData.getStorableSize();
+        byte[] underlying = new byte[bodySize];
+        underlying[0] = (byte) metaData.getType().ordinal();
+        try (QpidByteBuffer buf = QpidByteBuffer.wrap(underlying))
+        {
+            buf.position(1);
+            try (QpidByteBuffer bufSlice = buf.slice())
+            {
+                metaData.writeToBuffer(buf);
+            }
+        }
+        return underlying;
+    }
+
     private static class RecordImpl implements Transaction.EnqueueRecord, Transaction.DequeueRecord, TransactionLogResource, EnqueueableMessage
     {
 
@@ -1047,23 +1230,102 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         return _bytesEvacuatedFromMemory.get();
     }
 
+    @Override
+    public long getBytesReloadedIntoMemory()
+    {
+        return _bytesReloadedIntoMemory.get();
+    }
+
+    /**
+     * The messages, enqueues and dequeues of a transaction, written when the transaction is committed.
+     */
+    private static final class TransactionOperations
+    {
+        private final List<StoredJDBCMessage<?>> _messages = new ArrayList<>();
+        private final List<QueueEntryOperation> _queueEntryOperations = new ArrayList<>();
+        private final List<StoredJDBCMessage<?>> _storedMessages = new ArrayList<>();
+
+        List<StoredJDBCMessage<?>> getMessages()
+        {
+            return _messages;
+        }
+
+        /**
+         * @return the enqueues and dequeues of the transaction in the order they were made
+         */
+        List<QueueEntryOperation> getQueueEntryOperations()
+        {
+            return _queueEntryOperations;
+        }
+
+        /**
+         * @return the messages stored by the last write of the transaction, which must be reverted to unstored
+         * should the write be rolled back
+         */
+        List<StoredJDBCMessage<?>> getStoredMessages()
+        {
+            return _storedMessages;
+        }
+
+        void clear()
+        {
+            _messages.clear();
+            _queueEntryOperations.clear();
+            _storedMessages.clear();
+        }
+    }
+
+    private static final class QueueEntryOperation
+    {
+        private final MessageEnqueueRecord _record;
+        private final boolean _enqueue;
+
+        private QueueEntryOperation(final MessageEnqueueRecord record, final boolean enqueue)
+        {
+            _record = record;
+            _enqueue = enqueue;
+        }
+
+        MessageEnqueueRecord getRecord()
+        {
+            return _record;
+        }
+
+        boolean isEnqueue()
+        {
+            return _enqueue;
+        }
+    }
+
     protected class JDBCTransaction implements Transaction
     {
-        private final ConnectionWrapper _connWrapper;
+        private ConnectionWrapper _connWrapper;
         private int _storeSizeIncrease;
-        private final List<Runnable> _preCommitActions = new ArrayList<>();
+        private final TransactionOperations _operations = new TransactionOperations();
         private final List<Runnable> _postCommitActions = new ArrayList<>();
 
         protected JDBCTransaction()
         {
-            try
-            {
-                _connWrapper = new ConnectionWrapper(newConnection());
-            }
-            catch (SQLException e)
+        }
+
+        /**
+         * The transaction only opens a connection of its own when it is committed synchronously, when the
+         * commit is not coalesced or when distributed transaction records are written.
+         */
+        private ConnectionWrapper getConnectionWrapper()
+        {
+            if (_connWrapper == null)
             {
-                throw new StoreException(e);
+                try
+                {
+                    _connWrapper = new ConnectionWrapper(newConnection());
+                }
+                catch (SQLException e)
+                {
+                    throw new StoreException(e);
+                }
             }
+            return _connWrapper;
         }
 
         @Override
@@ -1074,26 +1336,12 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
             final StoredMessage storedMessage = message.getStoredMessage();
             if(storedMessage instanceof StoredJDBCMessage)
             {
-                _preCommitActions.add(new Runnable()
-                {
-                    @Override
-                    public void run()
-                    {
-                        try
-                        {
-                            ((StoredJDBCMessage) storedMessage).store(_connWrapper.getConnection());
-                            _storeSizeIncrease += storedMessage.getContentSize();
-                        }
-                        catch (SQLException e)
-                        {
-                            throw new StoreException("Exception on enqueuing message into message store" + _messageId,
-                                                     e);
-                        }
-                    }
-                });
+                _operations.getMessages().add((StoredJDBCMessage<?>) storedMessage);
+                _storeSizeIncrease += storedMessage.getContentSize();
             }
-            AbstractJDBCMessageStore.this.enqueueMessage(_connWrapper, queue, message.getMessageNumber());
-            return new JDBCEnqueueRecord(queue.getId(), message.getMessageNumber());
+            final JDBCEnqueueRecord enqueueRecord = new JDBCEnqueueRecord(queue.getId(), message.getMessageNumber());
+            _operations.getQueueEntryOperations().add(new QueueEntryOperation(enqueueRecord, true));
+            return enqueueRecord;
         }
 
         @Override
@@ -1101,16 +1349,14 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             checkMessageStoreOpen();
 
-            AbstractJDBCMessageStore.this.dequeueMessage(_connWrapper,
-                                                         enqueueRecord.getQueueId(),
-                                                         enqueueRecord.getMessageNumber());
+            _operations.getQueueEntryOperations().add(new QueueEntryOperation(enqueueRecord, false));
         }
 
         @Override
         public void commitTran()
         {
             checkMessageStoreOpen();
-            doPreCommitActions();
+            writePendingOperations();
             AbstractJDBCMessageStore.this.commitTran(_connWrapper);
             storedSizeChange(_storeSizeIncrease);
             doPostCommitActions();
@@ -1120,20 +1366,38 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         public <X> ListenableFuture<X> commitTranAsync(final X val)
         {
             checkMessageStoreOpen();
-            doPreCommitActions();
-            ListenableFuture<X> futureResult = AbstractJDBCMessageStore.this.commitTranAsync(_connWrapper, val);
+            final CoalescingCommitter<TransactionOperations> committer = _committer;
+            final ListenableFuture<X> futureResult;
+            if (committer != null && _connWrapper == null)
+            {
+                futureResult = committer.commitAsync(_operations, val);
+            }
+            else
+            {
+                writePendingOperations();
+                futureResult = AbstractJDBCMessageStore.this.commitTranAsync(_connWrapper, val);
+            }
             storedSizeChange(_storeSizeIncrease);
             doPostCommitActions();
             return futureResult;
         }
 
-        private void doPreCommitActions()
+        private void writePendingOperations()
         {
-            for(Runnable action : _preCommitActions)
+            final ConnectionWrapper connWrapper = getConnectionWrapper();
+            try
             {
-                action.run();
+                AbstractJDBCMessageStore.this.writeOperations(connWrapper.getConnection(),
+                                                              Collections.singletonList(_operations));
+            }
+            catch (SQLException e)
+            {
+                throw new StoreException("Error writing transaction to database: " + e.getMessage(), e);
+            }
+            finally
+            {
+                _operations.clear();
             }
-            _preCommitActions.clear();
         }
 
         private void doPostCommitActions()
@@ -1153,8 +1417,11 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         public void abortTran()
         {
             checkMessageStoreOpen();
-            _preCommitActions.clear();
-            AbstractJDBCMessageStore.this.abortTran(_connWrapper);
+            _operations.clear();
+            if (_connWrapper != null)
+            {
+                AbstractJDBCMessageStore.this.abortTran(_connWrapper);
+            }
         }
 
         @Override
@@ -1162,7 +1429,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             checkMessageStoreOpen();
 
-            AbstractJDBCMessageStore.this.removeXid(_connWrapper,
+            AbstractJDBCMessageStore.this.removeXid(getConnectionWrapper(),
                                                     record.getFormat(),
                                                     record.getGlobalId(),
                                                     record.getBranchId());
@@ -1177,7 +1444,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             checkMessageStoreOpen();
 
-            _postCommitActions.addAll(AbstractJDBCMessageStore.this.recordXid(_connWrapper, format, globalId, branchId, enqueues, dequeues));
+            _postCommitActions.addAll(AbstractJDBCMessageStore.this.recordXid(getConnectionWrapper(), format, globalId, branchId, enqueues, dequeues));
             return new JDBCStoredXidRecord(format, globalId, branchId);
         }
 
@@ -1289,6 +1556,11 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
             _isHardRef = false;
         }
 
+        public void setHard()
+        {
+            _isHardRef = true;
+        }
+
         public void reallocate()
         {
             if(_metaData != null)
@@ -1370,6 +1642,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
                         metaData = (T) AbstractJDBCMessageStore.this.getMetaData(_messageId);
                         _messageDataRef = new MessageDataRef<>(metaData, _messageDataRef.getData(), false);
                         _inMemorySize.addAndGet(getMetadataSize());
+                        _bytesReloadedIntoMemory.addAndGet(getMetadataSize());
                     }
                     catch (SQLException e)
                     {
@@ -1423,6 +1696,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
                     data = AbstractJDBCMessageStore.this.getAllContent(_messageId);
                     _messageDataRef.setData(data);
                     _inMemorySize.addAndGet(getContentSize());
+                    _bytesReloadedIntoMemory.addAndGet(getContentSize());
                 }
                 else
                 {
@@ -1457,7 +1731,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
 
         synchronized void store(final Connection conn) throws SQLException
         {
-            if (!stored())
+            if (_messageDataRef != null && !stored())
             {
                 AbstractJDBCMessageStore.this.storeMetaData(conn, _messageId, _messageDataRef.getMetaData());
                 AbstractJDBCMessageStore.this.addContent(conn, _messageId,
@@ -1471,6 +1745,59 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
             }
         }
 
+        /**
+         * Adds the meta-data and content of the message to the given batch statements unless the message is already
+         * stored (or removed).  The streams the content is read from are added to the given resources and must be
+         * closed once the batches are executed.
+         *
+         * @return true if the message was added to the batches
+         */
+        synchronized boolean addToBatch(final PreparedStatement metaDataStmt,
+                                        final PreparedStatement contentStmt,
+                                        final List<AutoCloseable> contentResources) throws SQLException
+        {
+            if (_messageDataRef == null || stored())
+            {
+                return false;
+            }
+
+            getLogger().debug("Adding message {} to store batch", _messageId);
+
+            final byte[] metaDataBytes = getMetaDataBytes(_messageDataRef.getMetaData());
+            metaDataStmt.setLong(1, _messageId);
+            metaDataStmt.setBinaryStream(2, new ByteArrayInputStream(metaDataBytes), metaDataBytes.length);
+            metaDataStmt.addBatch();
+
+            final QpidByteBuffer data = _messageDataRef.getData();
+            final QpidByteBuffer content = data == null ? QpidByteBuffer.emptyQpidByteBuffer() : data.duplicate();
+            contentResources.add(content);
+            final InputStream inputStream = content.asInputStream();
+            contentResources.add(inputStream);
+            contentStmt.setLong(1, _messageId);
+            contentStmt.setBinaryStream(2, inputStream, content.remaining());
+            contentStmt.addBatch();
+
+            _messageDataRef.setSoft();
+            return true;
+        }
+
+        /**
+         * Marks the message as unstored again once the batch which stored it has been rolled back, unless its data
+         * has since been flowed out of memory.
+         */
+        synchronized void storeRolledBack()
+        {
+            if (_messageDataRef != null && _messageDataRef.getMetaData() != null)
+            {
+                _messageDataRef.setHard();
+            }
+            else if (_messageDataRef != null)
+            {
+                getLogger().warn("Message {} was flowed out of memory before the batch storing it was rolled back"
+                                 + " and cannot be stored again", _messageId);
+            }
+        }
+
         synchronized ListenableFuture<Void> flushToStore()
         {
             if (_messageDataRef != null)
@@ -1877,5 +2204,28 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             return _messageNumber;
         }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass())
+            {
+                return false;
+            }
+
+            final JDBCEnqueueRecord that = (JDBCEnqueueRecord) o;
+
+            return _messageNumber == that._messageNumber && _queueId.equals(that._queueId);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * _queueId.hashCode() + (int) (_messageNumber ^ (_messageNumber >>> 32));
+        }
     }
 }
@@ -0,0 +1,488 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.qpid.server.store.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.server.store.StoreException;
+
+/**
+ * Commits the work of many concurrent asynchronous transactions together: the work of the queued transactions is
+ * written by a single thread on a single connection using JDBC batch statements and made durable by one commit,
+ * after which the futures of all the transactions in the batch are completed.
+ * <p>
+ * If a batch cannot be written or committed, its transactions are retried one at a time so that only those which
+ * fail on their own are failed.  Should the commit thread nevertheless exit unexpectedly, the transactions which
+ * remain queued are failed rather than left incomplete.
+ *
+ * @param <T> the type describing the work of a transaction
+ */
+public class CoalescingCommitter<T>
+{
+    public static final String ENABLED = "qpid.jdbcstore.commitCoalescing.enabled";
+    public static final boolean DEFAULT_ENABLED = true;
+
+    public static final String MAX_BATCH_SIZE = "qpid.jdbcstore.commitCoalescing.maxBatchSize";
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    public static final String LINGER_TIME = "qpid.jdbcstore.commitCoalescing.lingerTime";
+    public static final long DEFAULT_LINGER_TIME = 0L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoalescingCommitter.class);
+
+    /**
+     * Writes the work of a batch of transactions.
+     *
+     * @param <T> the type describing the work of a transaction
+     */
+    public interface BatchWriter<T>
+    {
+        /**
+         * @return a new connection with auto-commit disabled
+         */
+        Connection newConnection() throws SQLException;
+
+        void write(Connection connection, List<T> transactions) throws SQLException;
+
+        /**
+         * Called once the work written for the transactions has been rolled back, before they are retried or
+         * failed, so that any state recording the work as stored can be reverted.
+         */
+        void rolledBack(List<T> transactions);
+    }
+
+    private final CommitThread _commitThread;
+    private final BatchWriter<T> _batchWriter;
+    private final int _maxBatchSize;
+    private final long _lingerTime;
+
+    private final AtomicLong _committedBatches = new AtomicLong();
+    private final AtomicLong _committedTransactions = new AtomicLong();
+    private final AtomicLong _failedBatches = new AtomicLong();
+    private final AtomicLong _commitTimeNanos = new AtomicLong();
+    private final AtomicInteger _largestBatch = new AtomicInteger();
+
+    /**
+     * @param name        name used for the commit thread
+     * @param batchWriter writes the work of the transactions in a batch
+     * @param maxBatchSize maximum number of transactions committed together
+     * @param lingerTime  time in milliseconds to wait for further transactions before a batch which is not full
+     *                    is committed, zero to commit as soon as the commit thread is free
+     */
+    public CoalescingCommitter(final String name,
+                               final BatchWriter<T> batchWriter,
+                               final int maxBatchSize,
+                               final long lingerTime)
+    {
+        if (maxBatchSize < 1)
+        {
+            throw new IllegalArgumentException("Maximum batch size must be positive: " + maxBatchSize);
+        }
+        if (lingerTime < 0)
+        {
+            throw new IllegalArgumentException("Linger time must not be negative: " + lingerTime);
+        }
+        _batchWriter = batchWriter;
+        _maxBatchSize = maxBatchSize;
+        _lingerTime = lingerTime;
+        _commitThread = new CommitThread("JDBC-Commit-Thread-" + name);
+    }
+
+    public void start()
+    {
+        _commitThread.start();
+    }
+
+    /**
+     * Stops the commit thread once the transactions queued so far are committed.
+     */
+    public void stop()
+    {
+        _commitThread.close();
+        if (Thread.currentThread() != _commitThread)
+        {
+            try
+            {
+                _commitThread.join();
+            }
+            catch (InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Commit thread has not shutdown", ie);
+            }
+        }
+    }
+
+    public <X> ListenableFuture<X> commitAsync(T transaction, X val)
+    {
+        final SettableFuture<X> future = SettableFuture.create();
+        _commitThread.addJob(new CommitJob<>(transaction, val, future));
+        return future;
+    }
+
+    public int getMaxBatchSize()
+    {
+        return _maxBatchSize;
+    }
+
+    public long getLingerTime()
+    {
+        return _lingerTime;
+    }
+
+    public long getCommittedBatchCount()
+    {
+        return _committedBatches.get();
+    }
+
+    public long getCommittedTransactionCount()
+    {
+        return _committedTransactions.get();
+    }
+
+    public long getFailedBatchCount()
+    {
+        return _failedBatches.get();
+    }
+
+    public int getLargestBatchSize()
+    {
+        return _largestBatch.get();
+    }
+
+    /**
+     * @return the total time in milliseconds taken to write and commit the batches which were committed
+     */
+    public long getCommitTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_commitTimeNanos.get());
+    }
+
+    public int getQueuedTransactionCount()
+    {
+        return _commitThread.getQueueSize();
+    }
+
+    private static final class CommitJob<T, X>
+    {
+        private final T _transaction;
+        private final X _value;
+        private final SettableFuture<X> _future;
+
+        private CommitJob(final T transaction, final X value, final SettableFuture<X> future)
+        {
+            _transaction = transaction;
+            _value = value;
+            _future = future;
+        }
+
+        T getTransaction()
+        {
+            return _transaction;
+        }
+
+        void complete()
+        {
+            _future.set(_value);
+        }
+
+        void abort(Throwable e)
+        {
+            _future.setException(e);
+        }
+    }
+
+    private class CommitThread extends Thread
+    {
+        private final AtomicBoolean _stopped = new AtomicBoolean(false);
+        private volatile boolean _terminated;
+        private final Queue<CommitJob<T, ?>> _jobQueue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger _queueSize = new AtomicInteger();
+        private final Object _lock = new Object();
+
+        private final List<CommitJob<T, ?>> _inProcessJobs = new ArrayList<>();
+
+        private CommitThread(String name)
+        {
+            super(name);
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (!_stopped.get() || hasJobs())
+                {
+                    synchronized (_lock)
+                    {
+                        while (!_stopped.get() && !hasJobs())
+                        {
+                            try
+                            {
+                                // Periodically wake up and check, just in case we
+                                // missed a notification. Don't want to lock the broker hard.
+                                _lock.wait(500);
+                            }
+                            catch (InterruptedException e)
+                            {
+                            }
+                        }
+
+                        if (_lingerTime > 0)
+                        {
+                            linger();
+                        }
+                    }
+                    processJobs();
+                }
+            }
+            finally
+            {
+                _terminated = true;
+                final List<CommitJob<T, ?>> unfinishedJobs = new ArrayList<>(_inProcessJobs);
+                _inProcessJobs.clear();
+                failJobs(unfinishedJobs);
+                failQueuedJobs();
+            }
+        }
+
+        private void failQueuedJobs()
+        {
+            final List<CommitJob<T, ?>> queuedJobs = new ArrayList<>();
+            CommitJob<T, ?> job;
+            while ((job = _jobQueue.poll()) != null)
+            {
+                _queueSize.decrementAndGet();
+                queuedJobs.add(job);
+            }
+            failJobs(queuedJobs);
+        }
+
+        private void failJobs(final List<CommitJob<T, ?>> jobs)
+        {
+            if (!jobs.isEmpty())
+            {
+                final StoreException failure = new StoreException("Commit thread " + getName() + " has stopped");
+                for (CommitJob<T, ?> job : jobs)
+                {
+                    job.abort(failure);
+                }
+            }
+        }
+
+        private void linger()
+        {
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(_lingerTime);
+            long remaining;
+            while (!_stopped.get()
+                   && _queueSize.get() < _maxBatchSize
+                   && (remaining = deadline - System.nanoTime()) > 0)
+            {
+                try
+                {
+                    TimeUnit.NANOSECONDS.timedWait(_lock, remaining);
+                }
+                catch (InterruptedException e)
+                {
+                }
+            }
+        }
+
+        private void processJobs()
+        {
+            CommitJob<T, ?> job;
+            while (_inProcessJobs.size() < _maxBatchSize && (job = _jobQueue.poll()) != null)
+            {
+                _queueSize.decrementAndGet();
+                _inProcessJobs.add(job);
+            }
+
+            if (_inProcessJobs.isEmpty())
+            {
+                return;
+            }
+
+            try
+            {
+                commitJobs(_inProcessJobs);
+            }
+            catch (Throwable e)
+            {
+                // errors are caught too: were the commit thread to die, the transactions would never complete
+                if (_inProcessJobs.size() == 1)
+                {
+                    LOGGER.error("Failed to commit transaction", e);
+                    _inProcessJobs.get(0).abort(e);
+                }
+                else
+                {
+                    // one bad transaction must not fail the others in its batch
+                    LOGGER.warn("Failed to commit batch of {} transaction(s), committing them one at a time",
+                                _inProcessJobs.size(), e);
+                    for (CommitJob<T, ?> retriedJob : _inProcessJobs)
+                    {
+                        try
+                        {
+                            commitJobs(Collections.<CommitJob<T, ?>>singletonList(retriedJob));
+                        }
+                        catch (Throwable t)
+                        {
+                            LOGGER.error("Failed to commit transaction", t);
+                            retriedJob.abort(t);
+                        }
+                    }
+                }
+            }
+            _inProcessJobs.clear();
+        }
+
+        /**
+         * Writes and commits the work of the given jobs together, then completes them.
+         */
+        private void commitJobs(final List<CommitJob<T, ?>> jobs)
+        {
+            final List<T> transactions = new ArrayList<>(jobs.size());
+            for (CommitJob<T, ?> job : jobs)
+            {
+                transactions.add(job.getTransaction());
+            }
+
+            final long startTime = System.nanoTime();
+            try
+            {
+                commitBatch(transactions);
+            }
+            catch (RuntimeException | Error e)
+            {
+                _failedBatches.incrementAndGet();
+                throw e;
+            }
+            final long duration = System.nanoTime() - startTime;
+
+            _committedBatches.incrementAndGet();
+            _committedTransactions.addAndGet(jobs.size());
+            _commitTimeNanos.addAndGet(duration);
+            _largestBatch.accumulateAndGet(jobs.size(), Math::max);
+
+            LOGGER.debug("Committed batch of {} transaction(s) in {} ms",
+                         jobs.size(), TimeUnit.NANOSECONDS.toMillis(duration));
+
+            for (CommitJob<T, ?> completedJob : jobs)
+            {
+                try
+                {
+                    completedJob.complete();
+                }
+                catch (Throwable e)
+                {
+                    LOGGER.error("Failed to complete committed transaction", e);
+                }
+            }
+        }
+
+        private void commitBatch(final List<T> transactions)
+        {
+            try (Connection connection = _batchWriter.newConnection())
+            {
+                try
+                {
+                    _batchWriter.write(connection, transactions);
+                    connection.commit();
+                }
+                catch (SQLException | RuntimeException | Error e)
+                {
+                    try
+                    {
+                        connection.rollback();
+                    }
+                    catch (SQLException t)
+                    {
+                        // ignore - we are re-throwing underlying exception
+                    }
+                    _batchWriter.rolledBack(transactions);
+                    throw e;
+                }
+            }
+            catch (SQLException e)
+            {
+                throw new StoreException("Error committing batch of " + transactions.size()
+                                         + " transaction(s): " + e.getMessage(), e);
+            }
+        }
+
+        private boolean hasJobs()
+        {
+            return !_jobQueue.isEmpty();
+        }
+
+        int getQueueSize()
+        {
+            return _queueSize.get();
+        }
+
+        void addJob(CommitJob<T, ?> job)
+        {
+            if (_stopped.get())
+            {
+                throw new IllegalStateException("Commit thread is stopped");
+            }
+            _jobQueue.add(job);
+            final int queueSize = _queueSize.incrementAndGet();
+            if (_terminated)
+            {
+                // the commit thread exited after the check above, so no one else will complete the job
+                failQueuedJobs();
+                return;
+            }
+            if (queueSize == 1 || queueSize == _maxBatchSize)
+            {
+                synchronized (_lock)
+                {
+                    _lock.notifyAll();
+                }
+            }
+        }
+
+        void close()
+        {
+            synchronized (_lock)
+            {
+                _stopped.set(true);
+                _lock.notifyAll();
+            }
+        }
+    }
+}
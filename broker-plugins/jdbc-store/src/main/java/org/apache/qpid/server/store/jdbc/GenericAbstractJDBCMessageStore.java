@@ -42,6 +42,7 @@ public abstract class GenericAbstractJDBCMessageStore extends AbstractJDBCMessag
         if (_messageStoreOpen.compareAndSet(false, true))
         {
             _parent = parent;
+            initMessageStore(parent);
             super.setTablePrefix(getTablePrefix(parent));
             doOpen(parent);
 
@@ -78,8 +79,15 @@ public abstract class GenericAbstractJDBCMessageStore extends AbstractJDBCMessag
             }
             finally
             {
-                doClose();
-                super.closeMessageStore();
+                try
+                {
+                    stopCommitter();
+                }
+                finally
+                {
+                    doClose();
+                    super.closeMessageStore();
+                }
             }
 
         }
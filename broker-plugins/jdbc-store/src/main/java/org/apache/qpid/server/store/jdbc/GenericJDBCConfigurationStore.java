@@ -154,6 +154,11 @@ public class GenericJDBCConfigurationStore extends AbstractJDBCConfigurationStor
         return _connectionProvider.getConnection();
     }
 
+    public ConnectionProvider getConnectionProvider()
+    {
+        return _connectionProvider;
+    }
+
     @Override
     public void closeConfigurationStore() throws StoreException
     {
@@ -0,0 +1,543 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.jdbc;
+
+import static org.apache.qpid.server.store.jdbc.PooledConnectionProviderFactory.BORROW_TIMEOUT;
+import static org.apache.qpid.server.store.jdbc.PooledConnectionProviderFactory.MAX_CONNECTIONS;
+import static org.apache.qpid.server.store.jdbc.PooledConnectionProviderFactory.STATEMENT_CACHE_SIZE;
+import static org.apache.qpid.server.store.jdbc.PooledConnectionProviderFactory.VALIDATION_TIMEOUT;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of connections obtained from the {@link DriverManager}.
+ * <p>
+ * Idle connections are validated before they are handed out.  Each pooled connection caches the statements
+ * prepared with {@link Connection#prepareStatement(String)}: closing such a statement returns it to the cache of
+ * its connection, so the fixed statements of the stores are only prepared once per connection.  Closing a connection
+ * rolls back any uncommitted work and returns the connection to the pool.
+ */
+public class PooledConnectionProvider implements ConnectionProvider
+{
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+    public static final long DEFAULT_BORROW_TIMEOUT = 30000L;
+    public static final int DEFAULT_VALIDATION_TIMEOUT = 5;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledConnectionProvider.class);
+
+    private final String _connectionUrl;
+    private final String _username;
+    private final String _password;
+    private final int _maxConnections;
+    private final long _borrowTimeout;
+    private final int _validationTimeout;
+    private final int _statementCacheSize;
+
+    private final Semaphore _permits;
+    private final Deque<PooledConnection> _idleConnections = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger _openConnectionCount = new AtomicInteger();
+    private final AtomicInteger _activeConnectionCount = new AtomicInteger();
+    private final AtomicLong _borrowCount = new AtomicLong();
+    private final AtomicLong _borrowTimeoutCount = new AtomicLong();
+    private final AtomicLong _invalidConnectionCount = new AtomicLong();
+    private final AtomicLong _statementCacheHitCount = new AtomicLong();
+    private final AtomicLong _statementCacheMissCount = new AtomicLong();
+    private volatile boolean _closed;
+
+    public PooledConnectionProvider(String connectionUrl,
+                                    String username,
+                                    String password,
+                                    Map<String, String> providerAttributes)
+    {
+        _connectionUrl = connectionUrl;
+        _username = username;
+        _password = password;
+        _maxConnections = Math.max(1, convertToIntWithDefault(MAX_CONNECTIONS, providerAttributes, DEFAULT_MAX_CONNECTIONS));
+        _borrowTimeout = convertToLongWithDefault(BORROW_TIMEOUT, providerAttributes, DEFAULT_BORROW_TIMEOUT);
+        _validationTimeout = convertToIntWithDefault(VALIDATION_TIMEOUT, providerAttributes, DEFAULT_VALIDATION_TIMEOUT);
+        _statementCacheSize = convertToIntWithDefault(STATEMENT_CACHE_SIZE, providerAttributes, DEFAULT_STATEMENT_CACHE_SIZE);
+        _permits = new Semaphore(_maxConnections, true);
+    }
+
+    private int convertToIntWithDefault(String key, Map<String, String> context, int defaultValue)
+    {
+        return (int) convertToLongWithDefault(key, context, defaultValue);
+    }
+
+    private long convertToLongWithDefault(String key, Map<String, String> context, long defaultValue)
+    {
+        if (context.containsKey(key))
+        {
+            try
+            {
+                return Long.parseLong(context.get(key));
+            }
+            catch (NumberFormatException e)
+            {
+                return defaultValue;
+            }
+        }
+        else
+        {
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException
+    {
+        checkOpen();
+        try
+        {
+            if (!_permits.tryAcquire(_borrowTimeout, TimeUnit.MILLISECONDS))
+            {
+                _borrowTimeoutCount.incrementAndGet();
+                throw new SQLException(String.format("Timed out after %d ms waiting for one of %d pooled connections to '%s'",
+                                                     _borrowTimeout, _maxConnections, _connectionUrl));
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a pooled connection", e);
+        }
+
+        try
+        {
+            checkOpen();
+            PooledConnection pooledConnection = pollValidIdleConnection();
+            if (pooledConnection == null)
+            {
+                pooledConnection = new PooledConnection(openConnection());
+            }
+            _activeConnectionCount.incrementAndGet();
+            _borrowCount.incrementAndGet();
+            return pooledConnection.lease();
+        }
+        catch (SQLException | RuntimeException e)
+        {
+            _permits.release();
+            throw e;
+        }
+    }
+
+    private void checkOpen() throws SQLException
+    {
+        if (_closed)
+        {
+            throw new SQLException("Connection pool for '" + _connectionUrl + "' is closed");
+        }
+    }
+
+    private PooledConnection pollValidIdleConnection()
+    {
+        PooledConnection pooledConnection;
+        while ((pooledConnection = _idleConnections.pollFirst()) != null)
+        {
+            if (pooledConnection.isValid())
+            {
+                return pooledConnection;
+            }
+            _invalidConnectionCount.incrementAndGet();
+            pooledConnection.closePhysically();
+        }
+        return null;
+    }
+
+    private Connection openConnection() throws SQLException
+    {
+        final Connection connection = _username == null
+                ? DriverManager.getConnection(_connectionUrl)
+                : DriverManager.getConnection(_connectionUrl, _username, _password);
+        _openConnectionCount.incrementAndGet();
+        return connection;
+    }
+
+    private void release(PooledConnection pooledConnection, boolean reusable)
+    {
+        try
+        {
+            _activeConnectionCount.decrementAndGet();
+            if (reusable && !_closed)
+            {
+                _idleConnections.offerFirst(pooledConnection);
+                if (_closed && _idleConnections.remove(pooledConnection))
+                {
+                    pooledConnection.closePhysically();
+                }
+            }
+            else
+            {
+                pooledConnection.closePhysically();
+            }
+        }
+        finally
+        {
+            _permits.release();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException
+    {
+        _closed = true;
+        PooledConnection pooledConnection;
+        while ((pooledConnection = _idleConnections.pollFirst()) != null)
+        {
+            pooledConnection.closePhysically();
+        }
+    }
+
+    public int getMaxConnections()
+    {
+        return _maxConnections;
+    }
+
+    public int getOpenConnectionCount()
+    {
+        return _openConnectionCount.get();
+    }
+
+    public int getActiveConnectionCount()
+    {
+        return _activeConnectionCount.get();
+    }
+
+    public int getIdleConnectionCount()
+    {
+        return _idleConnections.size();
+    }
+
+    public long getBorrowCount()
+    {
+        return _borrowCount.get();
+    }
+
+    public long getBorrowTimeoutCount()
+    {
+        return _borrowTimeoutCount.get();
+    }
+
+    public long getInvalidConnectionCount()
+    {
+        return _invalidConnectionCount.get();
+    }
+
+    public long getStatementCacheHitCount()
+    {
+        return _statementCacheHitCount.get();
+    }
+
+    public long getStatementCacheMissCount()
+    {
+        return _statementCacheMissCount.get();
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable
+    {
+        try
+        {
+            return method.invoke(target, args);
+        }
+        catch (InvocationTargetException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * A physical connection in the pool together with its statement cache.  Only one lease of the connection is
+     * outstanding at any time.
+     */
+    private final class PooledConnection
+    {
+        private final Connection _connection;
+        private final Map<String, CachedStatement> _statementCache;
+
+        private PooledConnection(final Connection connection)
+        {
+            _connection = connection;
+            _statementCache = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, CachedStatement> eldest)
+                {
+                    if (size() > _statementCacheSize && !eldest.getValue().isInUse())
+                    {
+                        eldest.getValue().closePhysically();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private Connection lease()
+        {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                       new Class<?>[]{Connection.class},
+                                                       new ConnectionLease(this));
+        }
+
+        private boolean isValid()
+        {
+            try
+            {
+                return _connection.isValid(_validationTimeout);
+            }
+            catch (SQLException e)
+            {
+                return false;
+            }
+        }
+
+        private PreparedStatement prepareStatement(final Connection lease, final String sql) throws SQLException
+        {
+            if (_statementCacheSize <= 0)
+            {
+                _statementCacheMissCount.incrementAndGet();
+                return _connection.prepareStatement(sql);
+            }
+
+            CachedStatement cachedStatement = _statementCache.get(sql);
+            if (cachedStatement == null)
+            {
+                _statementCacheMissCount.incrementAndGet();
+                cachedStatement = new CachedStatement(_connection.prepareStatement(sql));
+                _statementCache.put(sql, cachedStatement);
+            }
+            else if (cachedStatement.isInUse())
+            {
+                // the same statement is used twice at the same time, the nested use is not cached
+                _statementCacheMissCount.incrementAndGet();
+                return _connection.prepareStatement(sql);
+            }
+            else
+            {
+                _statementCacheHitCount.incrementAndGet();
+            }
+            return cachedStatement.lease(lease);
+        }
+
+        private boolean reset()
+        {
+            try
+            {
+                if (!_connection.getAutoCommit())
+                {
+                    _connection.rollback();
+                    _connection.setAutoCommit(true);
+                }
+                _connection.clearWarnings();
+                return !_connection.isClosed();
+            }
+            catch (SQLException e)
+            {
+                LOGGER.debug("Failed to reset pooled connection, it will be discarded", e);
+                return false;
+            }
+        }
+
+        private void closePhysically()
+        {
+            for (Iterator<CachedStatement> iterator = _statementCache.values().iterator(); iterator.hasNext(); )
+            {
+                iterator.next().closePhysically();
+                iterator.remove();
+            }
+            try
+            {
+                _connection.close();
+            }
+            catch (SQLException e)
+            {
+                LOGGER.debug("Problem closing pooled connection", e);
+            }
+            finally
+            {
+                _openConnectionCount.decrementAndGet();
+            }
+        }
+    }
+
+    private final class ConnectionLease implements InvocationHandler
+    {
+        private final PooledConnection _pooledConnection;
+        private boolean _closed;
+
+        private ConnectionLease(final PooledConnection pooledConnection)
+        {
+            _pooledConnection = pooledConnection;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable
+        {
+            final String methodName = method.getName();
+            switch (methodName)
+            {
+                case "close":
+                    if (!_closed)
+                    {
+                        _closed = true;
+                        release(_pooledConnection, _pooledConnection.reset());
+                    }
+                    return null;
+                case "isClosed":
+                    return _closed || _pooledConnection._connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + _pooledConnection._connection + "]";
+                default:
+                    if (_closed)
+                    {
+                        throw new SQLException("Connection is closed");
+                    }
+                    if ("prepareStatement".equals(methodName)
+                        && args != null && args.length == 1 && args[0] instanceof String)
+                    {
+                        return _pooledConnection.prepareStatement((Connection) proxy, (String) args[0]);
+                    }
+                    return PooledConnectionProvider.invoke(_pooledConnection._connection, method, args);
+            }
+        }
+    }
+
+    private static final class CachedStatement
+    {
+        private final PreparedStatement _statement;
+        private boolean _inUse;
+
+        private CachedStatement(final PreparedStatement statement)
+        {
+            _statement = statement;
+        }
+
+        private boolean isInUse()
+        {
+            return _inUse;
+        }
+
+        private PreparedStatement lease(final Connection connection)
+        {
+            _inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                              new Class<?>[]{PreparedStatement.class},
+                                                              new StatementLease(this, connection));
+        }
+
+        private void release()
+        {
+            try
+            {
+                _statement.clearParameters();
+                _statement.clearBatch();
+            }
+            catch (SQLException e)
+            {
+                LOGGER.debug("Problem clearing cached statement", e);
+            }
+            finally
+            {
+                _inUse = false;
+            }
+        }
+
+        private void closePhysically()
+        {
+            try
+            {
+                _statement.close();
+            }
+            catch (SQLException e)
+            {
+                LOGGER.debug("Problem closing cached statement", e);
+            }
+        }
+    }
+
+    private static final class StatementLease implements InvocationHandler
+    {
+        private final CachedStatement _cachedStatement;
+        private final Connection _connection;
+        private boolean _closed;
+
+        private StatementLease(final CachedStatement cachedStatement, final Connection connection)
+        {
+            _cachedStatement = cachedStatement;
+            _connection = connection;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable
+        {
+            switch (method.getName())
+            {
+                case "close":
+                    if (!_closed)
+                    {
+                        _closed = true;
+                        _cachedStatement.release();
+                    }
+                    return null;
+                case "isClosed":
+                    return _closed || _cachedStatement._statement.isClosed();
+                case "getConnection":
+                    return _connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + _cachedStatement._statement + "]";
+                default:
+                    if (_closed)
+                    {
+                        throw new SQLException("Statement is closed");
+                    }
+                    return PooledConnectionProvider.invoke(_cachedStatement._statement, method, args);
+            }
+        }
+    }
+}
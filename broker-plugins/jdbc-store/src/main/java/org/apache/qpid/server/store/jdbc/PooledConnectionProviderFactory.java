@@ -0,0 +1,64 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.jdbc;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.qpid.server.plugin.PluggableService;
+
+@PluggableService
+public class PooledConnectionProviderFactory implements JDBCConnectionProviderFactory
+{
+    public static final String TYPE = "POOLED";
+
+    public static final String MAX_CONNECTIONS = "qpid.jdbcstore.pooled.maxConnections";
+    public static final String BORROW_TIMEOUT = "qpid.jdbcstore.pooled.borrowTimeout";
+    public static final String VALIDATION_TIMEOUT = "qpid.jdbcstore.pooled.validationTimeout";
+    public static final String STATEMENT_CACHE_SIZE = "qpid.jdbcstore.pooled.statementCacheSize";
+
+    private final Set<String> _supportedAttributes = unmodifiableSet(new HashSet<String>(asList(MAX_CONNECTIONS,
+                                                                                               BORROW_TIMEOUT,
+                                                                                               VALIDATION_TIMEOUT,
+                                                                                               STATEMENT_CACHE_SIZE)));
+
+    @Override
+    public String getType()
+    {
+        return TYPE;
+    }
+
+    @Override
+    public ConnectionProvider getConnectionProvider(String connectionUrl, String username, String password, Map<String, String> providerAttributes)
+    {
+        return new PooledConnectionProvider(connectionUrl, username, password, providerAttributes);
+    }
+
+    @Override
+    public Set<String> getProviderAttributeNames()
+    {
+        return _supportedAttributes;
+    }
+}
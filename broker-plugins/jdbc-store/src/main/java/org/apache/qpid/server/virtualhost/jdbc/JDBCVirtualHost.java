@@ -21,6 +21,10 @@ package org.apache.qpid.server.virtualhost.jdbc;
 
 import org.apache.qpid.server.model.ManagedAttribute;
 import org.apache.qpid.server.model.ManagedContextDefault;
+import org.apache.qpid.server.model.ManagedStatistic;
+import org.apache.qpid.server.model.StatisticType;
+import org.apache.qpid.server.model.StatisticUnit;
+import org.apache.qpid.server.store.jdbc.CoalescingCommitter;
 import org.apache.qpid.server.store.jdbc.DefaultConnectionProviderFactory;
 import org.apache.qpid.server.store.jdbc.JDBCSettings;
 import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
@@ -57,4 +61,46 @@ public interface JDBCVirtualHost<X extends JDBCVirtualHost<X>> extends QueueMana
             immutable = true)
     String getTableNamePrefix();
 
+    @ManagedContextDefault(name = CoalescingCommitter.ENABLED,
+            description = "If true, asynchronously committed transactions are written in batches and committed together")
+    boolean DEFAULT_JDBC_COMMIT_COALESCING_ENABLED = CoalescingCommitter.DEFAULT_ENABLED;
+
+    @ManagedContextDefault(name = CoalescingCommitter.MAX_BATCH_SIZE,
+            description = "Maximum number of transactions committed together")
+    int DEFAULT_JDBC_COMMIT_COALESCING_MAX_BATCH_SIZE = CoalescingCommitter.DEFAULT_MAX_BATCH_SIZE;
+
+    @ManagedContextDefault(name = CoalescingCommitter.LINGER_TIME,
+            description = "Time in milliseconds to wait for further transactions before committing a batch which is"
+                          + " not full")
+    long DEFAULT_JDBC_COMMIT_COALESCING_LINGER_TIME = CoalescingCommitter.DEFAULT_LINGER_TIME;
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Committed Batches",
+                      description = "Total number of batches of asynchronously committed transactions which were committed together.")
+    long getCommittedBatchCount();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Committed Batched Transactions",
+                      description = "Total number of asynchronously committed transactions which were committed in batches.")
+    long getCommittedBatchedTransactionCount();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Failed Batches",
+                      description = "Total number of batches of asynchronously committed transactions which failed to commit.")
+    long getFailedBatchCount();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Largest Batch",
+                      description = "Largest number of asynchronously committed transactions committed together.")
+    int getLargestBatchSize();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.TIME_DURATION, label = "Batch Commit Time",
+                      description = "Total time in milliseconds taken to write and commit the batches of asynchronously committed transactions.")
+    long getBatchCommitTime();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Queued Batch Transactions",
+                      description = "Current number of asynchronously committed transactions waiting to be committed in a batch.")
+    int getQueuedBatchTransactionCount();
 }
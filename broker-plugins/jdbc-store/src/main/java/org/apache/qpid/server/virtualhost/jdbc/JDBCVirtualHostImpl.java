@@ -30,6 +30,7 @@ import org.apache.qpid.server.model.ManagedObjectFactoryConstructor;
 import org.apache.qpid.server.model.VirtualHostNode;
 import org.apache.qpid.server.store.MessageStore;
 import org.apache.qpid.server.store.jdbc.AbstractJDBCMessageStore;
+import org.apache.qpid.server.store.jdbc.CoalescingCommitter;
 import org.apache.qpid.server.store.jdbc.GenericJDBCMessageStore;
 import org.apache.qpid.server.store.jdbc.JDBCContainer;
 import org.apache.qpid.server.store.jdbc.JDBCDetails;
@@ -121,6 +122,56 @@ public class JDBCVirtualHostImpl extends AbstractVirtualHost<JDBCVirtualHostImpl
         }
     }
 
+    @Override
+    public long getCommittedBatchCount()
+    {
+        final CoalescingCommitter<?> committer = getCoalescingCommitter();
+        return committer == null ? 0 : committer.getCommittedBatchCount();
+    }
+
+    @Override
+    public long getCommittedBatchedTransactionCount()
+    {
+        final CoalescingCommitter<?> committer = getCoalescingCommitter();
+        return committer == null ? 0 : committer.getCommittedTransactionCount();
+    }
+
+    @Override
+    public long getFailedBatchCount()
+    {
+        final CoalescingCommitter<?> committer = getCoalescingCommitter();
+        return committer == null ? 0 : committer.getFailedBatchCount();
+    }
+
+    @Override
+    public int getLargestBatchSize()
+    {
+        final CoalescingCommitter<?> committer = getCoalescingCommitter();
+        return committer == null ? 0 : committer.getLargestBatchSize();
+    }
+
+    @Override
+    public long getBatchCommitTime()
+    {
+        final CoalescingCommitter<?> committer = getCoalescingCommitter();
+        return committer == null ? 0 : committer.getCommitTime();
+    }
+
+    @Override
+    public int getQueuedBatchTransactionCount()
+    {
+        final CoalescingCommitter<?> committer = getCoalescingCommitter();
+        return committer == null ? 0 : committer.getQueuedTransactionCount();
+    }
+
+    private CoalescingCommitter<?> getCoalescingCommitter()
+    {
+        final MessageStore messageStore = getMessageStore();
+        return messageStore instanceof AbstractJDBCMessageStore
+                ? ((AbstractJDBCMessageStore) messageStore).getCoalescingCommitter()
+                : null;
+    }
+
     @Override
     public String toString()
     {
@@ -22,6 +22,9 @@ package org.apache.qpid.server.virtualhostnode.jdbc;
 
 import org.apache.qpid.server.model.ManagedAttribute;
 import org.apache.qpid.server.model.ManagedContextDefault;
+import org.apache.qpid.server.model.ManagedStatistic;
+import org.apache.qpid.server.model.StatisticType;
+import org.apache.qpid.server.model.StatisticUnit;
 import org.apache.qpid.server.model.VirtualHostNode;
 import org.apache.qpid.server.store.jdbc.DefaultConnectionProviderFactory;
 import org.apache.qpid.server.store.jdbc.JDBCSettings;
@@ -64,4 +67,44 @@ public interface JDBCVirtualHostNode<X extends JDBCVirtualHostNode<X>> extends V
             validValuePattern = "[a-zA-Z_0-9]*",
             immutable = true)
     String getTableNamePrefix();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Pool Open Connections",
+                      description = "Current number of connections held by the connection pool.  Zero unless the connection pool type is POOLED.")
+    int getPoolOpenConnections();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Pool Active Connections",
+                      description = "Current number of pooled connections borrowed from the connection pool.")
+    int getPoolActiveConnections();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Pool Idle Connections",
+                      description = "Current number of pooled connections waiting to be borrowed.")
+    int getPoolIdleConnections();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Pool Borrows",
+                      description = "Total number of connections borrowed from the connection pool.")
+    long getPoolBorrows();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Pool Borrow Timeouts",
+                      description = "Total number of attempts to borrow a connection which timed out because all pooled connections were in use.")
+    long getPoolBorrowTimeouts();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Pool Invalid Connections",
+                      description = "Total number of idle connections discarded because they failed validation.")
+    long getPoolInvalidConnections();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Pool Statement Cache Hits",
+                      description = "Total number of prepared statements served from the statement cache of a pooled connection.")
+    long getPoolStatementCacheHits();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Pool Statement Cache Misses",
+                      description = "Total number of statements prepared on a pooled connection because they were not cached.")
+    long getPoolStatementCacheMisses();
 }
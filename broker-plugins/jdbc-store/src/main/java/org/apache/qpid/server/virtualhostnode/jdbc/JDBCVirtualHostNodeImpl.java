@@ -35,6 +35,7 @@ import org.apache.qpid.server.store.DurableConfigurationStore;
 import org.apache.qpid.server.store.jdbc.GenericJDBCConfigurationStore;
 import org.apache.qpid.server.store.jdbc.JDBCContainer;
 import org.apache.qpid.server.store.jdbc.JDBCDetails;
+import org.apache.qpid.server.store.jdbc.PooledConnectionProvider;
 import org.apache.qpid.server.store.preferences.PreferenceStore;
 import org.apache.qpid.server.util.ConnectionScopedRuntimeException;
 import org.apache.qpid.server.virtualhostnode.AbstractStandardVirtualHostNode;
@@ -129,6 +130,73 @@ public class JDBCVirtualHostNodeImpl extends AbstractStandardVirtualHostNode<JDB
         }
     }
 
+    @Override
+    public int getPoolOpenConnections()
+    {
+        final PooledConnectionProvider provider = getPooledConnectionProvider();
+        return provider == null ? 0 : provider.getOpenConnectionCount();
+    }
+
+    @Override
+    public int getPoolActiveConnections()
+    {
+        final PooledConnectionProvider provider = getPooledConnectionProvider();
+        return provider == null ? 0 : provider.getActiveConnectionCount();
+    }
+
+    @Override
+    public int getPoolIdleConnections()
+    {
+        final PooledConnectionProvider provider = getPooledConnectionProvider();
+        return provider == null ? 0 : provider.getIdleConnectionCount();
+    }
+
+    @Override
+    public long getPoolBorrows()
+    {
+        final PooledConnectionProvider provider = getPooledConnectionProvider();
+        return provider == null ? 0 : provider.getBorrowCount();
+    }
+
+    @Override
+    public long getPoolBorrowTimeouts()
+    {
+        final PooledConnectionProvider provider = getPooledConnectionProvider();
+        return provider == null ? 0 : provider.getBorrowTimeoutCount();
+    }
+
+    @Override
+    public long getPoolInvalidConnections()
+    {
+        final PooledConnectionProvider provider = getPooledConnectionProvider();
+        return provider == null ? 0 : provider.getInvalidConnectionCount();
+    }
+
+    @Override
+    public long getPoolStatementCacheHits()
+    {
+        final PooledConnectionProvider provider = getPooledConnectionProvider();
+        return provider == null ? 0 : provider.getStatementCacheHitCount();
+    }
+
+    @Override
+    public long getPoolStatementCacheMisses()
+    {
+        final PooledConnectionProvider provider = getPooledConnectionProvider();
+        return provider == null ? 0 : provider.getStatementCacheMissCount();
+    }
+
+    private PooledConnectionProvider getPooledConnectionProvider()
+    {
+        final DurableConfigurationStore store = getConfigurationStore();
+        if (store instanceof GenericJDBCConfigurationStore
+            && ((GenericJDBCConfigurationStore) store).getConnectionProvider() instanceof PooledConnectionProvider)
+        {
+            return (PooledConnectionProvider) ((GenericJDBCConfigurationStore) store).getConnectionProvider();
+        }
+        return null;
+    }
+
     @Override
     public String toString()
     {
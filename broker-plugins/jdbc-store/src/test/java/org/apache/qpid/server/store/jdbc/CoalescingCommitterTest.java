@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.qpid.server.store.jdbc;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import org.apache.qpid.server.store.StoreException;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class CoalescingCommitterTest extends QpidTestCase
+{
+    private Connection _connection;
+    private TestBatchWriter _batchWriter;
+    private CoalescingCommitter<String> _committer;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _connection = mock(Connection.class);
+        _batchWriter = new TestBatchWriter();
+    }
+
+    @Override
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            if (_committer != null)
+            {
+                _batchWriter.release();
+                _committer.stop();
+            }
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    public void testTransactionsQueuedDuringCommitAreCommittedTogether() throws Exception
+    {
+        _committer = new CoalescingCommitter<>("Test", _batchWriter, 10, 0);
+        _committer.start();
+
+        List<ListenableFuture<String>> futures = new ArrayList<>();
+        futures.add(_committer.commitAsync("tx0", "tx0"));
+        _batchWriter.awaitFirstBatch();
+
+        for (int i = 1; i <= 5; i++)
+        {
+            futures.add(_committer.commitAsync("tx" + i, "tx" + i));
+        }
+        _batchWriter.release();
+
+        for (int i = 0; i < futures.size(); i++)
+        {
+            assertEquals("Unexpected result", "tx" + i, futures.get(i).get(1000, TimeUnit.MILLISECONDS));
+        }
+
+        assertEquals("Unexpected batches",
+                     Arrays.asList(Arrays.asList("tx0"), Arrays.asList("tx1", "tx2", "tx3", "tx4", "tx5")),
+                     _batchWriter.getBatches());
+        verify(_connection, times(2)).commit();
+        verify(_connection, times(2)).close();
+
+        assertEquals("Unexpected committed batches", 2L, _committer.getCommittedBatchCount());
+        assertEquals("Unexpected committed transactions", 6L, _committer.getCommittedTransactionCount());
+        assertEquals("Unexpected largest batch", 5, _committer.getLargestBatchSize());
+        assertEquals("Unexpected queued transactions", 0, _committer.getQueuedTransactionCount());
+    }
+
+    public void testBatchSizeIsLimited() throws Exception
+    {
+        _committer = new CoalescingCommitter<>("Test", _batchWriter, 2, 0);
+        _committer.start();
+
+        List<ListenableFuture<String>> futures = new ArrayList<>();
+        futures.add(_committer.commitAsync("tx0", "tx0"));
+        _batchWriter.awaitFirstBatch();
+
+        for (int i = 1; i <= 5; i++)
+        {
+            futures.add(_committer.commitAsync("tx" + i, "tx" + i));
+        }
+        _batchWriter.release();
+
+        for (ListenableFuture<String> future : futures)
+        {
+            future.get(1000, TimeUnit.MILLISECONDS);
+        }
+
+        assertEquals("Unexpected batches",
+                     Arrays.asList(Arrays.asList("tx0"),
+                                   Arrays.asList("tx1", "tx2"),
+                                   Arrays.asList("tx3", "tx4"),
+                                   Arrays.asList("tx5")),
+                     _batchWriter.getBatches());
+    }
+
+    public void testFailedBatchRetriesTransactionsSeparately() throws Exception
+    {
+        final SQLException failure = new SQLException("Test");
+        _batchWriter.setFailure(failure, "tx2");
+        _committer = new CoalescingCommitter<>("Test", _batchWriter, 10, 0);
+        _committer.start();
+
+        ListenableFuture<String> first = _committer.commitAsync("tx0", "tx0");
+        _batchWriter.awaitFirstBatch();
+        ListenableFuture<String> second = _committer.commitAsync("tx1", "tx1");
+        ListenableFuture<String> third = _committer.commitAsync("tx2", "tx2");
+        ListenableFuture<String> fourth = _committer.commitAsync("tx3", "tx3");
+        _batchWriter.release();
+
+        assertEquals("Unexpected result", "tx0", first.get(1000, TimeUnit.MILLISECONDS));
+        assertEquals("Unexpected result", "tx1", second.get(1000, TimeUnit.MILLISECONDS));
+        assertEquals("Unexpected result", "tx3", fourth.get(1000, TimeUnit.MILLISECONDS));
+        try
+        {
+            third.get(1000, TimeUnit.MILLISECONDS);
+            fail("Commit should fail");
+        }
+        catch (ExecutionException e)
+        {
+            assertTrue("Unexpected failure " + e.getCause(), e.getCause() instanceof StoreException);
+            assertEquals("Unexpected cause", failure, e.getCause().getCause());
+        }
+
+        assertEquals("Unexpected batches",
+                     Arrays.asList(Arrays.asList("tx0"),
+                                   Arrays.asList("tx1", "tx2", "tx3"),
+                                   Arrays.asList("tx1"),
+                                   Arrays.asList("tx2"),
+                                   Arrays.asList("tx3")),
+                     _batchWriter.getBatches());
+        assertEquals("Unexpected rolled back batches",
+                     Arrays.asList(Arrays.asList("tx1", "tx2", "tx3"), Arrays.asList("tx2")),
+                     _batchWriter.getRolledBackBatches());
+        verify(_connection, times(3)).commit();
+        verify(_connection, times(2)).rollback();
+        assertEquals("Unexpected failed batches", 2L, _committer.getFailedBatchCount());
+        assertEquals("Unexpected committed transactions", 3L, _committer.getCommittedTransactionCount());
+    }
+
+    public void testFailedBatchFailsAllFailingTransactions() throws Exception
+    {
+        final SQLException failure = new SQLException("Test");
+        _batchWriter.setFailure(failure);
+        _committer = new CoalescingCommitter<>("Test", _batchWriter, 10, 0);
+        _committer.start();
+
+        ListenableFuture<String> first = _committer.commitAsync("tx0", "tx0");
+        _batchWriter.awaitFirstBatch();
+        ListenableFuture<String> second = _committer.commitAsync("tx1", "tx1");
+        ListenableFuture<String> third = _committer.commitAsync("tx2", "tx2");
+        _batchWriter.release();
+
+        for (ListenableFuture<String> future : Arrays.asList(first, second, third))
+        {
+            try
+            {
+                future.get(1000, TimeUnit.MILLISECONDS);
+                fail("Commit should fail");
+            }
+            catch (ExecutionException e)
+            {
+                assertTrue("Unexpected failure " + e.getCause(), e.getCause() instanceof StoreException);
+                assertEquals("Unexpected cause", failure, e.getCause().getCause());
+            }
+        }
+
+        verify(_connection, never()).commit();
+        verify(_connection, times(4)).rollback();
+        assertEquals("Unexpected failed batches", 4L, _committer.getFailedBatchCount());
+    }
+
+    public void testErrorFailsBatchWithoutStoppingCommitThread() throws Exception
+    {
+        final Error failure = new AssertionError("Test");
+        _batchWriter.setFailure(failure);
+        _committer = new CoalescingCommitter<>("Test", _batchWriter, 10, 0);
+        _committer.start();
+
+        ListenableFuture<String> first = _committer.commitAsync("tx0", "tx0");
+        _batchWriter.awaitFirstBatch();
+        _batchWriter.release();
+
+        try
+        {
+            first.get(1000, TimeUnit.MILLISECONDS);
+            fail("Commit should fail");
+        }
+        catch (ExecutionException e)
+        {
+            assertSame("Unexpected cause", failure, e.getCause());
+        }
+        verify(_connection).rollback();
+
+        _batchWriter.setFailure(null);
+        ListenableFuture<String> second = _committer.commitAsync("tx1", "tx1");
+        assertEquals("Commit thread should still commit", "tx1", second.get(1000, TimeUnit.MILLISECONDS));
+        assertEquals("Unexpected failed batches", 1L, _committer.getFailedBatchCount());
+        assertEquals("Unexpected committed batches", 1L, _committer.getCommittedBatchCount());
+    }
+
+    public void testStopCommitsQueuedTransactions() throws Exception
+    {
+        _committer = new CoalescingCommitter<>("Test", _batchWriter, 10, 1000);
+        _committer.start();
+        _batchWriter.release();
+
+        ListenableFuture<String> future = _committer.commitAsync("tx0", "tx0");
+        _committer.stop();
+
+        assertTrue("Queued transaction not committed on stop", future.isDone());
+        assertEquals("Unexpected result", "tx0", future.get());
+
+        try
+        {
+            _committer.commitAsync("tx1", "tx1");
+            fail("Exception not thrown");
+        }
+        catch (IllegalStateException e)
+        {
+            // pass
+        }
+    }
+
+    private class TestBatchWriter implements CoalescingCommitter.BatchWriter<String>
+    {
+        private final List<List<String>> _batches = new CopyOnWriteArrayList<>();
+        private final List<List<String>> _rolledBackBatches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch _firstBatchStarted = new CountDownLatch(1);
+        private final CountDownLatch _release = new CountDownLatch(1);
+        private volatile Throwable _failure;
+        private volatile String _failingTransaction;
+
+        @Override
+        public Connection newConnection()
+        {
+            return _connection;
+        }
+
+        @Override
+        public void write(final Connection connection, final List<String> transactions) throws SQLException
+        {
+            _batches.add(new ArrayList<>(transactions));
+            _firstBatchStarted.countDown();
+            try
+            {
+                assertTrue("Batch writer not released", _release.await(5, TimeUnit.SECONDS));
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            final Throwable failure = _failingTransaction == null || transactions.contains(_failingTransaction)
+                    ? _failure
+                    : null;
+            if (failure instanceof SQLException)
+            {
+                throw (SQLException) failure;
+            }
+            else if (failure instanceof Error)
+            {
+                throw (Error) failure;
+            }
+        }
+
+        @Override
+        public void rolledBack(final List<String> transactions)
+        {
+            _rolledBackBatches.add(new ArrayList<>(transactions));
+        }
+
+        void awaitFirstBatch() throws InterruptedException
+        {
+            assertTrue("First batch not written", _firstBatchStarted.await(5, TimeUnit.SECONDS));
+        }
+
+        void release()
+        {
+            _release.countDown();
+        }
+
+        void setFailure(final Throwable failure)
+        {
+            setFailure(failure, null);
+        }
+
+        /**
+         * @param failingTransaction the transaction whose batches fail, or null for every batch to fail
+         */
+        void setFailure(final Throwable failure, final String failingTransaction)
+        {
+            _failingTransaction = failingTransaction;
+            _failure = failure;
+        }
+
+        List<List<String>> getBatches()
+        {
+            return _batches;
+        }
+
+        List<List<String>> getRolledBackBatches()
+        {
+            return _rolledBackBatches;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.qpid.server.store.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class PooledConnectionProviderTest extends QpidTestCase
+{
+    private String _connectionURL;
+    private PooledConnectionProvider _provider;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _connectionURL = "jdbc:derby:memory:/" + getTestName();
+    }
+
+    @Override
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            if (_provider != null)
+            {
+                _provider.close();
+            }
+            JDBCMessageStoreTest.shutdownDerby(_connectionURL);
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    public void testConnectionReturnedToPoolIsReused() throws Exception
+    {
+        _provider = createProvider(2, 1000L, 64);
+
+        final Connection connection = _provider.getConnection();
+        final Connection physicalConnection = connection.unwrap(Connection.class);
+        assertEquals("Unexpected active connections", 1, _provider.getActiveConnectionCount());
+        connection.close();
+        assertTrue("Connection should be closed", connection.isClosed());
+        assertEquals("Unexpected active connections", 0, _provider.getActiveConnectionCount());
+        assertEquals("Unexpected idle connections", 1, _provider.getIdleConnectionCount());
+
+        final Connection connection2 = _provider.getConnection();
+        assertSame("Pooled connection was not reused", physicalConnection, connection2.unwrap(Connection.class));
+        assertEquals("Unexpected open connections", 1, _provider.getOpenConnectionCount());
+        assertEquals("Unexpected borrow count", 2, _provider.getBorrowCount());
+        connection2.close();
+    }
+
+    public void testUseOfClosedConnectionFails() throws Exception
+    {
+        _provider = createProvider(1, 1000L, 64);
+
+        final Connection connection = _provider.getConnection();
+        connection.close();
+        try
+        {
+            connection.createStatement();
+            fail("Exception not thrown");
+        }
+        catch (SQLException e)
+        {
+            // pass
+        }
+
+        connection.close();
+        assertEquals("Connection returned to the pool twice", 1, _provider.getIdleConnectionCount());
+    }
+
+    public void testBorrowTimesOutWhenPoolExhausted() throws Exception
+    {
+        _provider = createProvider(1, 50L, 64);
+
+        final Connection connection = _provider.getConnection();
+        try
+        {
+            _provider.getConnection();
+            fail("Exception not thrown");
+        }
+        catch (SQLException e)
+        {
+            // pass
+        }
+        assertEquals("Unexpected borrow timeouts", 1, _provider.getBorrowTimeoutCount());
+
+        connection.close();
+        _provider.getConnection().close();
+    }
+
+    public void testUncommittedWorkRolledBackOnClose() throws Exception
+    {
+        _provider = createProvider(1, 1000L, 64);
+
+        try (Connection connection = _provider.getConnection())
+        {
+            connection.createStatement().execute("CREATE TABLE test_table (id INTEGER)");
+        }
+
+        Connection connection = _provider.getConnection();
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO test_table (id) VALUES (?)"))
+        {
+            statement.setInt(1, 1);
+            statement.executeUpdate();
+        }
+        connection.close();
+
+        connection = _provider.getConnection();
+        assertTrue("Connection should be in auto-commit mode", connection.getAutoCommit());
+        try (PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM test_table");
+             ResultSet resultSet = statement.executeQuery())
+        {
+            assertTrue(resultSet.next());
+            assertEquals("Uncommitted insert was not rolled back", 0, resultSet.getInt(1));
+        }
+        connection.close();
+    }
+
+    public void testPreparedStatementsCachedPerConnection() throws Exception
+    {
+        _provider = createProvider(1, 1000L, 64);
+        final String sql = "VALUES 1";
+
+        Connection connection = _provider.getConnection();
+        final PreparedStatement statement = connection.prepareStatement(sql);
+        final PreparedStatement physicalStatement = statement.unwrap(PreparedStatement.class);
+        assertSame("Unexpected connection of statement", connection, statement.getConnection());
+
+        final PreparedStatement nestedStatement = connection.prepareStatement(sql);
+        assertNotSame("Statement in use must not be shared",
+                      physicalStatement, nestedStatement.unwrap(PreparedStatement.class));
+        nestedStatement.close();
+        statement.close();
+        assertTrue("Statement should be closed", statement.isClosed());
+        connection.close();
+
+        connection = _provider.getConnection();
+        try (PreparedStatement cachedStatement = connection.prepareStatement(sql);
+             ResultSet resultSet = cachedStatement.executeQuery())
+        {
+            assertSame("Statement was not cached", physicalStatement, cachedStatement.unwrap(PreparedStatement.class));
+            assertTrue(resultSet.next());
+            assertEquals(1, resultSet.getInt(1));
+        }
+        connection.close();
+
+        assertEquals("Unexpected statement cache hits", 1, _provider.getStatementCacheHitCount());
+        assertEquals("Unexpected statement cache misses", 2, _provider.getStatementCacheMissCount());
+    }
+
+    public void testInvalidConnectionDiscardedOnBorrow() throws Exception
+    {
+        _provider = createProvider(1, 1000L, 64);
+
+        final Connection connection = _provider.getConnection();
+        final Connection physicalConnection = connection.unwrap(Connection.class);
+        connection.close();
+        physicalConnection.close();
+
+        final Connection connection2 = _provider.getConnection();
+        assertNotSame("Invalid connection was reused", physicalConnection, connection2.unwrap(Connection.class));
+        assertEquals("Unexpected invalid connections", 1, _provider.getInvalidConnectionCount());
+        assertEquals("Unexpected open connections", 1, _provider.getOpenConnectionCount());
+        connection2.close();
+    }
+
+    public void testCloseClosesPooledConnections() throws Exception
+    {
+        _provider = createProvider(2, 1000L, 64);
+
+        final Connection idleConnection = _provider.getConnection();
+        final Connection activeConnection = _provider.getConnection();
+        idleConnection.close();
+        assertEquals("Unexpected open connections", 2, _provider.getOpenConnectionCount());
+
+        _provider.close();
+        assertEquals("Unexpected open connections", 1, _provider.getOpenConnectionCount());
+        activeConnection.close();
+        assertEquals("Unexpected open connections", 0, _provider.getOpenConnectionCount());
+
+        try
+        {
+            _provider.getConnection();
+            fail("Exception not thrown");
+        }
+        catch (SQLException e)
+        {
+            // pass
+        }
+    }
+
+    private PooledConnectionProvider createProvider(final int maxConnections,
+                                                    final long borrowTimeout,
+                                                    final int statementCacheSize)
+    {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put(PooledConnectionProviderFactory.MAX_CONNECTIONS, String.valueOf(maxConnections));
+        attributes.put(PooledConnectionProviderFactory.BORROW_TIMEOUT, String.valueOf(borrowTimeout));
+        attributes.put(PooledConnectionProviderFactory.STATEMENT_CACHE_SIZE, String.valueOf(statementCacheSize));
+        return new PooledConnectionProvider(_connectionURL + ";create=true", null, null, attributes);
+    }
+}
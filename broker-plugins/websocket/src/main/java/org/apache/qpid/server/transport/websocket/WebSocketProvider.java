@@ -23,18 +23,16 @@ package org.apache.qpid.server.transport.websocket;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.net.SocketAddress;
-import java.nio.ByteBuffer;
 import java.security.Principal;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
@@ -93,6 +91,8 @@ class WebSocketProvider implements AcceptingTransport
     private final Set<Protocol> _supported;
     private final Protocol _defaultSupportedProtocolReply;
     private final MultiVersionProtocolEngineFactory _factory;
+    private final int _directWriteThreshold;
+    private final long _maxPendingWriteBytes;
 
     private Server _server;
 
@@ -101,6 +101,9 @@ class WebSocketProvider implements AcceptingTransport
     private final WebSocketIdleTimeoutChecker _idleTimeoutChecker = new WebSocketIdleTimeoutChecker();
     private final AtomicBoolean _closed = new AtomicBoolean();
 
+    private final AtomicLong _bytesWritten = new AtomicLong();
+    private final AtomicLong _bytesCopied = new AtomicLong();
+
     WebSocketProvider(final Transport transport,
                       final SSLContext sslContext,
                       final AmqpPort<?> port,
@@ -121,7 +124,8 @@ class WebSocketProvider implements AcceptingTransport
                         _port,
                         _transport);
 
-
+        _directWriteThreshold = _port.getContextValue(Integer.class, AmqpPort.WEBSOCKET_DIRECT_WRITE_THRESHOLD);
+        _maxPendingWriteBytes = _port.getContextValue(Integer.class, AmqpPort.WEBSOCKET_MAX_PENDING_WRITE_BYTES);
     }
 
     @Override
@@ -295,6 +299,97 @@ class WebSocketProvider implements AcceptingTransport
                 ((ServerConnector) server.getConnectors()[0]).getLocalPort();
     }
 
+    @Override
+    public int getMaxSelectorConnectionCount()
+    {
+        // WebSocket connections are served by Jetty rather than by selectors
+        return 0;
+    }
+
+    @Override
+    public long getSelectCount()
+    {
+        return 0L;
+    }
+
+    @Override
+    public long getSelectorWakeupCount()
+    {
+        return 0L;
+    }
+
+    @Override
+    public long getSelectLatency()
+    {
+        return 0L;
+    }
+
+    @Override
+    public long getTlsHandshakesCompleted()
+    {
+        // TLS for WebSocket ports is negotiated by Jetty
+        return 0L;
+    }
+
+    @Override
+    public long getTlsHandshakeTime()
+    {
+        return 0L;
+    }
+
+    @Override
+    public long getTlsHandshakeTaskBatchesRun()
+    {
+        return 0L;
+    }
+
+    @Override
+    public long getTlsHandshakeTasksRunOnIoThreads()
+    {
+        return 0L;
+    }
+
+    @Override
+    public long getTlsHandshakeTaskQueueTime()
+    {
+        return 0L;
+    }
+
+    @Override
+    public long getTlsHandshakeTaskTime()
+    {
+        return 0L;
+    }
+
+    @Override
+    public int getQueuedTlsHandshakeTaskBatches()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getBytesWritten()
+    {
+        return _bytesWritten.get();
+    }
+
+    @Override
+    public long getBytesCopiedForWrite()
+    {
+        return _bytesCopied.get();
+    }
+
+    @Override
+    public long getPendingWriteBytes()
+    {
+        long pendingWriteBytes = 0;
+        for (ConnectionWrapper connection : _activeConnections)
+        {
+            pendingWriteBytes += connection.getPendingWriteBytes();
+        }
+        return pendingWriteBytes;
+    }
+
     private static class QBBTrackingThreadPool extends QueuedThreadPool
     {
         private final ThreadFactory _threadFactory = QpidByteBuffer.createQpidByteBufferTrackingThreadFactory(r -> QBBTrackingThreadPool.super.newThread(r));
@@ -375,6 +470,7 @@ class WebSocketProvider implements AcceptingTransport
                         restoreApplicationBufferForWrite();
                     }
                     while(remaining > 0);
+                    _connectionWrapper.updateTransportBlockedForWriting();
 
                     if (LOGGER.isDebugEnabled())
                     {
@@ -451,6 +547,10 @@ class WebSocketProvider implements AcceptingTransport
             {
                 _protocolEngine.closed();
             }
+            if (_connectionWrapper != null)
+            {
+                _connectionWrapper.closed();
+            }
             _activeConnections.remove(_connectionWrapper);
             _idleTimeoutChecker.wakeup();
             _netInputBuffer.dispose();
@@ -462,7 +562,7 @@ class WebSocketProvider implements AcceptingTransport
         private final Session _connection;
         private final SocketAddress _localAddress;
         private final SocketAddress _remoteAddress;
-        private final ConcurrentLinkedQueue<QpidByteBuffer> _buffers = new ConcurrentLinkedQueue<>();
+        private final WebSocketWriter _writer;
         private final MultiVersionProtocolEngine _protocolEngine;
         private final ThreadPool _threadPool;
         private final Runnable _tickJob;
@@ -482,6 +582,13 @@ class WebSocketProvider implements AcceptingTransport
             _remoteAddress = remoteAddress;
             _protocolEngine = protocolEngine;
             _threadPool = threadPool;
+            _writer = new WebSocketWriter(connection,
+                                          protocolEngine,
+                                          () -> _threadPool.execute(this::doWork),
+                                          _directWriteThreshold,
+                                          _maxPendingWriteBytes,
+                                          _bytesWritten,
+                                          _bytesCopied);
             _tickJob = new Runnable()
                         {
                             @Override
@@ -516,11 +623,7 @@ class WebSocketProvider implements AcceptingTransport
         @Override
         public void send(final QpidByteBuffer msg)
         {
-            if (msg.remaining() > 0)
-            {
-                _buffers.add(msg.duplicate());
-            }
-            msg.position(msg.limit());
+            _writer.send(msg);
         }
 
         @Override
@@ -618,43 +721,22 @@ class WebSocketProvider implements AcceptingTransport
 
         public synchronized void doWrite()
         {
-            int size = 0;
-            List<QpidByteBuffer> toBeWritten = new ArrayList<>(_buffers.size());
-            QpidByteBuffer buf;
-            while((buf = _buffers.poll())!= null)
-            {
-                // TODO: For efficiency perhaps only coalesce sequential small buffers and let large buffers
-                // go alone in a binary message.  This would likely avoid the memory copies of large transfer payloads
-                size += buf.remaining();
-                toBeWritten.add(buf);
-            }
+            _writer.write();
+        }
 
-            byte[] data = new byte[size];
-            int offset = 0;
+        long getPendingWriteBytes()
+        {
+            return _writer.getPendingWriteBytes();
+        }
 
-            for(QpidByteBuffer tmp : toBeWritten)
-            {
-                int remaining = tmp.remaining();
-                tmp.get(data, offset, remaining);
-                tmp.dispose();
-                offset += remaining;
-            }
-            if(size > 0)
-            {
-                try
-                {
-                    _connection.getRemote().sendBytes(ByteBuffer.wrap(data));
-                    if (LOGGER.isDebugEnabled())
-                    {
-                        LOGGER.debug("Written {} byte(s)", data.length);
-                    }
-                }
-                catch (IOException e)
-                {
-                    LOGGER.info("Exception on write: {}", e.getMessage());
-                    close();
-                }
-            }
+        void updateTransportBlockedForWriting()
+        {
+            _writer.updateTransportBlockedForWriting();
+        }
+
+        void closed()
+        {
+            _writer.close();
         }
 
         public synchronized void doWork()
@@ -664,6 +746,8 @@ class WebSocketProvider implements AcceptingTransport
             {
                 _protocolEngine.setIOThread(Thread.currentThread());
 
+                updateTransportBlockedForWriting();
+
                 Iterator<Runnable> iter = _protocolEngine.processPendingIterator();
                 while(iter.hasNext())
                 {
@@ -671,6 +755,7 @@ class WebSocketProvider implements AcceptingTransport
                 }
 
                 doWrite();
+                updateTransportBlockedForWriting();
                 _idleTimeoutChecker.wakeup();
             }
             finally
@@ -0,0 +1,295 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport.websocket;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.transport.ProtocolEngine;
+
+/**
+ * Sends the output of a WebSocket connection asynchronously.  Buffers of at least the direct write threshold are
+ * sent without copying, each in its own binary message; runs of smaller buffers are copied into a pooled buffer and
+ * sent together.  A buffer handed to Jetty is disposed only once Jetty reports the outcome of the write, as Jetty
+ * may still be reading it until then; Jetty fails the writes still queued when the session terminates.
+ * <p>
+ * While more than the maximum number of bytes await sending the protocol engine is blocked for writing.  Once half
+ * of them have been sent the resume task is run, so that the connection is processed again.
+ */
+class WebSocketWriter
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebSocketWriter.class);
+
+    private final Session _session;
+    private final ProtocolEngine _protocolEngine;
+    private final Runnable _resumeTask;
+    private final int _directWriteThreshold;
+    private final long _maxPendingWriteBytes;
+    private final AtomicLong _bytesSent;
+    private final AtomicLong _bytesCopied;
+
+    private final ConcurrentLinkedQueue<QpidByteBuffer> _buffers = new ConcurrentLinkedQueue<>();
+    private final List<QpidByteBuffer> _smallBuffers = new ArrayList<>();
+    private final AtomicLong _pendingWriteBytes = new AtomicLong();
+    private final AtomicBoolean _writesBlocked = new AtomicBoolean();
+    private volatile boolean _closed;
+
+    WebSocketWriter(final Session session,
+                    final ProtocolEngine protocolEngine,
+                    final Runnable resumeTask,
+                    final int directWriteThreshold,
+                    final long maxPendingWriteBytes,
+                    final AtomicLong bytesSent,
+                    final AtomicLong bytesCopied)
+    {
+        _session = session;
+        _protocolEngine = protocolEngine;
+        _resumeTask = resumeTask;
+        _directWriteThreshold = directWriteThreshold;
+        _maxPendingWriteBytes = maxPendingWriteBytes;
+        _bytesSent = bytesSent;
+        _bytesCopied = bytesCopied;
+    }
+
+    void send(final QpidByteBuffer msg)
+    {
+        if (msg.remaining() > 0)
+        {
+            _buffers.add(msg.duplicate());
+            if (_closed)
+            {
+                disposeBuffers();
+            }
+        }
+        msg.position(msg.limit());
+    }
+
+    synchronized void write()
+    {
+        if (_closed)
+        {
+            disposeBuffers();
+            return;
+        }
+
+        int smallBuffersSize = 0;
+        QpidByteBuffer buf;
+        while((buf = _buffers.poll())!= null)
+        {
+            final int remaining = buf.remaining();
+            if (remaining >= _directWriteThreshold)
+            {
+                sendSmallBuffers(smallBuffersSize);
+                smallBuffersSize = 0;
+                send(buf, remaining);
+            }
+            else
+            {
+                if (smallBuffersSize + remaining > _directWriteThreshold)
+                {
+                    sendSmallBuffers(smallBuffersSize);
+                    smallBuffersSize = 0;
+                }
+                _smallBuffers.add(buf);
+                smallBuffersSize += remaining;
+            }
+        }
+        sendSmallBuffers(smallBuffersSize);
+    }
+
+    /**
+     * Disposes the buffers not yet handed to Jetty.  Those handed to Jetty are disposed as Jetty reports the
+     * outcome of their writes.
+     */
+    synchronized void close()
+    {
+        _closed = true;
+        disposeBuffers();
+    }
+
+    long getPendingWriteBytes()
+    {
+        return _pendingWriteBytes.get();
+    }
+
+    /**
+     * Stops the protocol engine producing output while more than the maximum number of bytes await sending,
+     * until half of them have been sent.  Must be called from the thread processing the connection.
+     */
+    void updateTransportBlockedForWriting()
+    {
+        boolean blocked = _pendingWriteBytes.get() > (_writesBlocked.get()
+                                                           ? _maxPendingWriteBytes / 2
+                                                           : _maxPendingWriteBytes);
+        _writesBlocked.set(blocked);
+        if (blocked
+            && _pendingWriteBytes.get() <= _maxPendingWriteBytes / 2
+            && _writesBlocked.compareAndSet(true, false))
+        {
+            // the writes completed before the block was recorded
+            blocked = false;
+        }
+        _protocolEngine.setTransportBlockedForWriting(blocked);
+    }
+
+    private void disposeBuffers()
+    {
+        QpidByteBuffer buf;
+        while((buf = _buffers.poll())!= null)
+        {
+            buf.dispose();
+        }
+    }
+
+    private void sendSmallBuffers(final int size)
+    {
+        if (_smallBuffers.size() == 1)
+        {
+            send(_smallBuffers.get(0), size);
+        }
+        else if (!_smallBuffers.isEmpty())
+        {
+            final QpidByteBuffer coalesced = QpidByteBuffer.allocateDirect(size);
+            for (QpidByteBuffer smallBuffer : _smallBuffers)
+            {
+                coalesced.put(smallBuffer);
+                smallBuffer.dispose();
+            }
+            coalesced.flip();
+            _bytesCopied.addAndGet(size);
+            send(coalesced, size);
+        }
+        _smallBuffers.clear();
+    }
+
+    private void send(final QpidByteBuffer buffer, final int size)
+    {
+        final ByteBuffer[] byteBuffers = QpidByteBuffer.asByteBuffers(buffer);
+        int parts = 0;
+        for (ByteBuffer byteBuffer : byteBuffers)
+        {
+            if (byteBuffer.hasRemaining())
+            {
+                parts++;
+            }
+        }
+
+        _pendingWriteBytes.addAndGet(size);
+        final PendingWrite pendingWrite = new PendingWrite(buffer, size, parts);
+        if (parts == 0)
+        {
+            pendingWrite.complete(true);
+        }
+        for (ByteBuffer byteBuffer : byteBuffers)
+        {
+            if (byteBuffer.hasRemaining())
+            {
+                try
+                {
+                    _session.getRemote().sendBytes(byteBuffer, pendingWrite);
+                }
+                catch (RuntimeException e)
+                {
+                    pendingWrite.writeFailed(e);
+                }
+            }
+        }
+        if (LOGGER.isDebugEnabled())
+        {
+            LOGGER.debug("Sending {} byte(s)", size);
+        }
+    }
+
+    private void writeCompleted(final PendingWrite pendingWrite, final boolean success)
+    {
+        if (success)
+        {
+            _bytesSent.addAndGet(pendingWrite._size);
+        }
+        final long pendingWriteBytes = _pendingWriteBytes.addAndGet(-pendingWrite._size);
+        if (!_closed
+            && pendingWriteBytes <= _maxPendingWriteBytes / 2
+            && _writesBlocked.compareAndSet(true, false))
+        {
+            _resumeTask.run();
+        }
+    }
+
+    /**
+     * Disposes a buffer once Jetty has reported the outcome of the write of each of its parts.
+     */
+    private class PendingWrite implements WriteCallback
+    {
+        private final QpidByteBuffer _buffer;
+        private final int _size;
+        private final AtomicInteger _outstandingParts;
+        private final AtomicBoolean _failed = new AtomicBoolean();
+
+        private PendingWrite(final QpidByteBuffer buffer, final int size, final int parts)
+        {
+            _buffer = buffer;
+            _size = size;
+            _outstandingParts = new AtomicInteger(parts);
+        }
+
+        @Override
+        public void writeFailed(final Throwable x)
+        {
+            if (_failed.compareAndSet(false, true))
+            {
+                LOGGER.info("Exception on write: {}", x.getMessage());
+                _session.close();
+            }
+            partCompleted();
+        }
+
+        @Override
+        public void writeSuccess()
+        {
+            partCompleted();
+        }
+
+        private void partCompleted()
+        {
+            if (_outstandingParts.decrementAndGet() == 0)
+            {
+                complete(!_failed.get());
+            }
+        }
+
+        private void complete(final boolean success)
+        {
+            _buffer.dispose();
+            writeCompleted(this, success);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport.websocket;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.transport.ProtocolEngine;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class WebSocketWriterTest extends QpidTestCase
+{
+    private static final int BUFFER_SIZE = 8;
+    private static final int POOL_SIZE = 64;
+    private static final double SPARSITY_FRACTION = 0.5;
+    private static final int DIRECT_WRITE_THRESHOLD = 4 * BUFFER_SIZE;
+    private static final long MAX_PENDING_WRITE_BYTES = 4 * BUFFER_SIZE;
+
+    private final List<WriteCallback> _callbacks = new ArrayList<>();
+    private final ByteArrayOutputStream _sentBytes = new ByteArrayOutputStream();
+    private final AtomicInteger _resumeCount = new AtomicInteger();
+    private final AtomicLong _bytesSent = new AtomicLong();
+    private final AtomicLong _bytesCopied = new AtomicLong();
+    private Session _session;
+    private ProtocolEngine _protocolEngine;
+    private WebSocketWriter _writer;
+    private int _buffersInUse;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        QpidByteBuffer.deinitialisePool();
+        QpidByteBuffer.initialisePool(BUFFER_SIZE, POOL_SIZE, SPARSITY_FRACTION);
+        _buffersInUse = QpidByteBuffer.getNumberOfBuffersInUse();
+
+        final RemoteEndpoint remote = mock(RemoteEndpoint.class);
+        doAnswer(invocation ->
+                 {
+                     final ByteBuffer data = (ByteBuffer) invocation.getArguments()[0];
+                     final byte[] bytes = new byte[data.remaining()];
+                     data.duplicate().get(bytes);
+                     _sentBytes.write(bytes);
+                     _callbacks.add((WriteCallback) invocation.getArguments()[1]);
+                     return null;
+                 }).when(remote).sendBytes(any(ByteBuffer.class), any(WriteCallback.class));
+        _session = mock(Session.class);
+        when(_session.getRemote()).thenReturn(remote);
+        _protocolEngine = mock(ProtocolEngine.class);
+
+        _writer = new WebSocketWriter(_session,
+                                      _protocolEngine,
+                                      _resumeCount::incrementAndGet,
+                                      DIRECT_WRITE_THRESHOLD,
+                                      MAX_PENDING_WRITE_BYTES,
+                                      _bytesSent,
+                                      _bytesCopied);
+    }
+
+    @Override
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            _writer.close();
+            super.tearDown();
+        }
+        finally
+        {
+            QpidByteBuffer.deinitialisePool();
+        }
+    }
+
+    public void testBuffersAreSentInOrder()
+    {
+        final byte[] small1 = createData('a', BUFFER_SIZE);
+        final byte[] small2 = createData('b', BUFFER_SIZE);
+        final byte[] large = createData('c', DIRECT_WRITE_THRESHOLD + BUFFER_SIZE);
+        final byte[] small3 = createData('d', BUFFER_SIZE);
+
+        send(small1, small2, large, small3);
+        _writer.write();
+
+        assertTrue("Unexpected bytes sent", Arrays.equals(concatenate(small1, small2, large, small3),
+                                                          _sentBytes.toByteArray()));
+        assertEquals("Unexpected number of bytes copied", 2 * BUFFER_SIZE, _bytesCopied.get());
+        assertEquals("Unexpected number of pending bytes",
+                     _sentBytes.size(), _writer.getPendingWriteBytes());
+
+        completeWrites();
+
+        assertEquals("Unexpected number of bytes sent", _sentBytes.size(), _bytesSent.get());
+        assertEquals("Unexpected number of pending bytes", 0, _writer.getPendingWriteBytes());
+    }
+
+    public void testBuffersAreDisposedOnceWritten()
+    {
+        send(createData('a', BUFFER_SIZE),
+             createData('b', BUFFER_SIZE),
+             createData('c', DIRECT_WRITE_THRESHOLD));
+        _writer.write();
+
+        assertTrue("Buffers awaiting sending were disposed",
+                   QpidByteBuffer.getNumberOfBuffersInUse() > _buffersInUse);
+
+        completeWrites();
+
+        assertEquals("Written buffers were not disposed", _buffersInUse, QpidByteBuffer.getNumberOfBuffersInUse());
+    }
+
+    public void testTransportBlockedWhileWritesArePending()
+    {
+        send(createData('a', DIRECT_WRITE_THRESHOLD + BUFFER_SIZE));
+        _writer.write();
+        _writer.updateTransportBlockedForWriting();
+
+        verify(_protocolEngine).setTransportBlockedForWriting(true);
+        assertEquals("Unexpected resumption", 0, _resumeCount.get());
+
+        completeWrites();
+
+        assertEquals("Connection was not resumed once the writes completed", 1, _resumeCount.get());
+
+        _writer.updateTransportBlockedForWriting();
+
+        verify(_protocolEngine).setTransportBlockedForWriting(false);
+    }
+
+    public void testTransportNotBlockedWithinLimit()
+    {
+        send(createData('a', DIRECT_WRITE_THRESHOLD));
+        _writer.write();
+        _writer.updateTransportBlockedForWriting();
+
+        verify(_protocolEngine, never()).setTransportBlockedForWriting(true);
+        verify(_protocolEngine).setTransportBlockedForWriting(false);
+    }
+
+    public void testBuffersAreDisposedOnClose()
+    {
+        send(createData('a', DIRECT_WRITE_THRESHOLD));
+        _writer.write();
+        final int buffersInUseWhileWriting = QpidByteBuffer.getNumberOfBuffersInUse();
+        send(createData('b', BUFFER_SIZE));
+
+        _writer.close();
+
+        assertEquals("Buffer awaiting sending was not disposed on close",
+                     buffersInUseWhileWriting, QpidByteBuffer.getNumberOfBuffersInUse());
+        assertEquals("Unexpected number of pending bytes",
+                     DIRECT_WRITE_THRESHOLD, _writer.getPendingWriteBytes());
+
+        // Jetty fails the writes still queued when the session terminates
+        failWrites();
+
+        assertEquals("Buffer handed to Jetty was not disposed once its write failed",
+                     _buffersInUse, QpidByteBuffer.getNumberOfBuffersInUse());
+        assertEquals("Unexpected number of pending bytes", 0, _writer.getPendingWriteBytes());
+        assertEquals("Unexpected number of bytes sent", 0, _bytesSent.get());
+        assertEquals("Unexpected resumption", 0, _resumeCount.get());
+
+        send(createData('c', BUFFER_SIZE));
+        _writer.write();
+
+        assertEquals("Buffer sent after close was not disposed",
+                     _buffersInUse, QpidByteBuffer.getNumberOfBuffersInUse());
+    }
+
+    public void testWriteFailureClosesSession()
+    {
+        send(createData('a', BUFFER_SIZE));
+        _writer.write();
+
+        failWrites();
+
+        verify(_session).close();
+        assertEquals("Unexpected number of bytes sent", 0, _bytesSent.get());
+        assertEquals("Unexpected number of pending bytes", 0, _writer.getPendingWriteBytes());
+        assertEquals("Failed buffer was not disposed", _buffersInUse, QpidByteBuffer.getNumberOfBuffersInUse());
+    }
+
+    private void send(final byte[]... data)
+    {
+        for (byte[] bytes : data)
+        {
+            final QpidByteBuffer buffer = QpidByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes);
+            buffer.flip();
+            _writer.send(buffer);
+            buffer.dispose();
+        }
+    }
+
+    private void completeWrites()
+    {
+        for (WriteCallback callback : _callbacks)
+        {
+            callback.writeSuccess();
+        }
+        _callbacks.clear();
+    }
+
+    private void failWrites()
+    {
+        for (WriteCallback callback : _callbacks)
+        {
+            callback.writeFailed(new IllegalStateException("Test"));
+        }
+        _callbacks.clear();
+    }
+
+    private byte[] createData(final char c, final int size)
+    {
+        final byte[] data = new byte[size];
+        Arrays.fill(data, (byte) c);
+        return data;
+    }
+
+    private byte[] concatenate(final byte[]... data)
+    {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (byte[] bytes : data)
+        {
+            output.write(bytes, 0, bytes.length);
+        }
+        return output.toByteArray();
+    }
+}